@@ -0,0 +1,26 @@
+"""Dynamic INT8 quantization of the forum question classifier.
+
+Quantizes the weights of every Linear layer to INT8 (activations are quantized on the fly) and traces the
+result with the same inputs DJL passes, input_ids and attention_mask. Point app.classifier.model-file at the
+output to serve it, and compare it with the FP32 model using TextClassificationAccuracyHarness first.
+
+    pip install torch transformers
+    python quantize_dynamic.py <huggingface model dir or id> [output file, default traced_model_int8.pt]
+"""
+import sys
+
+import torch
+from transformers import AutoModelForSequenceClassification, AutoTokenizer
+
+source = sys.argv[1]
+output = sys.argv[2] if len(sys.argv) > 2 else "traced_model_int8.pt"
+
+tokenizer = AutoTokenizer.from_pretrained(source)
+model = AutoModelForSequenceClassification.from_pretrained(source, torchscript=True).eval()
+quantized = torch.quantization.quantize_dynamic(model, {torch.nn.Linear}, dtype=torch.qint8)
+
+example = tokenizer("Is it normal to feel dizzy in the second trimester?", return_tensors="pt")
+with torch.no_grad():
+    traced = torch.jit.trace(quantized, (example["input_ids"], example["attention_mask"]))
+traced.save(output)
+print(f"Saved {output}")
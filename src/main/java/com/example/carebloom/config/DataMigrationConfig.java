@@ -1,8 +1,13 @@
 package com.example.carebloom.config;
 
 import com.example.carebloom.models.AddedMother;
+import com.example.carebloom.models.ClassificationCacheEntry;
 import com.example.carebloom.models.Clinic;
+import com.example.carebloom.models.ForumReply;
+import com.example.carebloom.models.ForumThread;
+import com.example.carebloom.models.MidwifeLocationPing;
 import com.example.carebloom.models.Mother;
+import com.example.carebloom.models.QueueUser;
 import com.example.carebloom.repositories.ClinicRepository;
 import com.example.carebloom.repositories.MotherRepository;
 import org.slf4j.Logger;
@@ -10,8 +15,18 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -26,6 +41,13 @@ public class DataMigrationConfig {
     @Autowired
     private MotherRepository motherRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // Models whose annotated indexes ensureIndexes() creates
+    private static final List<Class<?>> INDEXED_MODELS = List.of(Mother.class, Clinic.class,
+        ClassificationCacheEntry.class, ForumThread.class, ForumReply.class, QueueUser.class, MidwifeLocationPing.class);
+
     @EventListener(ApplicationReadyEvent.class)
     public void migrateClinicData() {
         logger.info("Starting automatic data migration for clinics...");
@@ -73,4 +95,128 @@ public class DataMigrationConfig {
             logger.error("Error during data migration:", e);
         }
     }
+
+    /**
+     * Create the indexes declared on these models. Auto index creation is off, so this is where their
+     * @Indexed/@CompoundIndex annotations take effect; the annotations are the only place the definitions live.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        IndexResolver resolver = IndexResolver.create(mongoTemplate.getConverter().getMappingContext());
+        for (Class<?> type : INDEXED_MODELS) {
+            try {
+                IndexOperations indexOps = mongoTemplate.indexOps(type);
+                resolver.resolveIndexFor(type).forEach(indexOps::createIndex);
+            } catch (Exception e) {
+                logger.error("Error ensuring indexes for {}:", type.getSimpleName(), e);
+            }
+        }
+    }
+
+    /**
+     * Backfill mothers.geoLocation for mothers saved before it existed
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateMotherGeoLocations() {
+        try {
+            Query missing = new Query(Criteria.where("geoLocation").exists(false)
+                .and("latitude").ne(null)
+                .and("longitude").ne(null));
+            missing.fields().include("latitude").include("longitude");
+            List<Mother> mothers = mongoTemplate.find(missing, Mother.class);
+            if (mothers.isEmpty()) {
+                return;
+            }
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Mother.class);
+            for (Mother mother : mothers) {
+                bulk.updateOne(new Query(Criteria.where("_id").is(mother.getId())),
+                    new Update().set("geoLocation", new GeoJsonPoint(mother.getLongitude(), mother.getLatitude())));
+            }
+            bulk.execute();
+            logger.info("✓ Backfilled geoLocation for {} mothers", mothers.size());
+
+        } catch (Exception e) {
+            logger.error("Error during mother geoLocation migration:", e);
+        }
+    }
+
+    /**
+     * Move replies still embedded in their thread into forum_replies, and backfill the reply summary of
+     * threads saved before replyCount, lastReplyAt and hasStaffReply were maintained
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateForumReplies() {
+        try {
+            Query pending = new Query(new Criteria().orOperator(
+                Criteria.where("replies").exists(true),
+                Criteria.where("replyCount").exists(false)));
+            pending.fields().include("replies");
+            List<org.bson.Document> threads = mongoTemplate.find(pending, org.bson.Document.class,
+                mongoTemplate.getCollectionName(ForumThread.class));
+            if (threads.isEmpty()) {
+                return;
+            }
+
+            BulkOperations replies = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ForumReply.class);
+            BulkOperations summaries = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ForumThread.class);
+            int movedReplies = 0;
+            for (org.bson.Document thread : threads) {
+                String threadId = thread.get("_id").toString();
+                ReplySummary summary = new ReplySummary();
+                movedReplies += flattenReplies(threadId, null, null, thread.getList("replies", org.bson.Document.class),
+                    replies, summary);
+                Update update = new Update().set("replyCount", summary.count).set("hasStaffReply", summary.hasStaffReply)
+                    .unset("replies");
+                if (summary.lastReplyAt != null) {
+                    update.set("lastReplyAt", summary.lastReplyAt);
+                }
+                summaries.updateOne(new Query(Criteria.where("_id").is(thread.get("_id"))), update);
+            }
+            // Replies first: if this stops halfway the threads still hold them and the next start redoes it
+            if (movedReplies > 0) {
+                replies.execute();
+            }
+            summaries.execute();
+            logger.info("✓ Migrated {} forum threads, moved {} replies to their own collection", threads.size(), movedReplies);
+
+        } catch (Exception e) {
+            logger.error("Error during forum reply migration:", e);
+        }
+    }
+
+    private int flattenReplies(String threadId, String parentId, String parentPath, List<org.bson.Document> embedded,
+                               BulkOperations replies, ReplySummary summary) {
+        if (embedded == null) {
+            return 0;
+        }
+        int moved = 0;
+        for (org.bson.Document doc : embedded) {
+            ForumReply reply = mongoTemplate.getConverter().read(ForumReply.class, doc);
+            reply.setThreadId(threadId);
+            reply.setParentId(parentId);
+            reply.setPath(parentPath != null ? parentPath + "/" + reply.getId() : reply.getId());
+            replies.replaceOne(new Query(Criteria.where("_id").is(reply.getId())), reply,
+                FindAndReplaceOptions.options().upsert());
+            summary.add(reply);
+            moved++;
+            moved += flattenReplies(threadId, reply.getId(), reply.getPath(),
+                doc.getList("replies", org.bson.Document.class), replies, summary);
+        }
+        return moved;
+    }
+
+    private static class ReplySummary {
+        int count;
+        LocalDateTime lastReplyAt;
+        boolean hasStaffReply;
+
+        void add(ForumReply reply) {
+            count++;
+            if (reply.getCreatedAt() != null && (lastReplyAt == null || reply.getCreatedAt().isAfter(lastReplyAt))) {
+                lastReplyAt = reply.getCreatedAt();
+            }
+            hasStaffReply |= reply.getAuthorRole() != null && reply.getAuthorRole() != ForumReply.AuthorRole.MOTHER;
+        }
+    }
 }
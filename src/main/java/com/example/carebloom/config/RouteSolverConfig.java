@@ -0,0 +1,61 @@
+package com.example.carebloom.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class RouteSolverConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(RouteSolverConfig.class);
+
+    // 0 means "one solver thread per available core"
+    @Value("${app.route-solver.pool-size:0}")
+    private int poolSize;
+
+    @Value("${app.route-solver.queue-capacity:50}")
+    private int queueCapacity;
+
+    /**
+     * Dedicated executor for OR-Tools solves so route calculations never run on Tomcat request threads.
+     * The queue is bounded; submissions beyond capacity are rejected rather than piling up native memory.
+     */
+    @Bean(name = "routeSolverExecutor")
+    public ThreadPoolTaskExecutor routeSolverExecutor() {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("route-solver-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+
+        logger.info("Route solver executor initialized: {} threads, queue capacity {}", threads, queueCapacity);
+        return executor;
+    }
+
+    /**
+     * Single thread that runs the nightly precompute batch, so its wait for the solver pool never holds up
+     * the shared scheduler thread pool. A run that finds the thread busy is rejected.
+     */
+    @Bean(name = "routePrecomputeExecutor")
+    public ThreadPoolTaskExecutor routePrecomputeExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("route-precompute-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.carebloom.controllers.admin;
+
+import com.example.carebloom.services.forum.ForumClassificationWorker;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/admin/forum/classifier")
+@CrossOrigin(origins = "${app.cors.admin-origin}")
+public class ForumClassifierController {
+
+    @Autowired
+    private ForumClassificationWorker forumClassificationWorker;
+
+    /**
+     * Queue depth, latency, batch size and inference time histograms of the forum classifier, its predictor pool and result cache
+     */
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, Object>> getMetrics() {
+        return ResponseEntity.ok(forumClassificationWorker.metrics());
+    }
+}
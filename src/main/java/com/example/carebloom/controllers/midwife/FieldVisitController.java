@@ -4,7 +4,13 @@ import com.example.carebloom.dto.midwife.FieldVisitCreateDTO;
 import com.example.carebloom.dto.midwife.FieldVisitResponseDTO;
 import com.example.carebloom.dto.midwife.CalculateVisitOrderDTO;
 import com.example.carebloom.dto.midwife.CalculateVisitOrderResponseDTO;
+import com.example.carebloom.dto.midwife.RouteOptimizationJobDTO;
+import com.example.carebloom.dto.midwife.WeeklyPlanDTO;
+import com.example.carebloom.dto.midwife.WeeklyPlanRequest;
 import com.example.carebloom.services.midwife.FieldVisitService;
+import com.example.carebloom.services.midwife.RouteOptimizationJobService;
+import com.example.carebloom.services.midwife.WeeklyVisitPlannerService;
+import com.example.carebloom.utils.SecurityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,6 +19,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -26,6 +33,12 @@ public class FieldVisitController {
     @Autowired
     private FieldVisitService fieldVisitService;
 
+    @Autowired
+    private RouteOptimizationJobService routeOptimizationJobService;
+
+    @Autowired
+    private WeeklyVisitPlannerService weeklyVisitPlannerService;
+
     @PostMapping("/field-visits")
     public ResponseEntity<?> createFieldVisit(@RequestBody FieldVisitCreateDTO createDTO) {
         try {
@@ -103,16 +116,29 @@ public class FieldVisitController {
         }
     }
 
+    /**
+     * Calculate the visit order on the route solver pool, waiting a bounded time for the result.
+     * Answers 202 with the job to poll if the calculation takes longer.
+     */
     @PostMapping("/field-visits/{id}/calculate")
-    public ResponseEntity<CalculateVisitOrderResponseDTO> calculateVisitOrder(
+    public ResponseEntity<?> calculateVisitOrder(
             @PathVariable String id,
             @RequestBody CalculateVisitOrderDTO request) {
         try {
             logger.debug("Calculating visit order for field visit ID: {}", id);
 
-            CalculateVisitOrderResponseDTO response = fieldVisitService.calculateVisitOrder(id, request);
-            
-            if (response.isSuccess()) {
+            RouteOptimizationJobDTO job =
+                routeOptimizationJobService.submitAndWait(id, request, SecurityUtils.getCurrentMidwife());
+            CalculateVisitOrderResponseDTO response = job.getResult();
+
+            if (job.getCompletedAt() == null) {
+                logger.info("Visit order calculation for field visit ID: {} still running as job {}", id, job.getJobId());
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+            } else if (response == null) {
+                logger.error("Visit order calculation job {} for field visit ID: {} failed: {}", job.getJobId(), id, job.getError());
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(calculateErrorResponse("Internal server error occurred while calculating visit order"));
+            } else if (response.isSuccess()) {
                 logger.info("Visit order calculated successfully for field visit ID: {}", id);
                 return ResponseEntity.ok(response);
             } else {
@@ -120,14 +146,102 @@ public class FieldVisitController {
                 return ResponseEntity.badRequest().body(response);
             }
 
+        } catch (org.springframework.web.server.ResponseStatusException e) {
+            logger.error("Error calculating visit order for field visit ID {}: {}", id, e.getReason());
+            return ResponseEntity.status(e.getStatusCode()).body(calculateErrorResponse(e.getReason()));
         } catch (Exception e) {
             logger.error("Unexpected error calculating visit order for field visit ID {}: {}", id, e.getMessage(), e);
-            
-            CalculateVisitOrderResponseDTO errorResponse = new CalculateVisitOrderResponseDTO();
-            errorResponse.setSuccess(false);
-            errorResponse.setMessage("Internal server error occurred while calculating visit order");
-            
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(calculateErrorResponse("Internal server error occurred while calculating visit order"));
+        }
+    }
+
+    /**
+     * Submit a visit order calculation as a background job. Returns immediately with a job ID.
+     */
+    @PostMapping("/field-visits/{id}/calculate/jobs")
+    public ResponseEntity<RouteOptimizationJobDTO> submitCalculateVisitOrderJob(
+            @PathVariable String id,
+            @RequestBody CalculateVisitOrderDTO request) {
+        try {
+            logger.debug("Submitting visit order calculation job for field visit ID: {}", id);
+
+            RouteOptimizationJobDTO job = routeOptimizationJobService.submit(id, request, SecurityUtils.getCurrentMidwife());
+
+            logger.info("Visit order calculation job {} accepted for field visit ID: {}", job.getJobId(), id);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+
+        } catch (org.springframework.web.server.ResponseStatusException e) {
+            logger.error("Error submitting visit order calculation job for field visit ID {}: {}", id, e.getReason());
+            return ResponseEntity.status(e.getStatusCode()).build();
+        } catch (Exception e) {
+            logger.error("Unexpected error submitting visit order calculation job for field visit ID {}: {}", id, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/field-visits/calculate/jobs/{jobId}")
+    public ResponseEntity<RouteOptimizationJobDTO> getCalculateVisitOrderJob(@PathVariable String jobId) {
+        try {
+            logger.debug("Getting visit order calculation job: {}", jobId);
+            return ResponseEntity.ok(routeOptimizationJobService.getJob(jobId, SecurityUtils.getCurrentMidwife()));
+
+        } catch (org.springframework.web.server.ResponseStatusException e) {
+            logger.error("Error getting visit order calculation job {}: {}", jobId, e.getReason());
+            return ResponseEntity.status(e.getStatusCode()).build();
+        } catch (Exception e) {
+            logger.error("Unexpected error getting visit order calculation job {}: {}", jobId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Server-sent event stream that pushes the job once it completes or fails
+     */
+    @GetMapping(value = "/field-visits/calculate/jobs/{jobId}/events", produces = "text/event-stream")
+    public ResponseEntity<SseEmitter> streamCalculateVisitOrderJob(@PathVariable String jobId) {
+        try {
+            logger.debug("Subscribing to visit order calculation job: {}", jobId);
+            return ResponseEntity.ok(routeOptimizationJobService.subscribe(jobId, SecurityUtils.getCurrentMidwife()));
+
+        } catch (org.springframework.web.server.ResponseStatusException e) {
+            logger.error("Error subscribing to visit order calculation job {}: {}", jobId, e.getReason());
+            return ResponseEntity.status(e.getStatusCode()).build();
+        } catch (Exception e) {
+            logger.error("Unexpected error subscribing to visit order calculation job {}: {}", jobId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/field-visits/calculate/stats")
+    public ResponseEntity<RouteOptimizationJobDTO.SolverStats> getRouteSolverStats() {
+        try {
+            return ResponseEntity.ok(routeOptimizationJobService.getStats());
+        } catch (Exception e) {
+            logger.error("Unexpected error getting route solver stats: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+
+    /**
+     * Draft field visits for the coming days, choosing the highest priority mothers that fit each shift
+     */
+    @PostMapping("/field-visits/plan-week")
+    public ResponseEntity<WeeklyPlanDTO> planWeek(@RequestBody WeeklyPlanRequest request) {
+        logger.debug("Planning weekly field visits from {}", request.getStartDate());
+        return ResponseEntity.ok(weeklyVisitPlannerService.planWeek(request, SecurityUtils.getCurrentMidwife()));
+    }
+
+    @PostMapping("/field-visits/{id}/publish")
+    public ResponseEntity<FieldVisitResponseDTO> publishDraftFieldVisit(@PathVariable String id) {
+        logger.debug("Publishing draft field visit ID: {}", id);
+        return ResponseEntity.ok(fieldVisitService.publishDraftFieldVisit(id));
+    }
+
+    private CalculateVisitOrderResponseDTO calculateErrorResponse(String message) {
+        CalculateVisitOrderResponseDTO errorResponse = new CalculateVisitOrderResponseDTO();
+        errorResponse.setSuccess(false);
+        errorResponse.setMessage(message);
+        return errorResponse;
+    }
 }
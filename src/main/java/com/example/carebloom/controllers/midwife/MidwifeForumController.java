@@ -19,8 +19,9 @@ public class MidwifeForumController {
     private ForumService forumService;
 
     @GetMapping("/threads")
-    public ResponseEntity<Page<ForumThreadSummaryDTO>> getThreads(Pageable pageable) {
-        Page<ForumThreadSummaryDTO> threads = forumService.getThreads(pageable);
+    public ResponseEntity<Page<ForumThreadSummaryDTO>> getThreads(
+            @RequestParam(required = false) ForumThread.Category category, Pageable pageable) {
+        Page<ForumThreadSummaryDTO> threads = forumService.getThreads(category, pageable);
         return ResponseEntity.ok(threads);
     }
 
@@ -0,0 +1,26 @@
+package com.example.carebloom.controllers.midwife;
+
+import com.example.carebloom.dto.midwife.LocationPingBatchDTO;
+import com.example.carebloom.services.midwife.MidwifeLocationService;
+import com.example.carebloom.utils.SecurityUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@CrossOrigin(origins = "${app.cors.midwife-origin}")
+@RequestMapping("/api/v1/midwife/location")
+public class MidwifeLocationController {
+
+    @Autowired
+    private MidwifeLocationService midwifeLocationService;
+
+    /**
+     * Upload buffered location pings; mothers on the current field visit get updated ETAs
+     */
+    @PostMapping("/pings")
+    public ResponseEntity<Void> ingestPings(@RequestBody LocationPingBatchDTO batch) {
+        midwifeLocationService.ingest(SecurityUtils.getCurrentMidwife(), batch);
+        return ResponseEntity.accepted().build();
+    }
+}
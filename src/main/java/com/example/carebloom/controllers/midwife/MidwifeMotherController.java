@@ -1,11 +1,14 @@
 package com.example.carebloom.controllers.midwife;
 
+import com.example.carebloom.dto.midwife.NearbyMotherDTO;
 import com.example.carebloom.models.HealthDetails;
 import com.example.carebloom.models.Mother;
 import com.example.carebloom.models.VitalRecord;
+import com.example.carebloom.services.midwife.MotherProximityService;
 import com.example.carebloom.services.midwife.VitalRecordService;
 import com.example.carebloom.repositories.HealthDetailsRepository;
 import com.example.carebloom.repositories.MotherRepository;
+import com.example.carebloom.utils.SecurityUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -32,6 +35,9 @@ public class MidwifeMotherController {
     @Autowired
     private VitalRecordService vitalRecordService;
 
+    @Autowired
+    private MotherProximityService motherProximityService;
+
     /**
      * Get mother health information including recent visits
      */
@@ -172,4 +178,29 @@ public class MidwifeMotherController {
         healthDetails = healthDetailsRepository.save(healthDetails);
         return ResponseEntity.ok(healthDetails);
     }
+
+    /**
+     * Office mothers near a point, nearest first
+     */
+    @GetMapping("/nearby")
+    public ResponseEntity<List<NearbyMotherDTO>> getMothersNearPoint(
+            @RequestParam double latitude,
+            @RequestParam double longitude,
+            @RequestParam(defaultValue = "5") double radiusKm,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(motherProximityService.findNearPoint(
+            SecurityUtils.getCurrentMidwife(), latitude, longitude, radiusKm, limit));
+    }
+
+    /**
+     * Office mothers near the stops of a field visit route who are not on it yet, nearest first
+     */
+    @GetMapping("/near-route/{fieldVisitId}")
+    public ResponseEntity<List<NearbyMotherDTO>> getMothersNearRoute(
+            @PathVariable String fieldVisitId,
+            @RequestParam(defaultValue = "1") double radiusKm,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(motherProximityService.findNearRoute(
+            SecurityUtils.getCurrentMidwife(), fieldVisitId, radiusKm, limit));
+    }
 }
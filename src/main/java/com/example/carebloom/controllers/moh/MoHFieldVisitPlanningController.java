@@ -0,0 +1,46 @@
+package com.example.carebloom.controllers.moh;
+
+import com.example.carebloom.dto.midwife.WeeklyPlanDTO;
+import com.example.carebloom.dto.midwife.WeeklyPlanRequest;
+import com.example.carebloom.dto.moh.OfficeRoutePlanRequest;
+import com.example.carebloom.dto.moh.OfficeRoutePlanResponseDTO;
+import com.example.carebloom.services.midwife.WeeklyVisitPlannerService;
+import com.example.carebloom.services.moh.OfficeRoutePlanningService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/moh/field-visits")
+@CrossOrigin(origins = "${app.cors.moh-origin}")
+public class MoHFieldVisitPlanningController {
+
+    @Autowired
+    private OfficeRoutePlanningService officeRoutePlanningService;
+
+    @Autowired
+    private WeeklyVisitPlannerService weeklyVisitPlannerService;
+
+    /**
+     * Plan a date's home visits across all office midwives as one multi-midwife route problem
+     */
+    @PostMapping("/plan")
+    public ResponseEntity<OfficeRoutePlanResponseDTO> planOfficeRoutes(
+            @RequestBody OfficeRoutePlanRequest request,
+            Authentication authentication) {
+        return ResponseEntity.ok(officeRoutePlanningService.planOfficeRoutes(request, authentication.getName()));
+    }
+
+    /**
+     * Draft the coming days' home visits for every active midwife of the office
+     */
+    @PostMapping("/plan-week")
+    public ResponseEntity<List<WeeklyPlanDTO>> planOfficeWeek(
+            @RequestBody WeeklyPlanRequest request,
+            Authentication authentication) {
+        return ResponseEntity.ok(weeklyVisitPlannerService.planOfficeWeek(request, authentication.getName()));
+    }
+}
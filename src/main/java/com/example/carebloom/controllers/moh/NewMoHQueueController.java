@@ -8,6 +8,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
@@ -39,6 +41,18 @@ public class NewMoHQueueController {
         }
     }
 
+    /**
+     * Server-sent event stream of queue changes for a clinic: a snapshot, then diffs
+     */
+    @GetMapping(value = "/clinics/{clinicId}/queue/events", produces = "text/event-stream")
+    public SseEmitter streamQueue(@PathVariable String clinicId) {
+        try {
+            return newQueueService.subscribeToQueue(clinicId);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
     /**
      * Start queue for a clinic
      */
@@ -53,9 +53,8 @@ public class QueueCleanupController {
     @DeleteMapping("/clinic/{clinicId}")
     public ResponseEntity<Map<String, Object>> cleanupClinicQueue(@PathVariable String clinicId) {
         try {
-            // Get count before deletion
-            long countBeforeDeletion = queueUserRepository.countByClinicId(clinicId);
-            queueUserRepository.deleteByClinicId(clinicId);
+            // Goes through the queue service so the in-memory queue is dropped as well
+            long countBeforeDeletion = newQueueService.purgeClinicQueue(clinicId);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -79,8 +78,7 @@ public class QueueCleanupController {
     @DeleteMapping("/all")
     public ResponseEntity<Map<String, Object>> cleanupAllQueues() {
         try {
-            long totalCount = queueUserRepository.count();
-            queueUserRepository.deleteAll();
+            long totalCount = newQueueService.purgeAllQueues();
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
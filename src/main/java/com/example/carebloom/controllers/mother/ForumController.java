@@ -27,8 +27,9 @@ public class ForumController {
     }
 
     @GetMapping("/threads")
-    public ResponseEntity<Page<ForumThreadSummaryDTO>> getThreads(Pageable pageable) {
-        Page<ForumThreadSummaryDTO> threads = forumService.getThreads(pageable);
+    public ResponseEntity<Page<ForumThreadSummaryDTO>> getThreads(
+            @RequestParam(required = false) ForumThread.Category category, Pageable pageable) {
+        Page<ForumThreadSummaryDTO> threads = forumService.getThreads(category, pageable);
         return ResponseEntity.ok(threads);
     }
 
@@ -10,6 +10,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
@@ -73,4 +75,17 @@ public class MotherClinicController {
                 .body(Map.of("success", false, "error", "Failed to fetch queue status"));
         }
     }
+
+    /**
+     * Server-sent event stream of the mother's own queue position, replacing polling of the queue endpoint
+     */
+    @GetMapping(value = "/{clinicId}/queue/events", produces = "text/event-stream")
+    @PreAuthorize("hasRole('MOTHER')")
+    public SseEmitter streamQueueStatus(@PathVariable String clinicId, Authentication authentication) {
+        try {
+            return motherClinicService.subscribeToQueue(clinicId, authentication.getName());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
 }
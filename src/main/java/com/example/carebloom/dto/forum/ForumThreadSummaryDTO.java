@@ -16,4 +16,6 @@ public class ForumThreadSummaryDTO {
     private LocalDateTime createdAt;
     private boolean isClosed;
     private int replyCount;
+    private LocalDateTime lastReplyAt;
+    private boolean hasStaffReply;
 }
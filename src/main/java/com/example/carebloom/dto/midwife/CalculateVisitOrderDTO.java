@@ -5,4 +5,5 @@ import lombok.Data;
 @Data
 public class CalculateVisitOrderDTO {
     private Boolean overrideUnconfirmed; // If true, proceed even with unconfirmed mothers
+    private Boolean fullRecalculation; // If true, ignore the stored schedule and solve from scratch
 }
@@ -10,6 +10,7 @@ public class CalculateVisitOrderResponseDTO {
     private List<VisitOrder> visitOrder;
     private Double totalDistance; // total distance in meters
     private Integer totalEstimatedTime; // total time in minutes
+    private RouteDelta routeDelta; // set when an existing schedule was re-optimized incrementally
     
     @Data
     public static class VisitOrder {
@@ -23,4 +24,15 @@ public class CalculateVisitOrderResponseDTO {
         private Double latitude; // mother's latitude coordinate
         private Double longitude; // mother's longitude coordinate
     }
+
+    @Data
+    public static class RouteDelta {
+        private List<String> addedMotherIds;
+        private List<String> removedMotherIds;
+        private List<String> movedNotifiedMotherIds; // notified mothers whose position changed
+        private Integer previousTravelMinutes; // previous order with added mothers inserted
+        private Integer travelMinutes;
+        private boolean keptPreviousOrder; // improvement was too small to justify moving notified mothers
+        private Long optimizationTimeMs;
+    }
 }
@@ -0,0 +1,20 @@
+package com.example.carebloom.dto.midwife;
+
+import lombok.Data;
+import java.util.List;
+
+/**
+ * Location samples buffered on the midwife's device and uploaded together
+ */
+@Data
+public class LocationPingBatchDTO {
+    private List<Ping> pings;
+
+    @Data
+    public static class Ping {
+        private Double latitude;
+        private Double longitude;
+        private Double accuracy; // meters
+        private Long recordedAt; // epoch milliseconds, device time
+    }
+}
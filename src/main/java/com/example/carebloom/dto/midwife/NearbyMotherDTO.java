@@ -0,0 +1,15 @@
+package com.example.carebloom.dto.midwife;
+
+import lombok.Data;
+
+@Data
+public class NearbyMotherDTO {
+    private String id;
+    private String name;
+    private String address;
+    private String unitId;
+    private Double latitude;
+    private Double longitude;
+    private Double distanceMeters; // from the query point, or from the nearest stop of the route
+    private String fieldVisitId; // current field visit, if any
+}
@@ -0,0 +1,33 @@
+package com.example.carebloom.dto.midwife;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+public class RouteOptimizationJobDTO {
+    private String jobId;
+    private String fieldVisitId;
+    private String status; // QUEUED, RUNNING, COMPLETED, FAILED
+    private LocalDateTime submittedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+    private Long queueWaitMs; // time spent waiting for a solver thread
+    private Long solveTimeMs; // time spent calculating the visit order
+    private String error;
+    private CalculateVisitOrderResponseDTO result; // present once COMPLETED
+
+    @Data
+    public static class SolverStats {
+        private int poolSize;
+        private int activeSolves;
+        private int queuedJobs;
+        private int queueCapacity;
+        private long submittedJobs;
+        private long completedJobs;
+        private long failedJobs;
+        private long rejectedJobs;
+        private double avgQueueWaitMs;
+        private double avgSolveTimeMs;
+        private long maxSolveTimeMs;
+    }
+}
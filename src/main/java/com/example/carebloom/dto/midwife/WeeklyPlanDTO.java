@@ -0,0 +1,26 @@
+package com.example.carebloom.dto.midwife;
+
+import lombok.Data;
+import java.util.List;
+
+/**
+ * Draft multi-day visit plan for one midwife: one DRAFT field visit per working day
+ */
+@Data
+public class WeeklyPlanDTO {
+    private String midwifeId;
+    private String startDate;
+    private String endDate;
+    private List<DayPlan> days;
+    private List<String> unplannedMotherIds; // candidates that did not fit any day
+    private boolean fellbackToSimple;
+    private long planningTimeMs;
+
+    @Data
+    public static class DayPlan {
+        private String date;
+        private String fieldVisitId;
+        private List<String> motherIds; // in visit order
+        private long totalPriority;
+    }
+}
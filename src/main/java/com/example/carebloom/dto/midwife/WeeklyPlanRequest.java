@@ -0,0 +1,16 @@
+package com.example.carebloom.dto.midwife;
+
+import lombok.Data;
+
+/**
+ * Request to draft a midwife's home visits over several days
+ */
+@Data
+public class WeeklyPlanRequest {
+    private String startDate; // YYYY-MM-DD, defaults to tomorrow
+    private Integer days; // calendar days to plan, defaults to 7 (weekends are skipped)
+    private String shiftStart; // HH:mm, defaults to 08:00
+    private String shiftEnd; // HH:mm, defaults to 17:00
+    private Double startLatitude; // optional, defaults to the centre of the midwife's mothers
+    private Double startLongitude;
+}
@@ -0,0 +1,23 @@
+package com.example.carebloom.dto.moh;
+
+import lombok.Data;
+import java.util.List;
+
+/**
+ * Request to plan home visit routes for several midwives of an MOH office at once
+ */
+@Data
+public class OfficeRoutePlanRequest {
+    private String date; // YYYY-MM-DD
+    private List<String> motherIds; // optional, defaults to all office mothers without a field visit
+    private List<MidwifeShift> midwives; // optional, defaults to all active office midwives
+
+    @Data
+    public static class MidwifeShift {
+        private String midwifeId;
+        private Double startLatitude; // optional, defaults to the centre of the midwife's mothers
+        private Double startLongitude;
+        private String shiftStart; // HH:mm, defaults to 08:00
+        private String shiftEnd; // HH:mm, defaults to 17:00
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.carebloom.dto.moh;
+
+import com.example.carebloom.dto.midwife.FieldVisitResponseDTO;
+import lombok.Data;
+import java.util.List;
+
+/**
+ * Result of office-level route planning: one field visit per midwife that received visits
+ */
+@Data
+public class OfficeRoutePlanResponseDTO {
+    private String date;
+    private List<FieldVisitResponseDTO> fieldVisits;
+    private List<String> unassignedMotherIds;
+    private boolean fellbackToSimple;
+    private long optimizationTimeMs;
+}
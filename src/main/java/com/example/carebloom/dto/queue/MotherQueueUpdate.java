@@ -0,0 +1,24 @@
+package com.example.carebloom.dto.queue;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * A mother's own view of a clinic queue, pushed whenever any of it changes
+ */
+@Data
+public class MotherQueueUpdate {
+    private String clinicId;
+    @EqualsAndHashCode.Exclude
+    private long version;
+    private boolean queueActive;
+    private Integer nowServing;
+    private int totalInQueue;
+    private boolean inQueue;
+    private Integer queueNumber;
+    private Integer place;
+    private String status;
+    private Integer estimatedWaitTime; // minutes, median estimate
+    private Integer estimatedWaitTimeP90; // minutes
+    private String estimatedTime; // HH:mm
+}
@@ -0,0 +1,35 @@
+package com.example.carebloom.dto.queue;
+
+import lombok.Data;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Queue change pushed to MoH staff. The first event of a stream is a snapshot listing every active patient;
+ * after that only patients whose place, status or wait changed are listed, plus the ids of those who left.
+ */
+@Data
+public class QueueUpdateEvent {
+    private String clinicId;
+    private long version;
+    private boolean snapshot;
+    private boolean queueActive;
+    private Integer nowServing; // queue number of the patient being served
+    private int completedToday;
+    private int totalInQueue;
+    private List<PatientPosition> updated = new ArrayList<>();
+    private List<String> removed = new ArrayList<>();
+
+    @Data
+    public static class PatientPosition {
+        private String patientId;
+        private String motherId;
+        private String name;
+        private int queueNumber;
+        private int place; // 0 while being served, then 1, 2, ... in serving order
+        private String status;
+        private int waitTime; // minutes, median estimate
+        private int waitTimeP90; // minutes
+        private String estimatedTime; // HH:mm the patient is expected to be called
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.carebloom.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Last processed position of a change stream, per app instance, so listening resumes where it stopped
+ */
+@Data
+@Document(collection = "change_stream_tokens")
+public class ChangeStreamToken {
+    @Id
+    private String id; // <instance id>:<stream name>
+    private String resumeToken; // extended JSON of the resume token document
+    private LocalDateTime updatedAt;
+}
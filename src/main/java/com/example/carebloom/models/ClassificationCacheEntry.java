@@ -0,0 +1,22 @@
+package com.example.carebloom.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Persisted text classification result, so repeated texts skip the model across restarts and instances
+ */
+@Data
+@Document(collection = "classification_cache")
+public class ClassificationCacheEntry {
+    @Id
+    private String id; // SHA-256 of the model and the normalized text
+    private String label;
+    private double probability;
+    @Indexed(name = "created_ttl_idx", expireAfter = "30d")
+    private LocalDateTime createdAt;
+}
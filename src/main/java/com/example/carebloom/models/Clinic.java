@@ -1,6 +1,8 @@
 package com.example.carebloom.models;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import lombok.Data;
 import java.time.LocalDateTime;
@@ -9,6 +11,11 @@ import java.util.ArrayList;
 
 @Data
 @Document(collection = "clinics")
+@CompoundIndexes({
+    // Multikey: finds a mother's clinics without scanning every clinic's addedMothers
+    @CompoundIndex(name = "added_mother_id_date_idx", def = "{'addedMothers.id': 1, 'date': 1}"),
+    @CompoundIndex(name = "added_mother_email_date_idx", def = "{'addedMothers.email': 1, 'date': 1}")
+})
 public class Clinic {
     @Id
     private String id;
@@ -44,4 +51,5 @@ public class Clinic {
     private String queueStatus; // open, closed, completed
     private QueueSettings queueSettings;
     private Integer completedToday = 0; // Counter for completed patients today
+    private String queueWrittenBy; // Instance whose journal last wrote the queue state
 }
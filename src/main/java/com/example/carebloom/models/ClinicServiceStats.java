@@ -0,0 +1,21 @@
+package com.example.carebloom.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Service time statistics of a clinic's queue, see ServiceTimeStats
+ */
+@Data
+@Document(collection = "clinic_service_stats")
+public class ClinicServiceStats {
+    @Id
+    private String clinicId;
+    private double ewmaSeconds;
+    private long sampleCount;
+    private long[] histogram; // sample counts per logarithmic bucket
+    private LocalDateTime updatedAt;
+}
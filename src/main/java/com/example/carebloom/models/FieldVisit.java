@@ -17,7 +17,7 @@ public class FieldVisit {
     private String startTime; // HH:MM format
     private String endTime; // HH:MM format
     private List<String> selectedMotherIds;
-    private String status; // SCHEDULED, CALCULATED,IN_PROGRESS, COMPLETED, CANCELLED
+    private String status; // DRAFT, SCHEDULED, CALCULATED,IN_PROGRESS, COMPLETED, CANCELLED
     
     // NEW: Comprehensive schedule object
     private RouteSchedule schedule;
@@ -59,6 +59,8 @@ public class FieldVisit {
             private Integer totalTravelTime; // minutes
             private Integer totalServiceTime; // minutes
             private Boolean fellbackToSimple; // if OR-Tools failed
+            private String inputFingerprint; // hash of the mothers, windows and locations the route was solved for
+            private Boolean precomputed; // solved by the nightly batch rather than on demand
         }
     }
 }
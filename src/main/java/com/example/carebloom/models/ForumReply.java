@@ -3,12 +3,17 @@ package com.example.carebloom.models;
 import lombok.Data;
 import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Data
+@Document(collection = "forum_replies")
+@CompoundIndex(name = "thread_path_idx", def = "{'threadId': 1, 'path': 1}")
 public class ForumReply {
 
     public enum AuthorRole {
@@ -19,11 +24,18 @@ public class ForumReply {
 
     @Id
     private String id = new ObjectId().toString();
+    private String threadId;
+    private String parentId; // null for a reply to the thread itself
+    // Ids from the top-level reply down to this one, joined by '/'. Sorting a thread's replies by path lists
+    // them depth first with siblings in creation order, so the tree is built in one pass.
+    private String path;
     private String content;
     private String authorId;
     private String authorName;
     private String authorProfileImage;
     private AuthorRole authorRole;
     private LocalDateTime createdAt = LocalDateTime.now();
-    private List<ForumReply> replies = new ArrayList<>();
+
+    @Transient
+    private List<ForumReply> replies = new ArrayList<>(); // children, assembled when the thread is read
 }
@@ -2,6 +2,9 @@ package com.example.carebloom.models;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -10,6 +13,12 @@ import java.util.List;
 
 @Data
 @Document(collection = "forumthreads")
+@CompoundIndexes({
+    @CompoundIndex(name = "category_created_idx", def = "{'category': 1, 'createdAt': -1}"),
+    // Only threads waiting for the classifier are indexed, which keeps the classifier sweep cheap
+    @CompoundIndex(name = "classification_pending_idx", def = "{'createdAt': 1}",
+                   partialFilter = "{'classificationPending': true}")
+})
 public class ForumThread {
     public enum Category {
         MEDICAL,
@@ -20,10 +29,17 @@ public class ForumThread {
     private String title;
     private String content;
     private Category category;
+    private boolean classificationPending; // category is a provisional MEDICAL until the classifier has run
     private String authorId;
     private String authorName;
     private String authorProfileImage;
     private LocalDateTime createdAt = LocalDateTime.now();
     private boolean isClosed = false;
-    private List<ForumReply> replies = new ArrayList<>();
+    @Transient
+    private List<ForumReply> replies = new ArrayList<>(); // stored in forum_replies, assembled when the thread is read
+
+    // Summary of the replies, updated atomically with every new reply so listings never read forum_replies
+    private int replyCount; // all replies, nested ones included
+    private LocalDateTime lastReplyAt;
+    private boolean hasStaffReply; // a midwife or MoH officer replied
 }
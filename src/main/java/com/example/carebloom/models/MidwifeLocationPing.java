@@ -0,0 +1,26 @@
+package com.example.carebloom.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * One location sample reported by a midwife's device, kept as location history
+ */
+@Data
+@Document(collection = "midwife_location_history")
+@CompoundIndex(name = "midwife_recorded_idx", def = "{'midwifeId': 1, 'recordedAt': 1}")
+public class MidwifeLocationPing {
+    @Id
+    private String id;
+    private String midwifeId;
+    private String fieldVisitId; // IN_PROGRESS visit at the time, if any
+    private double latitude;
+    private double longitude;
+    private Double accuracyMeters;
+    private LocalDateTime recordedAt; // device time
+    private LocalDateTime receivedAt; // server time
+}
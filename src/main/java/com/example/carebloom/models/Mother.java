@@ -3,7 +3,11 @@ package com.example.carebloom.models;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 
 import java.time.LocalDateTime;
@@ -41,6 +45,11 @@ public class Mother {
     private Double longitude;
     private String locationAddress; // Human-readable address for verification
 
+    // GeoJSON mirror of longitude/latitude for 2dsphere queries, maintained on save
+    @JsonIgnore
+    @GeoSpatialIndexed(name = "geoLocation_2dsphere", type = GeoSpatialIndexType.GEO_2DSPHERE)
+    private GeoJsonPoint geoLocation;
+
     private String unitId;
 
     // Profile photo fields
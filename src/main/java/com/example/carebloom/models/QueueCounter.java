@@ -0,0 +1,16 @@
+package com.example.carebloom.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+
+/**
+ * Per-clinic sequence for queue numbers, incremented atomically with findAndModify
+ */
+@Data
+@Document(collection = "queue_counters")
+public class QueueCounter {
+    @Id
+    private String clinicId;
+    private long seq;
+}
@@ -2,10 +2,12 @@ package com.example.carebloom.models;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
 @Document(collection = "queue_users")
+@CompoundIndex(name = "clinic_order_idx", def = "{'clinicId': 1, 'orderKey': 1}")
 public class QueueUser {
     @Id
     private String id;
@@ -13,10 +15,14 @@ public class QueueUser {
     private String email;
     private String motherId;
     private String clinicId;
-    private int position;
+    private int position; // queue number, handed out once from the clinic's counter
+    private long orderKey; // sparse sort key for the serving order, 0 on records written before it existed
     private String status; // waiting, in-progress, completed, no-show
     private String joinedTime; // ISO timestamp
+    private String startedTime; // ISO timestamp the appointment began, while in-progress
     private String estimatedTime; // ISO timestamp or HH:mm
-    private int waitTime; // Minutes
+    private int waitTime; // Minutes, median estimate
+    private int waitTimeP90; // Minutes, 90th percentile estimate
     private String notes;
+    private String writtenBy; // app instance that last persisted the record, for cross-instance change events
 }
@@ -0,0 +1,25 @@
+package com.example.carebloom.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Precomputed pairwise travel times between all mothers of a unit.
+ * Row i / column j follow motherIds; the coordinates the times were computed for are kept
+ * alongside so moved mothers can be detected and recomputed incrementally.
+ */
+@Data
+@Document(collection = "unit_travel_matrices")
+public class UnitTravelMatrix {
+    @Id
+    private String unitId;
+    private List<String> motherIds;
+    private List<Double> latitudes;
+    private List<Double> longitudes;
+    private byte[] travelSeconds; // size x size big-endian ints, row-major, -1 where only estimated
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,9 @@
+package com.example.carebloom.repositories;
+
+import com.example.carebloom.models.ClassificationCacheEntry;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ClassificationCacheEntryRepository extends MongoRepository<ClassificationCacheEntry, String> {
+}
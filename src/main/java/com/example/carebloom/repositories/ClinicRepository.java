@@ -4,6 +4,7 @@ import com.example.carebloom.models.Clinic;
 
 import org.springframework.data.mongodb.repository.Aggregation;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
@@ -39,5 +40,15 @@ public interface ClinicRepository extends MongoRepository<Clinic, String> {
     // Find clinics where mother is registered
     List<Clinic> findByRegisteredMotherIdsContainingAndIsActiveTrueOrderByDateAsc(String motherId);
 
+    // Clinics a mother was added to, by id or email, with just the fields of ClinicAppointmentDto.
+    // Served by the multikey addedMothers indexes; pass an empty email list to match on id only.
+    @Query(value = "{ '$or': [ { 'addedMothers.id': ?0 }, { 'addedMothers.email': { '$in': ?1 } } ] }",
+           fields = "{ '_id': 1, 'date': 1, 'startTime': 1, 'title': 1, 'doctorName': 1, 'location': 1, 'queueStatus': 1 }",
+           sort = "{ 'date': 1 }")
+    List<Clinic> findAppointmentsByAddedMother(String motherId, List<String> motherEmails);
+
+    // Clinics whose queue is running, used to rebuild the in-memory queues on startup
+    List<Clinic> findByQueueStatus(String queueStatus);
+
 
 }
\ No newline at end of file
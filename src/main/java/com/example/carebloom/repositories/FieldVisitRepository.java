@@ -14,6 +14,9 @@ public interface FieldVisitRepository extends MongoRepository<FieldVisit, String
     @Query("{'midwifeId': ?0, 'date': ?1}")
     List<FieldVisit> findByMidwifeIdAndDate(String midwifeId, String date);
     
+    @Query("{'date': ?0, 'status': ?1}")
+    List<FieldVisit> findByDateAndStatus(String date, String status);
+
     @Query("{'midwifeId': ?0, 'status': ?1}")
     List<FieldVisit> findByMidwifeIdAndStatus(String midwifeId, String status);
 
@@ -0,0 +1,17 @@
+package com.example.carebloom.repositories;
+
+import com.example.carebloom.models.ForumReply;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ForumReplyRepository extends MongoRepository<ForumReply, String> {
+
+    // Served by the threadId/path index, already in tree order
+    List<ForumReply> findByThreadIdOrderByPathAsc(String threadId);
+
+    Optional<ForumReply> findByIdAndThreadId(String id, String threadId);
+}
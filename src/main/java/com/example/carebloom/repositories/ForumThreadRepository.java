@@ -1,10 +1,14 @@
 package com.example.carebloom.repositories;
 
 import com.example.carebloom.models.ForumThread;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ForumThreadRepository extends MongoRepository<ForumThread, String> {
@@ -12,6 +16,25 @@ public interface ForumThreadRepository extends MongoRepository<ForumThread, Stri
     @Query("{'category': ?0}")
     long countByCategory(ForumThread.Category category);
     
-    @Query("{'category': ?0}")
-    List<ForumThread> findTop10ByCategoryOrderByCreatedAtDesc(ForumThread.Category category);
+    // Listing queries project the summary fields only, never the replies tree
+    String SUMMARY_FIELDS = "{'title': 1, 'category': 1, 'authorId': 1, 'authorName': 1, 'authorProfileImage': 1, "
+            + "'createdAt': 1, 'isClosed': 1, 'replyCount': 1, 'lastReplyAt': 1, 'hasStaffReply': 1}";
+
+    @Query(value = "{'_id': ?0}", fields = SUMMARY_FIELDS)
+    Optional<ForumThread> findSummaryById(String id);
+
+    @Query(value = "{}", fields = SUMMARY_FIELDS)
+    Page<ForumThread> findSummaries(Pageable pageable);
+
+    @Query(value = "{'category': ?0}", fields = SUMMARY_FIELDS)
+    Page<ForumThread> findSummariesByCategory(ForumThread.Category category, Pageable pageable);
+
+    // Newest first through the category/createdAt index; page size bounds the result
+    @Query(value = "{'category': ?0}", fields = SUMMARY_FIELDS, sort = "{'createdAt': -1}")
+    List<ForumThread> findRecentSummariesByCategory(ForumThread.Category category, Pageable pageable);
+
+    // Threads the classifier has not finished with, oldest first
+    @Query(value = "{'classificationPending': true, 'createdAt': {'$lt': ?0}}",
+           fields = "{'title': 1, 'content': 1, 'createdAt': 1}", sort = "{'createdAt': 1}")
+    List<ForumThread> findPendingClassification(LocalDateTime createdBefore, Pageable pageable);
 }
@@ -1,10 +1,15 @@
 package com.example.carebloom.repositories;
 
 import com.example.carebloom.models.Mother;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Point;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface MotherRepository extends MongoRepository<Mother, String> {
@@ -18,6 +23,13 @@ public interface MotherRepository extends MongoRepository<Mother, String> {
 
     List<Mother> findByUnitId(String UnitId);
 
+    // Only the fields needed to list field visit participants
+    @Query(value = "{ '_id': { $in: ?0 } }", fields = "{ 'name': 1, 'fieldVisitAppointment': 1 }")
+    List<Mother> findVisitSummariesByIdIn(Collection<String> ids);
+
+    // Nearest mothers of an office to a point, closest first (2dsphere index on geoLocation)
+    GeoResults<Mother> findByMohOfficeIdAndGeoLocationNear(String mohOfficeId, Point point, Distance maxDistance, Limit limit);
+
     // Get total count of mothers with accepted statuses
     @Query(value = "{ 'registrationStatus': { $in: ['complete', 'normal', 'accepted'] } }", count = true)
     long totalMothersCount();
@@ -3,12 +3,15 @@ package com.example.carebloom.repositories;
 import com.example.carebloom.models.QueueUser;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface QueueUserRepository extends MongoRepository<QueueUser, String> {
     List<QueueUser> findByClinicIdOrderByPosition(String clinicId);
+
+    List<QueueUser> findByClinicIdInOrderByPosition(Collection<String> clinicIds);
     
     List<QueueUser> findByClinicIdAndStatusOrderByPosition(String clinicId, String status);
     
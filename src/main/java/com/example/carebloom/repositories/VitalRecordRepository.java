@@ -4,9 +4,11 @@ import com.example.carebloom.models.VitalRecord;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,4 +19,8 @@ public interface VitalRecordRepository extends MongoRepository<VitalRecord, Stri
     Optional<VitalRecord> findTopByMotherIdOrderByRecordedDateDesc(String motherId);
     List<VitalRecord> findByMotherIdOrderByRecordedDateDesc(String motherId);
     List<VitalRecord> findByMotherId(String motherId);
+
+    // Visit dates only, for many mothers at once
+    @Query(value = "{'motherId': { $in: ?0 }, 'visitType': ?1}", fields = "{'motherId': 1, 'recordedDate': 1}")
+    List<VitalRecord> findVisitDatesByMotherIdInAndVisitType(Collection<String> motherIds, VitalRecord.VisitType visitType);
 }
@@ -0,0 +1,160 @@
+package com.example.carebloom.services;
+
+import ai.djl.huggingface.tokenizers.Encoding;
+import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
+import ai.djl.modality.Classifications;
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.translate.Batchifier;
+import ai.djl.translate.Translator;
+import ai.djl.translate.TranslatorContext;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Text classification translator that bounds and buckets the sequence length.
+ *
+ * A text longer than the largest bucket keeps its first headTokens and its last tokens, so both the opening
+ * question and the closing sentence of a long post reach the model. Inputs are then padded with masked [PAD]
+ * tokens up to the next bucket length (a whole batch to the bucket of its longest text). The model therefore
+ * only ever sees a handful of input shapes, which keeps the TorchScript executor's optimized graphs reusable.
+ * Outputs are mapped to labels like DJL's TextClassificationTranslator does.
+ */
+public class BucketedClassificationTranslator implements Translator<String, Classifications> {
+
+    private final HuggingFaceTokenizer tokenizer;
+    private final int[] buckets;
+    private final int headTokens;
+    private String[] labels;
+    private boolean multiLabel;
+
+    /**
+     * @param tokenizer  tokenizer that must not truncate, so the tail of long texts is still there
+     * @param buckets    allowed sequence lengths; the largest is the token limit
+     * @param headTokens tokens kept from the start of a text over the limit, [CLS] included
+     */
+    public BucketedClassificationTranslator(HuggingFaceTokenizer tokenizer, int[] buckets, int headTokens) {
+        this.tokenizer = tokenizer;
+        this.buckets = buckets.clone();
+        Arrays.sort(this.buckets);
+        int maxTokens = this.buckets[this.buckets.length - 1];
+        if (headTokens < 1 || headTokens >= maxTokens) {
+            throw new IllegalArgumentException("headTokens must be between 1 and " + (maxTokens - 1));
+        }
+        this.headTokens = headTokens;
+    }
+
+    @Override
+    public void prepare(TranslatorContext ctx) throws IOException {
+        Path config = ctx.getModel().getModelPath().resolve("config.json");
+        JsonNode root;
+        try (Reader reader = Files.newBufferedReader(config)) {
+            root = new ObjectMapper().readTree(reader);
+        }
+        JsonNode id2label = root.path("id2label");
+        labels = new String[id2label.size()];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = id2label.path(String.valueOf(i)).asText("LABEL_" + i);
+        }
+        multiLabel = "multi_label_classification".equals(root.path("problem_type").asText())
+                || labels.length == 1;
+    }
+
+    @Override
+    public NDList processInput(TranslatorContext ctx, String input) {
+        long[][] tokens = truncate(tokenizer.encode(input));
+        return toNDList(ctx.getNDManager(), tokens, bucketFor(tokens[0].length));
+    }
+
+    @Override
+    public NDList batchProcessInput(TranslatorContext ctx, List<String> inputs) {
+        Encoding[] encodings = tokenizer.batchEncode(inputs);
+        long[][][] tokens = new long[encodings.length][][];
+        int longest = 0;
+        for (int i = 0; i < encodings.length; i++) {
+            tokens[i] = truncate(encodings[i]);
+            longest = Math.max(longest, tokens[i][0].length);
+        }
+        int length = bucketFor(longest);
+        NDList[] items = new NDList[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            items[i] = toNDList(ctx.getNDManager(), tokens[i], length);
+        }
+        return Batchifier.STACK.batchify(items);
+    }
+
+    @Override
+    public Classifications processOutput(TranslatorContext ctx, NDList list) {
+        NDArray logits = list.get(0);
+        NDArray probabilities = multiLabel ? logits.getNDArrayInternal().sigmoid() : logits.softmax(-1);
+        float[] values = probabilities.toFloatArray();
+        List<String> classNames = new ArrayList<>(values.length);
+        List<Double> scores = new ArrayList<>(values.length);
+        for (int i = 0; i < values.length; i++) {
+            classNames.add(i < labels.length ? labels[i] : "LABEL_" + i);
+            scores.add((double) values[i]);
+        }
+        return new Classifications(classNames, scores);
+    }
+
+    @Override
+    public List<Classifications> batchProcessOutput(TranslatorContext ctx, NDList list) {
+        NDList[] items = Batchifier.STACK.unbatchify(list);
+        List<Classifications> results = new ArrayList<>(items.length);
+        for (NDList item : items) {
+            results.add(processOutput(ctx, item));
+        }
+        return results;
+    }
+
+    /**
+     * Ids and attention mask of the encoding, cut to the token limit by keeping its head and tail.
+     * Any padding a batch encode added is dropped first, so only real tokens are kept.
+     */
+    long[][] truncate(Encoding encoding) {
+        long[] mask = encoding.getAttentionMask();
+        int length = mask.length;
+        while (length > 0 && mask[length - 1] == 0) {
+            length--;
+        }
+        long[] ids = Arrays.copyOf(encoding.getIds(), length);
+        mask = Arrays.copyOf(mask, length);
+        int maxTokens = buckets[buckets.length - 1];
+        if (ids.length <= maxTokens) {
+            return new long[][] {ids, mask};
+        }
+        int tailTokens = maxTokens - headTokens;
+        return new long[][] {headAndTail(ids, tailTokens), headAndTail(mask, tailTokens)};
+    }
+
+    int bucketFor(int length) {
+        for (int bucket : buckets) {
+            if (length <= bucket) {
+                return bucket;
+            }
+        }
+        return buckets[buckets.length - 1];
+    }
+
+    private long[] headAndTail(long[] values, int tailTokens) {
+        long[] result = new long[headTokens + tailTokens];
+        System.arraycopy(values, 0, result, 0, headTokens);
+        System.arraycopy(values, values.length - tailTokens, result, headTokens, tailTokens);
+        return result;
+    }
+
+    private static NDList toNDList(NDManager manager, long[][] tokens, int length) {
+        // Padding positions get id 0 ([PAD]) and are masked out
+        return new NDList(manager.create(Arrays.copyOf(tokens[0], length)),
+                          manager.create(Arrays.copyOf(tokens[1], length)));
+    }
+}
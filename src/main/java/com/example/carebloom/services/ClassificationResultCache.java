@@ -0,0 +1,166 @@
+package com.example.carebloom.services;
+
+import com.example.carebloom.models.ClassificationCacheEntry;
+import com.example.carebloom.repositories.ClassificationCacheEntryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded LRU cache of classification results, keyed by a hash of the normalized text.
+ *
+ * Texts are lowercased and their whitespace collapsed before hashing, so a retried or re-posted question with
+ * different spacing or capitals is a hit. The key also covers the model in use, so switching models never
+ * serves the old model's answers. With persistence on, misses fall through to the classification_cache
+ * collection, whose entries expire after 30 days.
+ */
+@Component
+public class ClassificationResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClassificationResultCache.class);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    @Autowired(required = false)
+    private ClassificationCacheEntryRepository cacheEntryRepository;
+
+    @Value("${app.classifier.cache.max-entries:10000}")
+    private int maxEntries; // 0 disables the cache
+
+    @Value("${app.classifier.cache.persist:false}")
+    private boolean persist;
+
+    private final LinkedHashMap<String, Result> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong persistedHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public boolean isEnabled() {
+        return maxEntries > 0;
+    }
+
+    /**
+     * Cache key of a text classified by the given model
+     */
+    public String key(String model, String text) {
+        String normalized = WHITESPACE.matcher(text == null ? "" : text.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(model.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            return HexFormat.of().formatHex(digest.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Cached result for the key, or null on a miss
+     */
+    public Result get(String key) {
+        if (!isEnabled()) {
+            return null;
+        }
+        Result result;
+        synchronized (entries) {
+            result = entries.get(key);
+        }
+        if (result != null) {
+            hits.incrementAndGet();
+            return result;
+        }
+        if (persist && cacheEntryRepository != null) {
+            try {
+                ClassificationCacheEntry entry = cacheEntryRepository.findById(key).orElse(null);
+                if (entry != null) {
+                    result = new Result(entry.getLabel(), entry.getProbability());
+                    putInMemory(key, result);
+                    persistedHits.incrementAndGet();
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Failed to read persisted classification for {}: {}", key, e.getMessage());
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Remember a result the model actually produced; fallback answers must not be cached
+     */
+    public void put(String key, Result result) {
+        if (!isEnabled()) {
+            return;
+        }
+        putInMemory(key, result);
+        if (persist && cacheEntryRepository != null) {
+            try {
+                ClassificationCacheEntry entry = new ClassificationCacheEntry();
+                entry.setId(key);
+                entry.setLabel(result.label);
+                entry.setProbability(result.probability);
+                entry.setCreatedAt(LocalDateTime.now());
+                cacheEntryRepository.save(entry);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to persist classification for {}: {}", key, e.getMessage());
+            }
+        }
+    }
+
+    public Map<String, Object> metrics() {
+        long hitCount = hits.get() + persistedHits.get();
+        long lookups = hitCount + misses.get();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        synchronized (entries) {
+            metrics.put("size", entries.size());
+        }
+        metrics.put("maxEntries", maxEntries);
+        metrics.put("persist", persist);
+        metrics.put("hits", hits.get());
+        metrics.put("persistedHits", persistedHits.get());
+        metrics.put("misses", misses.get());
+        metrics.put("hitRate", lookups > 0 ? (double) hitCount / lookups : 0);
+        return metrics;
+    }
+
+    private void putInMemory(String key, Result result) {
+        synchronized (entries) {
+            entries.put(key, result);
+            if (entries.size() > maxEntries) {
+                // Access order: the first entry is the least recently used
+                entries.remove(entries.keySet().iterator().next());
+            }
+        }
+    }
+
+    public static class Result {
+        final String label;
+        final double probability;
+
+        public Result(String label, double probability) {
+            this.label = label;
+            this.probability = probability;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public double getProbability() {
+            return probability;
+        }
+    }
+}
@@ -206,6 +206,26 @@ public class FcmMessagingService {
         return sendNotificationToMother(motherId, title, body, data);
     }
     
+    /**
+     * Send an updated midwife arrival estimate for an in-progress field visit
+     */
+    public boolean sendFieldVisitEtaNotification(String fcmToken, String fieldVisitId, String eta, long minutesAway) {
+        String title = "Midwife On The Way 🚗";
+        String body = minutesAway <= 0
+            ? "Your midwife is arriving now"
+            : String.format("Your midwife is expected around %s (about %d min)", eta, minutesAway);
+
+        Map<String, String> data = Map.of(
+            "type", "field_visit_eta",
+            "action", "navigate_to_appointments",
+            "fieldVisitId", fieldVisitId,
+            "eta", eta,
+            "minutesAway", String.valueOf(minutesAway)
+        );
+
+        return sendNotification(fcmToken, title, body, data);
+    }
+    
     /**
      * Send health tip notification
      */
@@ -8,15 +8,24 @@ import com.example.carebloom.models.ForumThread;
 import com.example.carebloom.models.Midwife;
 import com.example.carebloom.models.MoHOfficeUser;
 import com.example.carebloom.models.Mother;
+import com.example.carebloom.repositories.ForumReplyRepository;
 import com.example.carebloom.repositories.ForumThreadRepository;
+import com.example.carebloom.services.forum.ForumClassificationWorker;
 import com.example.carebloom.utils.SecurityUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,7 +38,13 @@ public class ForumService {
     private ForumThreadRepository forumThreadRepository;
 
     @Autowired
-    private TextClassificationService textClassificationService;
+    private ForumClassificationWorker forumClassificationWorker;
+
+    @Autowired
+    private ForumReplyRepository forumReplyRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
 
     public ForumThread createThread(CreateForumThreadRequest request) {
         logger.info("Creating new forum thread. Title: '{}', Content length: {} chars", 
@@ -45,52 +60,33 @@ public class ForumService {
         thread.setAuthorName(mother.getName());
         thread.setAuthorProfileImage(mother.getProfilePhotoUrl());
 
-        // Determine category
-        boolean isMedical;
-        if (request.getIsMedical() != null && request.getIsMedical() == true) {
+        boolean classify = request.getIsMedical() == null || !request.getIsMedical();
+        if (!classify) {
             // User explicitly marked as medical - trust the user, no need for AI
             logger.info("User explicitly marked thread as MEDICAL - skipping AI classification");
-            isMedical = true;
+        } else if (request.getIsMedical() != null) {
+            logger.info("User marked as NON-MEDICAL, but using AI model to double-check for safety");
         } else {
-            // Either user marked as non-medical (false) or didn't specify (null)
-            // In both cases, use AI to classify for safety
-            if (request.getIsMedical() != null && request.getIsMedical() == false) {
-                logger.info("User marked as NON-MEDICAL, but using AI model to double-check for safety");
-            } else {
-                logger.info("No medical classification provided, using AI model to determine category");
-            }
-            
-            boolean aiClassification = isMedicalQuestion(request.getTitle(), request.getContent());
-            
-            if (request.getIsMedical() != null && request.getIsMedical() == false && aiClassification == true) {
-                // User said non-medical, but AI detected medical - prioritize safety
-                logger.warn("User classified as NON-MEDICAL but AI detected MEDICAL content - defaulting to MEDICAL for safety");
-                isMedical = true;
-            } else {
-                // Use AI classification result
-                isMedical = aiClassification;
-            }
+            logger.info("No medical classification provided, using AI model to determine category");
         }
-        
-        ForumThread.Category category = isMedical ? ForumThread.Category.MEDICAL : ForumThread.Category.NON_MEDICAL;
-        thread.setCategory(category);
-        logger.info("Thread categorized as: {}", category);
+
+        // Until the classifier has run the thread is treated as medical, so mothers cannot reply to it yet
+        thread.setCategory(ForumThread.Category.MEDICAL);
+        thread.setClassificationPending(classify);
 
         ForumThread savedThread = forumThreadRepository.save(thread);
         logger.info("Forum thread created successfully with ID: {}", savedThread.getId());
+
+        if (classify) {
+            forumClassificationWorker.submit(savedThread.getId(),
+                    ForumClassificationWorker.classificationText(request.getTitle(), request.getContent()));
+        }
         
         return savedThread;
     }
 
     public ForumThread addReply(String threadId, CreateReplyRequest request) {
         Mother mother = SecurityUtils.getCurrentMother();
-        ForumThread thread = forumThreadRepository.findById(threadId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Forum thread not found"));
-
-        // Check if the thread is medical
-        if (thread.getCategory() == ForumThread.Category.MEDICAL) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Mothers can only reply to non-medical threads.");
-        }
 
         ForumReply reply = new ForumReply();
         reply.setContent(request.getContent());
@@ -99,37 +95,12 @@ public class ForumService {
         reply.setAuthorProfileImage(mother.getProfilePhotoUrl());
         reply.setAuthorRole(ForumReply.AuthorRole.MOTHER);
 
-        if (request.getPath() == null || request.getPath().isEmpty()) {
-            // Replying to the main thread
-            thread.getReplies().add(reply);
-        } else {
-            // Replying to a nested reply
-            List<ForumReply> replies = thread.getReplies();
-            ForumReply parentReply = null;
-
-            for (String replyId : request.getPath()) {
-                parentReply = replies.stream()
-                        .filter(r -> r.getId().equals(replyId))
-                        .findFirst()
-                        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Parent reply not found in path"));
-                replies = parentReply.getReplies();
-            }
-
-            if (parentReply != null) {
-                parentReply.getReplies().add(reply);
-            } else {
-                // This case should ideally not be reached if path is not empty
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid reply path");
-            }
-        }
-
-        return forumThreadRepository.save(thread);
+        // Mothers can only reply to non-medical threads
+        return appendReply(threadId, request.getPath(), reply, true);
     }
 
     public ForumThread addReplyAsMoh(String threadId, CreateReplyRequest request) {
         MoHOfficeUser mohUser = SecurityUtils.getCurrentMohUser();
-        ForumThread thread = forumThreadRepository.findById(threadId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Forum thread not found"));
 
         ForumReply reply = new ForumReply();
         reply.setContent(request.getContent());
@@ -138,36 +109,11 @@ public class ForumService {
         reply.setAuthorProfileImage(null); // MoH users don't have profile images in this model
         reply.setAuthorRole(ForumReply.AuthorRole.MOH_OFFICE);
 
-        if (request.getPath() == null || request.getPath().isEmpty()) {
-            // Replying to the main thread
-            thread.getReplies().add(reply);
-        } else {
-            // Replying to a nested reply
-            List<ForumReply> replies = thread.getReplies();
-            ForumReply parentReply = null;
-
-            for (String replyId : request.getPath()) {
-                parentReply = replies.stream()
-                        .filter(r -> r.getId().equals(replyId))
-                        .findFirst()
-                        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Parent reply not found in path"));
-                replies = parentReply.getReplies();
-            }
-
-            if (parentReply != null) {
-                parentReply.getReplies().add(reply);
-            } else {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid reply path");
-            }
-        }
-
-        return forumThreadRepository.save(thread);
+        return appendReply(threadId, request.getPath(), reply, false);
     }
 
     public ForumThread addReplyAsMidwife(String threadId, CreateReplyRequest request) {
         Midwife midwife = SecurityUtils.getCurrentMidwife();
-        ForumThread thread = forumThreadRepository.findById(threadId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Forum thread not found"));
 
         ForumReply reply = new ForumReply();
         reply.setContent(request.getContent());
@@ -176,39 +122,81 @@ public class ForumService {
         reply.setAuthorProfileImage(null); // Midwives may not have profile images
         reply.setAuthorRole(ForumReply.AuthorRole.MIDWIFE);
 
-        if (request.getPath() == null || request.getPath().isEmpty()) {
+        return appendReply(threadId, request.getPath(), reply, false);
+    }
+
+    /**
+     * Store the reply in forum_replies under the thread, or under the reply at the end of the path of reply ids,
+     * as a single insert. The thread document is only touched by an atomic update of its reply summary.
+     */
+    private ForumThread appendReply(String threadId, List<String> path, ForumReply reply, boolean nonMedicalOnly) {
+        ForumThread thread = forumThreadRepository.findSummaryById(threadId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Forum thread not found"));
+        if (nonMedicalOnly && thread.getCategory() == ForumThread.Category.MEDICAL) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Mothers can only reply to non-medical threads.");
+        }
+
+        reply.setThreadId(threadId);
+        if (path == null || path.isEmpty()) {
             // Replying to the main thread
-            thread.getReplies().add(reply);
+            reply.setPath(reply.getId());
         } else {
-            // Replying to a nested reply
-            List<ForumReply> replies = thread.getReplies();
-            ForumReply parentReply = null;
-
-            for (String replyId : request.getPath()) {
-                parentReply = replies.stream()
-                        .filter(r -> r.getId().equals(replyId))
-                        .findFirst()
-                        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Parent reply not found in path"));
-                replies = parentReply.getReplies();
-            }
+            // Replying to a nested reply: the parent's stored path must be the path we were given
+            ForumReply parent = forumReplyRepository.findByIdAndThreadId(path.get(path.size() - 1), threadId)
+                    .filter(p -> String.join("/", path).equals(p.getPath()))
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Parent reply not found in path"));
+            reply.setParentId(parent.getId());
+            reply.setPath(parent.getPath() + "/" + reply.getId());
+        }
+        forumReplyRepository.insert(reply);
 
-            if (parentReply != null) {
-                parentReply.getReplies().add(reply);
-            } else {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid reply path");
-            }
+        Update summary = new Update()
+                .inc("replyCount", 1)
+                .max("lastReplyAt", reply.getCreatedAt());
+        if (reply.getAuthorRole() != ForumReply.AuthorRole.MOTHER) {
+            summary.set("hasStaffReply", true);
         }
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(threadId)), summary, ForumThread.class);
 
-        return forumThreadRepository.save(thread);
+        return getThreadById(threadId);
     }
 
     public ForumThread getThreadById(String threadId) {
-        return forumThreadRepository.findById(threadId)
+        ForumThread thread = forumThreadRepository.findById(threadId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Forum thread not found"));
+        thread.setReplies(buildReplyTree(forumReplyRepository.findByThreadIdOrderByPathAsc(threadId)));
+        return thread;
+    }
+
+    /**
+     * Nest the replies under their parents. In path order every parent comes before its children.
+     */
+    private List<ForumReply> buildReplyTree(List<ForumReply> replies) {
+        List<ForumReply> roots = new ArrayList<>();
+        Map<String, ForumReply> byId = new HashMap<>();
+        for (ForumReply reply : replies) {
+            byId.put(reply.getId(), reply);
+            ForumReply parent = reply.getParentId() != null ? byId.get(reply.getParentId()) : null;
+            if (parent != null) {
+                parent.getReplies().add(reply);
+            } else {
+                roots.add(reply);
+            }
+        }
+        return roots;
     }
 
     public Page<ForumThreadSummaryDTO> getThreads(Pageable pageable) {
-        Page<ForumThread> threads = forumThreadRepository.findAll(pageable);
+        return getThreads(null, pageable);
+    }
+
+    /**
+     * One page of thread summaries, optionally of one category. Only the summary fields are read.
+     */
+    public Page<ForumThreadSummaryDTO> getThreads(ForumThread.Category category, Pageable pageable) {
+        Page<ForumThread> threads = category != null
+                ? forumThreadRepository.findSummariesByCategory(category, pageable)
+                : forumThreadRepository.findSummaries(pageable);
         return threads.map(this::convertToSummaryDTO);
     }
 
@@ -222,45 +210,9 @@ public class ForumService {
         dto.setAuthorProfileImage(thread.getAuthorProfileImage());
         dto.setCreatedAt(thread.getCreatedAt());
         dto.setClosed(thread.isClosed());
-        dto.setReplyCount(thread.getReplies() != null ? thread.getReplies().size() : 0);
+        dto.setReplyCount(thread.getReplyCount());
+        dto.setLastReplyAt(thread.getLastReplyAt());
+        dto.setHasStaffReply(thread.isHasStaffReply());
         return dto;
     }
-
-    /**
-     * Uses AI model to detect if a question is medical.
-     * @param title The title of the thread.
-     * @param content The content of the thread.
-     * @return True if the question is determined to be medical, false otherwise.
-     */
-    private boolean isMedicalQuestion(String title, String content) {
-        logger.debug("Starting AI medical question classification");
-        logger.debug("Input - Title: '{}'", title);
-        logger.debug("Input - Content: '{}'", content != null ? content.substring(0, Math.min(100, content.length())) + "..." : "null");
-        
-        try {
-            // Combine title and content for classification
-            String fullText = title + " " + content;
-            logger.debug("Combined text length: {} characters", fullText.length());
-            
-            // Use the AI model to classify the text
-            logger.info("Calling AI model for text classification...");
-            String classification = textClassificationService.predict(fullText);
-            logger.info("AI model returned classification: '{}'", classification);
-            
-            // Assuming the model returns "MEDICAL" or "NON_MEDICAL" (adjust based on your model's output)
-            // You may need to adjust this logic based on what your model actually returns
-            boolean isMedical = "MEDICAL".equalsIgnoreCase(classification) || 
-                               "1".equals(classification) || 
-                               classification.toLowerCase().contains("medical");
-            
-            logger.info("Final classification result: {} (isMedical: {})", classification, isMedical);
-            return isMedical;
-                   
-        } catch (Exception e) {
-            // If AI model fails, default to treating as medical for safety
-            // This ensures medical questions don't get misclassified as non-medical
-            logger.error("Error in AI classification, defaulting to medical for safety. Error: {}", e.getMessage(), e);
-            return true;
-        }
-    }
 }
@@ -0,0 +1,166 @@
+package com.example.carebloom.services;
+
+import com.example.carebloom.models.Mother;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import lombok.Data;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Partial updates fanned out over many mothers. Each update $sets only the given subfields and all of
+ * them go to Mongo as one unordered bulk write, instead of rewriting every Mother document with save().
+ *
+ * Bulk writes skip Mother mapping events and auditing: updatedAt is set here, and location fields must
+ * still go through save() so the geo point and unit travel matrices stay in sync.
+ */
+@Service
+public class MotherBulkUpdateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MotherBulkUpdateService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Apply the updates in one unordered bulk write and report the outcome per mother
+     */
+    public BulkUpdateResult apply(List<MotherUpdate> updates) {
+        BulkUpdateResult result = new BulkUpdateResult();
+        if (updates.isEmpty()) {
+            return result;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Mother.class);
+        for (MotherUpdate update : updates) {
+            operations.updateOne(new Query(update.criteria()), update.update.set("updatedAt", now));
+        }
+
+        Set<Integer> failedIndexes = new HashSet<>();
+        long matched;
+        try {
+            BulkWriteResult writeResult = operations.execute();
+            matched = writeResult.getMatchedCount();
+            result.setModifiedCount(writeResult.getModifiedCount());
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                failedIndexes.add(error.getIndex());
+                logger.warn("Bulk update failed for mother {}: {}", updates.get(error.getIndex()).motherId, error.getMessage());
+            }
+            matched = e.getResult().getMatchedCount();
+            result.setModifiedCount(e.getResult().getModifiedCount());
+        } catch (RuntimeException e) {
+            logger.error("Bulk update of {} mothers failed: {}", updates.size(), e.getMessage(), e);
+            for (MotherUpdate update : updates) {
+                result.getOutcomes().put(update.motherId, Outcome.FAILED);
+            }
+            result.setFailedCount(updates.size());
+            return result;
+        }
+
+        List<MotherUpdate> written = new ArrayList<>();
+        for (int i = 0; i < updates.size(); i++) {
+            if (failedIndexes.contains(i)) {
+                result.getOutcomes().put(updates.get(i).motherId, Outcome.FAILED);
+            } else {
+                written.add(updates.get(i));
+            }
+        }
+
+        // The bulk result only has totals; look up which documents matched only when some did not
+        Set<String> matchedIds = matched == written.size() ? null : findMatchingIds(written);
+        for (MotherUpdate update : written) {
+            boolean applied = matchedIds == null || matchedIds.contains(update.motherId);
+            result.getOutcomes().put(update.motherId, applied ? Outcome.APPLIED : Outcome.NOT_MATCHED);
+        }
+
+        result.setMatchedCount(matched);
+        result.setFailedCount(failedIndexes.size());
+        logger.debug("Bulk updated {} mothers: {} matched, {} modified, {} failed",
+                    updates.size(), matched, result.getModifiedCount(), failedIndexes.size());
+        return result;
+    }
+
+    private Set<String> findMatchingIds(List<MotherUpdate> updates) {
+        Set<String> ids = new HashSet<>();
+        if (updates.isEmpty()) {
+            return ids;
+        }
+        Query query = new Query(new Criteria().orOperator(updates.stream().map(MotherUpdate::criteria).toArray(Criteria[]::new)));
+        query.fields().include("_id");
+        for (Mother mother : mongoTemplate.find(query, Mother.class)) {
+            ids.add(mother.getId());
+        }
+        return ids;
+    }
+
+    public enum Outcome {
+        APPLIED,     // document matched and the update was written
+        NOT_MATCHED, // mother missing, or the guard no longer holds
+        FAILED       // write error
+    }
+
+    /**
+     * $set of some subfields on one mother, optionally guarded on her current field visit
+     */
+    public static class MotherUpdate {
+        private final String motherId;
+        private final Update update = new Update();
+        private String expectedVisitId;
+
+        private MotherUpdate(String motherId) {
+            this.motherId = motherId;
+        }
+
+        public static MotherUpdate of(String motherId) {
+            return new MotherUpdate(motherId);
+        }
+
+        public MotherUpdate set(String path, Object value) {
+            update.set(path, value);
+            return this;
+        }
+
+        /**
+         * Only apply while the mother's appointment still belongs to this field visit
+         */
+        public MotherUpdate onlyIfVisit(String visitId) {
+            this.expectedVisitId = visitId;
+            return this;
+        }
+
+        private Criteria criteria() {
+            Criteria criteria = Criteria.where("_id").is(motherId);
+            return expectedVisitId == null ? criteria : criteria.and("fieldVisitAppointment.visitId").is(expectedVisitId);
+        }
+    }
+
+    @Data
+    public static class BulkUpdateResult {
+        private Map<String, Outcome> outcomes = new LinkedHashMap<>();
+        private long matchedCount;
+        private long modifiedCount;
+        private long failedCount;
+
+        public long count(Outcome outcome) {
+            return outcomes.values().stream().filter(outcome::equals).count();
+        }
+    }
+}
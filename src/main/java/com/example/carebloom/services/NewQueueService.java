@@ -1,61 +1,86 @@
 package com.example.carebloom.services;
 
 import com.example.carebloom.dto.queue.QueueUserDto;
-import com.example.carebloom.models.Clinic;
 import com.example.carebloom.models.QueueUser;
-import com.example.carebloom.repositories.ClinicRepository;
 import com.example.carebloom.repositories.QueueUserRepository;
+import com.example.carebloom.services.queue.ClinicQueue;
+import com.example.carebloom.services.queue.ClinicQueueEngine;
+import com.example.carebloom.services.queue.QueueEventPublisher;
+import com.example.carebloom.services.queue.QueueSequenceService;
+import com.example.carebloom.services.queue.ServiceTimeStats;
+import com.example.carebloom.services.queue.QueueWriteBehindJournal;
+import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
 import java.util.Optional;
 
+/**
+ * Clinic queue operations. Queues are served from memory by ClinicQueueEngine and persisted write-behind
+ * through QueueWriteBehindJournal; opening and closing a queue flush the journal so other readers of
+ * Clinic.queueStatus see the change straight away.
+ */
 @Service
-@Transactional
 public class NewQueueService {
     private static final Logger logger = LoggerFactory.getLogger(NewQueueService.class);
+    // Longer than this between start and completion means the patient was not closed off at the time
+    private static final long MAX_SERVICE_SECONDS = 4 * 3600;
+    
+    @Autowired
+    private ClinicQueueEngine clinicQueueEngine;
+    
+    @Autowired
+    private QueueWriteBehindJournal queueJournal;
+    
+    @Autowired
+    private QueueSequenceService queueSequence;
     
     @Autowired
-    private ClinicRepository clinicRepository;
+    private QueueEventPublisher queueEvents;
     
     @Autowired
     private QueueUserRepository queueUserRepository;
 
+    @Value("${app.clinic-queue.service-time-ewma-alpha:0.2}")
+    private double serviceTimeEwmaAlpha;
+
     /**
      * Start an empty queue for a clinic
      */
     public Map<String, Object> startQueue(String clinicId) {
         logger.info("Starting new empty queue for clinic: {}", clinicId);
         
-        // Validate clinic exists
-        Optional<Clinic> clinicOpt = clinicRepository.findById(clinicId);
-        if (clinicOpt.isEmpty()) {
-            throw new IllegalArgumentException("Clinic not found");
-        }
-        
-        Clinic clinic = clinicOpt.get();
-        
-        // Check if queue is already active
-        if ("open".equals(clinic.getQueueStatus())) {
-            throw new IllegalStateException("Queue is already active for this clinic");
-        }
-        
-        // Always clear any existing queue data (including old completed/no-show patients from previous sessions)
-        // This ensures a clean start for each queue session
-        queueUserRepository.deleteByClinicId(clinicId);
-        logger.info("Cleared all existing queue data for clinic: {} (including old completed/no-show patients)", clinicId);
-        
-        // Reset completed count for the day
-        clinic.setCompletedToday(0);
-        clinic.setQueueStatus("open");
-        clinicRepository.save(clinic);
+        clinicQueueEngine.withQueue(clinicId, queue -> {
+            // Check if queue is already active
+            if (queue.isOpen()) {
+                throw new IllegalStateException("Queue is already active for this clinic");
+            }
+            
+            // Always clear any existing queue data (including old completed/no-show patients from previous sessions)
+            // This ensures a clean start for each queue session
+            queue.clear();
+            queueJournal.deleteClinic(clinicId);
+            queueSequence.reset(clinicId);
+            logger.info("Cleared all existing queue data for clinic: {} (including old completed/no-show patients)", clinicId);
+            
+            // Reset completed count for the day
+            queue.setCompletedToday(0);
+            queue.setQueueStatus("open");
+            queueJournal.clinicState(clinicId, "open", 0);
+            queueEvents.record(queue);
+            return null;
+        });
+        queueEvents.dispatch(clinicId);
+        queueJournal.flush();
         
         logger.info("Empty queue started successfully for clinic: {}", clinicId);
         
@@ -76,106 +101,135 @@ public class NewQueueService {
      * Get current queue status
      */
     public Map<String, Object> getQueueStatus(String clinicId) {
-        Optional<Clinic> clinicOpt = clinicRepository.findById(clinicId);
-        if (clinicOpt.isEmpty()) {
-            throw new IllegalArgumentException("Clinic not found");
+        return clinicQueueEngine.withQueue(clinicId, this::buildStatus);
+    }
+
+    private Map<String, Object> buildStatus(ClinicQueue queue) {
+        List<QueueUser> waitingPatients = new ArrayList<>(queue.waitingCount());
+        for (QueueUser user : queue.getWaiting()) {
+            if ("waiting".equals(user.getStatus())) {
+                waitingPatients.add(ClinicQueue.snapshot(user));
+            }
         }
         
-        Clinic clinic = clinicOpt.get();
-        boolean isActive = "open".equals(clinic.getQueueStatus());
-        
-        // Get all queue users for this clinic, ordered by position
-        List<QueueUser> queueUsers = queueUserRepository.findByClinicIdOrderByPosition(clinicId);
-        
-        // Find current patient (status = "in-progress")
-        QueueUser currentPatient = queueUsers.stream()
-            .filter(user -> "in-progress".equals(user.getStatus()))
-            .findFirst()
-            .orElse(null);
-        
-        // Get waiting patients
-        List<QueueUser> waitingPatients = queueUsers.stream()
-            .filter(user -> "waiting".equals(user.getStatus()))
-            .toList();
-        
-        Integer completedCount = clinic.getCompletedToday() != null ? clinic.getCompletedToday() : 0;
-        logger.info("Queue status for clinic {}: {} patients in queue, {} completed today", 
-                   clinicId, queueUsers.size(), completedCount);
+        logger.debug("Queue status for clinic {}: {} patients in queue, {} completed today", 
+                    queue.getClinicId(), queue.size(), queue.getCompletedToday());
         
         Map<String, Object> response = new HashMap<>();
-        response.put("clinicId", clinicId);
-        response.put("isActive", isActive);
-        response.put("currentPatient", currentPatient);
+        response.put("clinicId", queue.getClinicId());
+        response.put("isActive", queue.isOpen());
+        response.put("currentPatient", ClinicQueue.snapshot(queue.getCurrent()));
         response.put("waitingQueue", waitingPatients);
-        response.put("totalPatients", queueUsers.size());
-        response.put("completedToday", completedCount);
+        response.put("totalPatients", queue.size());
+        response.put("completedToday", queue.getCompletedToday());
         
         return response;
     }
 
+    /**
+     * Stream of queue changes for MoH staff: a snapshot first, then diffs as patients join, move and leave
+     */
+    public SseEmitter subscribeToQueue(String clinicId) {
+        SseEmitter emitter = clinicQueueEngine.withQueue(clinicId, queueEvents::subscribeStaff);
+        queueEvents.dispatch(clinicId);
+        return emitter;
+    }
+
+    /**
+     * Stream of one mother's own queue position, matched on mother id or email like the status endpoint
+     */
+    public SseEmitter subscribeMotherToQueue(String clinicId, String motherId, String motherEmail) {
+        SseEmitter emitter = clinicQueueEngine.withQueue(clinicId,
+            queue -> queueEvents.subscribeMother(queue, motherId, motherEmail));
+        queueEvents.dispatch(clinicId);
+        return emitter;
+    }
+
+    /**
+     * Find a mother's queue record in a clinic, whatever its status
+     */
+    public Optional<QueueUser> findPatientByMother(String clinicId, String motherId) {
+        return Optional.ofNullable(clinicQueueEngine.withQueue(clinicId,
+            queue -> ClinicQueue.snapshot(queue.findByMotherId(motherId))));
+    }
+
+    /**
+     * Queue position of the patient being served, or null
+     */
+    public Integer getCurrentQueueNumber(String clinicId) {
+        return clinicQueueEngine.withQueue(clinicId,
+            queue -> queue.getCurrent() != null ? queue.getCurrent().getPosition() : null);
+    }
+
+    /**
+     * Number of waiting and in-progress patients
+     */
+    public long countActivePatients(String clinicId) {
+        return clinicQueueEngine.withQueue(clinicId,
+            queue -> (long) queue.waitingCount() + (queue.getCurrent() != null ? 1 : 0));
+    }
+
     /**
      * Add a patient to the queue
      */
     public Map<String, Object> addPatientToQueue(String clinicId, QueueUserDto patientDto) {
         logger.info("Adding patient to queue: {} for clinic: {}", patientDto.getName(), clinicId);
         
-        // Validate clinic and queue status
-        Optional<Clinic> clinicOpt = clinicRepository.findById(clinicId);
-        if (clinicOpt.isEmpty()) {
-            throw new IllegalArgumentException("Clinic not found");
-        }
-        
-        Clinic clinic = clinicOpt.get();
-        if (!"open".equals(clinic.getQueueStatus())) {
-            throw new IllegalStateException("Queue is not currently open");
-        }
-        
-        // Check if patient already in queue (only check for active patients: waiting or in-progress)
-        Optional<QueueUser> existingUser = queueUserRepository.findByMotherIdAndClinicId(patientDto.getMotherId(), clinicId);
-        if (existingUser.isPresent()) {
-            QueueUser existing = existingUser.get();
-            // Only prevent adding if patient is currently waiting or in-progress
-            // Allow re-adding completed or no-show patients
-            if ("waiting".equals(existing.getStatus()) || "in-progress".equals(existing.getStatus())) {
-                throw new IllegalStateException("Patient is already in the queue");
-            } else {
+        QueueUser added = clinicQueueEngine.withQueue(clinicId, queue -> {
+            if (!queue.isOpen()) {
+                throw new IllegalStateException("Queue is not currently open");
+            }
+            
+            // Check if patient already in queue (only check for active patients: waiting or in-progress)
+            QueueUser existing = queue.findByMotherId(patientDto.getMotherId());
+            if (existing != null) {
+                // Only prevent adding if patient is currently waiting or in-progress
+                // Allow re-adding completed or no-show patients
+                if ("waiting".equals(existing.getStatus()) || "in-progress".equals(existing.getStatus())) {
+                    throw new IllegalStateException("Patient is already in the queue");
+                }
                 // Patient was completed/no-show, remove old record and allow re-adding
                 logger.info("Removing old {} patient {} to allow re-adding", existing.getStatus(), existing.getName());
-                queueUserRepository.delete(existing);
+                queue.remove(existing.getId());
+                queueJournal.delete(existing);
             }
-        }
-        
-        // Check if there's already a patient in-progress
-        Optional<QueueUser> currentPatient = queueUserRepository.findByClinicIdAndStatus(clinicId, "in-progress");
-        boolean hasCurrentPatient = currentPatient.isPresent();
-        
-        // Get current queue size to determine position
-        long currentQueueSize = queueUserRepository.countByClinicId(clinicId);
-        
-        // Create new queue user
-        QueueUser queueUser = new QueueUser();
-        queueUser.setName(patientDto.getName());
-        queueUser.setEmail(patientDto.getEmail());
-        queueUser.setMotherId(patientDto.getMotherId());
-        queueUser.setClinicId(clinicId);
-        queueUser.setPosition((int) currentQueueSize + 1);
-        
-        // Set status: only set to "in-progress" if there's no current patient
-        queueUser.setStatus(hasCurrentPatient ? "waiting" : "in-progress");
-        queueUser.setJoinedTime(LocalDateTime.now().toString());
-        queueUser.setWaitTime(currentQueueSize == 0 ? 0 : (int) (currentQueueSize * 15)); // 15 min per appointment
-        queueUser.setNotes(patientDto.getNotes());
-        
-        // Save the queue user
-        queueUser = queueUserRepository.save(queueUser);
-        
-        logger.info("Patient {} added to queue at position {} with status {} (hasCurrentPatient: {}, queueSize: {})", 
-                   patientDto.getName(), queueUser.getPosition(), queueUser.getStatus(), hasCurrentPatient, currentQueueSize);
+            
+            boolean hasCurrentPatient = queue.getCurrent() != null;
+            int currentQueueSize = queue.size();
+            int position = nextPosition(queue);
+            
+            // Create new queue user; the id is assigned here since the document is written later
+            QueueUser queueUser = new QueueUser();
+            queueUser.setId(new ObjectId().toHexString());
+            queueUser.setName(patientDto.getName());
+            queueUser.setEmail(patientDto.getEmail());
+            queueUser.setMotherId(patientDto.getMotherId());
+            queueUser.setClinicId(clinicId);
+            queueUser.setPosition(position);
+            
+            // Set status: only set to "in-progress" if there's no current patient
+            queueUser.setStatus(hasCurrentPatient ? "waiting" : "in-progress");
+            queueUser.setJoinedTime(LocalDateTime.now().toString());
+            if (!hasCurrentPatient) {
+                queueUser.setStartedTime(queueUser.getJoinedTime());
+            }
+            queueUser.setNotes(patientDto.getNotes());
+            
+            queue.add(queueUser);
+            queue.updateWaitEstimates(LocalDateTime.now());
+            queueJournal.upsert(queueUser);
+            
+            logger.info("Patient {} added to queue at position {} with status {} (hasCurrentPatient: {}, queueSize: {})", 
+                       patientDto.getName(), queueUser.getPosition(), queueUser.getStatus(), hasCurrentPatient, currentQueueSize);
+            queueEvents.record(queue);
+            return ClinicQueue.snapshot(queueUser);
+        });
+        queueEvents.dispatch(clinicId);
         
         return Map.of(
             "success", true,
             "message", "Patient added to queue successfully",
-            "patient", queueUser
+            "patient", added
         );
     }
 
@@ -185,53 +239,51 @@ public class NewQueueService {
     public Map<String, Object> closeQueue(String clinicId, boolean force) {
         logger.info("Closing queue for clinic: {}, force: {}", clinicId, force);
         
-        Optional<Clinic> clinicOpt = clinicRepository.findById(clinicId);
-        if (clinicOpt.isEmpty()) {
-            throw new IllegalArgumentException("Clinic not found");
-        }
+        clinicQueueEngine.withQueue(clinicId, queue -> {
+            closeLocked(queue, force);
+            queueEvents.record(queue);
+            return null;
+        });
+        queueEvents.dispatch(clinicId);
+        queueJournal.flush();
+        // A closed queue is not served from memory; opening it again loads it afresh
+        clinicQueueEngine.evict(clinicId);
         
-        Clinic clinic = clinicOpt.get();
+        logger.info("Queue closed successfully for clinic: {}", clinicId);
         
+        return Map.of(
+            "success", true,
+            "message", "Queue closed successfully",
+            "clinicId", clinicId
+        );
+    }
+
+    private void closeLocked(ClinicQueue queue, boolean force) {
+        String clinicId = queue.getClinicId();
         if (!force) {
             // Check if there are patients still waiting
-            long waitingCount = queueUserRepository.countByClinicIdAndStatus(clinicId, "waiting");
-            if (waitingCount > 0) {
+            if (queue.waitingCount() > 0) {
                 throw new IllegalStateException("Cannot close queue with waiting patients. Use force=true to override.");
             }
         }
         
         // Update clinic status
-        clinic.setQueueStatus("closed");
-        clinicRepository.save(clinic);
+        queue.setQueueStatus("closed");
+        queueJournal.clinicState(clinicId, "closed", queue.getCompletedToday());
         
         // Clean up any remaining completed and no-show patients when closing queue
         // (Note: completed patients are now deleted immediately in processNext, but clean up any remaining)
-        List<QueueUser> completedPatients = queueUserRepository.findByClinicIdAndStatusOrderByPosition(clinicId, "completed");
-        List<QueueUser> noShowPatients = queueUserRepository.findByClinicIdAndStatusOrderByPosition(clinicId, "no-show");
-        
-        if (!completedPatients.isEmpty() || !noShowPatients.isEmpty()) {
-            logger.info("Removing {} completed and {} no-show patients from clinic {}", 
-                       completedPatients.size(), noShowPatients.size(), clinicId);
-            
-            queueUserRepository.deleteAll(completedPatients);
-            queueUserRepository.deleteAll(noShowPatients);
-        } else {
-            logger.info("No completed or no-show patients to clean up for clinic {}", clinicId);
+        int removed = removeFinished(queue);
+        if (removed > 0) {
+            logger.info("Removed {} completed/no-show patients from clinic {}", removed, clinicId);
         }
         
         // If force close, also remove waiting and in-progress patients
         if (force) {
-            queueUserRepository.deleteByClinicId(clinicId);
+            queue.clear();
+            queueJournal.deleteClinic(clinicId);
             logger.info("Force close: Removed all remaining patients from clinic {}", clinicId);
         }
-        
-        logger.info("Queue closed successfully for clinic: {}", clinicId);
-        
-        return Map.of(
-            "success", true,
-            "message", "Queue closed successfully",
-            "clinicId", clinicId
-        );
     }
 
     /**
@@ -240,43 +292,41 @@ public class NewQueueService {
     public Map<String, Object> processNextPatient(String clinicId) {
         logger.info("Processing next patient for clinic: {}", clinicId);
         
-        // Get the clinic to increment completed count
-        Optional<Clinic> clinicOpt = clinicRepository.findById(clinicId);
-        if (clinicOpt.isEmpty()) {
-            throw new IllegalArgumentException("Clinic not found");
-        }
-        Clinic clinic = clinicOpt.get();
-        
-        // Get current patient
-        Optional<QueueUser> currentPatientOpt = queueUserRepository.findByClinicIdAndStatus(clinicId, "in-progress");
-        if (currentPatientOpt.isPresent()) {
-            QueueUser currentPatient = currentPatientOpt.get();
-            // Instead of marking as completed, directly remove the patient to prevent "already in queue" issues
-            queueUserRepository.delete(currentPatient);
-            logger.info("Completed and removed patient {} from queue", currentPatient.getName());
+        boolean[] closed = new boolean[1];
+        Map<String, Object> status = clinicQueueEngine.withQueue(clinicId, queue -> {
+            QueueUser currentPatient = queue.getCurrent();
+            if (currentPatient != null) {
+                // Instead of marking as completed, directly remove the patient to prevent "already in queue" issues
+                queue.remove(currentPatient.getId());
+                queueJournal.delete(currentPatient);
+                
+                queue.setCompletedToday(queue.getCompletedToday() + 1);
+                queueJournal.clinicState(clinicId, queue.getQueueStatus(), queue.getCompletedToday());
+                recordServiceTime(queue, currentPatient);
+                logger.info("Completed and removed patient {}, {} completed today for clinic {}", 
+                           currentPatient.getName(), queue.getCompletedToday(), clinicId);
+            }
             
-            // Increment completed count
-            Integer currentCount = clinic.getCompletedToday() != null ? clinic.getCompletedToday() : 0;
-            clinic.setCompletedToday(currentCount + 1);
-            clinicRepository.save(clinic);
-            logger.info("Incremented completed count to {} for clinic {}", currentCount + 1, clinicId);
-        }
-        
-        // Get next waiting patient
-        Optional<QueueUser> nextPatientOpt = queueUserRepository.findFirstByClinicIdAndStatusOrderByPosition(clinicId, "waiting");
-        if (nextPatientOpt.isPresent()) {
-            QueueUser nextPatient = nextPatientOpt.get();
-            nextPatient.setStatus("in-progress");
-            nextPatient.setWaitTime(0);
-            queueUserRepository.save(nextPatient);
-            logger.info("Started appointment for patient {}", nextPatient.getName());
-        } else {
-            // No more waiting patients - all appointments completed, auto-close queue
-            logger.info("No more waiting patients for clinic {}, auto-closing queue", clinicId);
-            closeQueue(clinicId, false); // Close without force since no waiting patients
+            QueueUser nextPatient = queue.promoteNext();
+            if (nextPatient != null) {
+                queueJournal.upsert(nextPatient);
+                queue.updateWaitEstimates(LocalDateTime.now());
+                logger.info("Started appointment for patient {}", nextPatient.getName());
+            } else {
+                // No more waiting patients - all appointments completed, auto-close queue
+                logger.info("No more waiting patients for clinic {}, auto-closing queue", clinicId);
+                closeLocked(queue, false);
+                closed[0] = true;
+            }
+            queueEvents.record(queue);
+            return buildStatus(queue);
+        });
+        queueEvents.dispatch(clinicId);
+        if (closed[0]) {
+            queueJournal.flush();
+            clinicQueueEngine.evict(clinicId);
         }
-        
-        return getQueueStatus(clinicId);
+        return status;
     }
 
     /**
@@ -285,58 +335,39 @@ public class NewQueueService {
     public Map<String, Object> removePatientFromQueue(String clinicId, String patientId) {
         logger.info("Removing patient {} from clinic {}", patientId, clinicId);
         
-        // Find the patient
-        Optional<QueueUser> patientOpt = queueUserRepository.findById(patientId);
-        if (patientOpt.isEmpty()) {
-            throw new IllegalArgumentException("Patient not found in queue");
-        }
-        
-        QueueUser patient = patientOpt.get();
-        
-        // Verify patient belongs to this clinic
-        if (!patient.getClinicId().equals(clinicId)) {
-            throw new IllegalArgumentException("Patient does not belong to this clinic");
-        }
-        
-        int removedPosition = patient.getPosition();
-        String removedStatus = patient.getStatus();
-        
-        // Delete the patient
-        queueUserRepository.delete(patient);
-        logger.info("Removed patient {} (position: {}, status: {}) from clinic {}", 
-                   patient.getName(), removedPosition, removedStatus, clinicId);
-        
-        // If we removed the current patient (in-progress), promote the next waiting patient
-        if ("in-progress".equals(removedStatus)) {
-            Optional<QueueUser> nextPatientOpt = queueUserRepository.findFirstByClinicIdAndStatusOrderByPosition(clinicId, "waiting");
-            if (nextPatientOpt.isPresent()) {
-                QueueUser nextPatient = nextPatientOpt.get();
-                nextPatient.setStatus("in-progress");
-                nextPatient.setWaitTime(0);
-                queueUserRepository.save(nextPatient);
-                logger.info("Promoted patient {} to in-progress after removal", nextPatient.getName());
+        String removedName = clinicQueueEngine.withQueue(clinicId, queue -> {
+            QueueUser patient = queue.findById(patientId);
+            if (patient == null) {
+                throw new IllegalArgumentException("Patient not found in queue");
             }
-        } else {
-            // Adjust positions for all patients after the removed one
-            List<QueueUser> patientsAfter = queueUserRepository.findByClinicIdOrderByPosition(clinicId)
-                .stream()
-                .filter(p -> p.getPosition() > removedPosition)
-                .toList();
             
-            for (QueueUser p : patientsAfter) {
-                p.setPosition(p.getPosition() - 1);
-                queueUserRepository.save(p);
-            }
+            int removedPosition = patient.getPosition();
+            String removedStatus = patient.getStatus();
+            
+            queue.remove(patientId);
+            queueJournal.delete(patient);
+            logger.info("Removed patient {} (position: {}, status: {}) from clinic {}", 
+                       patient.getName(), removedPosition, removedStatus, clinicId);
             
-            if (!patientsAfter.isEmpty()) {
-                logger.info("Adjusted positions for {} patients after removal", patientsAfter.size());
+            // If we removed the current patient (in-progress), promote the next waiting patient.
+            // Nobody else is renumbered: queue numbers are fixed and the order keys of the rest still hold.
+            if ("in-progress".equals(removedStatus)) {
+                QueueUser nextPatient = queue.promoteNext();
+                if (nextPatient != null) {
+                    queueJournal.upsert(nextPatient);
+                    logger.info("Promoted patient {} to in-progress after removal", nextPatient.getName());
+                }
             }
-        }
+            queue.updateWaitEstimates(LocalDateTime.now());
+            queueEvents.record(queue);
+            return patient.getName();
+        });
+        queueEvents.dispatch(clinicId);
         
         return Map.of(
             "success", true,
             "message", "Patient removed successfully",
-            "removedPatient", patient.getName()
+            "removedPatient", removedName
         );
     }
     
@@ -346,48 +377,37 @@ public class NewQueueService {
     public Map<String, Object> reorderQueue(String clinicId, List<String> patientIds) {
         logger.info("Reordering queue for clinic {} with {} patients", clinicId, patientIds.size());
         
-        // Validate clinic exists
-        Optional<Clinic> clinicOpt = clinicRepository.findById(clinicId);
-        if (clinicOpt.isEmpty()) {
-            throw new IllegalArgumentException("Clinic not found");
-        }
-        
-        // Get all patients in the queue
-        List<QueueUser> allPatients = queueUserRepository.findByClinicIdOrderByPosition(clinicId);
-        
-        // Find current patient (in-progress) - they should always be first
-        QueueUser currentPatient = allPatients.stream()
-            .filter(p -> "in-progress".equals(p.getStatus()))
-            .findFirst()
-            .orElse(null);
-        
-        // Validate that all patient IDs exist and belong to this clinic
-        for (String patientId : patientIds) {
-            boolean found = allPatients.stream().anyMatch(p -> p.getId().equals(patientId));
-            if (!found) {
-                throw new IllegalArgumentException("Patient ID " + patientId + " not found in queue");
+        clinicQueueEngine.withQueue(clinicId, queue -> {
+            // Validate that all patient IDs exist and belong to this clinic
+            for (String patientId : patientIds) {
+                if (queue.findById(patientId) == null) {
+                    throw new IllegalArgumentException("Patient ID " + patientId + " not found in queue");
+                }
             }
-        }
-        
-        // If there's a current patient, ensure they're first in the list
-        if (currentPatient != null && !patientIds.isEmpty()) {
-            if (!patientIds.get(0).equals(currentPatient.getId())) {
-                throw new IllegalArgumentException("Current patient (in-progress) must remain first in queue");
+            
+            // If there's a current patient, ensure they're first in the list
+            QueueUser currentPatient = queue.getCurrent();
+            if (currentPatient != null && !patientIds.isEmpty()) {
+                if (!patientIds.get(0).equals(currentPatient.getId())) {
+                    throw new IllegalArgumentException("Current patient (in-progress) must remain first in queue");
+                }
             }
-        }
-        
-        // Update positions based on the new order
-        for (int i = 0; i < patientIds.size(); i++) {
-            String patientId = patientIds.get(i);
-            QueueUser patient = allPatients.stream()
-                .filter(p -> p.getId().equals(patientId))
-                .findFirst()
-                .orElseThrow();
             
-            patient.setPosition(i + 1);
-            patient.setWaitTime(i * 15); // 15 min per appointment
-            queueUserRepository.save(patient);
-        }
+            // Only patients that actually moved get a new order key, and only those are written
+            List<QueueUser> order = new ArrayList<>(patientIds.size());
+            for (String patientId : patientIds) {
+                order.add(queue.findById(patientId));
+            }
+            List<QueueUser> moved = queue.reorderWaiting(order);
+            for (QueueUser patient : moved) {
+                queueJournal.upsert(patient);
+            }
+            queue.updateWaitEstimates(LocalDateTime.now());
+            logger.debug("Reorder of clinic {} moved {} patients", clinicId, moved.size());
+            queueEvents.record(queue);
+            return null;
+        });
+        queueEvents.dispatch(clinicId);
         
         logger.info("Successfully reordered queue for clinic {}", clinicId);
         
@@ -404,23 +424,124 @@ public class NewQueueService {
     public Map<String, Object> cleanupCompletedPatients(String clinicId) {
         logger.info("Cleaning up completed patients for clinic: {}", clinicId);
         
-        List<QueueUser> completedPatients = queueUserRepository.findByClinicIdAndStatusOrderByPosition(clinicId, "completed");
-        List<QueueUser> noShowPatients = queueUserRepository.findByClinicIdAndStatusOrderByPosition(clinicId, "no-show");
-        
-        int totalRemoved = completedPatients.size() + noShowPatients.size();
-        
-        queueUserRepository.deleteAll(completedPatients);
-        queueUserRepository.deleteAll(noShowPatients);
+        int[] counts = clinicQueueEngine.withQueue(clinicId, queue -> {
+            int completed = 0;
+            int noShow = 0;
+            for (QueueUser user : queue.getFinished()) {
+                if ("completed".equals(user.getStatus())) {
+                    completed++;
+                } else if ("no-show".equals(user.getStatus())) {
+                    noShow++;
+                }
+            }
+            removeFinished(queue);
+            return new int[] {completed, noShow};
+        });
         
         logger.info("Removed {} completed and {} no-show patients from clinic {}", 
-                   completedPatients.size(), noShowPatients.size(), clinicId);
+                   counts[0], counts[1], clinicId);
         
         return Map.of(
             "success", true,
             "message", "Cleanup completed successfully",
-            "completedPatientsRemoved", completedPatients.size(),
-            "noShowPatientsRemoved", noShowPatients.size(),
-            "totalPatientsRemoved", totalRemoved
+            "completedPatientsRemoved", counts[0],
+            "noShowPatientsRemoved", counts[1],
+            "totalPatientsRemoved", counts[0] + counts[1]
         );
     }
-}
\ No newline at end of file
+
+    /**
+     * Re-read a loaded clinic's queue from Mongo after another instance changed it, and push the difference to
+     * this instance's subscribers. Clinics not in memory are skipped; they are read fresh when first touched.
+     */
+    public void refreshFromStore(String clinicId) {
+        if (!clinicQueueEngine.isLoaded(clinicId)) {
+            return;
+        }
+        clinicQueueEngine.withQueue(clinicId, queue -> {
+            // Our own pending changes must be in Mongo before it is read back
+            queueJournal.flush();
+            clinicQueueEngine.reloadFromStore(queue);
+            queueEvents.record(queue);
+            return null;
+        });
+        queueEvents.dispatch(clinicId);
+    }
+
+    /**
+     * Delete every queue record of a clinic, loaded or not. Returns how many records there were.
+     */
+    public long purgeClinicQueue(String clinicId) {
+        long count;
+        try {
+            // Under the clinic's lock, so nobody joins the in-memory queue between the delete and the eviction
+            count = clinicQueueEngine.withQueue(clinicId, queue -> {
+                queue.clear();
+                return deleteClinicRecords(clinicId);
+            });
+        } catch (IllegalArgumentException e) {
+            // Records left behind by a deleted clinic have no queue to lock
+            count = deleteClinicRecords(clinicId);
+        }
+        clinicQueueEngine.evict(clinicId);
+        return count;
+    }
+
+    private long deleteClinicRecords(String clinicId) {
+        queueJournal.flush();
+        long count = queueUserRepository.countByClinicId(clinicId);
+        queueJournal.deleteClinic(clinicId);
+        queueJournal.flush();
+        return count;
+    }
+
+    /**
+     * Delete all queue records of all clinics. Returns how many records there were.
+     */
+    public long purgeAllQueues() {
+        clinicQueueEngine.evictAll();
+        queueJournal.flush();
+        long count = queueUserRepository.count();
+        queueUserRepository.deleteAll();
+        return count;
+    }
+
+    /**
+     * Feed the completed patient's service time into the clinic's statistics, O(1) whatever the history
+     */
+    private void recordServiceTime(ClinicQueue queue, QueueUser completed) {
+        if (completed.getStartedTime() == null) {
+            return;
+        }
+        double seconds = ClinicQueue.secondsSince(completed.getStartedTime(), LocalDateTime.now());
+        if (seconds <= 0 || seconds > MAX_SERVICE_SECONDS) {
+            logger.debug("Ignoring service time of {}s for patient {}", Math.round(seconds), completed.getName());
+            return;
+        }
+        ServiceTimeStats stats = queue.getServiceTimeStats();
+        stats.record(seconds, serviceTimeEwmaAlpha);
+        queueJournal.serviceStats(stats.toDocument(queue.getClinicId()));
+    }
+
+    /**
+     * Queue number from the clinic's atomic counter. Queues started before the counter existed already hold
+     * higher numbers, so the counter is first raised past them.
+     */
+    private int nextPosition(ClinicQueue queue) {
+        int position = queueSequence.next(queue.getClinicId());
+        if (position <= queue.getHighestPosition()) {
+            queueSequence.raiseTo(queue.getClinicId(), queue.getHighestPosition());
+            position = queueSequence.next(queue.getClinicId());
+        }
+        return position;
+    }
+
+    private int removeFinished(ClinicQueue queue) {
+        List<QueueUser> finished = new ArrayList<>(queue.getFinished());
+        for (QueueUser user : finished) {
+            queue.remove(user.getId());
+            queueJournal.delete(user);
+        }
+        return finished.size();
+    }
+}
@@ -7,20 +7,47 @@ import ai.djl.huggingface.translator.TextClassificationTranslator;
 import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
 import ai.djl.modality.Classifications;
 import ai.djl.ModelException;
+import ai.djl.translate.Translator;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import com.example.carebloom.services.forum.BucketHistogram;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 @Service
 public class TextClassificationService {
 
-    private Predictor<String, Classifications> predictor;
     private ZooModel<String, Classifications> model;
+    // DJL predictors are not thread-safe, so each caller borrows one from the pool and hands it back
+    private volatile BlockingQueue<PooledPredictor> pool;
+    private final List<PooledPredictor> allPredictors = new ArrayList<>();
+    private final BucketHistogram poolWaitMs = new BucketHistogram(0.1, 0.5, 1, 5, 10, 25, 50, 100, 250, 500, 1000, 5000);
+    private final AtomicLong borrowTimeouts = new AtomicLong();
+
+    @Autowired
+    private ClassificationResultCache resultCache;
+
+    @Value("${app.classifier.pool-size:0}")
+    private int poolSize; // 0: one predictor per available core
+
+    @Value("${app.classifier.borrow-timeout-ms:5000}")
+    private long borrowTimeoutMs;
 
     private static final Logger logger = LoggerFactory.getLogger(TextClassificationService.class);
 
@@ -28,7 +55,17 @@ public class TextClassificationService {
     // IMPORTANT: Update this path to where your model artifacts are stored.
     private static final String LOCAL_MODEL_ROOT_PATH = "biobert-model"; 
     // This should be the file prefix of your model weights, typically 'pytorch_model' or the directory name.
-    private static final String MODEL_FILE_PREFIX = "traced_model_for_djl.pt"; 
+    // traced_model_int8.pt is the dynamically quantized variant made by biobert-model/quantize_dynamic.py
+    @Value("${app.classifier.model-file:traced_model_for_djl.pt}")
+    private String modelFile;
+
+    // Comma-separated sequence lengths, e.g. 64,128,256; empty keeps the tokenizer's own length handling
+    @Value("${app.classifier.length-buckets:}")
+    private String lengthBuckets;
+
+    // Tokens kept from the start of a text longer than the largest bucket; the rest of the limit goes to its end
+    @Value("${app.classifier.head-tokens:64}")
+    private int headTokens;
 
     @PostConstruct
     private void loadModel() {
@@ -36,7 +73,8 @@ public class TextClassificationService {
             logger.info("=== Starting AI Model Loading Process ===");
             Path modelPath = Paths.get(LOCAL_MODEL_ROOT_PATH);
             logger.info("Model path: {}", modelPath.toAbsolutePath());
-            logger.info("Model file prefix: {}", MODEL_FILE_PREFIX);
+            logger.info("Model file prefix: {}", modelFile);
+            logger.info("Length buckets: {}", lengthBuckets.isBlank() ? "off" : lengthBuckets);
             
             // Check if model directory exists
             if (!modelPath.toFile().exists()) {
@@ -62,6 +100,14 @@ public class TextClassificationService {
             // B) The file prefix (optModelName) is correct relative to the path.
             // C) The correct engine and application are specified.
             
+            int size = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+            if (System.getProperty("ai.djl.pytorch.num_threads") == null) {
+                // Share the cores between the pooled predictors instead of every forward pass using all of them
+                int threadsPerPredictor = Math.max(1, Runtime.getRuntime().availableProcessors() / size);
+                System.setProperty("ai.djl.pytorch.num_threads", String.valueOf(threadsPerPredictor));
+                logger.info("PyTorch intra-op threads per forward pass: {}", threadsPerPredictor);
+            }
+
             logger.info("Building model criteria...");
             Criteria<String, Classifications> criteria = Criteria.builder()
                     // Define the Input (String) and Output (Classifications) types
@@ -72,7 +118,7 @@ public class TextClassificationService {
                     
                     // === B) Set the model file prefix relative to optModelPath ===
                     // If your model weights file is "pytorch_model.bin", set this to "pytorch_model"
-                    .optModelName(MODEL_FILE_PREFIX) 
+                    .optModelName(modelFile) 
                     
                     // === C) Specify Engine and Application for HuggingFace Transformers ===
                     // Assuming it's a PyTorch model:
@@ -100,12 +146,23 @@ public class TextClassificationService {
             }
             
             try {
-                // Create predictor from the loaded model
-                predictor = model.newPredictor();
-                logger.info("Predictor created successfully");
+                // Each predictor gets its own tokenizer and translator, so no tokenizer state is shared
+                BlockingQueue<PooledPredictor> predictors = new ArrayBlockingQueue<>(size);
+                for (int i = 0; i < size; i++) {
+                    PooledPredictor pooled = newPooledPredictor(modelPath);
+                    allPredictors.add(pooled);
+                    // Warm-up: the first forward pass of a predictor is much slower than the rest
+                    long started = System.nanoTime();
+                    pooled.predictor.predict("warm up");
+                    logger.info("Predictor {} of {} created and warmed up in {} ms", i + 1, size,
+                               (System.nanoTime() - started) / 1_000_000);
+                    predictors.add(pooled);
+                }
+                pool = predictors;
             } catch (Exception e) {
                 logger.error("Failed to create predictor: {}", e.getMessage(), e);
                 logger.warn("AI model will not be available. Forum will use fallback classification.");
+                closePredictors();
                 return; // Don't throw exception, just return without loading model
             }
             
@@ -121,16 +178,30 @@ public class TextClassificationService {
         logger.debug("Input text length: {} characters", text != null ? text.length() : 0);
         logger.debug("Input text preview: '{}'", text != null ? text.substring(0, Math.min(100, text.length())) + "..." : "null");
         
-        if (predictor == null) {
+        String cacheKey = resultCache.isEnabled() ? resultCache.key(cacheModelId(), text) : null;
+        if (cacheKey != null) {
+            ClassificationResultCache.Result cached = resultCache.get(cacheKey);
+            if (cached != null) {
+                logger.info("Returning cached classification: '{}' (probability: {})", cached.getLabel(), cached.getProbability());
+                return cached.getLabel();
+            }
+        }
+
+        if (pool == null) {
             logger.warn("Predictor is null - model not properly loaded. Using fallback classification.");
             // Return a fallback classification instead of throwing an exception
             return "MEDICAL"; // Default to medical for safety
         }
         
+        PooledPredictor pooled = null;
         try {
+            pooled = borrow();
+            if (pooled == null) {
+                return "MEDICAL"; // Default to medical for safety when no predictor is free in time
+            }
             logger.info("Making prediction with AI model...");
             // Predict returns Classifications object, extract the top classification
-            Classifications result = predictor.predict(text);
+            Classifications result = pooled.predictor.predict(text);
             
             logger.info("Prediction completed. Number of classifications: {}", result.items().size());
             logger.info("Best classification: {} (probability: {})", 
@@ -146,21 +217,166 @@ public class TextClassificationService {
             }
             
             String bestClass = result.best().getClassName();
+            if (cacheKey != null) {
+                resultCache.put(cacheKey, new ClassificationResultCache.Result(bestClass, result.best().getProbability()));
+            }
             logger.info("Returning classification: '{}'", bestClass);
             return bestClass; 
             
         } catch (Exception e) {
             logger.error("Prediction failed: {}", e.getMessage(), e);
             return "MEDICAL"; // Default to medical for safety when prediction fails
+        } finally {
+            release(pooled);
+        }
+    }
+
+    /**
+     * Classify several texts in one forward pass. Returns the best label per text, in order; cached texts skip
+     * the model, and every other text gets the MEDICAL fallback if the model is missing or the batch fails.
+     */
+    public List<String> predictBatch(List<String> texts) {
+        List<String> labels = new ArrayList<>(Collections.nCopies(texts.size(), (String) null));
+        List<Integer> missing = new ArrayList<>();
+        List<String> keys = new ArrayList<>(Collections.nCopies(texts.size(), (String) null));
+        for (int i = 0; i < texts.size(); i++) {
+            if (resultCache.isEnabled()) {
+                keys.set(i, resultCache.key(cacheModelId(), texts.get(i)));
+                ClassificationResultCache.Result cached = resultCache.get(keys.get(i));
+                if (cached != null) {
+                    labels.set(i, cached.getLabel());
+                    continue;
+                }
+            }
+            missing.add(i);
+        }
+        if (missing.isEmpty()) {
+            logger.debug("All {} texts of the batch were cached", texts.size());
+            return labels;
+        }
+
+        if (pool == null) {
+            logger.warn("Predictor is null - model not properly loaded. Using fallback classification for {} texts.", missing.size());
+            return fillFallback(labels, missing);
+        }
+
+        PooledPredictor pooled = null;
+        try {
+            pooled = borrow();
+            if (pooled == null) {
+                return fillFallback(labels, missing);
+            }
+            List<String> toClassify = new ArrayList<>(missing.size());
+            for (int i : missing) {
+                toClassify.add(texts.get(i));
+            }
+            List<Classifications> results = pooled.predictor.batchPredict(toClassify);
+            for (int j = 0; j < missing.size(); j++) {
+                int i = missing.get(j);
+                Classifications.Classification best = results.get(j).best();
+                labels.set(i, best.getClassName());
+                if (keys.get(i) != null) {
+                    resultCache.put(keys.get(i), new ClassificationResultCache.Result(best.getClassName(), best.getProbability()));
+                }
+            }
+            logger.debug("Batch prediction of {} texts completed, {} were cached", texts.size(), texts.size() - missing.size());
+            return labels;
+        } catch (Exception e) {
+            logger.error("Batch prediction of {} texts failed: {}", missing.size(), e.getMessage(), e);
+            return fillFallback(labels, missing); // Default to medical for safety when prediction fails
+        } finally {
+            release(pooled);
+        }
+    }
+
+    /**
+     * Hit rate and size of the classification result cache
+     */
+    public Map<String, Object> cacheMetrics() {
+        return resultCache.metrics();
+    }
+
+    /**
+     * Pool size, free predictors, borrow timeouts and how long callers waited for a predictor
+     */
+    public Map<String, Object> poolMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("size", allPredictors.size());
+        BlockingQueue<PooledPredictor> current = pool;
+        metrics.put("available", current != null ? current.size() : 0);
+        metrics.put("borrowTimeouts", borrowTimeouts.get());
+        metrics.put("waitMs", poolWaitMs.snapshot());
+        return metrics;
+    }
+
+    private static List<String> fillFallback(List<String> labels, List<Integer> missing) {
+        for (int i : missing) {
+            labels.set(i, "MEDICAL");
+        }
+        return labels;
+    }
+
+    // Everything that changes the model's answer for a text goes into the cache key
+    private String cacheModelId() {
+        return lengthBuckets.isBlank() ? modelFile : modelFile + "|" + lengthBuckets + "|" + headTokens;
+    }
+
+    private PooledPredictor borrow() throws InterruptedException {
+        long started = System.nanoTime();
+        PooledPredictor pooled = pool.poll(borrowTimeoutMs, TimeUnit.MILLISECONDS);
+        poolWaitMs.record((System.nanoTime() - started) / 1e6);
+        if (pooled == null) {
+            borrowTimeouts.incrementAndGet();
+            logger.warn("No predictor became free within {} ms. Using fallback classification.", borrowTimeoutMs);
+        }
+        return pooled;
+    }
+
+    private void release(PooledPredictor pooled) {
+        BlockingQueue<PooledPredictor> current = pool;
+        if (pooled != null && current != null) {
+            current.offer(pooled);
+        }
+    }
+
+    private PooledPredictor newPooledPredictor(Path modelPath) throws IOException {
+        HuggingFaceTokenizer tokenizer;
+        Translator<String, Classifications> translator;
+        if (lengthBuckets.isBlank()) {
+            tokenizer = HuggingFaceTokenizer.newInstance(modelPath);
+            translator = TextClassificationTranslator.builder(tokenizer).build();
+        } else {
+            // The translator cuts long texts itself, keeping their head and tail, and pads each batch to its bucket
+            tokenizer = HuggingFaceTokenizer.builder().optTokenizerPath(modelPath).optTruncation(false)
+                .optPadding(false).build();
+            int[] buckets = Arrays.stream(lengthBuckets.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+            translator = new BucketedClassificationTranslator(tokenizer, buckets, headTokens);
+        }
+        try {
+            Predictor<String, Classifications> predictor = model.newPredictor(translator);
+            return new PooledPredictor(predictor, tokenizer);
+        } catch (RuntimeException e) {
+            tokenizer.close();
+            throw e;
         }
     }
 
+    private void closePredictors() {
+        for (PooledPredictor pooled : allPredictors) {
+            pooled.predictor.close();
+            pooled.tokenizer.close();
+        }
+        allPredictors.clear();
+    }
+
     @PreDestroy
     public void close() {
         logger.info("Closing AI model resources...");
-        if (predictor != null) {
-            predictor.close();
-            logger.info("Predictor closed");
+        if (!allPredictors.isEmpty()) {
+            int count = allPredictors.size();
+            pool = null;
+            closePredictors();
+            logger.info("{} predictors closed", count);
         }
         if (model != null) {
             model.close();
@@ -168,4 +384,14 @@ public class TextClassificationService {
         }
         logger.info("AI model cleanup complete");
     }
-}
\ No newline at end of file
+
+    private static class PooledPredictor {
+        final Predictor<String, Classifications> predictor;
+        final HuggingFaceTokenizer tokenizer;
+
+        PooledPredictor(Predictor<String, Classifications> predictor, HuggingFaceTokenizer tokenizer) {
+            this.predictor = predictor;
+            this.tokenizer = tokenizer;
+        }
+    }
+}
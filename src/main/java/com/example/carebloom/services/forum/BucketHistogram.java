@@ -0,0 +1,69 @@
+package com.example.carebloom.services.forum;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Fixed-bucket histogram, safe to record into from any thread. Quantiles are reported as the upper bound of the
+ * bucket they fall in, like a Prometheus histogram.
+ */
+public class BucketHistogram {
+
+    private final double[] upperBounds;
+    private final long[] counts; // one per bound plus the overflow bucket
+    private long total;
+    private double sum;
+    private double max;
+
+    public BucketHistogram(double... upperBounds) {
+        this.upperBounds = upperBounds.clone();
+        Arrays.sort(this.upperBounds);
+        this.counts = new long[upperBounds.length + 1];
+    }
+
+    public synchronized void record(double value) {
+        int bucket = Arrays.binarySearch(upperBounds, value);
+        counts[bucket >= 0 ? bucket : -bucket - 1]++;
+        total++;
+        sum += value;
+        max = Math.max(max, value);
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("count", total);
+        snapshot.put("mean", total > 0 ? sum / total : 0);
+        snapshot.put("max", max);
+        snapshot.put("p50", quantile(0.50));
+        snapshot.put("p90", quantile(0.90));
+        snapshot.put("p99", quantile(0.99));
+        Map<String, Long> buckets = new LinkedHashMap<>();
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            buckets.put(i < upperBounds.length ? "le_" + format(upperBounds[i]) : "le_inf", cumulative);
+        }
+        snapshot.put("buckets", buckets);
+        return snapshot;
+    }
+
+    private double quantile(double q) {
+        if (total == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(q * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return i < upperBounds.length ? upperBounds[i] : max;
+            }
+        }
+        return max;
+    }
+
+    private static String format(double bound) {
+        return bound == Math.rint(bound) ? String.valueOf((long) bound) : String.valueOf(bound);
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.carebloom.services.forum;
+
+import com.example.carebloom.models.ForumThread;
+import com.example.carebloom.repositories.ForumThreadRepository;
+import com.example.carebloom.services.TextClassificationService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classifies new forum threads as medical or not off the request thread.
+ *
+ * createThread saves the thread as pending and submits it here. A single worker takes the first waiting text,
+ * gathers whatever else arrives within the batch window up to the batch size, and classifies them all in one
+ * batchPredict call. Each thread's category is then set with an update that only matches while it is still
+ * pending. Pending threads the queue could not take, or that were lost in a restart, are picked up by a
+ * periodic sweep. A thread whose batches keep failing is filed as medical, the safe side, after max-attempts.
+ */
+@Service
+public class ForumClassificationWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ForumClassificationWorker.class);
+
+    @Autowired
+    private TextClassificationService textClassificationService;
+
+    @Autowired
+    private ForumThreadRepository forumThreadRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${app.forum.classifier.max-batch-size:16}")
+    private int maxBatchSize;
+
+    @Value("${app.forum.classifier.batch-window-ms:5}")
+    private long batchWindowMs;
+
+    @Value("${app.forum.classifier.queue-capacity:1000}")
+    private int queueCapacity;
+
+    // Pending threads younger than this are assumed to still be on their way through the queue
+    @Value("${app.forum.classifier.stale-after-seconds:30}")
+    private long staleAfterSeconds;
+
+    // Failed classification attempts before a thread is filed as medical without the model
+    @Value("${app.forum.classifier.max-attempts:3}")
+    private int maxAttempts;
+
+    private BlockingQueue<Job> queue;
+    private final Set<String> queuedThreadIds = ConcurrentHashMap.newKeySet();
+    private final Map<String, Integer> failedAttempts = new ConcurrentHashMap<>();
+    private Thread worker;
+    private volatile boolean running;
+
+    // Submit to category written, per thread
+    private final BucketHistogram latencyMs = new BucketHistogram(
+        5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000);
+    private final BucketHistogram batchSizes = new BucketHistogram(1, 2, 4, 8, 16, 32, 64, 128);
+    private final BucketHistogram inferenceMs = new BucketHistogram(
+        5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000);
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        worker = new Thread(this::run, "forum-classifier");
+        worker.setDaemon(true);
+        worker.start();
+        logger.info("Forum classifier started: batches of up to {} within {} ms, queue capacity {}",
+                    maxBatchSize, batchWindowMs, queueCapacity);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * Queue a pending thread for classification. Returns false if the queue is full; the sweep retries it later.
+     */
+    public boolean submit(String threadId, String text) {
+        if (!queuedThreadIds.add(threadId)) {
+            return true;
+        }
+        if (!queue.offer(new Job(threadId, text, System.nanoTime()))) {
+            queuedThreadIds.remove(threadId);
+            logger.warn("Forum classifier queue is full, thread {} stays pending until the next sweep", threadId);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Re-submit threads still pending well after they were created
+     */
+    @Scheduled(fixedDelayString = "${app.forum.classifier.sweep-interval-ms:60000}")
+    public void requeueStalePending() {
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(staleAfterSeconds);
+        List<ForumThread> stale = forumThreadRepository.findPendingClassification(cutoff, PageRequest.of(0, queueCapacity));
+        for (ForumThread thread : stale) {
+            if (!submit(thread.getId(), classificationText(thread.getTitle(), thread.getContent()))) {
+                break;
+            }
+        }
+        if (!stale.isEmpty()) {
+            logger.info("Re-submitted {} forum threads still pending classification", stale.size());
+        }
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("queued", queue.size());
+        metrics.put("maxBatchSize", maxBatchSize);
+        metrics.put("batchWindowMs", batchWindowMs);
+        metrics.put("latencyMs", latencyMs.snapshot());
+        metrics.put("batchSize", batchSizes.snapshot());
+        metrics.put("inferenceMs", inferenceMs.snapshot());
+        metrics.put("predictorPool", textClassificationService.poolMetrics());
+        metrics.put("resultCache", textClassificationService.cacheMetrics());
+        return metrics;
+    }
+
+    public static String classificationText(String title, String content) {
+        return title + " " + content;
+    }
+
+    /**
+     * How the model's label is read; unknown labels count as medical, the safe side
+     */
+    public static boolean isMedicalLabel(String label) {
+        return "MEDICAL".equalsIgnoreCase(label)
+                || "1".equals(label)
+                || label.toLowerCase().contains("medical");
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Job first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<Job> batch = new ArrayList<>(maxBatchSize);
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchWindowMs);
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Job next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                classify(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Forum classifier batch failed, the threads stay pending: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void classify(List<Job> batch) {
+        List<String> texts = new ArrayList<>(batch.size());
+        for (Job job : batch) {
+            texts.add(job.text);
+        }
+        long started = System.nanoTime();
+        List<String> labels;
+        try {
+            labels = textClassificationService.predictBatch(texts);
+        } catch (RuntimeException e) {
+            fileFailedThreads(batch, e);
+            return;
+        } finally {
+            batch.forEach(job -> queuedThreadIds.remove(job.threadId));
+        }
+        inferenceMs.record((System.nanoTime() - started) / 1e6);
+        batchSizes.record(batch.size());
+
+        BulkOperations updates = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ForumThread.class);
+        for (int i = 0; i < batch.size(); i++) {
+            boolean medical = isMedicalLabel(labels.get(i));
+            updates.updateOne(pending(batch.get(i).threadId), categoryUpdate(medical));
+            failedAttempts.remove(batch.get(i).threadId);
+            logger.debug("Thread {} classified as '{}' (medical: {})", batch.get(i).threadId, labels.get(i), medical);
+        }
+        updates.execute();
+
+        long now = System.nanoTime();
+        for (Job job : batch) {
+            latencyMs.record((now - job.submittedNanos) / 1e6);
+        }
+    }
+
+    /**
+     * Count a failed attempt for each thread of the batch. Threads out of attempts are filed as medical so the
+     * sweep stops picking them up; the others stay pending for the next sweep.
+     */
+    private void fileFailedThreads(List<Job> batch, RuntimeException e) {
+        List<String> givenUp = new ArrayList<>();
+        for (Job job : batch) {
+            if (failedAttempts.merge(job.threadId, 1, Integer::sum) >= maxAttempts) {
+                failedAttempts.remove(job.threadId);
+                givenUp.add(job.threadId);
+            }
+        }
+        logger.error("Forum classifier batch of {} failed, {} threads filed as medical after {} attempts, "
+                     + "the rest stay pending: {}", batch.size(), givenUp.size(), maxAttempts, e.getMessage(), e);
+        if (givenUp.isEmpty()) {
+            return;
+        }
+        BulkOperations updates = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ForumThread.class);
+        givenUp.forEach(threadId -> updates.updateOne(pending(threadId), categoryUpdate(true)));
+        updates.execute();
+    }
+
+    // Only matches while the thread is still pending, so a category set meanwhile is never overwritten
+    private static Query pending(String threadId) {
+        return new Query(Criteria.where("_id").is(threadId).and("classificationPending").is(true));
+    }
+
+    private static Update categoryUpdate(boolean medical) {
+        return new Update()
+            .set("category", medical ? ForumThread.Category.MEDICAL : ForumThread.Category.NON_MEDICAL)
+            .set("classificationPending", false);
+    }
+
+    private static class Job {
+        final String threadId;
+        final String text;
+        final long submittedNanos;
+
+        Job(String threadId, String text, long submittedNanos) {
+            this.threadId = threadId;
+            this.text = text;
+            this.submittedNanos = submittedNanos;
+        }
+    }
+}
@@ -12,19 +12,24 @@ import com.example.carebloom.models.Mother;
 import com.example.carebloom.repositories.FieldVisitRepository;
 import com.example.carebloom.repositories.MidwifeRepository;
 import com.example.carebloom.repositories.MotherRepository;
+import com.example.carebloom.services.MotherBulkUpdateService;
 import com.example.carebloom.services.navigation.GoogleMapsDistanceService;
 import com.example.carebloom.utils.SecurityUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.server.ResponseStatusException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -47,6 +52,9 @@ public class FieldVisitService {
     @Autowired
     private GoogleMapsDistanceService googleMapsDistanceService;
 
+    @Autowired
+    private MotherBulkUpdateService motherBulkUpdateService;
+
     /**
      * Create a new field visit for a midwife
      */
@@ -75,9 +83,12 @@ public class FieldVisitService {
         FieldVisit savedFieldVisit = fieldVisitRepository.save(fieldVisit);
 
         // Update each mother's fieldVisitAppointment and collect mother info for response
+        MotherBatchLoader motherLoader = new MotherBatchLoader(motherRepository::findVisitSummariesByIdIn)
+            .prefetch(createDTO.getSelectedMotherIds());
         List<FieldVisitResponseDTO.MotherBasicInfo> mothers = new ArrayList<>();
+        List<MotherBulkUpdateService.MotherUpdate> appointmentUpdates = new ArrayList<>();
         for (String motherId : createDTO.getSelectedMotherIds()) {
-            Mother mother = motherRepository.findById(motherId).orElse(null);
+            Mother mother = motherLoader.get(motherId);
             if (mother != null) {
                 Mother.FieldVisitAppointment appointment = new Mother.FieldVisitAppointment();
                 appointment.setVisitId(savedFieldVisit.getId());
@@ -87,7 +98,8 @@ public class FieldVisitService {
                 appointment.setStatus("new");
                 
                 mother.setFieldVisitAppointment(appointment);
-                motherRepository.save(mother);
+                appointmentUpdates.add(MotherBulkUpdateService.MotherUpdate.of(motherId)
+                    .set("fieldVisitAppointment", appointment));
                 
                 // Add to response list
                 FieldVisitResponseDTO.MotherBasicInfo motherInfo = new FieldVisitResponseDTO.MotherBasicInfo();
@@ -98,6 +110,7 @@ public class FieldVisitService {
                 throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Mother not found with ID: " + motherId);
             }
         }
+        applyMotherUpdates(appointmentUpdates, "appointment");
 
         // Build response DTO directly
         FieldVisitResponseDTO dto = new FieldVisitResponseDTO();
@@ -124,6 +137,12 @@ public class FieldVisitService {
 
         List<FieldVisit> fieldVisits = fieldVisitRepository.findByMidwifeId(midwife.getId());
         List<FieldVisitResponseDTO> responseDTOs = new ArrayList<>();
+
+        // Mothers of all visits are fetched together
+        MotherBatchLoader motherLoader = new MotherBatchLoader(motherRepository::findVisitSummariesByIdIn);
+        for (FieldVisit fieldVisit : fieldVisits) {
+            motherLoader.prefetch(fieldVisit.getSelectedMotherIds());
+        }
         
         for (FieldVisit fieldVisit : fieldVisits) {
             FieldVisitResponseDTO dto = new FieldVisitResponseDTO();
@@ -137,7 +156,7 @@ public class FieldVisitService {
             // Get mother details
             List<FieldVisitResponseDTO.MotherBasicInfo> mothers = new ArrayList<>();
             for (String motherId : fieldVisit.getSelectedMotherIds()) {
-                Mother mother = motherRepository.findById(motherId).orElse(null);
+                Mother mother = motherLoader.get(motherId);
                 FieldVisitResponseDTO.MotherBasicInfo motherInfo = new FieldVisitResponseDTO.MotherBasicInfo();
                 motherInfo.setId(motherId);
                 
@@ -207,9 +226,11 @@ public class FieldVisitService {
         }
 
         // Get detailed mother information including appointment details
+        MotherBatchLoader motherLoader = new MotherBatchLoader(motherRepository::findVisitSummariesByIdIn)
+            .prefetch(fieldVisit.getSelectedMotherIds());
         List<FieldVisitResponseDTO.MotherBasicInfo> mothers = new ArrayList<>();
         for (String motherId : fieldVisit.getSelectedMotherIds()) {
-            Mother mother = motherRepository.findById(motherId).orElse(null);
+            Mother mother = motherLoader.get(motherId);
             FieldVisitResponseDTO.MotherBasicInfo motherInfo = new FieldVisitResponseDTO.MotherBasicInfo();
             motherInfo.setId(motherId);
             
@@ -241,6 +262,116 @@ public class FieldVisitService {
         return dto;
     }
 
+    /**
+     * Create a field visit for a route planned at office level and persist its schedule.
+     * The mothers are already in visit order, so no further optimization is run.
+     */
+    public FieldVisitResponseDTO createPlannedFieldVisit(Midwife midwife, String date, String startTime, String endTime,
+                                                         List<Mother> orderedMothers, boolean fellbackToSimple) {
+        FieldVisit fieldVisit = new FieldVisit();
+        fieldVisit.setMidwifeId(midwife.getId());
+        fieldVisit.setDate(date);
+        fieldVisit.setStartTime(startTime);
+        fieldVisit.setEndTime(endTime);
+        fieldVisit.setSelectedMotherIds(orderedMothers.stream().map(Mother::getId).collect(Collectors.toList()));
+        fieldVisit.setStatus("SCHEDULED");
+        fieldVisit.setCreatedAt(LocalDateTime.now());
+        fieldVisit.setUpdatedAt(LocalDateTime.now());
+        FieldVisit savedFieldVisit = fieldVisitRepository.save(fieldVisit);
+
+        List<MotherBulkUpdateService.MotherUpdate> appointmentUpdates = new ArrayList<>();
+        for (Mother mother : orderedMothers) {
+            // Keep a window the mother already gave for this date, otherwise offer the whole shift
+            Mother.FieldVisitAppointment existing = mother.getFieldVisitAppointment();
+            boolean keepWindow = existing != null && date.equals(existing.getDate())
+                && existing.getStartTime() != null && existing.getEndTime() != null;
+
+            Mother.FieldVisitAppointment appointment = new Mother.FieldVisitAppointment();
+            appointment.setVisitId(savedFieldVisit.getId());
+            appointment.setDate(date);
+            appointment.setStartTime(keepWindow ? existing.getStartTime() : startTime);
+            appointment.setEndTime(keepWindow ? existing.getEndTime() : endTime);
+            appointment.setStatus("new");
+            mother.setFieldVisitAppointment(appointment);
+            appointmentUpdates.add(MotherBulkUpdateService.MotherUpdate.of(mother.getId())
+                .set("fieldVisitAppointment", appointment));
+        }
+        applyMotherUpdates(appointmentUpdates, "appointment");
+
+        List<CalculateVisitOrderResponseDTO.VisitOrder> visitOrder = convertToVisitOrderResponse(orderedMothers, savedFieldVisit);
+        MotherBatchLoader motherLoader = new MotherBatchLoader(motherRepository::findAllById).remember(orderedMothers);
+        FieldVisit.RouteSchedule schedule = createRouteSchedule(visitOrder, savedFieldVisit, motherLoader);
+        schedule.getMetadata().setFellbackToSimple(fellbackToSimple);
+        persistVisitOrderWithSchedule(visitOrder, savedFieldVisit, schedule);
+
+        logger.info("Created planned field visit {} for midwife {} with {} mothers",
+                   savedFieldVisit.getId(), midwife.getId(), orderedMothers.size());
+
+        FieldVisitResponseDTO dto = new FieldVisitResponseDTO();
+        dto.setId(savedFieldVisit.getId());
+        dto.setDate(savedFieldVisit.getDate());
+        dto.setStartTime(savedFieldVisit.getStartTime());
+        dto.setEndTime(savedFieldVisit.getEndTime());
+        dto.setMidwifeId(savedFieldVisit.getMidwifeId());
+        dto.setStatus(savedFieldVisit.getStatus());
+        dto.setCreatedAt(savedFieldVisit.getCreatedAt());
+        dto.setUpdatedAt(savedFieldVisit.getUpdatedAt());
+        dto.setSchedule(convertToRouteScheduleInfo(schedule));
+        dto.setMothers(orderedMothers.stream().map(mother -> {
+            FieldVisitResponseDTO.MotherBasicInfo info = new FieldVisitResponseDTO.MotherBasicInfo();
+            info.setId(mother.getId());
+            info.setName(mother.getName());
+            info.setStartTime(mother.getFieldVisitAppointment().getStartTime());
+            info.setEndTime(mother.getFieldVisitAppointment().getEndTime());
+            info.setStatus(mother.getFieldVisitAppointment().getStatus());
+            return info;
+        }).collect(Collectors.toList()));
+        return dto;
+    }
+
+    /**
+     * Publish a planner draft: the visit becomes SCHEDULED and its mothers receive a new appointment for the shift
+     */
+    public FieldVisitResponseDTO publishDraftFieldVisit(String fieldVisitId) {
+        Midwife currentMidwife = SecurityUtils.getCurrentMidwife();
+        if (currentMidwife == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Midwife not found in security context");
+        }
+
+        FieldVisit fieldVisit = fieldVisitRepository.findById(fieldVisitId)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Field visit not found"));
+        if (!fieldVisit.getMidwifeId().equals(currentMidwife.getId())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied: Field visit does not belong to current midwife");
+        }
+        if (!"DRAFT".equals(fieldVisit.getStatus())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Only draft field visits can be published");
+        }
+
+        List<MotherBulkUpdateService.MotherUpdate> appointmentUpdates = new ArrayList<>();
+        for (String motherId : fieldVisit.getSelectedMotherIds()) {
+            Mother.FieldVisitAppointment appointment = new Mother.FieldVisitAppointment();
+            appointment.setVisitId(fieldVisit.getId());
+            appointment.setDate(fieldVisit.getDate());
+            appointment.setStartTime(fieldVisit.getStartTime());
+            appointment.setEndTime(fieldVisit.getEndTime());
+            appointment.setStatus("new");
+            appointmentUpdates.add(MotherBulkUpdateService.MotherUpdate.of(motherId)
+                .set("fieldVisitAppointment", appointment));
+        }
+        MotherBulkUpdateService.BulkUpdateResult result = applyMotherUpdates(appointmentUpdates, "appointment");
+        if (result.count(MotherBulkUpdateService.Outcome.NOT_MATCHED) > 0) {
+            logger.warn("Draft field visit {} referenced {} mothers that no longer exist",
+                       fieldVisit.getId(), result.count(MotherBulkUpdateService.Outcome.NOT_MATCHED));
+        }
+
+        fieldVisit.setStatus("SCHEDULED");
+        fieldVisit.setUpdatedAt(LocalDateTime.now());
+        fieldVisitRepository.save(fieldVisit);
+
+        logger.info("Published draft field visit {} with {} mothers", fieldVisit.getId(), fieldVisit.getSelectedMotherIds().size());
+        return getFieldVisitById(fieldVisitId);
+    }
+
     /**
      * Validate field visit request
      */
@@ -290,12 +421,35 @@ public class FieldVisitService {
      * Calculate optimal visit order for a field visit
      */
     public CalculateVisitOrderResponseDTO calculateVisitOrder(String fieldVisitId, CalculateVisitOrderDTO request) {
+        // Get current midwife from security context
+        return calculateVisitOrder(fieldVisitId, request, SecurityUtils.getCurrentMidwife());
+    }
+
+    /**
+     * Calculate optimal visit order on behalf of the given midwife.
+     * Used by background solver jobs, which do not carry the request's security context.
+     */
+    public CalculateVisitOrderResponseDTO calculateVisitOrder(String fieldVisitId, CalculateVisitOrderDTO request,
+                                                             Midwife currentMidwife) {
+        return calculateVisitOrder(fieldVisitId, request, currentMidwife, false);
+    }
+
+    /**
+     * Calculate and store the visit order ahead of time for the nightly batch.
+     * Only confirmed appointments are routed; the stored schedule is marked as precomputed.
+     */
+    public CalculateVisitOrderResponseDTO precomputeVisitOrder(String fieldVisitId, Midwife midwife) {
+        CalculateVisitOrderDTO request = new CalculateVisitOrderDTO();
+        request.setOverrideUnconfirmed(false);
+        return calculateVisitOrder(fieldVisitId, request, midwife, true);
+    }
+
+    private CalculateVisitOrderResponseDTO calculateVisitOrder(String fieldVisitId, CalculateVisitOrderDTO request,
+                                                              Midwife currentMidwife, boolean precomputed) {
         logger.info("=== CALCULATE VISIT ORDER STARTED ===");
         logger.info("Field Visit ID: {}", fieldVisitId);
         logger.info("Override Unconfirmed: {}", request.getOverrideUnconfirmed());
-        
-        // Get current midwife from security context
-        Midwife currentMidwife = SecurityUtils.getCurrentMidwife();
+
         if (currentMidwife == null) {
             logger.error("ERROR: Midwife not found in security context");
             return createErrorResponse("Midwife not found in security context");
@@ -321,7 +475,8 @@ public class FieldVisitService {
 
         // Get eligible mothers based on overrideUnconfirmed flag
         logger.info("--- STEP 1: Getting eligible mothers ---");
-        List<Mother> eligibleMothers = getEligibleMothers(fieldVisit, request.getOverrideUnconfirmed());
+        MotherBatchLoader motherLoader = new MotherBatchLoader(motherRepository::findAllById);
+        List<Mother> eligibleMothers = getEligibleMothers(fieldVisit, request.getOverrideUnconfirmed(), motherLoader);
         logger.info("Found {} eligible mothers out of {} selected mothers", 
                    eligibleMothers.size(), fieldVisit.getSelectedMotherIds().size());
         
@@ -365,7 +520,7 @@ public class FieldVisitService {
             // Use simple time-based ordering as fallback
             List<CalculateVisitOrderResponseDTO.VisitOrder> visitOrder = calculateSimpleTimeBasedOrder(
                 mothersWithLocation, fieldVisit);
-            return createSuccessResponse(visitOrder, fieldVisit);
+            return createSuccessResponse(visitOrder, fieldVisit, motherLoader);
         }
 
         if (mothersWithLocation.size() < eligibleMothers.size()) {
@@ -379,6 +534,15 @@ public class FieldVisitService {
                                m.getName(), m.getLatitude(), m.getLongitude()));
         }
 
+        // A schedule solved for exactly these inputs (e.g. by the nightly batch) is returned as is
+        String inputFingerprint = routeInputFingerprint(fieldVisit, mothersWithLocation);
+        if (!Boolean.TRUE.equals(request.getFullRecalculation()) && hasStoredSchedule(fieldVisit)
+                && fieldVisit.getSchedule().getMetadata() != null
+                && inputFingerprint.equals(fieldVisit.getSchedule().getMetadata().getInputFingerprint())) {
+            logger.info("Stored schedule is up to date for field visit {}, skipping optimization", fieldVisitId);
+            return createCachedResponse(fieldVisit);
+        }
+
         logger.info("--- STEP 3: Calling enhanced route optimization service ---");
         // Use RouteOptimizationService for optimal routing with metrics
         try {
@@ -386,15 +550,27 @@ public class FieldVisitService {
             LocalTime endTime = LocalTime.parse(fieldVisit.getEndTime());
             logger.info("Optimization time window: {} - {}", startTime, endTime);
             
-            RouteOptimizationService.OptimizationResult result = routeOptimizationService.optimizeVisitOrderWithMetrics(
-                mothersWithLocation, startTime, endTime);
+            RouteOptimizationService.OptimizationResult result;
+            RouteOptimizationService.ReoptimizationResult reoptimization = null;
+            if (hasStoredSchedule(fieldVisit) && !Boolean.TRUE.equals(request.getFullRecalculation())) {
+                // Seed from the stored schedule so small edits re-solve quickly and keep notified mothers in place
+                reoptimization = reoptimizeFromSchedule(fieldVisit, mothersWithLocation, startTime, endTime);
+                result = new RouteOptimizationService.OptimizationResult(reoptimization.getOptimizedOrder(),
+                    reoptimization.isFellbackToSimple(), reoptimization.getOptimizationTimeMs());
+            } else {
+                result = routeOptimizationService.optimizeVisitOrderWithMetrics(mothersWithLocation, startTime, endTime);
+            }
             
             logger.info("--- STEP 4: Converting to response format ---");
             List<CalculateVisitOrderResponseDTO.VisitOrder> visitOrder = 
                 convertToVisitOrderResponse(result.getOptimizedOrder(), fieldVisit);
             
             logger.info("--- STEP 5: Creating success response with enhanced persistence ---");
-            CalculateVisitOrderResponseDTO response = createSuccessResponseWithMetrics(visitOrder, fieldVisit, result);
+            CalculateVisitOrderResponseDTO response = createSuccessResponseWithMetrics(visitOrder, fieldVisit, result,
+                inputFingerprint, precomputed, motherLoader);
+            if (reoptimization != null) {
+                response.setRouteDelta(toRouteDelta(reoptimization));
+            }
             
             logger.info("=== CALCULATE VISIT ORDER COMPLETED SUCCESSFULLY ===");
             logger.info("Final visit order: {} mothers, total distance: {}m, total time: {}min, algorithm fallback: {}", 
@@ -407,14 +583,109 @@ public class FieldVisitService {
             logger.warn("Falling back to simple ordering due to optimization error");
             List<CalculateVisitOrderResponseDTO.VisitOrder> visitOrder = calculateSimpleTimeBasedOrder(
                 mothersWithLocation, fieldVisit);
-            return createSuccessResponse(visitOrder, fieldVisit);
+            return createSuccessResponse(visitOrder, fieldVisit, motherLoader);
         }
     }
 
+    private boolean hasStoredSchedule(FieldVisit fieldVisit) {
+        return fieldVisit.getSchedule() != null
+            && fieldVisit.getSchedule().getScheduledVisits() != null
+            && !fieldVisit.getSchedule().getScheduledVisits().isEmpty();
+    }
+
+    /**
+     * Hash of everything the route depends on: visit window, and each mother's ID, location and preferred window
+     */
+    private String routeInputFingerprint(FieldVisit fieldVisit, List<Mother> mothers) {
+        StringBuilder input = new StringBuilder()
+            .append(fieldVisit.getStartTime()).append('-').append(fieldVisit.getEndTime());
+        mothers.stream()
+            .sorted(Comparator.comparing(Mother::getId))
+            .forEach(mother -> {
+                Mother.FieldVisitAppointment appointment = mother.getFieldVisitAppointment();
+                input.append('|').append(mother.getId())
+                    .append(',').append(mother.getLatitude())
+                    .append(',').append(mother.getLongitude())
+                    .append(',').append(appointment != null ? appointment.getStartTime() : null)
+                    .append(',').append(appointment != null ? appointment.getEndTime() : null);
+            });
+        return DigestUtils.md5DigestAsHex(input.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Build the calculate response from the stored schedule without re-solving
+     */
+    private CalculateVisitOrderResponseDTO createCachedResponse(FieldVisit fieldVisit) {
+        FieldVisit.RouteSchedule schedule = fieldVisit.getSchedule();
+        List<CalculateVisitOrderResponseDTO.VisitOrder> visitOrder = schedule.getScheduledVisits().stream()
+            .sorted(Comparator.comparingInt(FieldVisit.RouteSchedule.ScheduledVisit::getVisitOrder))
+            .map(visit -> {
+                CalculateVisitOrderResponseDTO.VisitOrder order = new CalculateVisitOrderResponseDTO.VisitOrder();
+                order.setMotherId(visit.getMotherId());
+                order.setMotherName(visit.getMotherName());
+                order.setEstimatedArrivalTime(visit.getScheduledStartTime());
+                order.setEstimatedDuration(visit.getEstimatedDuration());
+                order.setDistance(visit.getDistanceFromPrevious());
+                order.setTravelTimeMinutes(visit.getTravelTimeFromPrevious());
+                if (visit.getCoordinates() != null) {
+                    order.setAddress(visit.getCoordinates().getAddress());
+                    order.setLatitude(visit.getCoordinates().getLatitude());
+                    order.setLongitude(visit.getCoordinates().getLongitude());
+                }
+                return order;
+            })
+            .collect(Collectors.toList());
+
+        CalculateVisitOrderResponseDTO response = new CalculateVisitOrderResponseDTO();
+        response.setSuccess(true);
+        response.setMessage(Boolean.TRUE.equals(schedule.getMetadata().getPrecomputed())
+            ? "Visit order precomputed overnight" : "Visit order already calculated");
+        response.setVisitOrder(visitOrder);
+        response.setTotalDistance(schedule.getMetadata().getTotalDistance());
+        response.setTotalEstimatedTime(visitOrder.stream()
+            .mapToInt(order -> order.getEstimatedDuration() != null ? order.getEstimatedDuration() : 30)
+            .sum());
+        return response;
+    }
+
+    /**
+     * Incrementally re-optimize using the stored scheduled visit order as the starting route
+     */
+    private RouteOptimizationService.ReoptimizationResult reoptimizeFromSchedule(FieldVisit fieldVisit, List<Mother> mothers,
+                                                                                LocalTime startTime, LocalTime endTime) {
+        List<String> previousOrder = fieldVisit.getSchedule().getScheduledVisits().stream()
+            .sorted(Comparator.comparingInt(FieldVisit.RouteSchedule.ScheduledVisit::getVisitOrder))
+            .map(FieldVisit.RouteSchedule.ScheduledVisit::getMotherId)
+            .collect(Collectors.toList());
+
+        // Mothers who already received a scheduled time for this visit
+        Set<String> notifiedIds = mothers.stream()
+            .filter(mother -> mother.getFieldVisitAppointment() != null
+                && fieldVisit.getId().equals(mother.getFieldVisitAppointment().getVisitId())
+                && mother.getFieldVisitAppointment().getScheduledStartTime() != null)
+            .map(Mother::getId)
+            .collect(Collectors.toSet());
+
+        logger.info("Re-optimizing field visit {} from stored schedule of {} visits", fieldVisit.getId(), previousOrder.size());
+        return routeOptimizationService.reoptimizeVisitOrder(mothers, previousOrder, notifiedIds, startTime, endTime);
+    }
+
+    private CalculateVisitOrderResponseDTO.RouteDelta toRouteDelta(RouteOptimizationService.ReoptimizationResult result) {
+        CalculateVisitOrderResponseDTO.RouteDelta delta = new CalculateVisitOrderResponseDTO.RouteDelta();
+        delta.setAddedMotherIds(result.getAddedMotherIds());
+        delta.setRemovedMotherIds(result.getRemovedMotherIds());
+        delta.setMovedNotifiedMotherIds(result.getMovedNotifiedMotherIds());
+        delta.setPreviousTravelMinutes((int) Math.ceil(result.getPreviousTravelSeconds() / 60.0));
+        delta.setTravelMinutes((int) Math.ceil(result.getTravelSeconds() / 60.0));
+        delta.setKeptPreviousOrder(result.isKeptPreviousOrder());
+        delta.setOptimizationTimeMs(result.getOptimizationTimeMs());
+        return delta;
+    }
+
     /**
      * Get eligible mothers for route calculation
      */
-    private List<Mother> getEligibleMothers(FieldVisit fieldVisit, Boolean overrideUnconfirmed) {
+    private List<Mother> getEligibleMothers(FieldVisit fieldVisit, Boolean overrideUnconfirmed, MotherBatchLoader motherLoader) {
         logger.info("Getting eligible mothers from {} selected mother IDs", fieldVisit.getSelectedMotherIds().size());
         logger.info("Override unconfirmed appointments: {}", overrideUnconfirmed);
         
@@ -425,9 +696,10 @@ public class FieldVisitService {
         int newCount = 0;
         int otherStatusCount = 0;
         
+        motherLoader.prefetch(fieldVisit.getSelectedMotherIds());
         for (String motherId : fieldVisit.getSelectedMotherIds()) {
             logger.debug("Processing mother ID: {}", motherId);
-            Mother mother = motherRepository.findById(motherId).orElse(null);
+            Mother mother = motherLoader.get(motherId);
             if (mother == null) {
                 missingMothers++;
                 logger.warn("Mother not found with ID: {}", motherId);
@@ -451,10 +723,12 @@ public class FieldVisitService {
             String status = appointment.getStatus();
             boolean shouldInclude = false;
             
-            if ("confirmed".equals(status)) {
+            if ("confirmed".equals(status) || "ordered".equals(status)) {
+                // "ordered" is a confirmed appointment that a previous calculation (or the nightly precompute)
+                // already scheduled; recalculating must keep it, or re-optimization loses every kept mother
                 confirmedCount++;
                 shouldInclude = true;
-                logger.debug("Including {} - confirmed appointment", mother.getName());
+                logger.debug("Including {} - {} appointment", mother.getName(), status);
             } else if ("new".equals(status) && Boolean.TRUE.equals(overrideUnconfirmed)) {
                 newCount++;
                 shouldInclude = true;
@@ -570,7 +844,8 @@ public class FieldVisitService {
     /**
      * Create success response with calculated visit order and persist the order
      */
-    private CalculateVisitOrderResponseDTO createSuccessResponse(List<CalculateVisitOrderResponseDTO.VisitOrder> visitOrder, FieldVisit fieldVisit) {
+    private CalculateVisitOrderResponseDTO createSuccessResponse(List<CalculateVisitOrderResponseDTO.VisitOrder> visitOrder, FieldVisit fieldVisit,
+                                                                MotherBatchLoader motherLoader) {
         // Calculate totals
         double totalDistance = visitOrder.stream()
             .mapToDouble(order -> order.getDistance() != null ? order.getDistance() : 0.0)
@@ -581,7 +856,7 @@ public class FieldVisitService {
             .sum();
 
         // Persist the calculated order to database
-        persistVisitOrder(visitOrder, fieldVisit);
+        persistVisitOrder(visitOrder, fieldVisit, motherLoader);
 
         CalculateVisitOrderResponseDTO response = new CalculateVisitOrderResponseDTO();
         response.setSuccess(true);
@@ -600,7 +875,10 @@ public class FieldVisitService {
      */
     private CalculateVisitOrderResponseDTO createSuccessResponseWithMetrics(List<CalculateVisitOrderResponseDTO.VisitOrder> visitOrder, 
                                                                            FieldVisit fieldVisit, 
-                                                                           RouteOptimizationService.OptimizationResult optimizationResult) {
+                                                                           RouteOptimizationService.OptimizationResult optimizationResult,
+                                                                           String inputFingerprint,
+                                                                           boolean precomputed,
+                                                                           MotherBatchLoader motherLoader) {
         // Calculate totals
         double totalDistance = visitOrder.stream()
             .mapToDouble(order -> order.getDistance() != null ? order.getDistance() : 0.0)
@@ -611,10 +889,12 @@ public class FieldVisitService {
             .sum();
 
         // Create enhanced schedule and persist to database
-        FieldVisit.RouteSchedule schedule = createRouteSchedule(visitOrder, fieldVisit);
+        FieldVisit.RouteSchedule schedule = createRouteSchedule(visitOrder, fieldVisit, motherLoader);
         
         // Update metadata with optimization result
         schedule.getMetadata().setFellbackToSimple(optimizationResult.isFellbackToSimple());
+        schedule.getMetadata().setInputFingerprint(inputFingerprint);
+        schedule.getMetadata().setPrecomputed(precomputed);
         
         // Persist the calculated order with enhanced schedule
         persistVisitOrderWithSchedule(visitOrder, fieldVisit, schedule);
@@ -665,13 +945,14 @@ public class FieldVisitService {
     /**
      * Persist the calculated visit order to database with enhanced schedule data
      */
-    private void persistVisitOrder(List<CalculateVisitOrderResponseDTO.VisitOrder> visitOrder, FieldVisit fieldVisit) {
+    private void persistVisitOrder(List<CalculateVisitOrderResponseDTO.VisitOrder> visitOrder, FieldVisit fieldVisit,
+                                   MotherBatchLoader motherLoader) {
         logger.info("=== PERSISTING ENHANCED VISIT ORDER TO DATABASE ===");
         logger.info("Persisting visit order for {} mothers in field visit {}", visitOrder.size(), fieldVisit.getId());
         
         try {
             // 1. Create enhanced RouteSchedule object
-            FieldVisit.RouteSchedule schedule = createRouteSchedule(visitOrder, fieldVisit);
+            FieldVisit.RouteSchedule schedule = createRouteSchedule(visitOrder, fieldVisit, motherLoader);
             
             // 2. Update FieldVisit with schedule and reorder selectedMotherIds
             List<String> orderedMotherIds = visitOrder.stream()
@@ -704,15 +985,17 @@ public class FieldVisitService {
     /**
      * Create enhanced RouteSchedule object with comprehensive data
      */
-    private FieldVisit.RouteSchedule createRouteSchedule(List<CalculateVisitOrderResponseDTO.VisitOrder> visitOrder, FieldVisit fieldVisit) {
+    private FieldVisit.RouteSchedule createRouteSchedule(List<CalculateVisitOrderResponseDTO.VisitOrder> visitOrder, FieldVisit fieldVisit,
+                                                         MotherBatchLoader motherLoader) {
         List<FieldVisit.RouteSchedule.ScheduledVisit> scheduledVisits = new ArrayList<>();
         double totalDistance = 0;
         int totalTravelTime = 0;
         int totalServiceTime = 0;
         
+        motherLoader.prefetch(visitOrder.stream().map(CalculateVisitOrderResponseDTO.VisitOrder::getMotherId).collect(Collectors.toList()));
         for (int i = 0; i < visitOrder.size(); i++) {
             CalculateVisitOrderResponseDTO.VisitOrder order = visitOrder.get(i);
-            Mother mother = motherRepository.findById(order.getMotherId()).orElse(null);
+            Mother mother = motherLoader.get(order.getMotherId());
             
             FieldVisit.RouteSchedule.ScheduledVisit scheduledVisit = new FieldVisit.RouteSchedule.ScheduledVisit();
             scheduledVisit.setMotherId(order.getMotherId());
@@ -764,57 +1047,46 @@ public class FieldVisitService {
     }
 
     /**
-     * Update Mother appointments with scheduled times (preserve originals)
+     * Update Mother appointments with scheduled times (preserve originals).
+     * Only the scheduled subfields are written, and only while the mother is still on this field visit.
      */
     private void updateMotherScheduledTimes(List<CalculateVisitOrderResponseDTO.VisitOrder> visitOrder, FieldVisit fieldVisit) {
         logger.info("Updating individual mother appointments with scheduled times");
-        int updatedCount = 0;
-        int errorCount = 0;
-        
+
+        List<MotherBulkUpdateService.MotherUpdate> updates = new ArrayList<>();
         for (int i = 0; i < visitOrder.size(); i++) {
             CalculateVisitOrderResponseDTO.VisitOrder order = visitOrder.get(i);
-            logger.debug("Processing mother {} ({}) - position {} in route", 
-                        order.getMotherId(), order.getMotherName(), i + 1);
-            
-            Mother mother = motherRepository.findById(order.getMotherId()).orElse(null);
-            
-            if (mother != null && mother.getFieldVisitAppointment() != null && 
-                fieldVisit.getId().equals(mother.getFieldVisitAppointment().getVisitId())) {
-                
-                Mother.FieldVisitAppointment appointment = mother.getFieldVisitAppointment();
-                String oldStatus = appointment.getStatus();
-                String oldScheduledStart = appointment.getScheduledStartTime();
-                String oldScheduledEnd = appointment.getScheduledEndTime();
-                
-                // Set scheduled times (calculated by optimization) - PRESERVE ORIGINAL TIMES
-                appointment.setScheduledStartTime(order.getEstimatedArrivalTime());
-                appointment.setScheduledEndTime(addMinutesToTime(order.getEstimatedArrivalTime(), order.getEstimatedDuration()));
-                appointment.setStatus("ordered");
-                
-                // Original startTime and endTime remain unchanged!
-                
-                motherRepository.save(mother);
-                updatedCount++;
-                
-                logger.info("Updated Mother {} appointment:", mother.getName());
-                logger.info("  Status: {} -> {}", oldStatus, appointment.getStatus());
-                logger.info("  Original times preserved: {} - {}", appointment.getStartTime(), appointment.getEndTime());
-                logger.info("  Scheduled times: {} -> {} | {} -> {}", 
-                           oldScheduledStart, appointment.getScheduledStartTime(),
-                           oldScheduledEnd, appointment.getScheduledEndTime());
-                logger.info("  Position in route: {}", i + 1);
-            } else {
-                errorCount++;
-                logger.error("Failed to update Mother {}: mother={}, appointment={}, visitId match={}", 
-                            order.getMotherId(), 
-                            mother != null ? "found" : "not found",
-                            mother != null && mother.getFieldVisitAppointment() != null ? "exists" : "missing",
-                            mother != null && mother.getFieldVisitAppointment() != null ? 
-                                fieldVisit.getId().equals(mother.getFieldVisitAppointment().getVisitId()) : "N/A");
-            }
+            logger.debug("Scheduling mother {} ({}) at {} - position {} in route",
+                        order.getMotherId(), order.getMotherName(), order.getEstimatedArrivalTime(), i + 1);
+
+            // Original startTime and endTime remain unchanged
+            updates.add(MotherBulkUpdateService.MotherUpdate.of(order.getMotherId())
+                .onlyIfVisit(fieldVisit.getId())
+                .set("fieldVisitAppointment.scheduledStartTime", order.getEstimatedArrivalTime())
+                .set("fieldVisitAppointment.scheduledEndTime", addMinutesToTime(order.getEstimatedArrivalTime(), order.getEstimatedDuration()))
+                .set("fieldVisitAppointment.status", "ordered"));
         }
-        
-        logger.info("Scheduled time updates completed: {} successful, {} errors", updatedCount, errorCount);
+
+        MotherBulkUpdateService.BulkUpdateResult result = applyMotherUpdates(updates, "scheduled time");
+        result.getOutcomes().forEach((motherId, outcome) -> {
+            if (outcome != MotherBulkUpdateService.Outcome.APPLIED) {
+                logger.error("Failed to update Mother {}: {} (mother missing or no longer on field visit {})",
+                            motherId, outcome, fieldVisit.getId());
+            }
+        });
+    }
+
+    /**
+     * Write a fan-out of mother updates as one bulk operation and log the totals
+     */
+    private MotherBulkUpdateService.BulkUpdateResult applyMotherUpdates(List<MotherBulkUpdateService.MotherUpdate> updates,
+                                                                      String description) {
+        MotherBulkUpdateService.BulkUpdateResult result = motherBulkUpdateService.apply(updates);
+        logger.info("Mother {} updates completed: {} successful, {} not matched, {} failed", description,
+                   result.count(MotherBulkUpdateService.Outcome.APPLIED),
+                   result.count(MotherBulkUpdateService.Outcome.NOT_MATCHED),
+                   result.count(MotherBulkUpdateService.Outcome.FAILED));
+        return result;
     }
 
     /**
@@ -0,0 +1,466 @@
+package com.example.carebloom.services.midwife;
+
+import com.example.carebloom.dto.midwife.LocationPingBatchDTO;
+import com.example.carebloom.models.FieldVisit;
+import com.example.carebloom.models.Midwife;
+import com.example.carebloom.models.MidwifeLocationPing;
+import com.example.carebloom.models.Mother;
+import com.example.carebloom.repositories.FieldVisitRepository;
+import com.example.carebloom.repositories.MidwifeLocationPingRepository;
+import com.example.carebloom.repositories.MotherRepository;
+import com.example.carebloom.services.FcmMessagingService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Live midwife locations during IN_PROGRESS field visits.
+ *
+ * Ping ingestion only touches memory: the newest position per midwife goes into a map, every sample
+ * goes into a bounded history buffer, and the midwife is marked for an ETA update. A scheduled worker
+ * recomputes arrival estimates for the remaining visits from the stored route schedule's travel times
+ * and pushes changed ETAs to mothers, and another drains the history buffer to Mongo in batches.
+ */
+@Service
+public class MidwifeLocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MidwifeLocationService.class);
+
+    // Within this distance of the next mother the midwife is taken to be at her home
+    private static final double ARRIVAL_RADIUS_METERS = 150;
+    private static final double DEFAULT_SPEED_MPS = 25.0 * 1000 / 3600;
+    private static final double EARTH_RADIUS_METERS = 6371000;
+
+    @Autowired
+    private FieldVisitRepository fieldVisitRepository;
+
+    @Autowired
+    private MotherRepository motherRepository;
+
+    @Autowired
+    private MidwifeLocationPingRepository midwifeLocationPingRepository;
+
+    @Autowired
+    private FcmMessagingService fcmMessagingService;
+
+    @Value("${app.live-location.max-batch-size:500}")
+    private int maxBatchSize;
+
+    @Value("${app.live-location.history-buffer-size:50000}")
+    private int historyBufferSize;
+
+    @Value("${app.live-location.history-flush-batch-size:1000}")
+    private int historyFlushBatchSize;
+
+    @Value("${app.live-location.visit-refresh-seconds:60}")
+    private long visitRefreshSeconds;
+
+    @Value("${app.live-location.eta-push-threshold-minutes:5}")
+    private long etaPushThresholdMinutes;
+
+    @Value("${app.live-location.position-ttl-minutes:30}")
+    private long positionTtlMinutes;
+
+    private final Map<String, LivePosition> latestPositions = new ConcurrentHashMap<>();
+    private final Set<String> movedMidwives = ConcurrentHashMap.newKeySet();
+    private final Map<String, TrackedVisit> trackedVisits = new ConcurrentHashMap<>();
+
+    private final ConcurrentLinkedQueue<MidwifeLocationPing> historyBuffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger bufferedPings = new AtomicInteger();
+    private final AtomicLong droppedPings = new AtomicLong();
+
+    /**
+     * Accept a batch of pings from the midwife's device. Never touches the database.
+     */
+    public void ingest(Midwife midwife, LocationPingBatchDTO batch) {
+        if (midwife == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Midwife not found in security context");
+        }
+        if (batch == null || batch.getPings() == null || batch.getPings().isEmpty()) {
+            return;
+        }
+        if (batch.getPings().size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "At most " + maxBatchSize + " pings per batch");
+        }
+
+        LocalDateTime receivedAt = LocalDateTime.now();
+        TrackedVisit tracked = trackedVisits.get(midwife.getId());
+        String fieldVisitId = tracked != null ? tracked.fieldVisitId : null;
+
+        LivePosition newest = null;
+        for (LocationPingBatchDTO.Ping ping : batch.getPings()) {
+            if (!isValid(ping)) {
+                continue;
+            }
+            LocalDateTime recordedAt = ping.getRecordedAt() != null
+                ? LocalDateTime.ofInstant(Instant.ofEpochMilli(ping.getRecordedAt()), ZoneId.systemDefault())
+                : receivedAt;
+            if (newest == null || recordedAt.isAfter(newest.recordedAt)) {
+                newest = new LivePosition(ping.getLatitude(), ping.getLongitude(), recordedAt);
+            }
+            bufferHistory(midwife.getId(), fieldVisitId, ping, recordedAt, receivedAt);
+        }
+        if (newest == null) {
+            return;
+        }
+
+        // Batches can arrive out of order; keep whichever position was recorded last
+        latestPositions.merge(midwife.getId(), newest,
+            (current, incoming) -> incoming.recordedAt.isAfter(current.recordedAt) ? incoming : current);
+        movedMidwives.add(midwife.getId());
+    }
+
+    /**
+     * Recompute ETAs for midwives whose position changed and push the ones that moved enough
+     */
+    @Scheduled(fixedDelayString = "${app.live-location.eta-interval-ms:15000}")
+    public void updateEtas() {
+        evictStalePositions();
+        if (movedMidwives.isEmpty()) {
+            return;
+        }
+
+        List<String> midwifeIds = new ArrayList<>(movedMidwives);
+        movedMidwives.removeAll(midwifeIds);
+        LocalDateTime now = LocalDateTime.now();
+
+        for (String midwifeId : midwifeIds) {
+            LivePosition position = latestPositions.get(midwifeId);
+            if (position == null) {
+                continue;
+            }
+            try {
+                TrackedVisit tracked = refreshTrackedVisit(midwifeId, now);
+                if (tracked.fieldVisitId != null) {
+                    pushChangedEtas(tracked, position, now);
+                }
+            } catch (Exception e) {
+                logger.error("Error updating ETAs for midwife {}: {}", midwifeId, e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Write buffered location history in batches
+     */
+    @Scheduled(fixedDelayString = "${app.live-location.history-flush-interval-ms:5000}")
+    public void flushHistory() {
+        while (bufferedPings.get() > 0) {
+            List<MidwifeLocationPing> batch = new ArrayList<>(Math.min(historyFlushBatchSize, bufferedPings.get()));
+            MidwifeLocationPing ping;
+            while (batch.size() < historyFlushBatchSize && (ping = historyBuffer.poll()) != null) {
+                batch.add(ping);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            bufferedPings.addAndGet(-batch.size());
+            try {
+                midwifeLocationPingRepository.saveAll(batch);
+            } catch (Exception e) {
+                int requeued = requeueHistory(batch);
+                logger.error("Failed to write {} location pings, {} kept for the next flush: {}",
+                            batch.size(), requeued, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Put a batch that could not be written back into the buffer, counting what no longer fits as dropped.
+     * Returns how many pings were put back.
+     */
+    private int requeueHistory(List<MidwifeLocationPing> batch) {
+        int requeued = 0;
+        for (MidwifeLocationPing ping : batch) {
+            if (bufferedPings.incrementAndGet() > historyBufferSize) {
+                bufferedPings.decrementAndGet();
+                droppedPings.incrementAndGet();
+                continue;
+            }
+            historyBuffer.add(ping);
+            requeued++;
+        }
+        return requeued;
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushHistory();
+        if (bufferedPings.get() > 0) {
+            logger.warn("{} location pings could not be written before shutdown", bufferedPings.get());
+        }
+        if (droppedPings.get() > 0) {
+            logger.warn("{} location pings were dropped because the history buffer was full", droppedPings.get());
+        }
+    }
+
+    private void bufferHistory(String midwifeId, String fieldVisitId, LocationPingBatchDTO.Ping ping,
+                               LocalDateTime recordedAt, LocalDateTime receivedAt) {
+        if (bufferedPings.incrementAndGet() > historyBufferSize) {
+            bufferedPings.decrementAndGet();
+            if (droppedPings.incrementAndGet() % 1000 == 1) {
+                logger.warn("Location history buffer full, {} pings dropped so far", droppedPings.get());
+            }
+            return;
+        }
+        MidwifeLocationPing entry = new MidwifeLocationPing();
+        entry.setMidwifeId(midwifeId);
+        entry.setFieldVisitId(fieldVisitId);
+        entry.setLatitude(ping.getLatitude());
+        entry.setLongitude(ping.getLongitude());
+        entry.setAccuracyMeters(ping.getAccuracy());
+        entry.setRecordedAt(recordedAt);
+        entry.setReceivedAt(receivedAt);
+        historyBuffer.add(entry);
+    }
+
+    /**
+     * The midwife's IN_PROGRESS visit and its remaining stops, reloaded at most every visitRefreshSeconds
+     */
+    private TrackedVisit refreshTrackedVisit(String midwifeId, LocalDateTime now) {
+        TrackedVisit tracked = trackedVisits.get(midwifeId);
+        if (tracked != null && tracked.loadedAt.plusSeconds(visitRefreshSeconds).isAfter(now)) {
+            return tracked;
+        }
+
+        FieldVisit fieldVisit = fieldVisitRepository.findByMidwifeIdAndStatus(midwifeId, "IN_PROGRESS").stream()
+            .filter(visit -> visit.getSchedule() != null && visit.getSchedule().getScheduledVisits() != null)
+            .findFirst()
+            .orElse(null);
+
+        TrackedVisit refreshed = new TrackedVisit();
+        refreshed.loadedAt = now;
+        if (fieldVisit != null) {
+            refreshed.fieldVisitId = fieldVisit.getId();
+            // Keep what was already pushed for the same visit so unchanged ETAs are not re-sent
+            if (tracked != null && fieldVisit.getId().equals(tracked.fieldVisitId)) {
+                refreshed.pushedEtas = tracked.pushedEtas;
+                refreshed.arrivedAt = tracked.arrivedAt;
+                refreshed.arrivedMotherId = tracked.arrivedMotherId;
+                refreshed.departedMotherIds = tracked.departedMotherIds;
+            }
+            refreshed.stops = loadRemainingStops(fieldVisit, refreshed.departedMotherIds);
+        }
+        trackedVisits.put(midwifeId, refreshed);
+        return refreshed;
+    }
+
+    private List<Stop> loadRemainingStops(FieldVisit fieldVisit, Set<String> departedMotherIds) {
+        List<FieldVisit.RouteSchedule.ScheduledVisit> visits = fieldVisit.getSchedule().getScheduledVisits();
+        Map<String, Mother> mothers = new HashMap<>();
+        for (Mother mother : motherRepository.findAllById(
+                visits.stream().map(FieldVisit.RouteSchedule.ScheduledVisit::getMotherId).collect(Collectors.toList()))) {
+            mothers.put(mother.getId(), mother);
+        }
+
+        List<Stop> stops = new ArrayList<>();
+        for (FieldVisit.RouteSchedule.ScheduledVisit visit : visits) {
+            Mother mother = mothers.get(visit.getMotherId());
+            if (mother == null || departedMotherIds.contains(mother.getId()) || visit.getCoordinates() == null
+                    || visit.getCoordinates().getLatitude() == null || visit.getCoordinates().getLongitude() == null) {
+                continue;
+            }
+            Mother.FieldVisitAppointment appointment = mother.getFieldVisitAppointment();
+            if (appointment != null && fieldVisit.getId().equals(appointment.getVisitId())
+                    && "completed".equals(appointment.getStatus())) {
+                continue;
+            }
+
+            Stop stop = new Stop();
+            stop.motherId = mother.getId();
+            stop.fcmToken = mother.getFcmToken();
+            stop.latitude = visit.getCoordinates().getLatitude();
+            stop.longitude = visit.getCoordinates().getLongitude();
+            stop.windowStart = parseTime(visit.getOriginalStartTime());
+            stop.serviceSeconds = visit.getEstimatedDuration() != null ? visit.getEstimatedDuration() * 60L : 0;
+            stop.travelSecondsFromPrevious = visit.getTravelTimeFromPrevious() != null ? visit.getTravelTimeFromPrevious() * 60L : 0;
+            stop.metersFromPrevious = visit.getDistanceFromPrevious() != null ? visit.getDistanceFromPrevious() : 0;
+            stops.add(stop);
+        }
+        return stops;
+    }
+
+    /**
+     * Walk the remaining stops from the live position: the first leg is the straight-line distance at the
+     * speed implied by the schedule's own legs, later legs reuse the stored travel times
+     */
+    private void pushChangedEtas(TrackedVisit tracked, LivePosition position, LocalDateTime now) {
+        // A midwife who arrived at a stop and has left its radius again is done there, whether or not the
+        // visit was marked completed yet
+        while (!tracked.stops.isEmpty() && tracked.stops.get(0).motherId.equals(tracked.arrivedMotherId)
+                && distanceMeters(position.latitude, position.longitude,
+                                  tracked.stops.get(0).latitude, tracked.stops.get(0).longitude) > ARRIVAL_RADIUS_METERS) {
+            Stop departed = tracked.stops.remove(0);
+            tracked.departedMotherIds.add(departed.motherId);
+            tracked.pushedEtas.remove(departed.motherId);
+            tracked.arrivedMotherId = null;
+            tracked.arrivedAt = null;
+        }
+        if (tracked.stops.isEmpty()) {
+            return;
+        }
+
+        Stop next = tracked.stops.get(0);
+        LocalDateTime clock;
+        LocalDateTime nextArrival;
+        if (distanceMeters(position.latitude, position.longitude, next.latitude, next.longitude) <= ARRIVAL_RADIUS_METERS) {
+            if (!next.motherId.equals(tracked.arrivedMotherId)) {
+                tracked.arrivedMotherId = next.motherId;
+                tracked.arrivedAt = now;
+            }
+            nextArrival = tracked.arrivedAt;
+            clock = later(now, tracked.arrivedAt.plusSeconds(next.serviceSeconds));
+        } else {
+            long travelSeconds = Math.round(distanceMeters(position.latitude, position.longitude, next.latitude, next.longitude)
+                / averageSpeed(tracked.stops));
+            nextArrival = atWindowStart(now.plusSeconds(travelSeconds), next.windowStart);
+            clock = nextArrival.plusSeconds(next.serviceSeconds);
+        }
+        maybePush(tracked, next, nextArrival, now);
+
+        for (int i = 1; i < tracked.stops.size(); i++) {
+            Stop stop = tracked.stops.get(i);
+            LocalDateTime arrival = atWindowStart(clock.plusSeconds(stop.travelSecondsFromPrevious), stop.windowStart);
+            maybePush(tracked, stop, arrival, now);
+            clock = arrival.plusSeconds(stop.serviceSeconds);
+        }
+    }
+
+    private void maybePush(TrackedVisit tracked, Stop stop, LocalDateTime eta, LocalDateTime now) {
+        LocalDateTime pushed = tracked.pushedEtas.get(stop.motherId);
+        if (pushed != null && Math.abs(Duration.between(pushed, eta).toMinutes()) < etaPushThresholdMinutes) {
+            return;
+        }
+        tracked.pushedEtas.put(stop.motherId, eta);
+        if (stop.fcmToken == null || stop.fcmToken.isEmpty()) {
+            return;
+        }
+        long minutesAway = Math.max(0, Duration.between(now, eta).toMinutes());
+        fcmMessagingService.sendFieldVisitEtaNotification(stop.fcmToken, tracked.fieldVisitId,
+            eta.toLocalTime().withSecond(0).withNano(0).toString(), minutesAway);
+    }
+
+    private double averageSpeed(List<Stop> stops) {
+        double meters = 0;
+        long seconds = 0;
+        for (Stop stop : stops) {
+            if (stop.metersFromPrevious > 0 && stop.travelSecondsFromPrevious > 0) {
+                meters += stop.metersFromPrevious;
+                seconds += stop.travelSecondsFromPrevious;
+            }
+        }
+        return seconds > 0 ? meters / seconds : DEFAULT_SPEED_MPS;
+    }
+
+    private void evictStalePositions() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(positionTtlMinutes);
+        Iterator<Map.Entry<String, LivePosition>> it = latestPositions.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, LivePosition> entry = it.next();
+            if (entry.getValue().recordedAt.isBefore(cutoff)) {
+                it.remove();
+                trackedVisits.remove(entry.getKey());
+            }
+        }
+    }
+
+    private static boolean isValid(LocationPingBatchDTO.Ping ping) {
+        return ping != null && ping.getLatitude() != null && ping.getLongitude() != null
+            && ping.getLatitude() >= -90 && ping.getLatitude() <= 90
+            && ping.getLongitude() >= -180 && ping.getLongitude() <= 180;
+    }
+
+    private static LocalDateTime atWindowStart(LocalDateTime arrival, LocalTime windowStart) {
+        if (windowStart == null || !arrival.toLocalTime().isBefore(windowStart)) {
+            return arrival;
+        }
+        return arrival.toLocalDate().atTime(windowStart);
+    }
+
+    private static LocalDateTime later(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static LocalTime parseTime(String time) {
+        if (time == null || time.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalTime.parse(time);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double h = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+            + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+            * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return EARTH_RADIUS_METERS * 2 * Math.atan2(Math.sqrt(h), Math.sqrt(1 - h));
+    }
+
+    private static class LivePosition {
+        private final double latitude;
+        private final double longitude;
+        private final LocalDateTime recordedAt;
+
+        LivePosition(double latitude, double longitude, LocalDateTime recordedAt) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.recordedAt = recordedAt;
+        }
+    }
+
+    /**
+     * Snapshot of a midwife's in-progress visit; only touched by the ETA worker
+     */
+    private static class TrackedVisit {
+        private String fieldVisitId;
+        private List<Stop> stops = new ArrayList<>();
+        private LocalDateTime loadedAt;
+        private Map<String, LocalDateTime> pushedEtas = new HashMap<>();
+        private String arrivedMotherId;
+        private LocalDateTime arrivedAt;
+        // Stops the midwife arrived at and left again, skipped when the visit is reloaded
+        private Set<String> departedMotherIds = new HashSet<>();
+    }
+
+    private static class Stop {
+        private String motherId;
+        private String fcmToken;
+        private double latitude;
+        private double longitude;
+        private LocalTime windowStart;
+        private long serviceSeconds;
+        private long travelSecondsFromPrevious;
+        private double metersFromPrevious;
+    }
+}
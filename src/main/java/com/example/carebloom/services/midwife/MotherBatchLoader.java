@@ -0,0 +1,104 @@
+package com.example.carebloom.services.midwife;
+
+import com.example.carebloom.models.Mother;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Per-request mother lookup for the field visit flow. IDs are collected and resolved together with
+ * one query the next time a mother is needed, and every mother is loaded at most once per request,
+ * so a request costs a constant number of round trips however many mothers it touches.
+ *
+ * Not thread-safe; create one per request.
+ */
+class MotherBatchLoader {
+
+    private final Function<Collection<String>, Iterable<Mother>> fetcher;
+    private final Map<String, Mother> loaded = new HashMap<>();
+    private final Set<String> missing = new HashSet<>();
+    private final Set<String> pending = new LinkedHashSet<>();
+
+    /**
+     * @param fetcher batch query, e.g. {@code motherRepository::findAllById} or a projection
+     */
+    MotherBatchLoader(Function<Collection<String>, Iterable<Mother>> fetcher) {
+        this.fetcher = fetcher;
+    }
+
+    /**
+     * Queue IDs to be fetched with the next lookup
+     */
+    MotherBatchLoader prefetch(Collection<String> motherIds) {
+        for (String motherId : motherIds) {
+            if (motherId != null && !loaded.containsKey(motherId) && !missing.contains(motherId)) {
+                pending.add(motherId);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Seed with mothers the caller already has, so they are not fetched again
+     */
+    MotherBatchLoader remember(Collection<Mother> mothers) {
+        for (Mother mother : mothers) {
+            loaded.put(mother.getId(), mother);
+            pending.remove(mother.getId());
+        }
+        return this;
+    }
+
+    /**
+     * The mother with this ID, or null if she does not exist
+     */
+    Mother get(String motherId) {
+        if (motherId == null) {
+            return null;
+        }
+        if (!loaded.containsKey(motherId) && !missing.contains(motherId)) {
+            pending.add(motherId);
+        }
+        resolvePending();
+        return loaded.get(motherId);
+    }
+
+    /**
+     * The existing mothers among these IDs, in the given order
+     */
+    List<Mother> getAll(Collection<String> motherIds) {
+        prefetch(motherIds);
+        resolvePending();
+        List<Mother> mothers = new ArrayList<>(motherIds.size());
+        for (String motherId : motherIds) {
+            Mother mother = loaded.get(motherId);
+            if (mother != null) {
+                mothers.add(mother);
+            }
+        }
+        return mothers;
+    }
+
+    private void resolvePending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<String> motherIds = new ArrayList<>(pending);
+        pending.clear();
+        for (Mother mother : fetcher.apply(motherIds)) {
+            loaded.put(mother.getId(), mother);
+        }
+        for (String motherId : motherIds) {
+            if (!loaded.containsKey(motherId)) {
+                missing.add(motherId);
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.carebloom.services.midwife;
+
+import com.example.carebloom.dto.midwife.NearbyMotherDTO;
+import com.example.carebloom.models.FieldVisit;
+import com.example.carebloom.models.Midwife;
+import com.example.carebloom.models.Mother;
+import com.example.carebloom.repositories.FieldVisitRepository;
+import com.example.carebloom.repositories.MotherRepository;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.NearQuery;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Proximity queries over the mothers of a midwife's office, backed by the 2dsphere index on geoLocation
+ */
+@Service
+public class MotherProximityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MotherProximityService.class);
+
+    private static final int MAX_RESULTS = 200;
+
+    // Mother fields read by toDTO
+    private static final String[] NEARBY_FIELDS =
+        {"name", "locationAddress", "address", "unitId", "latitude", "longitude", "distance"};
+
+    @Autowired
+    private MotherRepository motherRepository;
+
+    @Autowired
+    private FieldVisitRepository fieldVisitRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Office mothers within radiusKm of a point, nearest first
+     */
+    public List<NearbyMotherDTO> findNearPoint(Midwife midwife, double latitude, double longitude, double radiusKm, int limit) {
+        requireMidwife(midwife);
+        validateQuery(latitude, longitude, radiusKm);
+
+        GeoResults<Mother> results = motherRepository.findByMohOfficeIdAndGeoLocationNear(
+            midwife.getOfficeId(),
+            new Point(longitude, latitude),
+            new Distance(radiusKm, Metrics.KILOMETERS),
+            Limit.of(clampLimit(limit)));
+
+        return results.getContent().stream()
+            .map(result -> toDTO(result.getContent(), result.getDistance().in(Metrics.KILOMETERS).getValue() * 1000))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Office mothers within radiusKm of any stop of a field visit's route who are not already on it,
+     * ordered by distance to their nearest stop
+     */
+    public List<NearbyMotherDTO> findNearRoute(Midwife midwife, String fieldVisitId, double radiusKm, int limit) {
+        requireMidwife(midwife);
+        FieldVisit fieldVisit = fieldVisitRepository.findById(fieldVisitId)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Field visit not found"));
+        if (!fieldVisit.getMidwifeId().equals(midwife.getId())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied: Field visit does not belong to current midwife");
+        }
+        if (radiusKm <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Radius must be positive");
+        }
+
+        List<Point> stops = routeStops(fieldVisit);
+        if (stops.isEmpty()) {
+            return List.of();
+        }
+
+        Set<String> onRoute = fieldVisit.getSelectedMotherIds() != null
+            ? new HashSet<>(fieldVisit.getSelectedMotherIds())
+            : Set.of();
+        Query filter = new Query(new Criteria().andOperator(
+            Criteria.where("mohOfficeId").is(midwife.getOfficeId()),
+            Criteria.where("_id").nin(onRoute)));
+        int resultLimit = clampLimit(limit);
+
+        // One capped $geoNear per stop, merged on each mother's nearest stop. The overall nearest mothers are
+        // always among the nearest of some stop, so capping each stop at the limit loses none of them.
+        Map<String, NearbyMotherDTO> nearest = new HashMap<>();
+        for (Point stop : stops) {
+            for (NearbyMotherDTO dto : findNearStop(stop, radiusKm, filter, resultLimit)) {
+                nearest.merge(dto.getId(), dto, (a, b) -> a.getDistanceMeters() <= b.getDistanceMeters() ? a : b);
+            }
+        }
+        logger.debug("Found {} mothers within {}km of {} stops of field visit {}",
+                    nearest.size(), radiusKm, stops.size(), fieldVisitId);
+
+        return nearest.values().stream()
+            .sorted(Comparator.comparingDouble(NearbyMotherDTO::getDistanceMeters))
+            .limit(resultLimit)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Nearest matching mothers around one stop, reading only the fields the DTO needs
+     */
+    private List<NearbyMotherDTO> findNearStop(Point stop, double radiusKm, Query filter, int limit) {
+        // A GeoJSON point makes $geoNear work in meters; the multiplier reports distances in km
+        NearQuery near = NearQuery.near(new GeoJsonPoint(stop))
+            .maxDistance(new Distance(radiusKm, Metrics.KILOMETERS))
+            .spherical(true)
+            .query(filter)
+            .limit(limit);
+        Aggregation aggregation = Aggregation.newAggregation(
+            Aggregation.geoNear(near, "distance"),
+            Aggregation.project(NEARBY_FIELDS).and("fieldVisitAppointment.visitId").as("fieldVisitAppointment.visitId"));
+
+        List<NearbyMotherDTO> result = new ArrayList<>();
+        for (Document document : mongoTemplate.aggregate(aggregation, mongoTemplate.getCollectionName(Mother.class),
+                                                         Document.class)) {
+            Mother mother = mongoTemplate.getConverter().read(Mother.class, document);
+            result.add(toDTO(mother, document.get("distance", Number.class).doubleValue() * 1000));
+        }
+        return result;
+    }
+
+    /**
+     * Route stops from the stored schedule, or from the selected mothers if the route is not calculated yet
+     */
+    private List<Point> routeStops(FieldVisit fieldVisit) {
+        List<Point> stops = new ArrayList<>();
+        if (fieldVisit.getSchedule() != null && fieldVisit.getSchedule().getScheduledVisits() != null) {
+            for (FieldVisit.RouteSchedule.ScheduledVisit visit : fieldVisit.getSchedule().getScheduledVisits()) {
+                if (visit.getCoordinates() != null && visit.getCoordinates().getLatitude() != null
+                        && visit.getCoordinates().getLongitude() != null) {
+                    stops.add(new Point(visit.getCoordinates().getLongitude(), visit.getCoordinates().getLatitude()));
+                }
+            }
+        }
+        if (stops.isEmpty() && fieldVisit.getSelectedMotherIds() != null) {
+            for (Mother mother : motherRepository.findAllById(fieldVisit.getSelectedMotherIds())) {
+                if (mother.getLatitude() != null && mother.getLongitude() != null) {
+                    stops.add(new Point(mother.getLongitude(), mother.getLatitude()));
+                }
+            }
+        }
+        return stops;
+    }
+
+    private NearbyMotherDTO toDTO(Mother mother, double distanceMeters) {
+        NearbyMotherDTO dto = new NearbyMotherDTO();
+        dto.setId(mother.getId());
+        dto.setName(mother.getName());
+        dto.setAddress(mother.getLocationAddress() != null ? mother.getLocationAddress() : mother.getAddress());
+        dto.setUnitId(mother.getUnitId());
+        dto.setLatitude(mother.getLatitude());
+        dto.setLongitude(mother.getLongitude());
+        dto.setDistanceMeters(Math.round(distanceMeters * 10) / 10.0);
+        if (mother.getFieldVisitAppointment() != null) {
+            dto.setFieldVisitId(mother.getFieldVisitAppointment().getVisitId());
+        }
+        return dto;
+    }
+
+    private void requireMidwife(Midwife midwife) {
+        if (midwife == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Midwife not found in security context");
+        }
+    }
+
+    private void validateQuery(double latitude, double longitude, double radiusKm) {
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid coordinates");
+        }
+        if (radiusKm <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Radius must be positive");
+        }
+    }
+
+    private int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_RESULTS));
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.carebloom.services.midwife;
+
+/**
+ * Pure-Java route heuristic used as the first solver tier for small visits and as a
+ * warm start / safety net for OR-Tools.
+ *
+ * Builds a nearest-neighbour tour and improves it with 2-opt and Or-opt moves. Works on a
+ * flat row-major travel time matrix (seconds) with node 0 as the depot, and mirrors the
+ * OR-Tools time dimension: transit between two nodes is travel time plus service time at the
+ * origin (none at the depot), arriving early means waiting for the window to open, and arriving
+ * late is penalised.
+ * Routes are compared by total lateness first, then by total travel time.
+ */
+public class RouteHeuristicSolver {
+
+    private final long[] matrix;
+    private final int size;
+    private final long[][] timeWindows;
+    private final long serviceSeconds;
+
+    /**
+     * @param matrix         flat size x size travel times in seconds, row-major
+     * @param size           number of nodes including the depot at index 0
+     * @param timeWindows    [start, end] per node in seconds since midnight
+     * @param serviceSeconds service time spent at each node but the depot before leaving
+     */
+    public RouteHeuristicSolver(long[] matrix, int size, long[][] timeWindows, long serviceSeconds) {
+        if (matrix.length != size * size) {
+            throw new IllegalArgumentException("Matrix length " + matrix.length + " does not match size " + size);
+        }
+        if (timeWindows.length != size) {
+            throw new IllegalArgumentException("Expected " + size + " time windows, got " + timeWindows.length);
+        }
+        this.matrix = matrix;
+        this.size = size;
+        this.timeWindows = timeWindows;
+        this.serviceSeconds = serviceSeconds;
+    }
+
+    /**
+     * Time a leg adds to the route clock: its travel plus the service time spent on it. The heuristic, the
+     * OR-Tools time dimension and the shift fitting check all time legs with this, so they agree on feasibility.
+     */
+    public static long legSeconds(long travelSeconds, long serviceSeconds) {
+        return travelSeconds + serviceSeconds;
+    }
+
+    /**
+     * Solve with the given time budget. Always returns a complete route, even if the budget runs out.
+     */
+    public Solution solve(long timeBudgetMs) {
+        long deadline = System.nanoTime() + timeBudgetMs * 1_000_000L;
+        int[] route = nearestNeighbourRoute();
+        return localSearch(route, deadline);
+    }
+
+    /**
+     * Improve an existing route (node indices, depot excluded) with the given time budget.
+     */
+    public Solution improve(int[] initialRoute, long timeBudgetMs) {
+        long deadline = System.nanoTime() + timeBudgetMs * 1_000_000L;
+        return localSearch(initialRoute.clone(), deadline);
+    }
+
+    /**
+     * Evaluate a route (node indices, depot excluded) without modifying it.
+     */
+    public Solution evaluate(int[] route) {
+        long[] cost = new long[2];
+        evaluate(route, cost);
+        return new Solution(route.clone(), cost[1], cost[0]);
+    }
+
+    private Solution localSearch(int[] route, long deadline) {
+        long[] best = new long[2];
+        long[] candidate = new long[2];
+        int[] scratch = new int[route.length];
+        evaluate(route, best);
+
+        boolean improved = true;
+        while (improved && System.nanoTime() < deadline) {
+            improved = twoOpt(route, best, candidate, deadline);
+            improved |= orOpt(route, scratch, best, candidate, deadline);
+        }
+        return new Solution(route, best[1], best[0]);
+    }
+
+    /**
+     * Greedy construction: repeatedly go to the unvisited node that can be reached with the least
+     * lateness, then the earliest service start, then the shortest travel.
+     */
+    private int[] nearestNeighbourRoute() {
+        int customers = size - 1;
+        int[] route = new int[customers];
+        boolean[] visited = new boolean[size];
+
+        int current = 0;
+        long time = timeWindows[0][0];
+        for (int step = 0; step < customers; step++) {
+            int bestNode = -1;
+            long bestLateness = Long.MAX_VALUE;
+            long bestArrival = Long.MAX_VALUE;
+            long bestTravel = Long.MAX_VALUE;
+
+            for (int node = 1; node < size; node++) {
+                if (visited[node]) {
+                    continue;
+                }
+                long travel = matrix[current * size + node];
+                long arrival = Math.max(time + legSeconds(travel, serviceAt(current)), timeWindows[node][0]);
+                long lateness = Math.max(0, arrival - timeWindows[node][1]);
+
+                if (lateness < bestLateness
+                        || (lateness == bestLateness && arrival < bestArrival)
+                        || (lateness == bestLateness && arrival == bestArrival && travel < bestTravel)) {
+                    bestNode = node;
+                    bestLateness = lateness;
+                    bestArrival = arrival;
+                    bestTravel = travel;
+                }
+            }
+
+            route[step] = bestNode;
+            visited[bestNode] = true;
+            time = bestArrival;
+            current = bestNode;
+        }
+        return route;
+    }
+
+    /**
+     * First-improvement 2-opt: reverse route[i..j] whenever it lowers the cost
+     */
+    private boolean twoOpt(int[] route, long[] best, long[] candidate, long deadline) {
+        boolean improved = false;
+        for (int i = 0; i < route.length - 1; i++) {
+            for (int j = i + 1; j < route.length; j++) {
+                reverse(route, i, j);
+                evaluate(route, candidate);
+                if (isBetter(candidate, best)) {
+                    best[0] = candidate[0];
+                    best[1] = candidate[1];
+                    improved = true;
+                } else {
+                    reverse(route, i, j);
+                }
+            }
+            if (System.nanoTime() >= deadline) {
+                break;
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * First-improvement Or-opt: move segments of 1 to 3 consecutive visits to another position
+     */
+    private boolean orOpt(int[] route, int[] scratch, long[] best, long[] candidate, long deadline) {
+        boolean improved = false;
+        int n = route.length;
+        for (int segmentLength = 1; segmentLength <= 3 && segmentLength < n; segmentLength++) {
+            for (int from = 0; from + segmentLength <= n; from++) {
+                for (int to = 0; to <= n - segmentLength; to++) {
+                    if (to == from) {
+                        continue;
+                    }
+                    moveSegment(route, scratch, from, segmentLength, to);
+                    evaluate(scratch, candidate);
+                    if (isBetter(candidate, best)) {
+                        System.arraycopy(scratch, 0, route, 0, n);
+                        best[0] = candidate[0];
+                        best[1] = candidate[1];
+                        improved = true;
+                    }
+                }
+                if (System.nanoTime() >= deadline) {
+                    return improved;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * Writes into target the route with route[from..from+length) removed and re-inserted so that it starts at index to
+     */
+    private static void moveSegment(int[] route, int[] target, int from, int length, int to) {
+        int n = route.length;
+        int write = 0;
+        int read = 0;
+        for (int position = 0; position < n - length; position++) {
+            if (position == to) {
+                System.arraycopy(route, from, target, write, length);
+                write += length;
+            }
+            if (read == from) {
+                read += length;
+            }
+            target[write++] = route[read++];
+        }
+        if (write < n) {
+            System.arraycopy(route, from, target, write, length);
+        }
+    }
+
+    /**
+     * Computes [lateness, travel] for the route, including the return leg to the depot
+     */
+    private void evaluate(int[] route, long[] cost) {
+        long time = timeWindows[0][0];
+        long lateness = 0;
+        long travel = 0;
+        int previous = 0;
+
+        for (int node : route) {
+            long leg = matrix[previous * size + node];
+            travel += leg;
+            time = Math.max(time + legSeconds(leg, serviceAt(previous)), timeWindows[node][0]);
+            if (time > timeWindows[node][1]) {
+                lateness += time - timeWindows[node][1];
+            }
+            previous = node;
+        }
+        travel += matrix[previous * size];
+
+        cost[0] = lateness;
+        cost[1] = travel;
+    }
+
+    // The depot is a start location, not a visit, like OR-Tools' firstServicedNode
+    private long serviceAt(int node) {
+        return node == 0 ? 0 : serviceSeconds;
+    }
+
+    private static boolean isBetter(long[] candidate, long[] best) {
+        return candidate[0] < best[0] || (candidate[0] == best[0] && candidate[1] < best[1]);
+    }
+
+    private static void reverse(int[] route, int i, int j) {
+        while (i < j) {
+            int tmp = route[i];
+            route[i++] = route[j];
+            route[j--] = tmp;
+        }
+    }
+
+    /**
+     * Heuristic result: visit order as node indices (depot excluded)
+     */
+    @lombok.Getter
+    @lombok.AllArgsConstructor
+    public static class Solution {
+        private final int[] route;
+        private final long travelSeconds;
+        private final long latenessSeconds;
+
+        public boolean isFeasible() {
+            return latenessSeconds == 0;
+        }
+    }
+}
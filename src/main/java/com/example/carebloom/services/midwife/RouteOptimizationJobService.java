@@ -0,0 +1,296 @@
+package com.example.carebloom.services.midwife;
+
+import com.example.carebloom.dto.midwife.CalculateVisitOrderDTO;
+import com.example.carebloom.dto.midwife.CalculateVisitOrderResponseDTO;
+import com.example.carebloom.dto.midwife.RouteOptimizationJobDTO;
+import com.example.carebloom.models.Midwife;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs visit order calculations as background jobs on the bounded route solver executor.
+ * Clients submit a calculation, receive a job ID, and either poll for the result or
+ * subscribe to a server-sent event that fires when the job finishes. The synchronous
+ * endpoint goes through the same executor and waits a bounded time for its job.
+ */
+@Service
+public class RouteOptimizationJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RouteOptimizationJobService.class);
+
+    private static final long SSE_TIMEOUT_MS = 120_000L;
+
+    @Autowired
+    private FieldVisitService fieldVisitService;
+
+    @Autowired
+    @Qualifier("routeSolverExecutor")
+    private ThreadPoolTaskExecutor routeSolverExecutor;
+
+    @Value("${app.route-solver.queue-capacity:50}")
+    private int queueCapacity;
+
+    @Value("${app.route-solver.job-ttl-minutes:30}")
+    private long jobTtlMinutes;
+
+    @Value("${app.route-solver.sync-wait-seconds:35}")
+    private long syncWaitSeconds;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<String, List<SseEmitter>> listeners = new ConcurrentHashMap<>();
+
+    private final AtomicLong submittedJobs = new AtomicLong();
+    private final AtomicLong completedJobs = new AtomicLong();
+    private final AtomicLong failedJobs = new AtomicLong();
+    private final AtomicLong rejectedJobs = new AtomicLong();
+    private final AtomicLong totalQueueWaitMs = new AtomicLong();
+    private final AtomicLong totalSolveTimeMs = new AtomicLong();
+    private final AtomicLong maxSolveTimeMs = new AtomicLong();
+
+    /**
+     * Submit a visit order calculation for background processing
+     */
+    public RouteOptimizationJobDTO submit(String fieldVisitId, CalculateVisitOrderDTO request, Midwife midwife) {
+        if (midwife == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Midwife not found in security context");
+        }
+
+        evictExpiredJobs();
+
+        Job job = new Job();
+        job.setJobId(UUID.randomUUID().toString());
+        job.setFieldVisitId(fieldVisitId);
+        job.setMidwifeId(midwife.getId());
+        job.setStatus("QUEUED");
+        job.setSubmittedAt(LocalDateTime.now());
+        job.setSubmittedNanos(System.nanoTime());
+        jobs.put(job.getJobId(), job);
+
+        try {
+            routeSolverExecutor.execute(() -> runJob(job, request, midwife));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.getJobId());
+            rejectedJobs.incrementAndGet();
+            logger.warn("Route solver queue is full ({} queued), rejecting job for field visit {}",
+                       routeSolverExecutor.getQueueSize(), fieldVisitId);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Route optimization is busy, please try again shortly");
+        }
+
+        submittedJobs.incrementAndGet();
+        logger.info("Route optimization job {} queued for field visit {} (queue depth: {})",
+                   job.getJobId(), fieldVisitId, routeSolverExecutor.getQueueSize());
+        return toDTO(job);
+    }
+
+    /**
+     * Submit a calculation and wait up to the configured sync wait for it. The returned job is finished
+     * unless the wait ran out, in which case the caller can keep polling it like a submitted job.
+     */
+    public RouteOptimizationJobDTO submitAndWait(String fieldVisitId, CalculateVisitOrderDTO request, Midwife midwife) {
+        RouteOptimizationJobDTO submitted = submit(fieldVisitId, request, midwife);
+        Job job = jobs.get(submitted.getJobId());
+        try {
+            if (!job.getDone().await(syncWaitSeconds, TimeUnit.SECONDS)) {
+                logger.info("Route optimization job {} still {} after {}s, answering with the job",
+                           job.getJobId(), job.getStatus(), syncWaitSeconds);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return toDTO(job);
+    }
+
+    /**
+     * Get the current state of a job owned by the given midwife
+     */
+    public RouteOptimizationJobDTO getJob(String jobId, Midwife midwife) {
+        return toDTO(findOwnedJob(jobId, midwife));
+    }
+
+    /**
+     * Subscribe to completion of a job. The emitter receives a single "job" event and then completes.
+     */
+    public SseEmitter subscribe(String jobId, Midwife midwife) {
+        Job job = findOwnedJob(jobId, midwife);
+        SseEmitter emitter = new SseEmitter(SSE_TIMEOUT_MS);
+
+        List<SseEmitter> jobListeners = listeners.computeIfAbsent(jobId, k -> new CopyOnWriteArrayList<>());
+        jobListeners.add(emitter);
+        emitter.onCompletion(() -> jobListeners.remove(emitter));
+        emitter.onTimeout(() -> jobListeners.remove(emitter));
+
+        // The job may have finished before the client subscribed
+        if (job.isFinished() && jobListeners.remove(emitter)) {
+            listeners.remove(jobId, jobListeners);
+            sendAndComplete(emitter, toDTO(job));
+        }
+        return emitter;
+    }
+
+    /**
+     * Get solver pool and job timing statistics
+     */
+    public RouteOptimizationJobDTO.SolverStats getStats() {
+        RouteOptimizationJobDTO.SolverStats stats = new RouteOptimizationJobDTO.SolverStats();
+        long finished = completedJobs.get() + failedJobs.get();
+
+        stats.setPoolSize(routeSolverExecutor.getMaxPoolSize());
+        stats.setActiveSolves(routeSolverExecutor.getActiveCount());
+        stats.setQueuedJobs(routeSolverExecutor.getQueueSize());
+        stats.setQueueCapacity(queueCapacity);
+        stats.setSubmittedJobs(submittedJobs.get());
+        stats.setCompletedJobs(completedJobs.get());
+        stats.setFailedJobs(failedJobs.get());
+        stats.setRejectedJobs(rejectedJobs.get());
+        stats.setAvgQueueWaitMs(finished > 0 ? (double) totalQueueWaitMs.get() / finished : 0.0);
+        stats.setAvgSolveTimeMs(finished > 0 ? (double) totalSolveTimeMs.get() / finished : 0.0);
+        stats.setMaxSolveTimeMs(maxSolveTimeMs.get());
+        return stats;
+    }
+
+    private void runJob(Job job, CalculateVisitOrderDTO request, Midwife midwife) {
+        long startNanos = System.nanoTime();
+        long queueWaitMs = (startNanos - job.getSubmittedNanos()) / 1_000_000;
+        job.setStatus("RUNNING");
+        job.setStartedAt(LocalDateTime.now());
+        job.setQueueWaitMs(queueWaitMs);
+        logger.info("Route optimization job {} started after {}ms in queue", job.getJobId(), queueWaitMs);
+
+        try {
+            CalculateVisitOrderResponseDTO result =
+                fieldVisitService.calculateVisitOrder(job.getFieldVisitId(), request, midwife);
+            job.setResult(result);
+            if (result.isSuccess()) {
+                job.setStatus("COMPLETED");
+                completedJobs.incrementAndGet();
+            } else {
+                job.setStatus("FAILED");
+                job.setError(result.getMessage());
+                failedJobs.incrementAndGet();
+            }
+        } catch (Exception e) {
+            logger.error("Route optimization job {} failed: {}", job.getJobId(), e.getMessage(), e);
+            job.setStatus("FAILED");
+            job.setError(e.getMessage());
+            failedJobs.incrementAndGet();
+        } finally {
+            long solveTimeMs = (System.nanoTime() - startNanos) / 1_000_000;
+            job.setSolveTimeMs(solveTimeMs);
+            job.setCompletedAt(LocalDateTime.now());
+            totalQueueWaitMs.addAndGet(queueWaitMs);
+            totalSolveTimeMs.addAndGet(solveTimeMs);
+            maxSolveTimeMs.accumulateAndGet(solveTimeMs, Math::max);
+            logger.info("Route optimization job {} finished with status {} in {}ms",
+                       job.getJobId(), job.getStatus(), solveTimeMs);
+            job.getDone().countDown();
+            notifyListeners(job);
+        }
+    }
+
+    private void notifyListeners(Job job) {
+        List<SseEmitter> jobListeners = listeners.remove(job.getJobId());
+        if (jobListeners == null) {
+            return;
+        }
+        RouteOptimizationJobDTO dto = toDTO(job);
+        for (SseEmitter emitter : jobListeners) {
+            // Whoever removes the emitter first delivers the event, so late subscribers get it exactly once
+            if (jobListeners.remove(emitter)) {
+                sendAndComplete(emitter, dto);
+            }
+        }
+    }
+
+    private void sendAndComplete(SseEmitter emitter, RouteOptimizationJobDTO dto) {
+        try {
+            emitter.send(SseEmitter.event().name("job").data(dto));
+            emitter.complete();
+        } catch (IOException e) {
+            logger.debug("Failed to push job {} result to subscriber: {}", dto.getJobId(), e.getMessage());
+            emitter.completeWithError(e);
+        }
+    }
+
+    private Job findOwnedJob(String jobId, Midwife midwife) {
+        if (midwife == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Midwife not found in security context");
+        }
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Route optimization job not found");
+        }
+        if (!job.getMidwifeId().equals(midwife.getId())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied: Job does not belong to current midwife");
+        }
+        return job;
+    }
+
+    /**
+     * Drop finished jobs older than the configured TTL so the job table stays bounded
+     */
+    private void evictExpiredJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMinutes(jobTtlMinutes));
+        jobs.values().removeIf(job -> job.isFinished() && job.getCompletedAt().isBefore(cutoff));
+    }
+
+    private RouteOptimizationJobDTO toDTO(Job job) {
+        RouteOptimizationJobDTO dto = new RouteOptimizationJobDTO();
+        dto.setJobId(job.getJobId());
+        dto.setFieldVisitId(job.getFieldVisitId());
+        dto.setStatus(job.getStatus());
+        dto.setSubmittedAt(job.getSubmittedAt());
+        dto.setStartedAt(job.getStartedAt());
+        dto.setCompletedAt(job.getCompletedAt());
+        dto.setQueueWaitMs(job.getQueueWaitMs());
+        dto.setSolveTimeMs(job.getSolveTimeMs());
+        dto.setError(job.getError());
+        dto.setResult(job.getResult());
+        return dto;
+    }
+
+    /**
+     * In-memory job state
+     */
+    @lombok.Data
+    private static class Job {
+        private String jobId;
+        private String fieldVisitId;
+        private String midwifeId;
+        private volatile String status;
+        private LocalDateTime submittedAt;
+        private long submittedNanos;
+        private LocalDateTime startedAt;
+        private volatile LocalDateTime completedAt;
+        private Long queueWaitMs;
+        private Long solveTimeMs;
+        private String error;
+        private CalculateVisitOrderResponseDTO result;
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        boolean isFinished() {
+            return completedAt != null;
+        }
+    }
+}
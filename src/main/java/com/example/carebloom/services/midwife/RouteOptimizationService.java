@@ -4,6 +4,7 @@ import com.example.carebloom.dto.navigation.NavigationLocation;
 import com.example.carebloom.dto.navigation.TravelTimeResult;
 import com.example.carebloom.models.Mother;
 import com.example.carebloom.services.navigation.GoogleMapsDistanceService;
+import com.example.carebloom.services.navigation.UnitTravelMatrixService;
 import com.google.ortools.Loader;
 import com.google.ortools.constraintsolver.*;
 import lombok.extern.slf4j.Slf4j;
@@ -13,6 +14,7 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalTime;
 import java.util.*;
+import java.util.function.LongBinaryOperator;
 
 @Slf4j
 @Service
@@ -24,6 +26,30 @@ public class RouteOptimizationService {
     @Autowired
     private GoogleMapsDistanceService googleMapsDistanceService;
 
+    @Autowired
+    private UnitTravelMatrixService unitTravelMatrixService;
+
+    @Value("${app.route-solver.time-limit-seconds:30}")
+    private long solverTimeLimitSeconds;
+
+    @Value("${app.route-solver.heuristic-max-nodes:10}")
+    private int heuristicMaxNodes;
+
+    @Value("${app.route-solver.heuristic-time-budget-ms:50}")
+    private long heuristicTimeBudgetMs;
+
+    @Value("${app.route-solver.reoptimize-time-limit-ms:500}")
+    private long reoptimizeTimeLimitMs;
+
+    @Value("${app.route-solver.reoptimize-min-gain-seconds:300}")
+    private long reoptimizeMinGainSeconds;
+
+    // Service time spent at each visit, shared by the OR-Tools time dimension and the heuristic
+    private static final long SERVICE_TIME_SECONDS = 1800;
+
+    // Cost of leaving a visit unassigned in office planning; far above any route's travel cost
+    private static final long UNASSIGNED_VISIT_PENALTY = 10_000_000;
+
     private boolean isOrToolsAvailable = false;
 
     public RouteOptimizationService() {
@@ -119,19 +145,37 @@ public class RouteOptimizationService {
             return fallbackSimpleOrdering(mothers);
         }
 
-        if (!isOrToolsAvailable) {
-            log.warn("OR-Tools not available, using fallback algorithm");
-            return fallbackSimpleOrdering(mothers);
-        }
-
+        log.info("--- STEP 1: Creating data model ---");
+        DataModel data;
         try {
-            log.info("--- STEP 1: Creating data model ---");
             // Create data model
-            DataModel data = createDataModel(mothersWithCoordinates, startTime, endTime);
+            data = createDataModel(mothersWithCoordinates, startTime, endTime);
             log.info("Data model created: {}x{} distance matrix, {} vehicles, depot at index {}", 
                     data.distanceMatrix.length, data.distanceMatrix[0].length, 
                     data.vehicleNumber, data.depot);
-            
+        } catch (Exception e) {
+            log.error("ERROR creating data model: {}", e.getMessage(), e);
+            log.warn("Falling back to simple ordering due to error");
+            return fallbackSimpleOrdering(mothers);
+        }
+
+        // Pure-Java tier: cheap enough to always run, used directly for small visits and as
+        // warm start / safety net for OR-Tools
+        RouteHeuristicSolver.Solution heuristic = solveWithHeuristic(data);
+
+        // A small visit is left to the heuristic only when it meets every window; otherwise OR-Tools gets a go
+        if (mothersWithCoordinates.size() <= heuristicMaxNodes && heuristic.isFeasible()) {
+            log.info("{} mothers <= heuristic threshold {}, using heuristic route", 
+                    mothersWithCoordinates.size(), heuristicMaxNodes);
+            return toMotherOrder(heuristic.getRoute(), mothersWithCoordinates);
+        }
+
+        if (!isOrToolsAvailable) {
+            log.warn("OR-Tools not available, using heuristic route");
+            return toMotherOrder(heuristic.getRoute(), mothersWithCoordinates);
+        }
+
+        try {
             log.info("--- STEP 2: Creating routing model ---");
             // Create routing index manager
             RoutingIndexManager manager = new RoutingIndexManager(
@@ -147,16 +191,7 @@ public class RouteOptimizationService {
 
             log.info("--- STEP 3: Registering transit callback ---");
             // Create and register a transit callback
-            final int transitCallbackIndex = routing.registerTransitCallback(
-                (long fromIndex, long toIndex) -> {
-                    int fromNode = manager.indexToNode(fromIndex);
-                    int toNode = manager.indexToNode(toIndex);
-                    long travelTime = data.distanceMatrix[fromNode][toNode];
-                    log.debug("Transit callback: from node {} to node {} = {} seconds", 
-                             fromNode, toNode, travelTime);
-                    return travelTime;
-                }
-            );
+            final int transitCallbackIndex = routing.registerTransitCallback(arcCostCallback(manager, data));
             log.info("Transit callback registered with index: {}", transitCallbackIndex);
 
             // Define cost of each arc
@@ -174,16 +209,21 @@ public class RouteOptimizationService {
                 .toBuilder()
                 .setFirstSolutionStrategy(FirstSolutionStrategy.Value.PATH_CHEAPEST_ARC)
                 .setLocalSearchMetaheuristic(LocalSearchMetaheuristic.Value.GUIDED_LOCAL_SEARCH)
-                .setTimeLimit(com.google.protobuf.Duration.newBuilder().setSeconds(30).build())
+                .setTimeLimit(com.google.protobuf.Duration.newBuilder().setSeconds(solverTimeLimitSeconds).build())
                 .build();
-            log.info("Search parameters: FirstSolution=PATH_CHEAPEST_ARC, LocalSearch=GUIDED_LOCAL_SEARCH, TimeLimit=30s");
+            log.info("Search parameters: FirstSolution=PATH_CHEAPEST_ARC, LocalSearch=GUIDED_LOCAL_SEARCH, TimeLimit={}s", 
+                    solverTimeLimitSeconds);
 
             log.info("--- STEP 6: Solving the optimization problem ---");
+            routing.closeModelWithParameters(searchParameters);
+            Assignment initialSolution = readInitialSolution(routing, manager, heuristic.getRoute());
             long solveStartTime = System.currentTimeMillis();
-            // Solve the problem
-            Assignment solution = routing.solveWithParameters(searchParameters);
+            // Solve the problem, starting from the heuristic route when it satisfies the time windows
+            Assignment solution = initialSolution != null
+                ? routing.solveFromAssignmentWithParameters(initialSolution, searchParameters)
+                : routing.solveWithParameters(searchParameters);
             long solveEndTime = System.currentTimeMillis();
-            log.info("Solving completed in {}ms", solveEndTime - solveStartTime);
+            log.info("Solving completed in {}ms (warm start: {})", solveEndTime - solveStartTime, initialSolution != null);
 
             if (solution != null) {
                 log.info("--- STEP 7: Solution found, extracting optimized order ---");
@@ -193,22 +233,257 @@ public class RouteOptimizationService {
             } else {
                 log.warn("No solution found for route optimization (solution is null)");
                 log.warn("Routing status: {}", routing.status());
-                log.warn("Falling back to simple ordering");
-                return fallbackSimpleOrdering(mothers);
+                log.warn("Falling back to heuristic route");
+                return toMotherOrder(heuristic.getRoute(), mothersWithCoordinates);
             }
 
         } catch (Exception e) {
             log.error("ERROR during route optimization: {}", e.getMessage(), e);
-            log.error("Stack trace: ", e);
-            log.warn("Falling back to simple ordering due to error");
-            return fallbackSimpleOrdering(mothers);
+            log.warn("Falling back to heuristic route due to error");
+            return toMotherOrder(heuristic.getRoute(), mothersWithCoordinates);
+        }
+    }
+
+    /**
+     * Runs the pure-Java nearest-neighbour + 2-opt/Or-opt heuristic on the data model
+     */
+    private RouteHeuristicSolver.Solution solveWithHeuristic(DataModel data) {
+        long heuristicStart = System.nanoTime();
+        RouteHeuristicSolver.Solution solution = createHeuristicSolver(data).solve(heuristicTimeBudgetMs);
+        log.info("Heuristic route computed in {}ms: travel={}s, lateness={}s", 
+                (System.nanoTime() - heuristicStart) / 1_000_000, 
+                solution.getTravelSeconds(), solution.getLatenessSeconds());
+        return solution;
+    }
+
+    private RouteHeuristicSolver createHeuristicSolver(DataModel data) {
+        int size = data.distanceMatrix.length;
+        long[] flatMatrix = new long[size * size];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(data.distanceMatrix[i], 0, flatMatrix, i * size, size);
+        }
+
+        // Time windows are kept in minutes by createTimeWindows(); the heuristic works in seconds
+        long[][] windowSeconds = new long[size][2];
+        for (int i = 0; i < size; i++) {
+            windowSeconds[i][0] = data.timeWindows[i][0] * 60;
+            windowSeconds[i][1] = data.timeWindows[i][1] * 60;
+        }
+
+        return new RouteHeuristicSolver(flatMatrix, size, windowSeconds, SERVICE_TIME_SECONDS);
+    }
+
+    /**
+     * Loads a route (node indices, depot excluded) as an OR-Tools assignment, or null if it violates the model
+     */
+    private Assignment readInitialSolution(RoutingModel routing, RoutingIndexManager manager, int[] route) {
+        long[][] routes = new long[1][route.length];
+        for (int i = 0; i < route.length; i++) {
+            routes[0][i] = manager.nodeToIndex(route[i]);
+        }
+        Assignment initialSolution = routing.readAssignmentFromRoutes(routes, true);
+        if (initialSolution == null) {
+            log.info("Heuristic route violates hard time windows, solving OR-Tools from scratch");
+        }
+        return initialSolution;
+    }
+
+    /**
+     * Maps a route of node indices (depot excluded) back to mothers
+     */
+    private List<Mother> toMotherOrder(int[] route, List<Mother> mothers) {
+        List<Mother> ordered = new ArrayList<>(route.length);
+        for (int node : route) {
+            ordered.add(mothers.get(node - 1));
+        }
+        return ordered;
+    }
+
+    /**
+     * Re-optimizes an existing route after a small edit (mother added or removed, window changed).
+     * The previous visit order seeds a short, bounded local search instead of a full solve, and mothers
+     * who were already notified of a scheduled time are only moved when it pays off noticeably.
+     *
+     * @param mothers          mothers to visit now
+     * @param previousOrder    mother IDs in their previously scheduled order
+     * @param notifiedIds      mothers who were already sent a scheduled time
+     */
+    public ReoptimizationResult reoptimizeVisitOrder(List<Mother> mothers, List<String> previousOrder, Set<String> notifiedIds,
+                                                     LocalTime startTime, LocalTime endTime) {
+        long startMs = System.currentTimeMillis();
+        Set<String> currentIds = new HashSet<>();
+        mothers.forEach(m -> currentIds.add(m.getId()));
+        Set<String> previousIds = new HashSet<>(previousOrder);
+
+        List<String> removed = previousOrder.stream().filter(id -> !currentIds.contains(id)).toList();
+        List<String> added = mothers.stream().map(Mother::getId).filter(id -> !previousIds.contains(id)).toList();
+
+        // Kept mothers first in their previous order, so the seed route is 1..k followed by the new mothers
+        List<Mother> ordered = new ArrayList<>(mothers.size());
+        Map<String, Mother> byId = new HashMap<>();
+        mothers.forEach(m -> byId.put(m.getId(), m));
+        previousOrder.stream().filter(byId::containsKey).forEach(id -> ordered.add(byId.get(id)));
+        mothers.stream().filter(m -> !previousIds.contains(m.getId())).forEach(ordered::add);
+
+        log.info("=== STARTING INCREMENTAL ROUTE RE-OPTIMIZATION ===");
+        log.info("{} mothers: {} kept, {} added, {} removed, {} already notified",
+                mothers.size(), mothers.size() - added.size(), added.size(), removed.size(), notifiedIds.size());
+
+        if (ordered.size() < 2 || !ordered.stream().allMatch(this::hasValidCoordinates)) {
+            return new ReoptimizationResult(ordered, true, added, removed, List.of(), 0, 0, false,
+                    System.currentTimeMillis() - startMs);
+        }
+
+        DataModel data = createDataModel(ordered, startTime, endTime);
+        RouteHeuristicSolver heuristic = createHeuristicSolver(data);
+
+        int[] seed = insertNewNodes(heuristic, mothers.size() - added.size(), ordered.size());
+        RouteHeuristicSolver.Solution seeded = heuristic.evaluate(seed);
+        RouteHeuristicSolver.Solution best = heuristic.improve(seed, heuristicTimeBudgetMs);
+
+        // OR-Tools searches from the kept order itself, not from the heuristic's result, so the two
+        // explore independently and the better one wins
+        if (isOrToolsAvailable) {
+            int[] orToolsRoute = improveWithOrTools(data, seed);
+            if (orToolsRoute != null) {
+                RouteHeuristicSolver.Solution candidate = heuristic.evaluate(orToolsRoute);
+                if (candidate.getLatenessSeconds() < best.getLatenessSeconds()
+                        || (candidate.getLatenessSeconds() == best.getLatenessSeconds()
+                            && candidate.getTravelSeconds() < best.getTravelSeconds())) {
+                    best = candidate;
+                }
+            }
+        }
+
+        // Stability: keep the seeded order unless the new one removes lateness or saves enough travel
+        List<String> moved = movedNotifiedMothers(seeded.getRoute(), best.getRoute(), ordered, notifiedIds);
+        boolean keptPrevious = false;
+        if (!moved.isEmpty()
+                && best.getLatenessSeconds() >= seeded.getLatenessSeconds()
+                && seeded.getTravelSeconds() - best.getTravelSeconds() < reoptimizeMinGainSeconds) {
+            log.info("Re-optimization saves only {}s but moves {} notified mothers, keeping previous order",
+                    seeded.getTravelSeconds() - best.getTravelSeconds(), moved.size());
+            best = seeded;
+            moved = List.of();
+            keptPrevious = true;
+        }
+
+        long elapsed = System.currentTimeMillis() - startMs;
+        log.info("=== INCREMENTAL RE-OPTIMIZATION COMPLETED in {}ms: travel {}s -> {}s, {} notified mothers moved ===",
+                elapsed, seeded.getTravelSeconds(), best.getTravelSeconds(), moved.size());
+        return new ReoptimizationResult(toMotherOrder(best.getRoute(), ordered), false, added, removed, moved,
+                seeded.getTravelSeconds(), best.getTravelSeconds(), keptPrevious, elapsed);
+    }
+
+    /**
+     * Builds the seed route: nodes 1..keptCount in order, then each new node inserted at its cheapest position
+     */
+    private int[] insertNewNodes(RouteHeuristicSolver heuristic, int keptCount, int nodeCount) {
+        int[] route = new int[keptCount];
+        for (int i = 0; i < keptCount; i++) {
+            route[i] = i + 1;
+        }
+        for (int node = keptCount + 1; node <= nodeCount; node++) {
+            int[] bestRoute = null;
+            RouteHeuristicSolver.Solution bestSolution = null;
+            for (int position = 0; position <= route.length; position++) {
+                int[] candidate = new int[route.length + 1];
+                System.arraycopy(route, 0, candidate, 0, position);
+                candidate[position] = node;
+                System.arraycopy(route, position, candidate, position + 1, route.length - position);
+                RouteHeuristicSolver.Solution solution = heuristic.evaluate(candidate);
+                if (bestSolution == null
+                        || solution.getLatenessSeconds() < bestSolution.getLatenessSeconds()
+                        || (solution.getLatenessSeconds() == bestSolution.getLatenessSeconds()
+                            && solution.getTravelSeconds() < bestSolution.getTravelSeconds())) {
+                    bestRoute = candidate;
+                    bestSolution = solution;
+                }
+            }
+            route = bestRoute;
+        }
+        return route;
+    }
+
+    /**
+     * Short greedy-descent OR-Tools pass started from the given route. Returns null if OR-Tools
+     * cannot load the route (it violates hard time windows) or finds nothing better.
+     */
+    private int[] improveWithOrTools(DataModel data, int[] route) {
+        try {
+            RoutingIndexManager manager = new RoutingIndexManager(data.distanceMatrix.length, data.vehicleNumber, data.depot);
+            RoutingModel routing = new RoutingModel(manager);
+            routing.setArcCostEvaluatorOfAllVehicles(routing.registerTransitCallback(arcCostCallback(manager, data)));
+            addTimeWindowConstraints(routing, manager, data);
+
+            RoutingSearchParameters searchParameters = main.defaultRoutingSearchParameters()
+                .toBuilder()
+                .setLocalSearchMetaheuristic(LocalSearchMetaheuristic.Value.GREEDY_DESCENT)
+                .setTimeLimit(com.google.protobuf.Duration.newBuilder()
+                    .setSeconds(reoptimizeTimeLimitMs / 1000)
+                    .setNanos((int) (reoptimizeTimeLimitMs % 1000) * 1_000_000)
+                    .build())
+                .build();
+            routing.closeModelWithParameters(searchParameters);
+
+            Assignment initialSolution = readInitialSolution(routing, manager, route);
+            if (initialSolution == null) {
+                return null;
+            }
+            Assignment solution = routing.solveFromAssignmentWithParameters(initialSolution, searchParameters);
+            if (solution == null) {
+                return null;
+            }
+
+            int[] improved = new int[route.length];
+            int position = 0;
+            long index = solution.value(routing.nextVar(routing.start(0)));
+            while (!routing.isEnd(index)) {
+                improved[position++] = manager.indexToNode(index);
+                index = solution.value(routing.nextVar(index));
+            }
+            return improved;
+        } catch (Exception e) {
+            log.warn("Warm-started OR-Tools pass failed, keeping heuristic route: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * IDs of notified mothers whose position in the route changed
+     */
+    private List<String> movedNotifiedMothers(int[] before, int[] after, List<Mother> mothers, Set<String> notifiedIds) {
+        List<String> moved = new ArrayList<>();
+        for (int i = 0; i < after.length; i++) {
+            String motherId = mothers.get(after[i] - 1).getId();
+            if (before[i] != after[i] && notifiedIds.contains(motherId)) {
+                moved.add(motherId);
+            }
         }
+        return moved;
+    }
+
+    /**
+     * Result of an incremental re-optimization, including what changed against the previous route
+     */
+    @lombok.Data
+    @lombok.AllArgsConstructor
+    public static class ReoptimizationResult {
+        private List<Mother> optimizedOrder;
+        private boolean fellbackToSimple;
+        private List<String> addedMotherIds;
+        private List<String> removedMotherIds;
+        private List<String> movedNotifiedMotherIds;
+        private long previousTravelSeconds;
+        private long travelSeconds;
+        private boolean keptPreviousOrder;
+        private long optimizationTimeMs;
     }
 
     /**
      * Creates the data model for the VRP solver
      */
-    private DataModel createDataModel(List<Mother> mothers, LocalTime startTime, LocalTime endTime) {
+    DataModel createDataModel(List<Mother> mothers, LocalTime startTime, LocalTime endTime) {
         log.info("Creating data model for {} mothers", mothers.size());
         DataModel data = new DataModel();
         
@@ -244,6 +519,7 @@ public class RouteOptimizationService {
         // Set vehicle number and depot
         data.vehicleNumber = 1;
         data.depot = 0;
+        data.firstServicedNode = 1;
         log.info("Data model configuration: {} vehicle(s), depot at index {}", data.vehicleNumber, data.depot);
 
         return data;
@@ -252,8 +528,16 @@ public class RouteOptimizationService {
     /**
      * Calculates distance matrix between all locations using Google Maps API
      */
-    private long[][] calculateDistanceMatrix(List<Mother> locations) {
+    long[][] calculateDistanceMatrix(List<Mother> locations) {
         int size = locations.size();
+
+        // Mothers of one unit are usually covered by the precomputed unit matrix
+        long[][] stored = unitTravelMatrixService != null ? unitTravelMatrixService.slice(locations) : null;
+        if (stored != null) {
+            log.info("Using precomputed unit travel matrix for {} locations", size);
+            return stored;
+        }
+
         log.info("Calculating {}x{} distance matrix using Google Maps API", size, size);
         long[][] matrix = new long[size][size];
 
@@ -274,8 +558,8 @@ public class RouteOptimizationService {
             }
 
             log.info("Calling Google Maps Distance Matrix API for {} locations", navLocations.size());
-            // Get travel time matrix from Google Maps
-            TravelTimeResult[][] travelMatrix = googleMapsDistanceService.getTravelTimeMatrix(navLocations);
+            // Tiled, as one request may hold at most 100 elements and office problems are far larger
+            TravelTimeResult[][] travelMatrix = googleMapsDistanceService.getTravelTimeMatrix(navLocations, navLocations);
             log.info("Google Maps API call completed");
             
             // Convert travel times to matrix format (in seconds for OR-Tools)
@@ -319,14 +603,16 @@ public class RouteOptimizationService {
                     validResults, fallbackResults);
             
             // Log sample of the distance matrix for debugging
-            log.debug("Distance matrix sample (first 3x3, in seconds):");
-            int logSize = Math.min(3, size);
-            for (int i = 0; i < logSize; i++) {
-                StringBuilder row = new StringBuilder();
-                for (int j = 0; j < logSize; j++) {
-                    row.append(String.format("%6d ", matrix[i][j]));
+            if (log.isDebugEnabled()) {
+                log.debug("Distance matrix sample (first 3x3, in seconds):");
+                int logSize = Math.min(3, size);
+                for (int i = 0; i < logSize; i++) {
+                    StringBuilder row = new StringBuilder();
+                    for (int j = 0; j < logSize; j++) {
+                        row.append(String.format("%6d ", matrix[i][j]));
+                    }
+                    log.debug("  Row {}: {}", i, row.toString());
                 }
-                log.debug("  Row {}: {}", i, row.toString());
             }
             
         } catch (Exception e) {
@@ -384,7 +670,7 @@ public class RouteOptimizationService {
     /**
      * Creates time windows for each location
      */
-    private long[][] createTimeWindows(List<Mother> mothers, LocalTime startTime, LocalTime endTime) {
+    long[][] createTimeWindows(List<Mother> mothers, LocalTime startTime, LocalTime endTime) {
         int size = mothers.size() + 1; // +1 for depot
         long[][] timeWindows = new long[size][2];
 
@@ -418,6 +704,31 @@ public class RouteOptimizationService {
         return timeWindows;
     }
 
+    /**
+     * Arc cost callback: travel time in seconds between two routing indices.
+     * Called by the solver for every arc it evaluates, so it must not log or allocate.
+     */
+    LongBinaryOperator arcCostCallback(RoutingIndexManager manager, DataModel data) {
+        return (long fromIndex, long toIndex) ->
+            data.distanceMatrix[manager.indexToNode(fromIndex)][manager.indexToNode(toIndex)];
+    }
+
+    /**
+     * Time dimension callback: travel time plus service time at the origin, in seconds
+     */
+    LongBinaryOperator timeTransitCallback(RoutingIndexManager manager, DataModel data) {
+        return (long fromIndex, long toIndex) -> {
+            int fromNode = manager.indexToNode(fromIndex);
+            int toNode = manager.indexToNode(toIndex);
+            if (fromNode == toNode) {
+                return 0;
+            }
+            // Real travel time from the distance matrix (already in seconds) plus 30 minutes service time
+            long serviceTime = fromNode >= data.firstServicedNode ? SERVICE_TIME_SECONDS : 0;
+            return RouteHeuristicSolver.legSeconds(data.distanceMatrix[fromNode][toNode], serviceTime);
+        };
+    }
+
     /**
      * Adds time window constraints to the routing model
      */
@@ -425,22 +736,9 @@ public class RouteOptimizationService {
         String timeDimension = "Time";
         log.info("Adding time window constraints with dimension: '{}'", timeDimension);
         
-        final int transitCallbackIndex = routing.registerTransitCallback(
-            (long fromIndex, long toIndex) -> {
-                int fromNode = manager.indexToNode(fromIndex);
-                int toNode = manager.indexToNode(toIndex);
-                if (fromNode == toNode) {
-                    return 0;
-                }
-                // Use the real travel time from distance matrix (already in seconds)
-                // Add 30 minutes (1800 seconds) service time at each location
-                long transitTime = data.distanceMatrix[fromNode][toNode] + 1800; // 30 minutes service time
-                log.debug("Time constraint transit: from {} to {} = {} seconds (travel: {}, service: 1800)", 
-                         fromNode, toNode, transitTime, data.distanceMatrix[fromNode][toNode]);
-                return transitTime;
-            }
-        );
-        log.info("Time dimension transit callback registered with index: {}", transitCallbackIndex);
+        final int transitCallbackIndex = routing.registerTransitCallback(timeTransitCallback(manager, data));
+        log.info("Time dimension transit callback registered with index: {} (service time: {}s)", 
+                transitCallbackIndex, SERVICE_TIME_SECONDS);
 
         routing.addDimension(
             transitCallbackIndex,
@@ -541,7 +839,7 @@ public class RouteOptimizationService {
      */
     private List<Mother> fallbackSimpleOrdering(List<Mother> mothers) {
         log.warn("=== USING FALLBACK SIMPLE ORDERING ===");
-        log.warn("Reason: OR-Tools not available or optimization failed");
+        log.warn("Reason: missing coordinates or route data model could not be built");
         
         List<Mother> result = mothers.stream()
             .sorted((m1, m2) -> {
@@ -571,6 +869,462 @@ public class RouteOptimizationService {
         return "09:00"; // Default time
     }
 
+    /**
+     * Plans routes for several midwives at once as a single multi-vehicle VRPTW.
+     * Each vehicle starts and ends at its own location within its shift window; visits that
+     * cannot fit in any shift are dropped (disjunctions) and reported as unassigned.
+     */
+    public OfficeOptimizationResult optimizeOfficeRoutes(List<Mother> mothers, List<RouteVehicle> vehicles) {
+        log.info("=== STARTING OFFICE ROUTE OPTIMIZATION ===");
+        log.info("Input: {} mothers, {} midwives", mothers.size(), vehicles.size());
+        long startMs = System.currentTimeMillis();
+
+        List<Mother> mothersWithCoordinates = mothers.stream()
+            .filter(this::hasValidCoordinates)
+            .toList();
+        List<Mother> unassigned = new ArrayList<>(mothers.stream()
+            .filter(m -> !hasValidCoordinates(m))
+            .toList());
+        if (!unassigned.isEmpty()) {
+            log.warn("{} mothers without valid coordinates cannot be routed", unassigned.size());
+        }
+
+        if (mothersWithCoordinates.isEmpty() || vehicles.isEmpty()) {
+            List<List<Mother>> emptyRoutes = new ArrayList<>();
+            vehicles.forEach(v -> emptyRoutes.add(new ArrayList<>()));
+            unassigned.addAll(mothersWithCoordinates);
+            return new OfficeOptimizationResult(emptyRoutes, unassigned, false, System.currentTimeMillis() - startMs);
+        }
+
+        DataModel data = createOfficeDataModel(mothersWithCoordinates, vehicles);
+
+        if (isOrToolsAvailable) {
+            try {
+                List<List<Mother>> routes = solveOfficeRoutes(data, mothersWithCoordinates, vehicles, unassigned);
+                if (routes != null) {
+                    log.info("=== OFFICE ROUTE OPTIMIZATION COMPLETED: {} unassigned ===", unassigned.size());
+                    return new OfficeOptimizationResult(routes, unassigned, false, System.currentTimeMillis() - startMs);
+                }
+                log.warn("No office routing solution found, falling back to nearest-start assignment");
+            } catch (Exception e) {
+                log.error("ERROR during office route optimization: {}", e.getMessage(), e);
+                log.warn("Falling back to nearest-start assignment due to error");
+            }
+        } else {
+            log.warn("OR-Tools not available, using nearest-start assignment");
+        }
+
+        List<List<Mother>> routes = fallbackOfficeRoutes(data, mothersWithCoordinates, vehicles);
+        return new OfficeOptimizationResult(routes, unassigned, true, System.currentTimeMillis() - startMs);
+    }
+
+    /**
+     * Office data model: nodes 0..V-1 are the midwives' start locations, followed by one node per mother
+     */
+    private DataModel createOfficeDataModel(List<Mother> mothers, List<RouteVehicle> vehicles) {
+        List<Mother> allLocations = new ArrayList<>();
+        for (RouteVehicle vehicle : vehicles) {
+            // Start locations are represented as placeholder mothers so the matrix code can be shared
+            Mother start = new Mother();
+            start.setName("Start: " + vehicle.getName());
+            start.setLatitude(vehicle.getLatitude());
+            start.setLongitude(vehicle.getLongitude());
+            allLocations.add(start);
+        }
+        allLocations.addAll(mothers);
+
+        DataModel data = new DataModel();
+        data.distanceMatrix = calculateDistanceMatrix(allLocations);
+        data.vehicleNumber = vehicles.size();
+        data.depot = 0;
+        data.firstServicedNode = vehicles.size();
+
+        LocalTime earliest = vehicles.stream().map(RouteVehicle::getShiftStart).min(LocalTime::compareTo).orElseThrow();
+        LocalTime latest = vehicles.stream().map(RouteVehicle::getShiftEnd).max(LocalTime::compareTo).orElseThrow();
+
+        data.timeWindows = new long[allLocations.size()][2];
+        for (int v = 0; v < vehicles.size(); v++) {
+            data.timeWindows[v][0] = toMinutes(vehicles.get(v).getShiftStart());
+            data.timeWindows[v][1] = toMinutes(vehicles.get(v).getShiftEnd());
+        }
+        long[][] motherWindows = createTimeWindows(mothers, earliest, latest);
+        for (int i = 0; i < mothers.size(); i++) {
+            data.timeWindows[vehicles.size() + i] = motherWindows[i + 1];
+        }
+        return data;
+    }
+
+    private List<List<Mother>> solveOfficeRoutes(DataModel data, List<Mother> mothers, List<RouteVehicle> vehicles,
+                                                List<Mother> unassigned) {
+        long[] penalties = new long[mothers.size()];
+        Arrays.fill(penalties, UNASSIGNED_VISIT_PENALTY);
+        List<int[]> nodeRoutes = solveMultiVehicle(data, penalties, solverTimeLimitSeconds * 1000,
+            FirstSolutionStrategy.Value.PARALLEL_CHEAPEST_INSERTION);
+        if (nodeRoutes == null) {
+            return null;
+        }
+
+        int vehicleCount = vehicles.size();
+        boolean[] visited = new boolean[mothers.size()];
+        List<List<Mother>> routes = new ArrayList<>();
+        for (int v = 0; v < vehicleCount; v++) {
+            List<Mother> route = new ArrayList<>();
+            for (int node : nodeRoutes.get(v)) {
+                route.add(mothers.get(node - vehicleCount));
+                visited[node - vehicleCount] = true;
+            }
+            log.info("  {}: {} visits", vehicles.get(v).getName(), route.size());
+            routes.add(route);
+        }
+        for (int i = 0; i < mothers.size(); i++) {
+            if (!visited[i]) {
+                unassigned.add(mothers.get(i));
+            }
+        }
+        return routes;
+    }
+
+    /**
+     * Solves a model whose first vehicleNumber nodes are vehicle start/end locations and whose remaining
+     * nodes are optional visits: dropping visit i costs dropPenalties[i]. Returns one route of node
+     * indices per vehicle, or null if no solution was found.
+     */
+    private List<int[]> solveMultiVehicle(DataModel data, long[] dropPenalties, long timeLimitMs,
+                                          FirstSolutionStrategy.Value firstSolutionStrategy) {
+        int vehicleCount = data.vehicleNumber;
+        int[] starts = new int[vehicleCount];
+        for (int v = 0; v < vehicleCount; v++) {
+            starts[v] = v;
+        }
+
+        RoutingIndexManager manager = new RoutingIndexManager(data.distanceMatrix.length, vehicleCount, starts, starts);
+        RoutingModel routing = new RoutingModel(manager);
+
+        int arcCostIndex = routing.registerTransitCallback(arcCostCallback(manager, data));
+        routing.setArcCostEvaluatorOfAllVehicles(arcCostIndex);
+
+        int timeTransitIndex = routing.registerTransitCallback(timeTransitCallback(manager, data));
+        routing.addDimension(timeTransitIndex, 24 * 3600, 24 * 3600, false, "Time");
+        RoutingDimension timeDimension = routing.getMutableDimension("Time");
+
+        for (int node = vehicleCount; node < data.timeWindows.length; node++) {
+            long index = manager.nodeToIndex(node);
+            timeDimension.cumulVar(index).setRange(data.timeWindows[node][0] * 60, data.timeWindows[node][1] * 60);
+            routing.addDisjunction(new long[] {index}, dropPenalties[node - vehicleCount]);
+        }
+        for (int v = 0; v < vehicleCount; v++) {
+            long shiftStart = data.timeWindows[v][0] * 60;
+            long shiftEnd = data.timeWindows[v][1] * 60;
+            timeDimension.cumulVar(routing.start(v)).setRange(shiftStart, shiftEnd);
+            timeDimension.cumulVar(routing.end(v)).setRange(shiftStart, shiftEnd);
+        }
+
+        // Penalising the longest route balances workload across vehicles; a single route is priced on travel alone
+        if (vehicleCount > 1) {
+            timeDimension.setGlobalSpanCostCoefficient(100);
+        }
+
+        RoutingSearchParameters searchParameters = main.defaultRoutingSearchParameters()
+            .toBuilder()
+            .setFirstSolutionStrategy(firstSolutionStrategy)
+            .setLocalSearchMetaheuristic(LocalSearchMetaheuristic.Value.GUIDED_LOCAL_SEARCH)
+            .setTimeLimit(com.google.protobuf.Duration.newBuilder()
+                .setSeconds(timeLimitMs / 1000)
+                .setNanos((int) (timeLimitMs % 1000) * 1_000_000)
+                .build())
+            .build();
+
+        long solveStartTime = System.currentTimeMillis();
+        Assignment solution = routing.solveWithParameters(searchParameters);
+        log.info("Multi-vehicle routing solved in {}ms, status: {}", System.currentTimeMillis() - solveStartTime, routing.status());
+        if (solution == null) {
+            return null;
+        }
+
+        List<int[]> routes = new ArrayList<>();
+        for (int v = 0; v < vehicleCount; v++) {
+            List<Integer> route = new ArrayList<>();
+            long index = solution.value(routing.nextVar(routing.start(v)));
+            while (!routing.isEnd(index)) {
+                route.add(manager.indexToNode(index));
+                index = solution.value(routing.nextVar(index));
+            }
+            routes.add(route.stream().mapToInt(Integer::intValue).toArray());
+        }
+        return routes;
+    }
+
+    /**
+     * Fallback: assign each mother to the closest start location with spare capacity (even split),
+     * then order each midwife's visits with the pure-Java heuristic
+     */
+    private List<List<Mother>> fallbackOfficeRoutes(DataModel data, List<Mother> mothers, List<RouteVehicle> vehicles) {
+        int vehicleCount = vehicles.size();
+        int capacity = (mothers.size() + vehicleCount - 1) / vehicleCount;
+        List<List<Integer>> assignedNodes = new ArrayList<>();
+        for (int v = 0; v < vehicleCount; v++) {
+            assignedNodes.add(new ArrayList<>());
+        }
+
+        for (int i = 0; i < mothers.size(); i++) {
+            int node = vehicleCount + i;
+            int best = -1;
+            for (int v = 0; v < vehicleCount; v++) {
+                if (assignedNodes.get(v).size() < capacity
+                        && (best < 0 || data.distanceMatrix[v][node] < data.distanceMatrix[best][node])) {
+                    best = v;
+                }
+            }
+            assignedNodes.get(best).add(node);
+        }
+
+        List<List<Mother>> routes = new ArrayList<>();
+        for (int v = 0; v < vehicleCount; v++) {
+            List<Integer> nodes = assignedNodes.get(v);
+            int size = nodes.size() + 1;
+            long[] flatMatrix = new long[size * size];
+            long[][] windowSeconds = new long[size][2];
+            for (int a = 0; a < size; a++) {
+                int fromNode = a == 0 ? v : nodes.get(a - 1);
+                windowSeconds[a][0] = data.timeWindows[fromNode][0] * 60;
+                windowSeconds[a][1] = data.timeWindows[fromNode][1] * 60;
+                for (int b = 0; b < size; b++) {
+                    int toNode = b == 0 ? v : nodes.get(b - 1);
+                    flatMatrix[a * size + b] = data.distanceMatrix[fromNode][toNode];
+                }
+            }
+
+            int[] route = new RouteHeuristicSolver(flatMatrix, size, windowSeconds, SERVICE_TIME_SECONDS)
+                .solve(heuristicTimeBudgetMs)
+                .getRoute();
+            List<Mother> ordered = new ArrayList<>(route.length);
+            for (int local : route) {
+                ordered.add(mothers.get(nodes.get(local - 1) - vehicleCount));
+            }
+            routes.add(ordered);
+        }
+        return routes;
+    }
+
+    /**
+     * Travel matrix for a planning horizon: node 0 is the vehicle's start location, node i + 1 is mothers[i]
+     */
+    public long[][] buildTravelMatrix(RouteVehicle vehicle, List<Mother> mothers) {
+        Mother start = new Mother();
+        start.setName("Start: " + vehicle.getName());
+        start.setLatitude(vehicle.getLatitude());
+        start.setLongitude(vehicle.getLongitude());
+
+        // The start is never in a unit matrix, but the mothers usually are: fetch only its row and column
+        long[][] unitSlice = unitTravelMatrixService != null ? unitTravelMatrixService.slice(mothers) : null;
+        if (unitSlice != null) {
+            log.info("Using precomputed unit travel matrix for {} mothers, fetching the start's row and column", mothers.size());
+            return withStartNode(start, mothers, unitSlice);
+        }
+
+        List<Mother> allLocations = new ArrayList<>();
+        allLocations.add(start);
+        allLocations.addAll(mothers);
+        return calculateDistanceMatrix(allLocations);
+    }
+
+    private long[][] withStartNode(Mother start, List<Mother> mothers, long[][] unitSlice) {
+        int size = mothers.size() + 1;
+        long[][] matrix = new long[size][size];
+        for (int i = 1; i < size; i++) {
+            System.arraycopy(unitSlice[i - 1], 0, matrix[i], 1, size - 1);
+        }
+
+        List<NavigationLocation> startLocation = List.of(toNavigationLocation(start));
+        List<NavigationLocation> motherLocations = mothers.stream().map(this::toNavigationLocation).toList();
+        TravelTimeResult[][] fromStart = null;
+        TravelTimeResult[][] toStart = null;
+        try {
+            fromStart = googleMapsDistanceService.getTravelTimeMatrix(startLocation, motherLocations);
+            toStart = googleMapsDistanceService.getTravelTimeMatrix(motherLocations, startLocation);
+        } catch (Exception e) {
+            log.error("ERROR fetching travel times from the start location: {}", e.getMessage(), e);
+        }
+        for (int i = 1; i < size; i++) {
+            Mother mother = mothers.get(i - 1);
+            matrix[0][i] = travelSeconds(fromStart != null ? fromStart[0][i - 1] : null, start, mother);
+            matrix[i][0] = travelSeconds(toStart != null ? toStart[i - 1][0] : null, mother, start);
+        }
+        return matrix;
+    }
+
+    private NavigationLocation toNavigationLocation(Mother mother) {
+        return NavigationLocation.builder()
+            .latitude(mother.getLatitude())
+            .longitude(mother.getLongitude())
+            .name(mother.getName())
+            .address(mother.getLocationAddress() != null ? mother.getLocationAddress() : mother.getAddress())
+            .build();
+    }
+
+    /**
+     * Google Maps travel time if valid, otherwise the Haversine estimate at 25 km/h
+     */
+    private long travelSeconds(TravelTimeResult result, Mother from, Mother to) {
+        if (result != null && result.isValid()) {
+            return result.getDurationInTrafficSeconds();
+        }
+        double distance = calculateHaversineDistance(from.getLatitude(), from.getLongitude(), to.getLatitude(), to.getLongitude());
+        return Math.round(distance / (25.0 * 1000 / 3600));
+    }
+
+    /**
+     * Prize-collecting route for one shift: picks the subset of candidate visits that best trades
+     * prize against travel while fitting the shift (start and return included), in visit order.
+     *
+     * @param matrix     matrix from buildTravelMatrix
+     * @param candidates matrix nodes still open for visiting
+     * @param prizes     value of visiting each candidate, in seconds of travel it is worth
+     */
+    public PrizeCollectingResult selectVisitsForShift(long[][] matrix, int[] candidates, long[] prizes,
+                                                     RouteVehicle vehicle, long timeLimitMs) {
+        int size = candidates.length + 1;
+        DataModel data = new DataModel();
+        data.distanceMatrix = new long[size][size];
+        data.timeWindows = new long[size][2];
+        for (int a = 0; a < size; a++) {
+            int fromNode = a == 0 ? 0 : candidates[a - 1];
+            for (int b = 0; b < size; b++) {
+                data.distanceMatrix[a][b] = matrix[fromNode][b == 0 ? 0 : candidates[b - 1]];
+            }
+            data.timeWindows[a][0] = toMinutes(vehicle.getShiftStart());
+            data.timeWindows[a][1] = toMinutes(vehicle.getShiftEnd());
+        }
+        data.vehicleNumber = 1;
+        data.depot = 0;
+        data.firstServicedNode = 1;
+
+        if (isOrToolsAvailable && candidates.length > 0) {
+            try {
+                List<int[]> routes = solveMultiVehicle(data, prizes, timeLimitMs, FirstSolutionStrategy.Value.PATH_CHEAPEST_ARC);
+                if (routes != null) {
+                    return new PrizeCollectingResult(toCandidateNodes(routes.get(0), candidates), false);
+                }
+                log.warn("No prize-collecting solution found, falling back to greedy selection");
+            } catch (Exception e) {
+                log.error("ERROR during prize-collecting optimization: {}", e.getMessage(), e);
+            }
+        }
+        return new PrizeCollectingResult(toCandidateNodes(greedyPrizeSelection(data, prizes), candidates), true);
+    }
+
+    /**
+     * Fallback: add candidates by descending prize while the heuristic route still fits the shift
+     */
+    private int[] greedyPrizeSelection(DataModel data, long[] prizes) {
+        Integer[] byPrize = new Integer[prizes.length];
+        for (int i = 0; i < prizes.length; i++) {
+            byPrize[i] = i + 1;
+        }
+        Arrays.sort(byPrize, (a, b) -> Long.compare(prizes[b - 1], prizes[a - 1]));
+
+        List<Integer> selected = new ArrayList<>();
+        int[] best = new int[0];
+        for (int node : byPrize) {
+            selected.add(node);
+            int[] route = solveSubset(data, selected);
+            if (fitsShift(data, route)) {
+                best = route;
+            } else {
+                selected.remove(selected.size() - 1);
+            }
+        }
+        return best;
+    }
+
+    private int[] solveSubset(DataModel data, List<Integer> nodes) {
+        int size = nodes.size() + 1;
+        long[] flatMatrix = new long[size * size];
+        long[][] windowSeconds = new long[size][2];
+        for (int a = 0; a < size; a++) {
+            int fromNode = a == 0 ? 0 : nodes.get(a - 1);
+            windowSeconds[a][0] = data.timeWindows[fromNode][0] * 60;
+            windowSeconds[a][1] = data.timeWindows[fromNode][1] * 60;
+            for (int b = 0; b < size; b++) {
+                flatMatrix[a * size + b] = data.distanceMatrix[fromNode][b == 0 ? 0 : nodes.get(b - 1)];
+            }
+        }
+        int[] local = new RouteHeuristicSolver(flatMatrix, size, windowSeconds, SERVICE_TIME_SECONDS).solve(5).getRoute();
+        int[] route = new int[local.length];
+        for (int i = 0; i < local.length; i++) {
+            route[i] = nodes.get(local[i] - 1);
+        }
+        return route;
+    }
+
+    /**
+     * True if the route can be driven and every visit served, returning to the start by the end of the shift.
+     * Legs are timed like the heuristic that built the route, so both agree on whether it fits.
+     */
+    private boolean fitsShift(DataModel data, int[] route) {
+        long time = data.timeWindows[0][0] * 60;
+        long shiftEnd = data.timeWindows[0][1] * 60;
+        int previous = 0;
+        for (int node : route) {
+            long serviceTime = previous >= data.firstServicedNode ? SERVICE_TIME_SECONDS : 0;
+            time = Math.max(time + RouteHeuristicSolver.legSeconds(data.distanceMatrix[previous][node], serviceTime),
+                            data.timeWindows[node][0] * 60);
+            if (time > data.timeWindows[node][1] * 60) {
+                return false;
+            }
+            previous = node;
+        }
+        return time + data.distanceMatrix[previous][0] <= shiftEnd;
+    }
+
+    private static int[] toCandidateNodes(int[] route, int[] candidates) {
+        int[] nodes = new int[route.length];
+        for (int i = 0; i < route.length; i++) {
+            nodes[i] = candidates[route[i] - 1];
+        }
+        return nodes;
+    }
+
+    /**
+     * Chosen visits for one shift as travel matrix nodes, in visit order
+     */
+    @lombok.Data
+    @lombok.AllArgsConstructor
+    public static class PrizeCollectingResult {
+        private int[] route;
+        private boolean fellbackToSimple;
+    }
+
+    private static long toMinutes(LocalTime time) {
+        return time.getHour() * 60L + time.getMinute();
+    }
+
+    /**
+     * A midwife as a routing vehicle: start/end location and shift window
+     */
+    @lombok.Data
+    @lombok.AllArgsConstructor
+    public static class RouteVehicle {
+        private String id;
+        private String name;
+        private double latitude;
+        private double longitude;
+        private LocalTime shiftStart;
+        private LocalTime shiftEnd;
+    }
+
+    /**
+     * Office-level result: one ordered route per vehicle (same order as the input vehicles)
+     */
+    @lombok.Data
+    @lombok.AllArgsConstructor
+    public static class OfficeOptimizationResult {
+        private List<List<Mother>> routes;
+        private List<Mother> unassigned;
+        private boolean fellbackToSimple;
+        private long optimizationTimeMs;
+    }
+
     /**
      * Validates that mothers have valid coordinates
      */
@@ -584,10 +1338,12 @@ public class RouteOptimizationService {
     /**
      * Data model class for the VRP
      */
-    private static class DataModel {
+    static class DataModel {
         public long[][] distanceMatrix;
         public long[][] timeWindows;
         public int vehicleNumber;
         public int depot;
+        // Nodes below this index are vehicle start locations, left without service time
+        public int firstServicedNode;
     }
 }
@@ -0,0 +1,147 @@
+package com.example.carebloom.services.midwife;
+
+import com.example.carebloom.dto.midwife.CalculateVisitOrderResponseDTO;
+import com.example.carebloom.models.FieldVisit;
+import com.example.carebloom.models.Midwife;
+import com.example.carebloom.repositories.FieldVisitRepository;
+import com.example.carebloom.repositories.MidwifeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Nightly batch that solves the next day's scheduled field visits during off-peak hours,
+ * so the midwife's morning "calculate" is served from the stored schedule instead of a fresh solve.
+ */
+@Service
+public class RoutePrecomputeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoutePrecomputeService.class);
+
+    @Autowired
+    private FieldVisitRepository fieldVisitRepository;
+
+    @Autowired
+    private MidwifeRepository midwifeRepository;
+
+    @Autowired
+    private FieldVisitService fieldVisitService;
+
+    @Autowired
+    @Qualifier("routeSolverExecutor")
+    private ThreadPoolTaskExecutor routeSolverExecutor;
+
+    @Autowired
+    @Qualifier("routePrecomputeExecutor")
+    private ThreadPoolTaskExecutor routePrecomputeExecutor;
+
+    @Value("${app.route-solver.precompute-enabled:true}")
+    private boolean precomputeEnabled;
+
+    @Value("${app.route-solver.precompute-zone:Asia/Colombo}")
+    private String precomputeZone;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Scheduled(cron = "${app.route-solver.precompute-cron:0 0 1 * * *}", zone = "${app.route-solver.precompute-zone:Asia/Colombo}")
+    public void precomputeNextDayRoutes() {
+        if (!precomputeEnabled) {
+            return;
+        }
+        String date = LocalDate.now(ZoneId.of(precomputeZone)).plusDays(1).toString();
+        // The batch waits for the solver pool for a long time; it must not do so on a scheduler thread
+        try {
+            routePrecomputeExecutor.execute(() -> precomputeRoutes(date));
+        } catch (TaskRejectedException e) {
+            logger.warn("Route precompute for {} skipped, previous run still in progress", date);
+        }
+    }
+
+    /**
+     * Solve every SCHEDULED field visit on the given date on the route solver pool.
+     * At most one solve per solver thread is in flight, so the pool queue stays free for on-demand jobs.
+     */
+    public void precomputeRoutes(String date) {
+        if (!running.compareAndSet(false, true)) {
+            logger.warn("Route precompute for {} skipped, previous run still in progress", date);
+            return;
+        }
+
+        try {
+            List<FieldVisit> fieldVisits = fieldVisitRepository.findByDateAndStatus(date, "SCHEDULED");
+            logger.info("=== ROUTE PRECOMPUTE STARTED: {} scheduled field visits on {} ===", fieldVisits.size(), date);
+            long startMs = System.currentTimeMillis();
+
+            Semaphore inFlight = new Semaphore(routeSolverExecutor.getMaxPoolSize());
+            CountDownLatch done = new CountDownLatch(fieldVisits.size());
+            AtomicInteger solved = new AtomicInteger();
+            AtomicInteger skipped = new AtomicInteger();
+            AtomicInteger failed = new AtomicInteger();
+
+            for (FieldVisit fieldVisit : fieldVisits) {
+                inFlight.acquire();
+                try {
+                    routeSolverExecutor.execute(() -> {
+                        try {
+                            precompute(fieldVisit, solved, skipped, failed);
+                        } finally {
+                            inFlight.release();
+                            done.countDown();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    logger.error("Could not queue precompute for field visit {}: {}", fieldVisit.getId(), e.getMessage());
+                    failed.incrementAndGet();
+                    inFlight.release();
+                    done.countDown();
+                }
+            }
+            done.await();
+
+            logger.info("=== ROUTE PRECOMPUTE COMPLETED in {}ms: {} solved, {} skipped, {} failed ===",
+                       System.currentTimeMillis() - startMs, solved.get(), skipped.get(), failed.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Route precompute for {} interrupted", date);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void precompute(FieldVisit fieldVisit, AtomicInteger solved, AtomicInteger skipped, AtomicInteger failed) {
+        try {
+            Midwife midwife = midwifeRepository.findById(fieldVisit.getMidwifeId()).orElse(null);
+            if (midwife == null) {
+                logger.warn("Skipping field visit {}: midwife {} not found", fieldVisit.getId(), fieldVisit.getMidwifeId());
+                skipped.incrementAndGet();
+                return;
+            }
+
+            CalculateVisitOrderResponseDTO result = fieldVisitService.precomputeVisitOrder(fieldVisit.getId(), midwife);
+            if (result.isSuccess()) {
+                solved.incrementAndGet();
+            } else {
+                // Typically no confirmed mothers yet; the midwife can still calculate on demand
+                logger.info("Field visit {} not precomputed: {}", fieldVisit.getId(), result.getMessage());
+                skipped.incrementAndGet();
+            }
+        } catch (Exception e) {
+            logger.error("Precompute failed for field visit {}: {}", fieldVisit.getId(), e.getMessage(), e);
+            failed.incrementAndGet();
+        }
+    }
+}
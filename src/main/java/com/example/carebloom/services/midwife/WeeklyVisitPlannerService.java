@@ -0,0 +1,359 @@
+package com.example.carebloom.services.midwife;
+
+import com.example.carebloom.dto.midwife.WeeklyPlanDTO;
+import com.example.carebloom.dto.midwife.WeeklyPlanRequest;
+import com.example.carebloom.models.FieldVisit;
+import com.example.carebloom.models.Midwife;
+import com.example.carebloom.models.MoHOfficeUser;
+import com.example.carebloom.models.Mother;
+import com.example.carebloom.models.VitalRecord;
+import com.example.carebloom.repositories.FieldVisitRepository;
+import com.example.carebloom.repositories.MidwifeRepository;
+import com.example.carebloom.repositories.MoHOfficeUserRepository;
+import com.example.carebloom.repositories.MotherRepository;
+import com.example.carebloom.repositories.VitalRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+/**
+ * Drafts a midwife's home visits over several days. Every mother gets a priority from how close her
+ * due date is and how long it has been since her last home visit; each working day the planner picks
+ * the subset worth visiting within the shift (a prize-collecting route with optional visits) and saves
+ * it as a DRAFT field visit the midwife can review and publish.
+ */
+@Service
+public class WeeklyVisitPlannerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WeeklyVisitPlannerService.class);
+
+    private static final LocalTime DEFAULT_SHIFT_START = LocalTime.of(8, 0);
+    private static final LocalTime DEFAULT_SHIFT_END = LocalTime.of(17, 0);
+    private static final int DEFAULT_DAYS = 7;
+    private static final int MAX_DAYS = 14;
+
+    // One priority unit is worth ten minutes of extra travel
+    private static final long PRIZE_UNIT_SECONDS = 600;
+    // Mothers never visited, or not for this long, count as maximally overdue
+    private static final long MAX_DAYS_SINCE_VISIT = 60;
+
+    @Autowired
+    private FieldVisitRepository fieldVisitRepository;
+
+    @Autowired
+    private MotherRepository motherRepository;
+
+    @Autowired
+    private VitalRecordRepository vitalRecordRepository;
+
+    @Autowired
+    private MidwifeRepository midwifeRepository;
+
+    @Autowired
+    private MoHOfficeUserRepository mohOfficeUserRepository;
+
+    @Autowired
+    private RouteOptimizationService routeOptimizationService;
+
+    @Autowired
+    @Qualifier("routeSolverExecutor")
+    private ThreadPoolTaskExecutor routeSolverExecutor;
+
+    @Value("${app.route-solver.planner-day-time-limit-ms:1000}")
+    private long dayTimeLimitMs;
+
+    /**
+     * Draft the midwife's visits for the requested days, replacing the midwife's earlier drafts in that range
+     */
+    public WeeklyPlanDTO planWeek(WeeklyPlanRequest request, Midwife midwife) {
+        if (midwife == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Midwife not found in security context");
+        }
+        return plan(midwife, PlanWindow.from(request), request);
+    }
+
+    /**
+     * Draft the requested days for every active midwife of the user's MOH office, midwives in parallel
+     */
+    public List<WeeklyPlanDTO> planOfficeWeek(WeeklyPlanRequest request, String firebaseUid) {
+        String officeId = getUserOfficeId(firebaseUid);
+        PlanWindow window = PlanWindow.from(request);
+        List<Midwife> midwives = midwifeRepository.findByOfficeId(officeId).stream()
+            .filter(midwife -> "active".equals(midwife.getState()))
+            .collect(Collectors.toList());
+        logger.info("Planning office {} visits from {} for {} midwives", officeId, window.startDate, midwives.size());
+
+        // At most one midwife per solver thread, so on-demand jobs still find room in the pool queue
+        Semaphore inFlight = new Semaphore(routeSolverExecutor.getMaxPoolSize());
+        List<CompletableFuture<WeeklyPlanDTO>> futures = new ArrayList<>();
+        for (Midwife midwife : midwives) {
+            inFlight.acquireUninterruptibly();
+            try {
+                futures.add(CompletableFuture.supplyAsync(() -> plan(midwife, window, request), routeSolverExecutor)
+                    .whenComplete((plan, error) -> inFlight.release()));
+            } catch (RuntimeException e) {
+                inFlight.release();
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "Route optimization is busy, please try again shortly");
+            }
+        }
+        return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    }
+
+    private WeeklyPlanDTO plan(Midwife midwife, PlanWindow window, WeeklyPlanRequest request) {
+        long startMs = System.currentTimeMillis();
+        discardDrafts(midwife.getId(), window);
+
+        List<Mother> mothers = findCandidates(midwife.getId(), window.startDate);
+        Map<String, LocalDate> lastVisits = findLastHomeVisits(mothers);
+        RouteOptimizationService.RouteVehicle vehicle = toVehicle(midwife, request, window, mothers);
+
+        WeeklyPlanDTO dto = new WeeklyPlanDTO();
+        dto.setMidwifeId(midwife.getId());
+        dto.setStartDate(window.startDate.toString());
+        dto.setEndDate(window.startDate.plusDays(window.days - 1).toString());
+        dto.setDays(new ArrayList<>());
+
+        // Travel times are fetched once for the whole horizon; node i + 1 is mothers[i]
+        long[][] matrix = mothers.isEmpty() ? null : routeOptimizationService.buildTravelMatrix(vehicle, mothers);
+        boolean[] planned = new boolean[mothers.size()];
+        int remaining = mothers.size();
+
+        for (int offset = 0; offset < window.days && remaining > 0; offset++) {
+            LocalDate day = window.startDate.plusDays(offset);
+            if (day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                continue;
+            }
+
+            int[] candidates = new int[remaining];
+            long[] prizes = new long[remaining];
+            int c = 0;
+            for (int i = 0; i < mothers.size(); i++) {
+                if (!planned[i]) {
+                    candidates[c] = i + 1;
+                    prizes[c++] = priorityPrize(mothers.get(i), lastVisits.get(mothers.get(i).getId()), day);
+                }
+            }
+
+            RouteOptimizationService.PrizeCollectingResult result =
+                routeOptimizationService.selectVisitsForShift(matrix, candidates, prizes, vehicle, dayTimeLimitMs);
+            if (result.isFellbackToSimple()) {
+                dto.setFellbackToSimple(true);
+            }
+            if (result.getRoute().length == 0) {
+                continue;
+            }
+
+            List<Mother> route = new ArrayList<>();
+            long totalPriority = 0;
+            for (int node : result.getRoute()) {
+                planned[node - 1] = true;
+                route.add(mothers.get(node - 1));
+                totalPriority += priorityPrize(mothers.get(node - 1), lastVisits.get(mothers.get(node - 1).getId()), day)
+                    / PRIZE_UNIT_SECONDS;
+            }
+            remaining -= route.size();
+
+            List<String> motherIds = route.stream().map(Mother::getId).collect(Collectors.toList());
+            FieldVisit draft = saveDraft(midwife.getId(), day, window, motherIds);
+            WeeklyPlanDTO.DayPlan dayPlan = new WeeklyPlanDTO.DayPlan();
+            dayPlan.setDate(day.toString());
+            dayPlan.setFieldVisitId(draft.getId());
+            dayPlan.setMotherIds(motherIds);
+            dayPlan.setTotalPriority(totalPriority);
+            dto.getDays().add(dayPlan);
+        }
+
+        List<String> unplanned = new ArrayList<>();
+        for (int i = 0; i < mothers.size(); i++) {
+            if (!planned[i]) {
+                unplanned.add(mothers.get(i).getId());
+            }
+        }
+        dto.setUnplannedMotherIds(unplanned);
+        dto.setPlanningTimeMs(System.currentTimeMillis() - startMs);
+
+        logger.info("Drafted {} days for midwife {}: {} of {} mothers planned in {}ms",
+                   dto.getDays().size(), midwife.getId(), mothers.size() - unplanned.size(),
+                   mothers.size(), dto.getPlanningTimeMs());
+        return dto;
+    }
+
+    /**
+     * The midwife's mothers with a location who are not already booked on an upcoming field visit
+     */
+    private List<Mother> findCandidates(String midwifeId, LocalDate startDate) {
+        return motherRepository.findByAreaMidwifeId(midwifeId).stream()
+            .filter(routeOptimizationService::hasValidCoordinates)
+            .filter(mother -> !isBooked(mother.getFieldVisitAppointment(), startDate))
+            .collect(Collectors.toList());
+    }
+
+    private boolean isBooked(Mother.FieldVisitAppointment appointment, LocalDate startDate) {
+        if (appointment == null || appointment.getVisitId() == null || appointment.getDate() == null
+                || "completed".equals(appointment.getStatus())) {
+            return false;
+        }
+        try {
+            return !LocalDate.parse(appointment.getDate()).isBefore(startDate);
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private Map<String, LocalDate> findLastHomeVisits(List<Mother> mothers) {
+        Map<String, LocalDate> lastVisits = new HashMap<>();
+        if (mothers.isEmpty()) {
+            return lastVisits;
+        }
+        List<String> motherIds = mothers.stream().map(Mother::getId).collect(Collectors.toList());
+        for (VitalRecord record : vitalRecordRepository.findVisitDatesByMotherIdInAndVisitType(
+                motherIds, VitalRecord.VisitType.HOME_VISIT)) {
+            if (record.getRecordedDate() != null) {
+                lastVisits.merge(record.getMotherId(), record.getRecordedDate(),
+                    (a, b) -> a.isAfter(b) ? a : b);
+            }
+        }
+        return lastVisits;
+    }
+
+    /**
+     * Visit value in travel seconds: due date weight times weeks since the last home visit
+     */
+    long priorityPrize(Mother mother, LocalDate lastVisit, LocalDate day) {
+        long daysSince = lastVisit == null
+            ? MAX_DAYS_SINCE_VISIT
+            : Math.min(MAX_DAYS_SINCE_VISIT, Math.max(0, ChronoUnit.DAYS.between(lastVisit, day)));
+        return dueDateWeight(mother.getDueDate(), day) * (1 + daysSince / 7) * PRIZE_UNIT_SECONDS;
+    }
+
+    /**
+     * Mothers within four weeks of delivery or up to six weeks postpartum are seen first, then the third trimester
+     */
+    private long dueDateWeight(String dueDate, LocalDate day) {
+        if (dueDate == null || dueDate.isBlank()) {
+            return 1;
+        }
+        try {
+            long daysToDue = ChronoUnit.DAYS.between(day, LocalDate.parse(dueDate));
+            if (daysToDue <= 28 && daysToDue >= -42) {
+                return 4;
+            }
+            return daysToDue > 28 && daysToDue <= 84 ? 2 : 1;
+        } catch (DateTimeParseException e) {
+            return 1;
+        }
+    }
+
+    private void discardDrafts(String midwifeId, PlanWindow window) {
+        LocalDate endDate = window.startDate.plusDays(window.days - 1);
+        List<FieldVisit> drafts = fieldVisitRepository.findByMidwifeIdAndStatus(midwifeId, "DRAFT").stream()
+            .filter(draft -> draft.getDate() != null
+                && draft.getDate().compareTo(window.startDate.toString()) >= 0
+                && draft.getDate().compareTo(endDate.toString()) <= 0)
+            .collect(Collectors.toList());
+        if (!drafts.isEmpty()) {
+            fieldVisitRepository.deleteAll(drafts);
+            logger.debug("Discarded {} previous drafts for midwife {}", drafts.size(), midwifeId);
+        }
+    }
+
+    private FieldVisit saveDraft(String midwifeId, LocalDate day, PlanWindow window, List<String> motherIds) {
+        FieldVisit draft = new FieldVisit();
+        draft.setMidwifeId(midwifeId);
+        draft.setDate(day.toString());
+        draft.setStartTime(window.shiftStart.toString());
+        draft.setEndTime(window.shiftEnd.toString());
+        draft.setSelectedMotherIds(motherIds);
+        draft.setStatus("DRAFT");
+        draft.setCreatedAt(LocalDateTime.now());
+        draft.setUpdatedAt(LocalDateTime.now());
+        return fieldVisitRepository.save(draft);
+    }
+
+    /**
+     * Midwives have no stored base location, so without an explicit start the routes start at the centre of the midwife's mothers
+     */
+    private RouteOptimizationService.RouteVehicle toVehicle(Midwife midwife, WeeklyPlanRequest request,
+                                                           PlanWindow window, List<Mother> mothers) {
+        double latitude;
+        double longitude;
+        if (request.getStartLatitude() != null && request.getStartLongitude() != null) {
+            latitude = request.getStartLatitude();
+            longitude = request.getStartLongitude();
+        } else {
+            latitude = mothers.stream().mapToDouble(Mother::getLatitude).average().orElse(0);
+            longitude = mothers.stream().mapToDouble(Mother::getLongitude).average().orElse(0);
+        }
+        return new RouteOptimizationService.RouteVehicle(midwife.getId(), midwife.getName(),
+            latitude, longitude, window.shiftStart, window.shiftEnd);
+    }
+
+    private String getUserOfficeId(String firebaseUid) {
+        MoHOfficeUser user = mohOfficeUserRepository.findByFirebaseUid(firebaseUid);
+        if (user == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found");
+        }
+
+        if (!"active".equals(user.getState())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "User account is not active");
+        }
+
+        return user.getOfficeId();
+    }
+
+    /**
+     * Validated planning horizon and shift
+     */
+    private static class PlanWindow {
+        private LocalDate startDate;
+        private int days;
+        private LocalTime shiftStart;
+        private LocalTime shiftEnd;
+
+        static PlanWindow from(WeeklyPlanRequest request) {
+            PlanWindow window = new PlanWindow();
+            try {
+                window.startDate = request.getStartDate() == null || request.getStartDate().isBlank()
+                    ? LocalDate.now().plusDays(1)
+                    : LocalDate.parse(request.getStartDate());
+                window.shiftStart = request.getShiftStart() == null || request.getShiftStart().isBlank()
+                    ? DEFAULT_SHIFT_START
+                    : LocalTime.parse(request.getShiftStart());
+                window.shiftEnd = request.getShiftEnd() == null || request.getShiftEnd().isBlank()
+                    ? DEFAULT_SHIFT_END
+                    : LocalTime.parse(request.getShiftEnd());
+            } catch (DateTimeParseException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Date must be YYYY-MM-DD and times HH:mm");
+            }
+            if (!window.shiftEnd.isAfter(window.shiftStart)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Shift end must be after shift start");
+            }
+            window.days = request.getDays() == null ? DEFAULT_DAYS : request.getDays();
+            if (window.days < 1 || window.days > MAX_DAYS) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Days must be between 1 and " + MAX_DAYS);
+            }
+            return window;
+        }
+    }
+}
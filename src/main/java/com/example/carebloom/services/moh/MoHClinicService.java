@@ -10,9 +10,15 @@ import com.example.carebloom.dto.CreateClinicRequest;
 import com.example.carebloom.dto.CreateClinicResponse;
 import com.example.carebloom.dto.UpdateClinicRequest;
 import com.example.carebloom.dto.moh.ClinicWithMothersDto;
+import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -23,6 +29,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,6 +39,10 @@ public class MoHClinicService {
     @Autowired private ClinicRepository clinicRepository;
     @Autowired private MoHOfficeUserRepository mohOfficeUserRepository;
     @Autowired private MotherRepository motherRepository;
+    @Autowired private MongoTemplate mongoTemplate;
+
+    // Owned by the queue write-behind journal; an edit here must never write them back from a stale read
+    private static final Set<String> QUEUE_FIELDS = Set.of("_id", "queueStatus", "completedToday", "queueWrittenBy");
 
     // Queue methods moved to NewQueueService
 
@@ -173,7 +184,7 @@ public class MoHClinicService {
         existingClinic.setNotes(clinic.getNotes());
         existingClinic.setUnitIds(clinic.getUnitIds());
         existingClinic.setUpdatedAt(LocalDateTime.now());
-        return clinicRepository.save(existingClinic);
+        return saveDetails(existingClinic);
     }
 
     public Clinic updateClinic(String id, UpdateClinicRequest request) {
@@ -193,7 +204,7 @@ public class MoHClinicService {
         if (request.getNotes() != null) existingClinic.setNotes(request.getNotes());
         if (request.getUnitIds() != null) existingClinic.setUnitIds(request.getUnitIds());
         existingClinic.setUpdatedAt(LocalDateTime.now());
-        return clinicRepository.save(existingClinic);
+        return saveDetails(existingClinic);
     }
 
     public boolean deleteClinic(String id) {
@@ -205,10 +216,27 @@ public class MoHClinicService {
         if (!clinic.getMohOfficeId().equals(mohOfficeId)) return false;
         clinic.setActive(false);
         clinic.setUpdatedAt(LocalDateTime.now());
-        clinicRepository.save(clinic);
+        saveDetails(clinic);
         return true;
     }
 
+    /**
+     * Writes an edited clinic back with a $set of its own fields, leaving the queue state untouched,
+     * and returns the clinic as now stored.
+     */
+    private Clinic saveDetails(Clinic clinic) {
+        Document document = new Document();
+        mongoTemplate.getConverter().write(clinic, document);
+        Update update = new Update();
+        document.forEach((field, value) -> {
+            if (!QUEUE_FIELDS.contains(field)) {
+                update.set(field, value);
+            }
+        });
+        return mongoTemplate.findAndModify(new Query(Criteria.where("_id").is(clinic.getId())), update,
+                                           FindAndModifyOptions.options().returnNew(true), Clinic.class);
+    }
+
     private String getCurrentUserMohOfficeId() {
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -247,7 +275,7 @@ public class MoHClinicService {
                 }
             }
             clinic.setUpdatedAt(LocalDateTime.now());
-            return clinicRepository.save(clinic);
+            return saveDetails(clinic);
         } catch (Exception e) {
             logger.error("Error adding mothers to clinic", e);
             return null;
@@ -263,7 +291,7 @@ public class MoHClinicService {
             Clinic clinic = clinicOpt.get();
             if (clinic.getAddedMothers() != null) clinic.getAddedMothers().removeIf(am -> am.getId().equals(motherId));
             clinic.setUpdatedAt(LocalDateTime.now());
-            return clinicRepository.save(clinic);
+            return saveDetails(clinic);
         } catch (Exception e) {
             logger.error("Error removing mother from clinic", e);
             return null;
@@ -319,7 +347,7 @@ public class MoHClinicService {
             
             if (updated > 0) {
                 clinic.setUpdatedAt(LocalDateTime.now());
-                clinicRepository.save(clinic);
+                saveDetails(clinic);
                 logger.info("Updated {} record numbers for clinic: {}", updated, clinicId);
             }
             
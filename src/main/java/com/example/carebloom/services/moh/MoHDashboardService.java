@@ -4,6 +4,7 @@ import com.example.carebloom.dto.moh.DashboardResponse;
 import com.example.carebloom.models.*;
 import com.example.carebloom.repositories.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
@@ -166,8 +167,8 @@ public class MoHDashboardService {
      */
     private List<DashboardResponse.ForumQuestionDto> getRecentMedicalForumQuestions() {
         try {
-            List<ForumThread> medicalQuestions = forumThreadRepository.findTop10ByCategoryOrderByCreatedAtDesc(
-                ForumThread.Category.MEDICAL);
+            List<ForumThread> medicalQuestions = forumThreadRepository.findRecentSummariesByCategory(
+                ForumThread.Category.MEDICAL, PageRequest.of(0, 10));
 
             return medicalQuestions.stream()
                 .map(thread -> {
@@ -177,7 +178,7 @@ public class MoHDashboardService {
                     dto.setQuestion(thread.getTitle());
                     dto.setDate(thread.getCreatedAt().format(DateTimeFormatter.ISO_LOCAL_DATE));
                     dto.setMedical(thread.getCategory() == ForumThread.Category.MEDICAL);
-                    dto.setReplied(!thread.getReplies().isEmpty());
+                    dto.setReplied(thread.getReplyCount() > 0);
                     return dto;
                 })
                 .collect(Collectors.toList());
@@ -0,0 +1,254 @@
+package com.example.carebloom.services.moh;
+
+import com.example.carebloom.dto.midwife.FieldVisitResponseDTO;
+import com.example.carebloom.dto.moh.OfficeRoutePlanRequest;
+import com.example.carebloom.dto.moh.OfficeRoutePlanResponseDTO;
+import com.example.carebloom.models.Midwife;
+import com.example.carebloom.models.MoHOfficeUser;
+import com.example.carebloom.models.Mother;
+import com.example.carebloom.repositories.MidwifeRepository;
+import com.example.carebloom.repositories.MoHOfficeUserRepository;
+import com.example.carebloom.repositories.MotherRepository;
+import com.example.carebloom.services.midwife.FieldVisitService;
+import com.example.carebloom.services.midwife.RouteOptimizationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+/**
+ * Plans home visits for a whole MOH office as one multi-midwife routing problem,
+ * so workload and travel are balanced across midwives covering adjacent units.
+ */
+@Service
+public class OfficeRoutePlanningService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OfficeRoutePlanningService.class);
+
+    private static final LocalTime DEFAULT_SHIFT_START = LocalTime.of(8, 0);
+    private static final LocalTime DEFAULT_SHIFT_END = LocalTime.of(17, 0);
+
+    @Autowired
+    private MoHOfficeUserRepository mohOfficeUserRepository;
+
+    @Autowired
+    private MidwifeRepository midwifeRepository;
+
+    @Autowired
+    private MotherRepository motherRepository;
+
+    @Autowired
+    private RouteOptimizationService routeOptimizationService;
+
+    @Autowired
+    private FieldVisitService fieldVisitService;
+
+    @Autowired
+    @Qualifier("routeSolverExecutor")
+    private ThreadPoolTaskExecutor routeSolverExecutor;
+
+    /**
+     * Assign the date's unplanned home visits to the office's midwives and create a scheduled field visit per midwife
+     */
+    public OfficeRoutePlanResponseDTO planOfficeRoutes(OfficeRoutePlanRequest request, String firebaseUid) {
+        String officeId = getUserOfficeId(firebaseUid);
+        if (request.getDate() == null || !isValidDate(request.getDate())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Valid date (YYYY-MM-DD) is required");
+        }
+
+        List<Midwife> midwives = resolveMidwives(officeId, request);
+        if (midwives.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No active midwives available for planning");
+        }
+
+        List<Mother> mothers = resolveMothers(officeId, request);
+        logger.info("Planning office {} routes for {}: {} mothers across {} midwives",
+                   officeId, request.getDate(), mothers.size(), midwives.size());
+
+        List<RouteOptimizationService.RouteVehicle> vehicles = new ArrayList<>();
+        for (Midwife midwife : midwives) {
+            vehicles.add(toVehicle(midwife, findShift(request, midwife.getId()), mothers));
+        }
+
+        RouteOptimizationService.OfficeOptimizationResult result = solve(mothers, vehicles);
+
+        List<FieldVisitResponseDTO> fieldVisits = new ArrayList<>();
+        for (int v = 0; v < vehicles.size(); v++) {
+            List<Mother> route = result.getRoutes().get(v);
+            if (route.isEmpty()) {
+                continue;
+            }
+            RouteOptimizationService.RouteVehicle vehicle = vehicles.get(v);
+            fieldVisits.add(fieldVisitService.createPlannedFieldVisit(midwives.get(v), request.getDate(),
+                vehicle.getShiftStart().toString(), vehicle.getShiftEnd().toString(),
+                route, result.isFellbackToSimple()));
+        }
+
+        OfficeRoutePlanResponseDTO response = new OfficeRoutePlanResponseDTO();
+        response.setDate(request.getDate());
+        response.setFieldVisits(fieldVisits);
+        response.setUnassignedMotherIds(result.getUnassigned().stream().map(Mother::getId).collect(Collectors.toList()));
+        response.setFellbackToSimple(result.isFellbackToSimple());
+        response.setOptimizationTimeMs(result.getOptimizationTimeMs());
+
+        logger.info("Office {} planning created {} field visits, {} mothers unassigned",
+                   officeId, fieldVisits.size(), response.getUnassignedMotherIds().size());
+        return response;
+    }
+
+    /**
+     * Run the office solve on the route solver pool, so it counts against the same limit as every other solve
+     */
+    private RouteOptimizationService.OfficeOptimizationResult solve(List<Mother> mothers,
+                                                                   List<RouteOptimizationService.RouteVehicle> vehicles) {
+        CompletableFuture<RouteOptimizationService.OfficeOptimizationResult> future;
+        try {
+            future = CompletableFuture.supplyAsync(
+                () -> routeOptimizationService.optimizeOfficeRoutes(mothers, vehicles), routeSolverExecutor);
+        } catch (TaskRejectedException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Route optimization is busy, please try again shortly");
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private List<Midwife> resolveMidwives(String officeId, OfficeRoutePlanRequest request) {
+        if (request.getMidwives() == null || request.getMidwives().isEmpty()) {
+            return midwifeRepository.findByOfficeId(officeId).stream()
+                .filter(midwife -> "active".equals(midwife.getState()))
+                .collect(Collectors.toList());
+        }
+
+        List<Midwife> midwives = new ArrayList<>();
+        for (OfficeRoutePlanRequest.MidwifeShift shift : request.getMidwives()) {
+            Midwife midwife = midwifeRepository.findByOfficeIdAndId(officeId, shift.getMidwifeId());
+            if (midwife == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Midwife not found with ID: " + shift.getMidwifeId());
+            }
+            midwives.add(midwife);
+        }
+        return midwives;
+    }
+
+    /**
+     * Requested mothers, or every office mother with a location who is not already on a field visit
+     */
+    private List<Mother> resolveMothers(String officeId, OfficeRoutePlanRequest request) {
+        if (request.getMotherIds() == null || request.getMotherIds().isEmpty()) {
+            return motherRepository.findByMohOfficeId(officeId).stream()
+                .filter(mother -> mother.getLatitude() != null && mother.getLongitude() != null)
+                .filter(mother -> mother.getFieldVisitAppointment() == null
+                    || mother.getFieldVisitAppointment().getVisitId() == null)
+                .collect(Collectors.toList());
+        }
+
+        List<Mother> mothers = new ArrayList<>();
+        for (String motherId : request.getMotherIds()) {
+            Mother mother = motherRepository.findById(motherId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Mother not found with ID: " + motherId));
+            if (!officeId.equals(mother.getMohOfficeId())) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Mother does not belong to your MoH office: " + motherId);
+            }
+            mothers.add(mother);
+        }
+        return mothers;
+    }
+
+    private OfficeRoutePlanRequest.MidwifeShift findShift(OfficeRoutePlanRequest request, String midwifeId) {
+        if (request.getMidwives() == null) {
+            return null;
+        }
+        return request.getMidwives().stream()
+            .filter(shift -> midwifeId.equals(shift.getMidwifeId()))
+            .findFirst()
+            .orElse(null);
+    }
+
+    /**
+     * Midwives have no stored base location, so without an explicit start the route starts at the
+     * centre of the midwife's own mothers (or of all mothers being planned)
+     */
+    private RouteOptimizationService.RouteVehicle toVehicle(Midwife midwife, OfficeRoutePlanRequest.MidwifeShift shift,
+                                                           List<Mother> mothers) {
+        LocalTime shiftStart = parseTime(shift != null ? shift.getShiftStart() : null, DEFAULT_SHIFT_START);
+        LocalTime shiftEnd = parseTime(shift != null ? shift.getShiftEnd() : null, DEFAULT_SHIFT_END);
+        if (!shiftEnd.isAfter(shiftStart)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Shift end must be after shift start for midwife " + midwife.getId());
+        }
+
+        double latitude;
+        double longitude;
+        if (shift != null && shift.getStartLatitude() != null && shift.getStartLongitude() != null) {
+            latitude = shift.getStartLatitude();
+            longitude = shift.getStartLongitude();
+        } else {
+            // Requested mothers may lack coordinates; they are reported unassigned by the solve
+            List<Mother> located = mothers.stream()
+                .filter(routeOptimizationService::hasValidCoordinates)
+                .collect(Collectors.toList());
+            List<Mother> ownMothers = located.stream()
+                .filter(mother -> midwife.getId().equals(mother.getAreaMidwifeId()))
+                .collect(Collectors.toList());
+            List<Mother> basis = ownMothers.isEmpty() ? located : ownMothers;
+            latitude = basis.stream().mapToDouble(Mother::getLatitude).average().orElse(0);
+            longitude = basis.stream().mapToDouble(Mother::getLongitude).average().orElse(0);
+        }
+
+        return new RouteOptimizationService.RouteVehicle(midwife.getId(), midwife.getName(),
+            latitude, longitude, shiftStart, shiftEnd);
+    }
+
+    private LocalTime parseTime(String time, LocalTime defaultTime) {
+        if (time == null || time.isBlank()) {
+            return defaultTime;
+        }
+        try {
+            return LocalTime.parse(time);
+        } catch (DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid time format (HH:mm): " + time);
+        }
+    }
+
+    private boolean isValidDate(String date) {
+        try {
+            LocalDate.parse(date);
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private String getUserOfficeId(String firebaseUid) {
+        MoHOfficeUser user = mohOfficeUserRepository.findByFirebaseUid(firebaseUid);
+        if (user == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found");
+        }
+
+        if (!"active".equals(user.getState())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "User account is not active");
+        }
+
+        return user.getOfficeId();
+    }
+}
@@ -7,6 +7,7 @@ import com.example.carebloom.dto.clinics.ClinicAppointmentDto;
 import com.example.carebloom.dto.workshops.AssignedWorkshopDto;
 import com.example.carebloom.models.*;
 import com.example.carebloom.repositories.*;
+import com.example.carebloom.services.NewQueueService;
 import com.example.carebloom.utils.SecurityUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -38,7 +39,7 @@ public class MotherHospitalService {
     private UnitRepository unitRepository;
 
     @Autowired
-    private QueueUserRepository queueUserRepository;
+    private NewQueueService newQueueService;
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     
@@ -196,7 +197,6 @@ public class MotherHospitalService {
      * Get the current queue number (patient being served)
      */
     private Integer getCurrentQueueNumber(String clinicId) {
-        java.util.Optional<QueueUser> currentPatient = queueUserRepository.findByClinicIdAndStatus(clinicId, "in-progress");
-        return currentPatient.map(QueueUser::getPosition).orElse(null);
+        return newQueueService.getCurrentQueueNumber(clinicId);
     }
 }
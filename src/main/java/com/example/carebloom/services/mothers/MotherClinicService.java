@@ -6,11 +6,12 @@ import com.example.carebloom.models.Mother;
 import com.example.carebloom.models.QueueUser;
 import com.example.carebloom.repositories.ClinicRepository;
 import com.example.carebloom.repositories.MotherRepository;
-import com.example.carebloom.repositories.QueueUserRepository;
+import com.example.carebloom.services.NewQueueService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -30,7 +31,7 @@ public class MotherClinicService {
     private ClinicRepository clinicRepository;
 
     @Autowired
-    private QueueUserRepository queueUserRepository;
+    private NewQueueService newQueueService;
 
     /**
      * Get all clinics where the mother is registered (in addedMothers list)
@@ -50,23 +51,14 @@ public class MotherClinicService {
 
         logger.info("Found mother: {} with ID: {}", mother.getName(), motherId);
 
-        // Find all clinics where this mother is registered
-        // Mother is registered if their ID or email is in the addedMothers list
-        List<Clinic> allClinics = clinicRepository.findAll();
-        List<ClinicAppointmentDto> clinicAppointments = new ArrayList<>();
-
-        for (Clinic clinic : allClinics) {
-            // Check if mother is in this clinic's addedMothers list
-            boolean isRegistered = clinic.getAddedMothers().stream()
-                    .anyMatch(addedMother -> 
-                        addedMother.getId().equals(motherId) || 
-                        addedMother.getEmail().equals(motherEmail));
-
-            if (isRegistered) {
-                ClinicAppointmentDto dto = mapToClinicAppointmentDto(clinic, motherId);
-                clinicAppointments.add(dto);
-                logger.info("Mother is registered for clinic: {}", clinic.getTitle());
-            }
+        // Clinics where this mother is registered, by ID or email in addedMothers, through the multikey index
+        List<Clinic> clinics = clinicRepository.findAppointmentsByAddedMother(
+                motherId, motherEmail != null ? List.of(motherEmail) : List.of());
+        List<ClinicAppointmentDto> clinicAppointments = new ArrayList<>(clinics.size());
+
+        for (Clinic clinic : clinics) {
+            clinicAppointments.add(mapToClinicAppointmentDto(clinic, motherId));
+            logger.info("Mother is registered for clinic: {}", clinic.getTitle());
         }
 
         logger.info("Found {} clinic appointments for mother", clinicAppointments.size());
@@ -79,50 +71,21 @@ public class MotherClinicService {
     public Map<String, Object> getQueueStatusForMother(String clinicId, String firebaseUid) {
         logger.info("Fetching queue status for clinic: {} for mother: {}", clinicId, firebaseUid);
 
-        // Verify clinic exists
-        Optional<Clinic> clinicOpt = clinicRepository.findById(clinicId);
-        if (clinicOpt.isEmpty()) {
-            throw new IllegalArgumentException("Clinic not found");
-        }
-
-        Clinic clinic = clinicOpt.get();
-
-        // Find the mother
-        Mother mother = motherRepository.findByFirebaseUid(firebaseUid);
-        if (mother == null) {
-            throw new IllegalArgumentException("Mother not found");
-        }
-
+        Clinic clinic = findClinic(clinicId);
+        Mother mother = findRegisteredMother(clinic, firebaseUid);
         String motherId = mother.getId();
         String motherEmail = mother.getEmail();
 
-        // Verify mother is registered for this clinic
-        boolean isRegistered = clinic.getAddedMothers().stream()
-                .anyMatch(addedMother -> 
-                    addedMother.getId().equals(motherId) || 
-                    addedMother.getEmail().equals(motherEmail));
-
-        if (!isRegistered) {
-            throw new IllegalArgumentException("You are not registered for this clinic");
-        }
-
         // Get queue status
         boolean isQueueActive = "open".equals(clinic.getQueueStatus());
         
-        // Find mother's position in queue (using motherId or email as identifier)
-        Optional<QueueUser> motherInQueue = queueUserRepository.findByClinicIdAndStatus(clinicId, "in-progress")
-                .filter(qu -> qu.getMotherId().equals(motherId) || qu.getMotherId().equals(motherEmail));
-        
-        if (motherInQueue.isEmpty()) {
-            motherInQueue = queueUserRepository.findByClinicIdOrderByPosition(clinicId).stream()
-                    .filter(qu -> "waiting".equals(qu.getStatus()))
-                    .filter(qu -> qu.getMotherId().equals(motherId) || qu.getMotherId().equals(motherEmail))
-                    .findFirst();
-        }
+        // Find mother's position in queue (using motherId or email as identifier), served from the in-memory queue
+        Optional<QueueUser> motherInQueue = newQueueService.findPatientByMother(clinicId, motherId)
+                .or(() -> newQueueService.findPatientByMother(clinicId, motherEmail))
+                .filter(qu -> "waiting".equals(qu.getStatus()) || "in-progress".equals(qu.getStatus()));
 
         // Count total people in queue
-        long totalInQueue = queueUserRepository.countByClinicIdAndStatus(clinicId, "waiting") +
-                           queueUserRepository.countByClinicIdAndStatus(clinicId, "in-progress");
+        long totalInQueue = newQueueService.countActivePatients(clinicId);
 
         // Build response
         Map<String, Object> response = new HashMap<>();
@@ -142,6 +105,8 @@ public class MotherClinicService {
             response.put("position", queueUser.getPosition());
             response.put("status", queueUser.getStatus());
             response.put("estimatedWaitTime", queueUser.getWaitTime() + " minutes");
+            response.put("estimatedWaitTimeP90", queueUser.getWaitTimeP90() + " minutes");
+            response.put("estimatedTime", queueUser.getEstimatedTime());
             response.put("queueNumber", queueUser.getPosition());
         } else {
             response.put("inQueue", false);
@@ -151,6 +116,40 @@ public class MotherClinicService {
         return response;
     }
 
+    /**
+     * Push the mother's queue position as it changes instead of having the app poll getQueueStatusForMother
+     */
+    public SseEmitter subscribeToQueue(String clinicId, String firebaseUid) {
+        Mother mother = findRegisteredMother(findClinic(clinicId), firebaseUid);
+        logger.info("Mother {} subscribed to queue updates of clinic {}", mother.getId(), clinicId);
+        return newQueueService.subscribeMotherToQueue(clinicId, mother.getId(), mother.getEmail());
+    }
+
+    private Clinic findClinic(String clinicId) {
+        return clinicRepository.findById(clinicId)
+                .orElseThrow(() -> new IllegalArgumentException("Clinic not found"));
+    }
+
+    /**
+     * Find the mother and verify the mother is registered for the clinic
+     */
+    private Mother findRegisteredMother(Clinic clinic, String firebaseUid) {
+        Mother mother = motherRepository.findByFirebaseUid(firebaseUid);
+        if (mother == null) {
+            throw new IllegalArgumentException("Mother not found");
+        }
+
+        boolean isRegistered = clinic.getAddedMothers().stream()
+                .anyMatch(addedMother -> 
+                    addedMother.getId().equals(mother.getId()) || 
+                    addedMother.getEmail().equals(mother.getEmail()));
+
+        if (!isRegistered) {
+            throw new IllegalArgumentException("You are not registered for this clinic");
+        }
+        return mother;
+    }
+
     /**
      * Map Clinic to ClinicAppointmentDto with queue information
      */
@@ -175,7 +174,7 @@ public class MotherClinicService {
             logger.info("Clinic {} - Current Queue Number: {}", clinic.getTitle(), currentQueueNumber);
             
             // Find mother's queue position
-            Optional<QueueUser> motherInQueue = queueUserRepository.findByMotherIdAndClinicId(motherId, clinic.getId());
+            Optional<QueueUser> motherInQueue = newQueueService.findPatientByMother(clinic.getId(), motherId);
             
             if (motherInQueue.isPresent()) {
                 QueueUser queueUser = motherInQueue.get();
@@ -195,7 +194,6 @@ public class MotherClinicService {
      * Get the current queue number (patient being served)
      */
     private Integer getCurrentQueueNumber(String clinicId) {
-        Optional<QueueUser> currentPatient = queueUserRepository.findByClinicIdAndStatus(clinicId, "in-progress");
-        return currentPatient.map(QueueUser::getPosition).orElse(null);
+        return newQueueService.getCurrentQueueNumber(clinicId);
     }
 }
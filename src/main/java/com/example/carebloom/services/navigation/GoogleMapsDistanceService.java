@@ -35,6 +35,9 @@ public class GoogleMapsDistanceService {
     // Simple in-memory cache with location-based keys
     private final ConcurrentMap<String, TravelTimeResult> cache = new ConcurrentHashMap<>();
     private static final Duration CACHE_EXPIRY = Duration.ofHours(1);
+
+    // Distance Matrix API allows at most 100 elements per request
+    private static final int MATRIX_TILE_SIZE = 10;
     
     @PostConstruct
     public void init() {
@@ -246,6 +249,68 @@ public class GoogleMapsDistanceService {
         return matrix;
     }
     
+    /**
+     * Get travel times from every origin to every destination, split into requests that fit the
+     * Distance Matrix API element limit. Failed tiles fall back to Haversine estimates.
+     */
+    public TravelTimeResult[][] getTravelTimeMatrix(List<NavigationLocation> origins, List<NavigationLocation> destinations) {
+        TravelTimeResult[][] matrix = new TravelTimeResult[origins.size()][destinations.size()];
+        logger.info("Requesting {}x{} travel time matrix in {}x{} tiles",
+                   origins.size(), destinations.size(), MATRIX_TILE_SIZE, MATRIX_TILE_SIZE);
+
+        for (int rowStart = 0; rowStart < origins.size(); rowStart += MATRIX_TILE_SIZE) {
+            int rowEnd = Math.min(rowStart + MATRIX_TILE_SIZE, origins.size());
+            for (int colStart = 0; colStart < destinations.size(); colStart += MATRIX_TILE_SIZE) {
+                int colEnd = Math.min(colStart + MATRIX_TILE_SIZE, destinations.size());
+                fillTile(matrix, origins, destinations, rowStart, rowEnd, colStart, colEnd);
+            }
+        }
+        return matrix;
+    }
+
+    private void fillTile(TravelTimeResult[][] matrix, List<NavigationLocation> origins, List<NavigationLocation> destinations,
+                          int rowStart, int rowEnd, int colStart, int colEnd) {
+        try {
+            if (context == null) {
+                throw new IllegalStateException("API key not available");
+            }
+            LatLng[] tileOrigins = origins.subList(rowStart, rowEnd).stream()
+                .map(loc -> new LatLng(loc.getLatitude(), loc.getLongitude()))
+                .toArray(LatLng[]::new);
+            LatLng[] tileDestinations = destinations.subList(colStart, colEnd).stream()
+                .map(loc -> new LatLng(loc.getLatitude(), loc.getLongitude()))
+                .toArray(LatLng[]::new);
+
+            DistanceMatrix distanceMatrix = DistanceMatrixApi.newRequest(context)
+                .origins(tileOrigins)
+                .destinations(tileDestinations)
+                .mode(TravelMode.DRIVING)
+                .departureTime(java.time.Instant.now())
+                .await();
+
+            for (int i = 0; i < distanceMatrix.rows.length && rowStart + i < rowEnd; i++) {
+                DistanceMatrixElement[] elements = distanceMatrix.rows[i].elements;
+                for (int j = 0; j < elements.length && colStart + j < colEnd; j++) {
+                    TravelTimeResult result = parseDistanceMatrixElement(elements[j]);
+                    matrix[rowStart + i][colStart + j] = result.isValid()
+                        ? result
+                        : createFallbackResult(origins.get(rowStart + i), destinations.get(colStart + j));
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Distance matrix tile [{}-{}]x[{}-{}] failed, using Haversine: {}",
+                       rowStart, rowEnd, colStart, colEnd, e.getMessage());
+        }
+
+        for (int i = rowStart; i < rowEnd; i++) {
+            for (int j = colStart; j < colEnd; j++) {
+                if (matrix[i][j] == null) {
+                    matrix[i][j] = createFallbackResult(origins.get(i), destinations.get(j));
+                }
+            }
+        }
+    }
+
     /**
      * Parse single distance matrix result
      */
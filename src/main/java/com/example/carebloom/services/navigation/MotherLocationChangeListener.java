@@ -0,0 +1,33 @@
+package com.example.carebloom.services.navigation;
+
+import com.example.carebloom.models.Mother;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps derived location data (GeoJSON point, unit travel matrices) in step with mother
+ * coordinates, whichever code path saved the mother
+ */
+@Component
+public class MotherLocationChangeListener extends AbstractMongoEventListener<Mother> {
+
+    @Autowired
+    private UnitTravelMatrixService unitTravelMatrixService;
+
+    @Override
+    public void onBeforeConvert(BeforeConvertEvent<Mother> event) {
+        Mother mother = event.getSource();
+        mother.setGeoLocation(mother.getLatitude() != null && mother.getLongitude() != null
+            ? new GeoJsonPoint(mother.getLongitude(), mother.getLatitude())
+            : null);
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Mother> event) {
+        unitTravelMatrixService.onMotherSaved(event.getSource());
+    }
+}
@@ -0,0 +1,445 @@
+package com.example.carebloom.services.navigation;
+
+import com.example.carebloom.dto.navigation.NavigationLocation;
+import com.example.carebloom.dto.navigation.TravelTimeResult;
+import com.example.carebloom.models.Mother;
+import com.example.carebloom.models.UnitTravelMatrix;
+import com.example.carebloom.repositories.MotherRepository;
+import com.example.carebloom.repositories.UnitTravelMatrixRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Store of precomputed per-unit travel time matrices.
+ *
+ * Mothers rarely move, so the full pairwise matrix of each unit is computed once, packed as int
+ * seconds into a Mongo document and kept decoded in memory. Route calculations slice sub-matrices
+ * out of it without calling Google Maps. When a mother's coordinates change, the unit is marked
+ * stale and a background refresh recomputes only the rows and columns of moved or new mothers.
+ * Cells Google Maps could not answer are stored as ESTIMATED rather than as a Haversine guess; they are
+ * never sliced out, and are re-fetched with an exponential backoff. Once the attempts run out, the
+ * remaining cells are settled with the Haversine estimate, marked so they are used but never re-fetched
+ * until one of their mothers moves.
+ */
+@Service
+public class UnitTravelMatrixService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UnitTravelMatrixService.class);
+
+    // Marks a cell without a real travel time; cells below it hold a settled estimate (see settled())
+    static final int ESTIMATED = -1;
+
+    @Autowired
+    private UnitTravelMatrixRepository unitTravelMatrixRepository;
+
+    @Autowired
+    private MotherRepository motherRepository;
+
+    @Autowired
+    private GoogleMapsDistanceService googleMapsDistanceService;
+
+    @Value("${app.travel-matrix.enabled:true}")
+    private boolean enabled;
+
+    // Keeps a single unit document well below Mongo's 16MB limit (400 mothers = 640KB)
+    @Value("${app.travel-matrix.max-unit-size:400}")
+    private int maxUnitSize;
+
+    @Value("${app.travel-matrix.refresh-interval-ms:60000}")
+    private long refreshIntervalMs;
+
+    // Re-fetches of a unit's estimated cells before they are settled with the Haversine estimate
+    @Value("${app.travel-matrix.max-estimated-attempts:5}")
+    private int maxEstimatedAttempts;
+
+    private final Map<String, UnitMatrix> matrices = new ConcurrentHashMap<>();
+    private final Set<String> staleUnits = ConcurrentHashMap.newKeySet();
+    // Units with estimated cells: attempts made so far and when the next one is due
+    private final Map<String, Integer> estimatedAttempts = new ConcurrentHashMap<>();
+    private final Map<String, Long> retryAt = new ConcurrentHashMap<>();
+
+    /**
+     * Travel times between the given locations taken from a single unit's stored matrix,
+     * or null if any location is not covered by an up-to-date entry
+     */
+    public long[][] slice(List<Mother> locations) {
+        if (!enabled || locations.isEmpty()) {
+            return null;
+        }
+
+        String unitId = locations.get(0).getUnitId();
+        if (unitId == null || locations.stream().anyMatch(m -> !unitId.equals(m.getUnitId()))) {
+            return null;
+        }
+
+        UnitMatrix matrix = getMatrix(unitId);
+        if (matrix == null) {
+            staleUnits.add(unitId);
+            return null;
+        }
+
+        int size = locations.size();
+        int[] rows = new int[size];
+        for (int i = 0; i < size; i++) {
+            Mother mother = locations.get(i);
+            Integer row = matrix.index.get(mother.getId());
+            if (row == null || !matrix.hasSameLocation(row, mother)) {
+                logger.debug("Mother {} missing or moved in unit {} matrix, marking stale", mother.getId(), unitId);
+                staleUnits.add(unitId);
+                return null;
+            }
+            rows[i] = row;
+        }
+
+        long[][] result = new long[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int seconds = matrix.get(rows[i], rows[j]);
+                if (seconds == ESTIMATED) {
+                    // A re-fetch is already scheduled for the unit
+                    logger.debug("Unit {} matrix has no travel time for {} -> {} yet", unitId,
+                                 locations.get(i).getId(), locations.get(j).getId());
+                    return null;
+                }
+                result[i][j] = seconds < ESTIMATED ? settled(seconds) : seconds;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Mark a mother's unit stale if her coordinates are new or changed since the matrix was built.
+     * A mother who left a unit also marks the unit she left.
+     */
+    public void onMotherSaved(Mother mother) {
+        if (!enabled || mother.getId() == null) {
+            return;
+        }
+        matrices.forEach((unitId, matrix) -> {
+            Integer row = matrix.index.get(mother.getId());
+            if (row != null && (!unitId.equals(mother.getUnitId()) || !matrix.hasSameLocation(row, mother))) {
+                staleUnits.add(unitId);
+            }
+        });
+        if (mother.getUnitId() != null && mother.getLatitude() != null && mother.getLongitude() != null) {
+            UnitMatrix matrix = matrices.get(mother.getUnitId());
+            if (matrix != null && !matrix.index.containsKey(mother.getId())) {
+                staleUnits.add(mother.getUnitId());
+            }
+        }
+    }
+
+    /**
+     * Rebuild stale units in the background, so route calculations never wait on Google Maps for them
+     */
+    @Scheduled(fixedDelayString = "${app.travel-matrix.refresh-interval-ms:60000}")
+    public void refreshStaleUnits() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        retryAt.forEach((unitId, due) -> {
+            if (due <= now && retryAt.remove(unitId, due)) {
+                staleUnits.add(unitId);
+            }
+        });
+        for (String unitId : List.copyOf(staleUnits)) {
+            staleUnits.remove(unitId);
+            try {
+                refreshUnit(unitId);
+            } catch (Exception e) {
+                logger.error("Failed to refresh travel matrix for unit {}: {}", unitId, e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Recompute the unit's matrix, reusing every entry whose two endpoints have not moved and that
+     * holds a real travel time
+     */
+    public void refreshUnit(String unitId) {
+        List<Mother> mothers = motherRepository.findByUnitId(unitId).stream()
+            .filter(m -> m.getLatitude() != null && m.getLongitude() != null)
+            .toList();
+        if (mothers.size() > maxUnitSize) {
+            logger.warn("Unit {} has {} mothers, above travel matrix limit {}; not precomputing",
+                       unitId, mothers.size(), maxUnitSize);
+            return;
+        }
+
+        UnitMatrix previous = getMatrix(unitId);
+        int size = mothers.size();
+        int[] travel = new int[size * size];
+
+        // Mothers whose rows and columns must be fetched; everything else is copied
+        List<Integer> changed = new ArrayList<>();
+        int[] previousRow = new int[size];
+        for (int i = 0; i < size; i++) {
+            Mother mother = mothers.get(i);
+            Integer row = previous != null ? previous.index.get(mother.getId()) : null;
+            if (row != null && previous.hasSameLocation(row, mother)) {
+                previousRow[i] = row;
+            } else {
+                previousRow[i] = -1;
+                changed.add(i);
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (previousRow[i] >= 0 && previousRow[j] >= 0) {
+                    travel[i * size + j] = previous.get(previousRow[i], previousRow[j]);
+                }
+            }
+        }
+
+        if (!changed.isEmpty()) {
+            List<Integer> unchanged = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                if (previousRow[i] >= 0) {
+                    unchanged.add(i);
+                }
+            }
+            List<NavigationLocation> all = toLocations(mothers, null);
+            List<NavigationLocation> changedLocations = toLocations(mothers, changed);
+
+            // Rows: changed mothers to everyone; columns: unchanged mothers to changed mothers
+            TravelTimeResult[][] fromChanged = googleMapsDistanceService.getTravelTimeMatrix(changedLocations, all);
+            for (int c = 0; c < changed.size(); c++) {
+                for (int j = 0; j < size; j++) {
+                    travel[changed.get(c) * size + j] = toSeconds(fromChanged[c][j], changed.get(c) == j);
+                }
+            }
+            if (!unchanged.isEmpty()) {
+                TravelTimeResult[][] toChanged =
+                    googleMapsDistanceService.getTravelTimeMatrix(toLocations(mothers, unchanged), changedLocations);
+                for (int u = 0; u < unchanged.size(); u++) {
+                    for (int c = 0; c < changed.size(); c++) {
+                        travel[unchanged.get(u) * size + changed.get(c)] = toSeconds(toChanged[u][c], false);
+                    }
+                }
+            }
+        }
+
+        if (!changed.isEmpty()) {
+            // New cells get a fresh set of attempts
+            estimatedAttempts.remove(unitId);
+        }
+        boolean lastAttempt = estimatedAttempts.getOrDefault(unitId, 0) + 1 >= maxEstimatedAttempts;
+        int refetched = refetchEstimated(mothers, travel, previousRow, lastAttempt);
+
+        UnitMatrix matrix = new UnitMatrix(mothers, travel);
+        matrices.put(unitId, matrix);
+        unitTravelMatrixRepository.save(matrix.toDocument(unitId));
+        int estimated = matrix.estimatedCells();
+        if (estimated > 0) {
+            scheduleRetry(unitId);
+        } else {
+            estimatedAttempts.remove(unitId);
+            retryAt.remove(unitId);
+        }
+        logger.info("Travel matrix for unit {} refreshed: {} mothers, {} recomputed, {} estimated cells re-fetched, {} still estimated",
+                   unitId, size, changed.size(), refetched, estimated);
+    }
+
+    /**
+     * Fetch the copied cells that were only estimated last time, in one tiled request over their rows and
+     * columns. On the last attempt, cells still unanswered are settled with the returned Haversine estimate.
+     * Returns the number of cells that no longer need fetching.
+     */
+    private int refetchEstimated(List<Mother> mothers, int[] travel, int[] previousRow, boolean lastAttempt) {
+        int size = mothers.size();
+        Set<Integer> rows = new TreeSet<>();
+        Set<Integer> columns = new TreeSet<>();
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (previousRow[i] >= 0 && previousRow[j] >= 0 && travel[i * size + j] == ESTIMATED) {
+                    rows.add(i);
+                    columns.add(j);
+                }
+            }
+        }
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        List<Integer> rowList = List.copyOf(rows);
+        List<Integer> columnList = List.copyOf(columns);
+        TravelTimeResult[][] results =
+            googleMapsDistanceService.getTravelTimeMatrix(toLocations(mothers, rowList), toLocations(mothers, columnList));
+        int fixed = 0;
+        for (int r = 0; r < rowList.size(); r++) {
+            for (int c = 0; c < columnList.size(); c++) {
+                int cell = rowList.get(r) * size + columnList.get(c);
+                if (travel[cell] == ESTIMATED) {
+                    travel[cell] = toSeconds(results[r][c], false);
+                    if (travel[cell] == ESTIMATED && lastAttempt && results[r][c] != null
+                            && results[r][c].getDuration() != null) {
+                        travel[cell] = settled((int) Math.min(Integer.MAX_VALUE + (long) ESTIMATED,
+                                                              results[r][c].getDurationInTrafficSeconds()));
+                    }
+                    if (travel[cell] != ESTIMATED) {
+                        fixed++;
+                    }
+                }
+            }
+        }
+        return fixed;
+    }
+
+    /**
+     * Schedule another fetch of the unit's estimated cells, backing off exponentially, unless its
+     * attempts have run out
+     */
+    private void scheduleRetry(String unitId) {
+        int attempts = estimatedAttempts.merge(unitId, 1, Integer::sum);
+        if (attempts >= maxEstimatedAttempts) {
+            logger.warn("Unit {} still has estimated travel times after {} attempts; not retrying", unitId, attempts);
+            return;
+        }
+        retryAt.put(unitId, System.currentTimeMillis() + (refreshIntervalMs << Math.min(attempts - 1, 10)));
+    }
+
+    /**
+     * Converts between seconds and a settled cell. Settled cells sit below ESTIMATED, so they are sliced
+     * out but never re-fetched; the mapping is its own inverse.
+     */
+    static int settled(int value) {
+        return ESTIMATED - 1 - value;
+    }
+
+    private UnitMatrix getMatrix(String unitId) {
+        UnitMatrix matrix = matrices.get(unitId);
+        if (matrix == null) {
+            matrix = unitTravelMatrixRepository.findById(unitId).map(UnitMatrix::fromDocument).orElse(null);
+            if (matrix != null) {
+                matrices.put(unitId, matrix);
+                if (matrix.estimatedCells() > 0 && !retryAt.containsKey(unitId)) {
+                    scheduleRetry(unitId);
+                }
+            }
+        }
+        return matrix;
+    }
+
+    private List<NavigationLocation> toLocations(List<Mother> mothers, List<Integer> indices) {
+        List<NavigationLocation> locations = new ArrayList<>();
+        int count = indices != null ? indices.size() : mothers.size();
+        for (int k = 0; k < count; k++) {
+            Mother mother = mothers.get(indices != null ? indices.get(k) : k);
+            locations.add(NavigationLocation.builder()
+                .latitude(mother.getLatitude())
+                .longitude(mother.getLongitude())
+                .name(mother.getName())
+                .build());
+        }
+        return locations;
+    }
+
+    /**
+     * Seconds of a Google Maps answer, or ESTIMATED for a missing one or a Haversine fallback
+     */
+    private int toSeconds(TravelTimeResult result, boolean sameLocation) {
+        if (sameLocation) {
+            return 0;
+        }
+        if (result == null || !result.isValid()) {
+            return ESTIMATED;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, result.getDurationInTrafficSeconds());
+    }
+
+    /**
+     * Decoded matrix with an index from mother ID to row
+     */
+    private static class UnitMatrix {
+        private final Map<String, Integer> index = new HashMap<>();
+        private final List<String> motherIds;
+        private final double[] latitudes;
+        private final double[] longitudes;
+        private final int[] travel;
+        private final int size;
+
+        UnitMatrix(List<Mother> mothers, int[] travel) {
+            this.size = mothers.size();
+            this.motherIds = new ArrayList<>(size);
+            this.latitudes = new double[size];
+            this.longitudes = new double[size];
+            this.travel = travel;
+            for (int i = 0; i < size; i++) {
+                Mother mother = mothers.get(i);
+                motherIds.add(mother.getId());
+                latitudes[i] = mother.getLatitude();
+                longitudes[i] = mother.getLongitude();
+                index.put(mother.getId(), i);
+            }
+        }
+
+        private UnitMatrix(UnitTravelMatrix document) {
+            this.motherIds = document.getMotherIds();
+            this.size = motherIds.size();
+            this.latitudes = new double[size];
+            this.longitudes = new double[size];
+            this.travel = new int[size * size];
+            for (int i = 0; i < size; i++) {
+                latitudes[i] = document.getLatitudes().get(i);
+                longitudes[i] = document.getLongitudes().get(i);
+                index.put(motherIds.get(i), i);
+            }
+            ByteBuffer.wrap(document.getTravelSeconds()).asIntBuffer().get(travel);
+        }
+
+        static UnitMatrix fromDocument(UnitTravelMatrix document) {
+            return new UnitMatrix(document);
+        }
+
+        UnitTravelMatrix toDocument(String unitId) {
+            ByteBuffer buffer = ByteBuffer.allocate(travel.length * Integer.BYTES);
+            buffer.asIntBuffer().put(travel);
+
+            UnitTravelMatrix document = new UnitTravelMatrix();
+            document.setUnitId(unitId);
+            document.setMotherIds(motherIds);
+            document.setLatitudes(Arrays.stream(latitudes).boxed().toList());
+            document.setLongitudes(Arrays.stream(longitudes).boxed().toList());
+            document.setTravelSeconds(buffer.array());
+            document.setUpdatedAt(LocalDateTime.now());
+            return document;
+        }
+
+        int get(int row, int column) {
+            return travel[row * size + column];
+        }
+
+        int estimatedCells() {
+            int count = 0;
+            for (int seconds : travel) {
+                if (seconds == ESTIMATED) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        boolean hasSameLocation(int row, Mother mother) {
+            return Objects.equals(latitudes[row], mother.getLatitude())
+                && Objects.equals(longitudes[row], mother.getLongitude());
+        }
+    }
+}
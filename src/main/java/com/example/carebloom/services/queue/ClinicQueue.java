@@ -0,0 +1,391 @@
+package com.example.carebloom.services.queue;
+
+import com.example.carebloom.models.QueueUser;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory state of one clinic's queue. Only touch it through ClinicQueueEngine.withQueue, which holds the lock.
+ *
+ * Waiting patients are kept in serving order in a LinkedHashMap, so the next patient, lookups by id or mother
+ * and removals are all O(1). The order is persisted as sparse orderKeys: a new patient goes ORDER_KEY_GAP after
+ * the last one and a moved patient takes the midpoint of its new neighbours, so joins, removals and moves each
+ * rewrite one document. Keys are only respaced when a gap runs out.
+ */
+public class ClinicQueue {
+
+    static final long ORDER_KEY_GAP = 1L << 20;
+    private static final DateTimeFormatter CALL_TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+    private final String clinicId;
+    final ReentrantLock lock = new ReentrantLock();
+    boolean evicted;
+
+    private String queueStatus;
+    private int completedToday;
+
+    private QueueUser current;
+    private final LinkedHashMap<String, QueueUser> waiting = new LinkedHashMap<>();
+    // completed / no-show records left over in Mongo, kept until cleanup like before
+    private final Map<String, QueueUser> finished = new LinkedHashMap<>();
+    private final Map<String, QueueUser> byId = new HashMap<>();
+    private final Map<String, QueueUser> byMotherId = new HashMap<>();
+    private long lastOrderKey;
+    private int highestPosition;
+    private final ServiceTimeStats serviceTimeStats;
+
+    ClinicQueue(String clinicId, String queueStatus, Integer completedToday, List<QueueUser> users,
+                ServiceTimeStats serviceTimeStats) {
+        this.clinicId = clinicId;
+        this.queueStatus = queueStatus;
+        this.completedToday = completedToday != null ? completedToday : 0;
+        this.serviceTimeStats = serviceTimeStats;
+        load(users);
+    }
+
+    /**
+     * Replace the whole state with what is stored, e.g. after another instance changed this clinic's queue
+     */
+    void replaceState(String queueStatus, Integer completedToday, List<QueueUser> users) {
+        clear();
+        this.queueStatus = queueStatus;
+        this.completedToday = completedToday != null ? completedToday : 0;
+        load(users);
+    }
+
+    private void load(List<QueueUser> users) {
+        List<QueueUser> ordered = new ArrayList<>(users);
+        for (QueueUser user : ordered) {
+            // Records from before order keys follow their queue number
+            if (user.getOrderKey() == 0) {
+                user.setOrderKey(user.getPosition() * ORDER_KEY_GAP);
+            }
+        }
+        ordered.sort(Comparator.comparingLong(QueueUser::getOrderKey));
+        for (QueueUser user : ordered) {
+            index(user);
+        }
+    }
+
+    public String getClinicId() {
+        return clinicId;
+    }
+
+    public boolean isOpen() {
+        return "open".equals(queueStatus);
+    }
+
+    public String getQueueStatus() {
+        return queueStatus;
+    }
+
+    public void setQueueStatus(String queueStatus) {
+        this.queueStatus = queueStatus;
+    }
+
+    public int getCompletedToday() {
+        return completedToday;
+    }
+
+    public void setCompletedToday(int completedToday) {
+        this.completedToday = completedToday;
+    }
+
+    public ServiceTimeStats getServiceTimeStats() {
+        return serviceTimeStats;
+    }
+
+    /**
+     * Patient being served (status in-progress), or null
+     */
+    public QueueUser getCurrent() {
+        return current;
+    }
+
+    /**
+     * First waiting patient, or null
+     */
+    public QueueUser peekWaiting() {
+        Iterator<QueueUser> it = waiting.values().iterator();
+        return it.hasNext() ? it.next() : null;
+    }
+
+    public Collection<QueueUser> getWaiting() {
+        return waiting.values();
+    }
+
+    public Collection<QueueUser> getFinished() {
+        return finished.values();
+    }
+
+    public int waitingCount() {
+        return waiting.size();
+    }
+
+    /**
+     * Every record of the clinic whatever its status, like countByClinicId
+     */
+    public int size() {
+        return byId.size();
+    }
+
+    public QueueUser findById(String id) {
+        return byId.get(id);
+    }
+
+    boolean contains(String id) {
+        return byId.containsKey(id);
+    }
+
+    public QueueUser findByMotherId(String motherId) {
+        return motherId == null ? null : byMotherId.get(motherId);
+    }
+
+    /**
+     * Highest queue number handed out in this session, as far as the loaded records show
+     */
+    public int getHighestPosition() {
+        return highestPosition;
+    }
+
+    /**
+     * Add a record at the back of the queue. The caller sets id, position and status first.
+     */
+    public void add(QueueUser user) {
+        user.setOrderKey(lastOrderKey + ORDER_KEY_GAP);
+        index(user);
+    }
+
+    public QueueUser remove(String id) {
+        QueueUser user = byId.remove(id);
+        if (user == null) {
+            return null;
+        }
+        if (user == current) {
+            current = null;
+        }
+        waiting.remove(id);
+        finished.remove(id);
+        if (user.getMotherId() != null && byMotherId.get(user.getMotherId()) == user) {
+            byMotherId.remove(user.getMotherId());
+        }
+        return user;
+    }
+
+    /**
+     * Move the first waiting patient to in-progress. Returns it, or null if nobody is waiting.
+     */
+    public QueueUser promoteNext() {
+        QueueUser next = peekWaiting();
+        if (next == null) {
+            return null;
+        }
+        waiting.remove(next.getId());
+        next.setStatus("in-progress");
+        next.setStartedTime(LocalDateTime.now().toString());
+        next.setWaitTime(0);
+        next.setWaitTimeP90(0);
+        current = next;
+        return next;
+    }
+
+    /**
+     * Put the waiting patients in the given order; anyone waiting but not listed keeps their relative order
+     * behind them. Only patients that actually moved get a new orderKey: the longest run already in increasing
+     * key order stays put. Returns the patients whose key changed, all of them if the keys had to be respaced.
+     */
+    public List<QueueUser> reorderWaiting(List<QueueUser> order) {
+        List<QueueUser> target = new ArrayList<>(waiting.size());
+        Set<String> listed = new HashSet<>();
+        for (QueueUser user : order) {
+            if (waiting.containsKey(user.getId()) && listed.add(user.getId())) {
+                target.add(user);
+            }
+        }
+        for (QueueUser user : waiting.values()) {
+            if (!listed.contains(user.getId())) {
+                target.add(user);
+            }
+        }
+
+        boolean[] keep = longestIncreasingKeys(target);
+        long floor = current != null ? current.getOrderKey() : 0;
+        long[] keys = new long[target.size()];
+        List<QueueUser> changed = new ArrayList<>();
+        boolean respace = false;
+        long previous = floor;
+        for (int i = 0; i < target.size() && !respace; i++) {
+            if (keep[i]) {
+                keys[i] = target.get(i).getOrderKey();
+            } else {
+                long upper = previous + 2 * ORDER_KEY_GAP;
+                for (int j = i + 1; j < target.size(); j++) {
+                    if (keep[j]) {
+                        upper = target.get(j).getOrderKey();
+                        break;
+                    }
+                }
+                if (upper - previous < 2) {
+                    respace = true;
+                }
+                keys[i] = previous + (upper - previous) / 2;
+            }
+            previous = keys[i];
+        }
+
+        if (respace) {
+            for (int i = 0; i < target.size(); i++) {
+                keys[i] = floor + (i + 1) * ORDER_KEY_GAP;
+            }
+        }
+        for (int i = 0; i < target.size(); i++) {
+            QueueUser user = target.get(i);
+            if (user.getOrderKey() != keys[i]) {
+                user.setOrderKey(keys[i]);
+                changed.add(user);
+            }
+        }
+
+        waiting.clear();
+        for (QueueUser user : target) {
+            waiting.put(user.getId(), user);
+            lastOrderKey = Math.max(lastOrderKey, user.getOrderKey());
+        }
+        return changed;
+    }
+
+    /**
+     * Refresh every active patient's p50/p90 wait and expected call time from the service time statistics,
+     * in one pass. Memory only; the persisted values are the estimates at the time a record was last written.
+     */
+    public void updateWaitEstimates(LocalDateTime now) {
+        double remaining = 0;
+        if (current != null) {
+            current.setWaitTime(0);
+            current.setWaitTimeP90(0);
+            double elapsed = secondsSince(current.getStartedTime(), now);
+            remaining = Math.max(0, serviceTimeStats.meanSeconds() - elapsed);
+        }
+        int ahead = 0;
+        for (QueueUser user : waiting.values()) {
+            double[] wait = serviceTimeStats.waitSeconds(remaining, current != null, ahead);
+            user.setWaitTime((int) Math.round(wait[0] / 60));
+            user.setWaitTimeP90((int) Math.round(wait[1] / 60));
+            user.setEstimatedTime(now.plusSeconds(Math.round(wait[0])).toLocalTime().format(CALL_TIME_FORMAT));
+            ahead++;
+        }
+    }
+
+    /**
+     * Seconds since an ISO timestamp, 0 if it is missing or unreadable
+     */
+    public static double secondsSince(String isoTimestamp, LocalDateTime now) {
+        if (isoTimestamp == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Duration.between(LocalDateTime.parse(isoTimestamp), now).toMillis() / 1000.0);
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Drop everything, e.g. when a new queue session starts
+     */
+    public void clear() {
+        lastOrderKey = 0;
+        highestPosition = 0;
+        current = null;
+        waiting.clear();
+        finished.clear();
+        byId.clear();
+        byMotherId.clear();
+    }
+
+    private void index(QueueUser user) {
+        lastOrderKey = Math.max(lastOrderKey, user.getOrderKey());
+        highestPosition = Math.max(highestPosition, user.getPosition());
+        byId.put(user.getId(), user);
+        if (user.getMotherId() != null) {
+            byMotherId.put(user.getMotherId(), user);
+        }
+        if ("in-progress".equals(user.getStatus()) && current == null) {
+            current = user;
+        } else if ("waiting".equals(user.getStatus()) || "in-progress".equals(user.getStatus())) {
+            waiting.put(user.getId(), user);
+        } else {
+            finished.put(user.getId(), user);
+        }
+    }
+
+    /**
+     * Marks the longest subsequence whose existing keys are already strictly increasing (patience sorting)
+     */
+    private static boolean[] longestIncreasingKeys(List<QueueUser> users) {
+        int n = users.size();
+        int[] tails = new int[n];
+        int[] previous = new int[n];
+        int length = 0;
+        for (int i = 0; i < n; i++) {
+            long key = users.get(i).getOrderKey();
+            int lo = 0;
+            int hi = length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (users.get(tails[mid]).getOrderKey() < key) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            previous[i] = lo > 0 ? tails[lo - 1] : -1;
+            tails[lo] = i;
+            length = Math.max(length, lo + 1);
+        }
+        boolean[] keep = new boolean[n];
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+            keep[i] = true;
+        }
+        return keep;
+    }
+
+    /**
+     * Detached copy, safe to hand out after the lock is released
+     */
+    public static QueueUser snapshot(QueueUser user) {
+        if (user == null) {
+            return null;
+        }
+        QueueUser copy = new QueueUser();
+        copy.setId(user.getId());
+        copy.setName(user.getName());
+        copy.setEmail(user.getEmail());
+        copy.setMotherId(user.getMotherId());
+        copy.setClinicId(user.getClinicId());
+        copy.setPosition(user.getPosition());
+        copy.setOrderKey(user.getOrderKey());
+        copy.setStatus(user.getStatus());
+        copy.setJoinedTime(user.getJoinedTime());
+        copy.setStartedTime(user.getStartedTime());
+        copy.setEstimatedTime(user.getEstimatedTime());
+        copy.setWaitTime(user.getWaitTime());
+        copy.setWaitTimeP90(user.getWaitTimeP90());
+        copy.setNotes(user.getNotes());
+        return copy;
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.carebloom.services.queue;
+
+import com.example.carebloom.models.Clinic;
+import com.example.carebloom.models.ClinicServiceStats;
+import com.example.carebloom.models.QueueUser;
+import com.example.carebloom.repositories.ClinicRepository;
+import com.example.carebloom.repositories.ClinicServiceStatsRepository;
+import com.example.carebloom.repositories.QueueUserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Holds the authoritative queue of every clinic in memory, one ClinicQueue per clinic with its own lock.
+ *
+ * A clinic is loaded from Mongo the first time it is touched, and open clinics are loaded eagerly on startup.
+ * Changes are persisted through QueueWriteBehindJournal. With several application instances, each one reloads
+ * a clinic when QueueChangeStreamListener sees another instance write to it.
+ */
+@Service
+public class ClinicQueueEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClinicQueueEngine.class);
+    private static final int DEFAULT_APPOINTMENT_MINUTES = 15;
+
+    @Autowired
+    private ClinicRepository clinicRepository;
+
+    @Autowired
+    private QueueUserRepository queueUserRepository;
+
+    @Autowired
+    private ClinicServiceStatsRepository clinicServiceStatsRepository;
+
+    @Autowired
+    private QueueWriteBehindJournal journal;
+
+    private final Map<String, ClinicQueue> queues = new ConcurrentHashMap<>();
+
+    /**
+     * Rebuild the queues of all open clinics from Mongo
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOpenQueues() {
+        List<Clinic> openClinics = clinicRepository.findByQueueStatus("open");
+        if (openClinics.isEmpty()) {
+            return;
+        }
+        Map<String, List<QueueUser>> usersByClinic = queueUserRepository
+            .findByClinicIdInOrderByPosition(openClinics.stream().map(Clinic::getId).toList())
+            .stream()
+            .collect(Collectors.groupingBy(QueueUser::getClinicId, Collectors.toList()));
+        Map<String, ClinicServiceStats> statsByClinic = new HashMap<>();
+        clinicServiceStatsRepository.findAllById(openClinics.stream().map(Clinic::getId).toList())
+            .forEach(stats -> statsByClinic.put(stats.getClinicId(), stats));
+
+        for (Clinic clinic : openClinics) {
+            List<QueueUser> users = usersByClinic.getOrDefault(clinic.getId(), List.of());
+            queues.putIfAbsent(clinic.getId(), newQueue(clinic, users, statsByClinic.get(clinic.getId())));
+        }
+        logger.info("Rebuilt in-memory queues for {} open clinics", openClinics.size());
+    }
+
+    /**
+     * Run the action with the clinic's queue locked. Throws IllegalArgumentException if the clinic does not exist.
+     */
+    public <T> T withQueue(String clinicId, Function<ClinicQueue, T> action) {
+        while (true) {
+            ClinicQueue queue = queues.get(clinicId);
+            if (queue == null) {
+                queue = load(clinicId);
+            }
+            queue.lock.lock();
+            try {
+                if (queue.evicted) {
+                    continue;
+                }
+                return action.apply(queue);
+            } finally {
+                queue.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Drop the clinic's in-memory queue, e.g. after its records were deleted directly
+     */
+    public void evict(String clinicId) {
+        ClinicQueue queue = queues.get(clinicId);
+        if (queue == null) {
+            return;
+        }
+        queue.lock.lock();
+        try {
+            queue.evicted = true;
+            queues.remove(clinicId, queue);
+        } finally {
+            queue.lock.unlock();
+        }
+    }
+
+    public boolean isLoaded(String clinicId) {
+        return queues.containsKey(clinicId);
+    }
+
+    public List<String> loadedClinicIds() {
+        return new ArrayList<>(queues.keySet());
+    }
+
+    /**
+     * Clinic of a queue record held in memory, or null. Scans the loaded clinics, of which there are few.
+     */
+    public String findClinicOfPatient(String patientId) {
+        for (ClinicQueue queue : queues.values()) {
+            if (queue.contains(patientId)) {
+                return queue.getClinicId();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reload the queue's state from Mongo in place. Call under the queue's lock, with the journal flushed.
+     */
+    public void reloadFromStore(ClinicQueue queue) {
+        Clinic clinic = clinicRepository.findById(queue.getClinicId())
+            .orElseThrow(() -> new IllegalArgumentException("Clinic not found"));
+        queue.replaceState(clinic.getQueueStatus(), clinic.getCompletedToday(),
+                           queueUserRepository.findByClinicIdOrderByPosition(queue.getClinicId()));
+        queue.updateWaitEstimates(LocalDateTime.now());
+    }
+
+    public void evictAll() {
+        for (String clinicId : new ArrayList<>(queues.keySet())) {
+            evict(clinicId);
+        }
+    }
+
+    private ClinicQueue load(String clinicId) {
+        // Unflushed changes of an evicted queue must reach Mongo before it is read back
+        if (journal.pendingCount() > 0) {
+            journal.flush();
+        }
+        Clinic clinic = clinicRepository.findById(clinicId)
+            .orElseThrow(() -> new IllegalArgumentException("Clinic not found"));
+        List<QueueUser> users = queueUserRepository.findByClinicIdOrderByPosition(clinicId);
+        ClinicQueue loaded = newQueue(clinic, users, clinicServiceStatsRepository.findById(clinicId).orElse(null));
+        // Another thread may have loaded it meanwhile; theirs wins so nobody works on a discarded copy
+        ClinicQueue existing = queues.putIfAbsent(clinicId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private ClinicQueue newQueue(Clinic clinic, List<QueueUser> users, ClinicServiceStats storedStats) {
+        // Until the clinic has history, the configured appointment length is the best guess
+        int priorMinutes = clinic.getQueueSettings() != null && clinic.getQueueSettings().getAvgAppointmentTime() > 0
+            ? clinic.getQueueSettings().getAvgAppointmentTime()
+            : DEFAULT_APPOINTMENT_MINUTES;
+        ServiceTimeStats stats = storedStats != null
+            ? ServiceTimeStats.from(storedStats, priorMinutes * 60.0)
+            : ServiceTimeStats.withPrior(priorMinutes * 60.0);
+        ClinicQueue queue = new ClinicQueue(clinic.getId(), clinic.getQueueStatus(), clinic.getCompletedToday(), users, stats);
+        queue.updateWaitEstimates(LocalDateTime.now());
+        return queue;
+    }
+}
@@ -0,0 +1,277 @@
+package com.example.carebloom.services.queue;
+
+import com.example.carebloom.models.ChangeStreamToken;
+import com.example.carebloom.repositories.ChangeStreamTokenRepository;
+import com.example.carebloom.services.NewQueueService;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Message;
+import org.springframework.data.mongodb.core.messaging.MessageListener;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Subscription;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps the in-memory clinic queues of several app instances in step through Mongo change streams.
+ *
+ * Every instance watches queue_users and the queue state of clinics. A change written by another instance
+ * (told apart by the writtenBy / queueWrittenBy tag the journal stamps on every write) makes this instance
+ * reload that clinic's queue and push the difference to its own SSE subscribers, so a mother connected to any
+ * node sees every move. The last processed resume token of each stream is saved per instance, so a restart
+ * picks up where it stopped, which is why enabling the listener requires a configured app.instance-id.
+ *
+ * Change streams need a replica set; a single node started with --replSet and initiated with rs.initiate() will
+ * do. QueueChangeStreamReplicaSetTest checks the local mongod for that and skips itself on a standalone server.
+ */
+@Service
+public class QueueChangeStreamListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueueChangeStreamListener.class);
+    private static final String QUEUE_USERS = "queue_users";
+    private static final String CLINICS = "clinics";
+    // ChangeStreamHistoryLost: the saved position has rolled off the oplog
+    private static final int HISTORY_LOST = 286;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ChangeStreamTokenRepository changeStreamTokenRepository;
+
+    @Autowired
+    private ClinicQueueEngine clinicQueueEngine;
+
+    @Autowired
+    private QueueWriteBehindJournal journal;
+
+    @Autowired
+    private NewQueueService newQueueService;
+
+    @Value("${app.clinic-queue.change-stream.enabled:false}")
+    private boolean enabled;
+
+    // Resume tokens are stored under this id, so it must survive restarts; the journal's random default would not
+    @Value("${app.instance-id:}")
+    private String configuredInstanceId;
+
+    private MessageListenerContainer container;
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    // Latest processed resume token per stream, saved on a schedule rather than per event
+    private final Map<String, BsonDocument> latestTokens = new ConcurrentHashMap<>();
+    private final Map<String, BsonDocument> savedTokens = new ConcurrentHashMap<>();
+    private volatile boolean historyLost;
+
+    @PostConstruct
+    void checkInstanceId() {
+        if (enabled && (configuredInstanceId == null || configuredInstanceId.isBlank())) {
+            throw new IllegalStateException("app.clinic-queue.change-stream.enabled=true needs a stable app.instance-id "
+                + "per node, otherwise saved resume tokens are never found again after a restart");
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        container = new DefaultMessageListenerContainer(mongoTemplate, Executors.newCachedThreadPool(),
+            e -> logger.error("Queue change stream failed: {}", e.getMessage(), e));
+        container.start();
+        subscribe(QUEUE_USERS);
+        subscribe(CLINICS);
+        logger.info("Listening for queue changes of other instances as {}", journal.getInstanceId());
+    }
+
+    /**
+     * Save the resume tokens and restart streams that died, e.g. after a failover outlasted the driver's retries
+     */
+    @Scheduled(fixedDelayString = "${app.clinic-queue.change-stream.token-save-interval-ms:5000}")
+    public void saveTokensAndCheckStreams() {
+        if (container == null) {
+            return;
+        }
+        saveTokens();
+        if (historyLost) {
+            // Events were missed for good, so every loaded queue may be stale
+            historyLost = false;
+            logger.warn("Queue change stream history lost, reloading all in-memory queues");
+            latestTokens.clear();
+            savedTokens.clear();
+            changeStreamTokenRepository.deleteAllById(List.of(tokenId(QUEUE_USERS), tokenId(CLINICS)));
+            for (String stream : new String[] {QUEUE_USERS, CLINICS}) {
+                Subscription old = subscriptions.remove(stream);
+                if (old != null) {
+                    container.remove(old);
+                }
+            }
+            subscribe(QUEUE_USERS);
+            subscribe(CLINICS);
+            clinicQueueEngine.loadedClinicIds().forEach(this::refresh);
+            return;
+        }
+        subscriptions.forEach((stream, subscription) -> {
+            if (!subscription.isActive()) {
+                logger.warn("Queue change stream on {} is no longer active, restarting", stream);
+                container.remove(subscription);
+                subscribe(stream);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (container == null) {
+            return;
+        }
+        container.stop();
+        saveTokens();
+    }
+
+    private void subscribe(String stream) {
+        MessageListener<ChangeStreamDocument<Document>, Document> listener = message -> onMessage(stream, message);
+        ChangeStreamRequest.ChangeStreamRequestBuilder<Document> builder = ChangeStreamRequest.builder(listener)
+            .collection(stream)
+            .fullDocumentLookup(FullDocument.UPDATE_LOOKUP);
+        BsonDocument resumeToken = latestTokens.containsKey(stream) ? latestTokens.get(stream) : loadToken(stream);
+        if (resumeToken != null) {
+            builder.resumeAfter(resumeToken);
+        }
+        subscriptions.put(stream, container.register(builder.build(), Document.class, e -> onError(stream, e)));
+    }
+
+    private void onMessage(String stream, Message<ChangeStreamDocument<Document>, Document> message) {
+        ChangeStreamDocument<Document> event = message.getRaw();
+        if (event == null) {
+            return;
+        }
+        try {
+            if (QUEUE_USERS.equals(stream)) {
+                onQueueUserChange(event);
+            } else {
+                onClinicChange(event);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to apply queue change from {}: {}", stream, e.getMessage(), e);
+        }
+        latestTokens.put(stream, event.getResumeToken());
+    }
+
+    private void onQueueUserChange(ChangeStreamDocument<Document> event) {
+        Document user = event.getFullDocument();
+        if (user != null) {
+            if (!journal.getInstanceId().equals(user.getString("writtenBy"))) {
+                refresh(user.getString("clinicId"));
+            }
+            return;
+        }
+        if (event.getOperationType() == OperationType.DELETE && event.getDocumentKey() != null) {
+            // Deletes carry only the id; our own were already applied in memory, so a match means someone else's
+            String clinicId = clinicQueueEngine.findClinicOfPatient(idOf(event.getDocumentKey().get("_id")));
+            if (clinicId != null) {
+                refresh(clinicId);
+            }
+        }
+    }
+
+    private void onClinicChange(ChangeStreamDocument<Document> event) {
+        if (event.getDocumentKey() == null) {
+            return;
+        }
+        String clinicId = idOf(event.getDocumentKey().get("_id"));
+        if (!clinicQueueEngine.isLoaded(clinicId)) {
+            return;
+        }
+        if (event.getOperationType() == OperationType.DELETE) {
+            clinicQueueEngine.evict(clinicId);
+            return;
+        }
+        if (event.getOperationType() == OperationType.UPDATE && event.getUpdateDescription() != null) {
+            BsonDocument updated = event.getUpdateDescription().getUpdatedFields();
+            if (updated == null || !(updated.containsKey("queueStatus") || updated.containsKey("completedToday"))) {
+                return;
+            }
+        }
+        Document clinic = event.getFullDocument();
+        if (clinic != null && journal.getInstanceId().equals(clinic.getString("queueWrittenBy"))) {
+            return;
+        }
+        refresh(clinicId);
+    }
+
+    private void refresh(String clinicId) {
+        if (clinicId == null) {
+            return;
+        }
+        try {
+            newQueueService.refreshFromStore(clinicId);
+        } catch (IllegalArgumentException e) {
+            // The clinic itself is gone
+            clinicQueueEngine.evict(clinicId);
+        }
+    }
+
+    private void onError(String stream, Throwable e) {
+        if (e instanceof MongoCommandException commandException && commandException.getErrorCode() == HISTORY_LOST) {
+            historyLost = true;
+        }
+        logger.error("Queue change stream on {} failed: {}", stream, e.getMessage());
+    }
+
+    private BsonDocument loadToken(String stream) {
+        return changeStreamTokenRepository.findById(tokenId(stream))
+            .map(ChangeStreamToken::getResumeToken)
+            .map(BsonDocument::parse)
+            .orElse(null);
+    }
+
+    private void saveTokens() {
+        latestTokens.forEach((stream, token) -> {
+            if (token.equals(savedTokens.get(stream))) {
+                return;
+            }
+            ChangeStreamToken doc = new ChangeStreamToken();
+            doc.setId(tokenId(stream));
+            doc.setResumeToken(token.toJson());
+            doc.setUpdatedAt(LocalDateTime.now());
+            changeStreamTokenRepository.save(doc);
+            savedTokens.put(stream, token);
+        });
+    }
+
+    private String tokenId(String stream) {
+        return journal.getInstanceId() + ":" + stream;
+    }
+
+    private static String idOf(BsonValue id) {
+        if (id == null) {
+            return null;
+        }
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.carebloom.services.queue;
+
+import com.example.carebloom.dto.queue.MotherQueueUpdate;
+import com.example.carebloom.dto.queue.QueueUpdateEvent;
+import com.example.carebloom.models.QueueUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Pushes clinic queue changes over server-sent events so MoH screens and mothers' apps stop polling.
+ *
+ * record() runs under the clinic's queue lock: it diffs the queue against what subscribers last saw and
+ * queues the deliveries. dispatch() sends them after the lock is released, one clinic at a time and in
+ * order, so a slow client never holds up queue operations. MoH subscribers get a snapshot and then
+ * compact diffs; a mother only gets the view of their own place, and only when it changed.
+ */
+@Service
+public class QueueEventPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueueEventPublisher.class);
+
+    @Value("${app.clinic-queue.sse-timeout-ms:1800000}")
+    private long sseTimeoutMs;
+
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+
+    /**
+     * Subscribe MoH staff to a clinic. Call under the clinic's queue lock, then dispatch.
+     */
+    public SseEmitter subscribeStaff(ClinicQueue queue) {
+        Channel channel = channels.computeIfAbsent(queue.getClinicId(), Channel::new);
+        Subscriber subscriber = register(channel, true, null, null);
+        channel.refresh(queue);
+
+        QueueUpdateEvent snapshot = channel.header(queue);
+        snapshot.setSnapshot(true);
+        snapshot.getUpdated().addAll(channel.entries.values());
+        channel.pending.add(new Delivery(subscriber, "queue", snapshot));
+        return subscriber.emitter;
+    }
+
+    /**
+     * Subscribe a mother to their own place in a clinic's queue, matched on mother id or email.
+     * Call under the clinic's queue lock, then dispatch. Throws IllegalArgumentException without a mother id.
+     */
+    public SseEmitter subscribeMother(ClinicQueue queue, String motherId, String motherEmail) {
+        if (motherId == null || motherId.isBlank()) {
+            throw new IllegalArgumentException("Mother id is required to subscribe to queue updates");
+        }
+        Channel channel = channels.computeIfAbsent(queue.getClinicId(), Channel::new);
+        Subscriber subscriber = register(channel, false, motherId, motherEmail);
+        channel.refresh(queue);
+
+        MotherQueueUpdate view = channel.motherView(queue, subscriber);
+        subscriber.lastView = view;
+        channel.pending.add(new Delivery(subscriber, "position", view));
+        return subscriber.emitter;
+    }
+
+    /**
+     * Work out what changed since the last event and queue it for every subscriber. Call under the clinic's
+     * queue lock after each mutation.
+     */
+    public void record(ClinicQueue queue) {
+        Channel channel = channels.get(queue.getClinicId());
+        if (channel == null || channel.subscribers.isEmpty()) {
+            return;
+        }
+        Map<String, QueueUpdateEvent.PatientPosition> previous = channel.entries;
+        QueueUpdateEvent previousHeader = channel.lastHeader;
+        channel.refresh(queue);
+
+        QueueUpdateEvent diff = channel.header(queue);
+        for (QueueUpdateEvent.PatientPosition entry : channel.entries.values()) {
+            if (!entry.equals(previous.get(entry.getPatientId()))) {
+                diff.getUpdated().add(entry);
+            }
+        }
+        for (String patientId : previous.keySet()) {
+            if (!channel.entries.containsKey(patientId)) {
+                diff.getRemoved().add(patientId);
+            }
+        }
+        boolean headerChanged = previousHeader == null || previousHeader.isQueueActive() != diff.isQueueActive()
+            || !Objects.equals(previousHeader.getNowServing(), diff.getNowServing())
+            || previousHeader.getCompletedToday() != diff.getCompletedToday();
+        if (!headerChanged && diff.getUpdated().isEmpty() && diff.getRemoved().isEmpty()) {
+            return;
+        }
+
+        for (Subscriber subscriber : channel.subscribers) {
+            if (subscriber.isStaff()) {
+                channel.pending.add(new Delivery(subscriber, "queue", diff));
+                continue;
+            }
+            MotherQueueUpdate view = channel.motherView(queue, subscriber);
+            if (!view.equals(subscriber.lastView)) {
+                subscriber.lastView = view;
+                channel.pending.add(new Delivery(subscriber, "position", view));
+            }
+        }
+    }
+
+    /**
+     * Send everything queued for the clinic, in order. Call after releasing the clinic's queue lock.
+     */
+    public void dispatch(String clinicId) {
+        Channel channel = channels.get(clinicId);
+        if (channel == null) {
+            return;
+        }
+        synchronized (channel) {
+            Delivery delivery;
+            while ((delivery = channel.pending.poll()) != null) {
+                send(channel, delivery.subscriber, delivery.name == null
+                    ? SseEmitter.event().comment("keepalive")
+                    : SseEmitter.event().name(delivery.name).data(delivery.payload));
+            }
+        }
+    }
+
+    /**
+     * Keep idle streams alive through proxies; also how dead connections get noticed and dropped
+     */
+    @Scheduled(fixedDelayString = "${app.clinic-queue.sse-heartbeat-ms:25000}")
+    public void heartbeat() {
+        for (Channel channel : channels.values()) {
+            for (Subscriber subscriber : channel.subscribers) {
+                channel.pending.add(new Delivery(subscriber, null, null));
+            }
+            dispatch(channel.clinicId);
+        }
+    }
+
+    public int subscriberCount(String clinicId) {
+        Channel channel = channels.get(clinicId);
+        return channel != null ? channel.subscribers.size() : 0;
+    }
+
+    private Subscriber register(Channel channel, boolean staff, String motherId, String motherEmail) {
+        Subscriber subscriber = new Subscriber(new SseEmitter(sseTimeoutMs), staff, motherId, motherEmail);
+        channel.subscribers.add(subscriber);
+        subscriber.emitter.onCompletion(() -> channel.subscribers.remove(subscriber));
+        subscriber.emitter.onTimeout(() -> channel.subscribers.remove(subscriber));
+        subscriber.emitter.onError(e -> channel.subscribers.remove(subscriber));
+        return subscriber;
+    }
+
+    private void send(Channel channel, Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (!channel.subscribers.contains(subscriber)) {
+            return;
+        }
+        try {
+            subscriber.emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Dropping queue subscriber of clinic {}: {}", channel.clinicId, e.getMessage());
+            channel.subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+
+    private static class Channel {
+        final String clinicId;
+        final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        final ConcurrentLinkedQueue<Delivery> pending = new ConcurrentLinkedQueue<>();
+        // What subscribers were last told, only touched under the clinic's queue lock
+        Map<String, QueueUpdateEvent.PatientPosition> entries = new LinkedHashMap<>();
+        QueueUpdateEvent lastHeader;
+        long version;
+
+        Channel(String clinicId) {
+            this.clinicId = clinicId;
+        }
+
+        /**
+         * Rebuild the entries from the queue: the patient being served, then everyone waiting in order
+         */
+        void refresh(ClinicQueue queue) {
+            Map<String, QueueUpdateEvent.PatientPosition> current = new LinkedHashMap<>();
+            int place = 0;
+            if (queue.getCurrent() != null) {
+                current.put(queue.getCurrent().getId(), position(queue.getCurrent(), place));
+            }
+            for (QueueUser user : queue.getWaiting()) {
+                place++;
+                current.put(user.getId(), position(user, place));
+            }
+            entries = current;
+        }
+
+        QueueUpdateEvent header(ClinicQueue queue) {
+            QueueUpdateEvent event = new QueueUpdateEvent();
+            event.setClinicId(clinicId);
+            event.setVersion(++version);
+            event.setQueueActive(queue.isOpen());
+            event.setNowServing(queue.getCurrent() != null ? queue.getCurrent().getPosition() : null);
+            event.setCompletedToday(queue.getCompletedToday());
+            event.setTotalInQueue(entries.size());
+            lastHeader = event;
+            return event;
+        }
+
+        MotherQueueUpdate motherView(ClinicQueue queue, Subscriber subscriber) {
+            MotherQueueUpdate view = new MotherQueueUpdate();
+            view.setClinicId(clinicId);
+            view.setVersion(version);
+            view.setQueueActive(queue.isOpen());
+            view.setNowServing(queue.getCurrent() != null ? queue.getCurrent().getPosition() : null);
+            view.setTotalInQueue(entries.size());
+            for (QueueUpdateEvent.PatientPosition entry : entries.values()) {
+                if (entry.getMotherId() != null
+                        && (entry.getMotherId().equals(subscriber.motherId) || entry.getMotherId().equals(subscriber.motherEmail))) {
+                    view.setInQueue(true);
+                    view.setQueueNumber(entry.getQueueNumber());
+                    view.setPlace(entry.getPlace());
+                    view.setStatus(entry.getStatus());
+                    view.setEstimatedWaitTime(entry.getWaitTime());
+                    view.setEstimatedWaitTimeP90(entry.getWaitTimeP90());
+                    view.setEstimatedTime(entry.getEstimatedTime());
+                    break;
+                }
+            }
+            return view;
+        }
+
+        private static QueueUpdateEvent.PatientPosition position(QueueUser user, int place) {
+            QueueUpdateEvent.PatientPosition entry = new QueueUpdateEvent.PatientPosition();
+            entry.setPatientId(user.getId());
+            entry.setMotherId(user.getMotherId());
+            entry.setName(user.getName());
+            entry.setQueueNumber(user.getPosition());
+            entry.setPlace(place);
+            entry.setStatus(user.getStatus());
+            entry.setWaitTime(user.getWaitTime());
+            entry.setWaitTimeP90(user.getWaitTimeP90());
+            entry.setEstimatedTime(user.getEstimatedTime());
+            return entry;
+        }
+    }
+
+    private static class Subscriber {
+        final SseEmitter emitter;
+        final boolean staff;       // MoH staff get the whole queue, mothers only their own place
+        final String motherId;     // null for MoH staff
+        final String motherEmail;
+        MotherQueueUpdate lastView;
+
+        Subscriber(SseEmitter emitter, boolean staff, String motherId, String motherEmail) {
+            this.emitter = emitter;
+            this.staff = staff;
+            this.motherId = motherId;
+            this.motherEmail = motherEmail;
+        }
+
+        boolean isStaff() {
+            return staff;
+        }
+    }
+
+    private static class Delivery {
+        final Subscriber subscriber;
+        final String name;     // null: keepalive comment
+        final Object payload;
+
+        Delivery(Subscriber subscriber, String name, Object payload) {
+            this.subscriber = subscriber;
+            this.name = name;
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.carebloom.services.queue;
+
+import com.example.carebloom.models.QueueCounter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+/**
+ * Hands out queue numbers per clinic. Each call is a single atomic findAndModify on the clinic's counter,
+ * so concurrent joins never get the same number, whichever instance serves them.
+ */
+@Service
+public class QueueSequenceService {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Next queue number for the clinic, starting at 1 after a reset
+     */
+    public int next(String clinicId) {
+        QueueCounter counter = mongoTemplate.findAndModify(
+            byClinic(clinicId),
+            new Update().inc("seq", 1),
+            FindAndModifyOptions.options().returnNew(true).upsert(true),
+            QueueCounter.class);
+        return (int) counter.getSeq();
+    }
+
+    /**
+     * Make sure the next number is above the given one, for queues whose records predate the counter
+     */
+    public void raiseTo(String clinicId, int floor) {
+        mongoTemplate.upsert(byClinic(clinicId), new Update().max("seq", floor), QueueCounter.class);
+    }
+
+    /**
+     * Start numbering from 1 again, e.g. when a new queue session starts
+     */
+    public void reset(String clinicId) {
+        mongoTemplate.upsert(byClinic(clinicId), new Update().set("seq", 0), QueueCounter.class);
+    }
+
+    private Query byClinic(String clinicId) {
+        return new Query(Criteria.where("_id").is(clinicId));
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.carebloom.services.queue;
+
+import com.example.carebloom.models.Clinic;
+import com.example.carebloom.models.ClinicServiceStats;
+import com.example.carebloom.models.QueueUser;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Write-behind persistence for the in-memory clinic queues.
+ *
+ * Queue changes are appended here in the order they happened and a scheduled worker writes them to Mongo as
+ * one ordered bulk write per batch. A pending write of a queue user is overwritten in place by later changes
+ * to the same user, so a burst of reorders costs one write per patient. Every write is idempotent, so a failed
+ * batch is put back and retried on the next run.
+ */
+@Service
+public class QueueWriteBehindJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueueWriteBehindJournal.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${app.clinic-queue.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    @Value("${app.instance-id:}")
+    private String instanceId;
+
+    private final ArrayDeque<Entry> pending = new ArrayDeque<>();
+    // Pending, not yet drained user write per queue user id, for coalescing
+    private final Map<String, Entry> pendingByUserId = new HashMap<>();
+    private final Map<String, ClinicState> pendingClinics = new LinkedHashMap<>();
+    private final Map<String, ClinicServiceStats> pendingStats = new LinkedHashMap<>();
+    private final Object flushLock = new Object();
+
+    @PostConstruct
+    void initInstanceId() {
+        if (instanceId == null || instanceId.isBlank()) {
+            instanceId = UUID.randomUUID().toString();
+        }
+        logger.info("Queue writes are tagged with instance id {}", instanceId);
+    }
+
+    /**
+     * Id written into every queue record and clinic queue state this instance persists, so its change stream
+     * listener can tell its own writes from other instances'
+     */
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * Persist the current state of a queue user (insert or replace)
+     */
+    public synchronized void upsert(QueueUser user) {
+        QueueUser copy = ClinicQueue.snapshot(user);
+        copy.setWrittenBy(instanceId);
+        Entry existing = pendingByUserId.get(user.getId());
+        if (existing != null) {
+            existing.user = copy;
+            return;
+        }
+        Entry entry = new Entry(user.getClinicId(), user.getId(), copy);
+        pending.addLast(entry);
+        pendingByUserId.put(user.getId(), entry);
+    }
+
+    public synchronized void delete(QueueUser user) {
+        Entry existing = pendingByUserId.get(user.getId());
+        if (existing != null) {
+            existing.user = null;
+            return;
+        }
+        Entry entry = new Entry(user.getClinicId(), user.getId(), null);
+        pending.addLast(entry);
+        pendingByUserId.put(user.getId(), entry);
+    }
+
+    /**
+     * Delete every queue user of the clinic, including records that were never loaded into memory
+     */
+    public synchronized void deleteClinic(String clinicId) {
+        // Later writes must land after this delete, so they may no longer be folded into earlier entries
+        pendingByUserId.values().removeIf(entry -> clinicId.equals(entry.clinicId));
+        pending.addLast(new Entry(clinicId, null, null));
+    }
+
+    /**
+     * Persist the clinic's queue status and completed counter
+     */
+    public synchronized void clinicState(String clinicId, String queueStatus, int completedToday) {
+        pendingClinics.put(clinicId, new ClinicState(queueStatus, completedToday));
+    }
+
+    /**
+     * Persist the clinic's service time statistics
+     */
+    public synchronized void serviceStats(ClinicServiceStats stats) {
+        pendingStats.put(stats.getClinicId(), stats);
+    }
+
+    public synchronized int pendingCount() {
+        return pending.size() + pendingClinics.size() + pendingStats.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.clinic-queue.flush-interval-ms:1000}")
+    public void flush() {
+        synchronized (flushLock) {
+            while (true) {
+                List<Entry> batch = drainUsers();
+                if (batch.isEmpty()) {
+                    break;
+                }
+                if (!writeUsers(batch)) {
+                    requeue(batch);
+                    return;
+                }
+            }
+            writeClinics();
+            writeServiceStats();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+        if (pendingCount() > 0) {
+            logger.error("{} clinic queue changes could not be persisted before shutdown", pendingCount());
+        }
+    }
+
+    private synchronized List<Entry> drainUsers() {
+        List<Entry> batch = new ArrayList<>(Math.min(flushBatchSize, pending.size()));
+        while (batch.size() < flushBatchSize && !pending.isEmpty()) {
+            Entry entry = pending.pollFirst();
+            if (entry.userId != null && pendingByUserId.get(entry.userId) == entry) {
+                pendingByUserId.remove(entry.userId);
+            }
+            batch.add(entry);
+        }
+        return batch;
+    }
+
+    private synchronized void requeue(List<Entry> batch) {
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            pending.addFirst(batch.get(i));
+        }
+    }
+
+    private boolean writeUsers(List<Entry> batch) {
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, QueueUser.class);
+        for (Entry entry : batch) {
+            if (entry.userId == null) {
+                operations.remove(new Query(Criteria.where("clinicId").is(entry.clinicId)));
+            } else if (entry.user == null) {
+                operations.remove(new Query(Criteria.where("_id").is(entry.userId)));
+            } else {
+                operations.replaceOne(new Query(Criteria.where("_id").is(entry.userId)), entry.user,
+                                      FindAndReplaceOptions.options().upsert());
+            }
+        }
+        try {
+            operations.execute();
+            logger.debug("Flushed {} queue user changes", batch.size());
+            return true;
+        } catch (RuntimeException e) {
+            logger.error("Failed to flush {} queue user changes, will retry: {}", batch.size(), e.getMessage(), e);
+            return false;
+        }
+    }
+
+    private void writeClinics() {
+        Map<String, ClinicState> states;
+        synchronized (this) {
+            if (pendingClinics.isEmpty()) {
+                return;
+            }
+            states = new LinkedHashMap<>(pendingClinics);
+            pendingClinics.clear();
+        }
+
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Clinic.class);
+        states.forEach((clinicId, state) -> operations.updateOne(
+            new Query(Criteria.where("_id").is(clinicId)),
+            new Update().set("queueStatus", state.queueStatus).set("completedToday", state.completedToday)
+                .set("queueWrittenBy", instanceId)));
+        try {
+            operations.execute();
+        } catch (RuntimeException e) {
+            logger.error("Failed to flush queue state of {} clinics, will retry: {}", states.size(), e.getMessage(), e);
+            synchronized (this) {
+                // Newer states recorded meanwhile win over the failed ones
+                states.forEach(pendingClinics::putIfAbsent);
+            }
+        }
+    }
+
+    private void writeServiceStats() {
+        Map<String, ClinicServiceStats> stats;
+        synchronized (this) {
+            if (pendingStats.isEmpty()) {
+                return;
+            }
+            stats = new LinkedHashMap<>(pendingStats);
+            pendingStats.clear();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ClinicServiceStats.class);
+        stats.forEach((clinicId, doc) -> {
+            doc.setUpdatedAt(now);
+            operations.replaceOne(new Query(Criteria.where("_id").is(clinicId)), doc, FindAndReplaceOptions.options().upsert());
+        });
+        try {
+            operations.execute();
+        } catch (RuntimeException e) {
+            logger.error("Failed to flush service time stats of {} clinics, will retry: {}", stats.size(), e.getMessage(), e);
+            synchronized (this) {
+                stats.forEach(pendingStats::putIfAbsent);
+            }
+        }
+    }
+
+    private static class Entry {
+        final String clinicId;
+        final String userId;  // null: delete the whole clinic's queue
+        QueueUser user;       // null: delete this user
+
+        Entry(String clinicId, String userId, QueueUser user) {
+            this.clinicId = clinicId;
+            this.userId = userId;
+            this.user = user;
+        }
+    }
+
+    private static class ClinicState {
+        final String queueStatus;
+        final int completedToday;
+
+        ClinicState(String queueStatus, int completedToday) {
+            this.queueStatus = queueStatus;
+            this.completedToday = completedToday;
+        }
+    }
+}
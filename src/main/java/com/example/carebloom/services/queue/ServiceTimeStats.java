@@ -0,0 +1,147 @@
+package com.example.carebloom.services.queue;
+
+import com.example.carebloom.models.ClinicServiceStats;
+
+import java.util.Arrays;
+
+/**
+ * Streaming statistics of how long a clinic spends per patient: an EWMA of the service time for the mean and a
+ * fixed-size histogram with logarithmic buckets as the quantile sketch. Memory and update cost are constant
+ * whatever the history length; once the histogram holds MAX_WEIGHT samples all buckets are halved, so recent
+ * patients count more.
+ */
+public class ServiceTimeStats {
+
+    static final int BUCKETS = 40;
+    // Bucket 0 holds everything under MIN_SECONDS, bucket i >= 1 up to MIN_SECONDS * GROWTH^i, the last is open ended
+    private static final double MIN_SECONDS = 30;
+    private static final double GROWTH = 1.15;
+    private static final long MAX_WEIGHT = 1000;
+    // Below this many samples the spread is taken as half the mean instead of read from the histogram
+    private static final int MIN_SAMPLES_FOR_QUANTILES = 5;
+    private static final double Z_90 = 1.2816;
+
+    private double ewmaSeconds;
+    private long sampleCount;
+    private final long[] histogram;
+    private long histogramWeight;
+
+    private ServiceTimeStats(double ewmaSeconds, long sampleCount, long[] histogram) {
+        this.ewmaSeconds = ewmaSeconds;
+        this.sampleCount = sampleCount;
+        this.histogram = histogram;
+        this.histogramWeight = Arrays.stream(histogram).sum();
+    }
+
+    /**
+     * No history yet: the mean starts at the clinic's configured appointment time
+     */
+    public static ServiceTimeStats withPrior(double priorSeconds) {
+        return new ServiceTimeStats(priorSeconds, 0, new long[BUCKETS]);
+    }
+
+    public static ServiceTimeStats from(ClinicServiceStats stored, double priorSeconds) {
+        long[] histogram = stored.getHistogram() != null && stored.getHistogram().length == BUCKETS
+            ? stored.getHistogram().clone()
+            : new long[BUCKETS];
+        double ewma = stored.getEwmaSeconds() > 0 ? stored.getEwmaSeconds() : priorSeconds;
+        return new ServiceTimeStats(ewma, stored.getSampleCount(), histogram);
+    }
+
+    /**
+     * Add one completed patient's service time
+     */
+    public void record(double seconds, double alpha) {
+        ewmaSeconds += alpha * (seconds - ewmaSeconds);
+        sampleCount++;
+
+        if (histogramWeight >= MAX_WEIGHT) {
+            histogramWeight = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram[i] /= 2;
+                histogramWeight += histogram[i];
+            }
+        }
+        histogram[bucketOf(seconds)]++;
+        histogramWeight++;
+    }
+
+    public double meanSeconds() {
+        return ewmaSeconds;
+    }
+
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * Service time quantile from the histogram, interpolated within the bucket. NaN while the histogram is empty.
+     */
+    public double quantileSeconds(double q) {
+        if (histogramWeight == 0) {
+            return Double.NaN;
+        }
+        double target = q * histogramWeight;
+        double seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (histogram[i] == 0) {
+                continue;
+            }
+            if (seen + histogram[i] >= target) {
+                double fraction = (target - seen) / histogram[i];
+                double lower = lowerBound(i);
+                double upper = upperBound(i);
+                return lower + fraction * (upper - lower);
+            }
+            seen += histogram[i];
+        }
+        return lowerBound(BUCKETS - 1);
+    }
+
+    /**
+     * Standard deviation of one patient's service time, derived from the p50-p90 spread
+     */
+    public double spreadSeconds() {
+        if (sampleCount < MIN_SAMPLES_FOR_QUANTILES) {
+            return ewmaSeconds / 2;
+        }
+        return Math.max(0, (quantileSeconds(0.9) - quantileSeconds(0.5)) / Z_90);
+    }
+
+    /**
+     * p50 and p90 wait, in seconds, for someone behind the current patient's remaining time and `ahead` full visits.
+     * Service times are treated as independent, so the wait is roughly normal for longer queues.
+     */
+    public double[] waitSeconds(double currentRemainingSeconds, boolean someoneInProgress, int ahead) {
+        double sd = spreadSeconds();
+        double p50 = currentRemainingSeconds + ahead * ewmaSeconds;
+        double variance = ((someoneInProgress ? 1 : 0) + ahead) * sd * sd;
+        return new double[] {p50, p50 + Z_90 * Math.sqrt(variance)};
+    }
+
+    public ClinicServiceStats toDocument(String clinicId) {
+        ClinicServiceStats doc = new ClinicServiceStats();
+        doc.setClinicId(clinicId);
+        doc.setEwmaSeconds(ewmaSeconds);
+        doc.setSampleCount(sampleCount);
+        doc.setHistogram(histogram.clone());
+        return doc;
+    }
+
+    static int bucketOf(double seconds) {
+        if (seconds < MIN_SECONDS) {
+            return 0;
+        }
+        int bucket = 1 + (int) Math.floor(Math.log(seconds / MIN_SECONDS) / Math.log(GROWTH));
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    private static double lowerBound(int bucket) {
+        return bucket == 0 ? 0 : MIN_SECONDS * Math.pow(GROWTH, bucket - 1);
+    }
+
+    private static double upperBound(int bucket) {
+        // The open-ended last bucket is treated as one more step wide
+        return MIN_SECONDS * Math.pow(GROWTH, bucket);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.carebloom.services;
+
+import ai.djl.huggingface.tokenizers.Encoding;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BucketedClassificationTranslatorTest {
+
+    @Test
+    void testLengthsArePaddedUpToTheNextBucket() {
+        int[] buckets = {128, 64, 256};
+        BucketedClassificationTranslator translator = new BucketedClassificationTranslator(null, buckets, 64);
+
+        assertEquals(64, translator.bucketFor(1));
+        assertEquals(64, translator.bucketFor(64));
+        assertEquals(128, translator.bucketFor(65));
+        assertEquals(256, translator.bucketFor(129));
+        assertEquals(256, translator.bucketFor(256));
+        // Over the limit only happens before truncation; the largest bucket is the cap
+        assertEquals(256, translator.bucketFor(1000));
+        // The caller's array is left as given
+        assertArrayEquals(new int[] {128, 64, 256}, buckets);
+    }
+
+    @Test
+    void testTextsWithinTheLimitAreKeptWhole() {
+        BucketedClassificationTranslator translator = new BucketedClassificationTranslator(null, new int[] {64, 128}, 32);
+        long[] ids = LongStream.range(0, 128).toArray();
+        long[] mask = ones(128);
+
+        long[][] tokens = translator.truncate(encoding(ids, mask));
+
+        assertArrayEquals(ids, tokens[0]);
+        assertArrayEquals(mask, tokens[1]);
+    }
+
+    @Test
+    void testLongTextsKeepHeadAndTail() {
+        BucketedClassificationTranslator translator = new BucketedClassificationTranslator(null, new int[] {64, 256}, 64);
+        long[] ids = LongStream.range(0, 300).toArray();
+
+        long[][] tokens = translator.truncate(encoding(ids, ones(300)));
+
+        assertEquals(256, tokens[0].length);
+        assertEquals(256, tokens[1].length);
+        // First 64 tokens, [CLS] included, then the last 192, [SEP] included
+        assertArrayEquals(LongStream.range(0, 64).toArray(), Arrays.copyOfRange(tokens[0], 0, 64));
+        assertArrayEquals(LongStream.range(108, 300).toArray(), Arrays.copyOfRange(tokens[0], 64, 256));
+        assertArrayEquals(ones(256), tokens[1]);
+        assertEquals(256, translator.bucketFor(tokens[0].length));
+    }
+
+    @Test
+    void testBatchPaddingIsDroppedBeforeTruncation() {
+        BucketedClassificationTranslator translator = new BucketedClassificationTranslator(null, new int[] {128, 256}, 64);
+        // A batch encode pads the 103-token text up to the 402 tokens of the long one
+        long[] shortIds = Arrays.copyOf(LongStream.range(1, 104).toArray(), 402);
+        long[] shortMask = Arrays.copyOf(ones(103), 402);
+        long[] longIds = LongStream.range(1, 403).toArray();
+
+        long[][] shortTokens = translator.truncate(encoding(shortIds, shortMask));
+        long[][] longTokens = translator.truncate(encoding(longIds, ones(402)));
+
+        // The short text is kept whole, its last token ([SEP]) included, with no padding
+        assertArrayEquals(LongStream.range(1, 104).toArray(), shortTokens[0]);
+        assertArrayEquals(ones(103), shortTokens[1]);
+        assertEquals(128, translator.bucketFor(shortTokens[0].length));
+        assertEquals(256, longTokens[0].length);
+        assertEquals(402, longTokens[0][255]);
+    }
+
+    @Test
+    void testHeadTokensMustLeaveRoomForATail() {
+        int[] buckets = {64, 128};
+        assertThrows(IllegalArgumentException.class, () -> new BucketedClassificationTranslator(null, buckets, 0));
+        assertThrows(IllegalArgumentException.class, () -> new BucketedClassificationTranslator(null, buckets, 128));
+        assertThrows(IllegalArgumentException.class, () -> new BucketedClassificationTranslator(null, buckets, 500));
+        assertDoesNotThrow(() -> new BucketedClassificationTranslator(null, buckets, 1));
+        assertDoesNotThrow(() -> new BucketedClassificationTranslator(null, buckets, 127));
+    }
+
+    private static Encoding encoding(long[] ids, long[] mask) {
+        Encoding encoding = mock(Encoding.class);
+        when(encoding.getIds()).thenReturn(ids);
+        when(encoding.getAttentionMask()).thenReturn(mask);
+        return encoding;
+    }
+
+    private static long[] ones(int length) {
+        long[] values = new long[length];
+        Arrays.fill(values, 1);
+        return values;
+    }
+}
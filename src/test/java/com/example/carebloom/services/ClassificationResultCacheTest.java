@@ -0,0 +1,86 @@
+package com.example.carebloom.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClassificationResultCacheTest {
+
+    private static final String MODEL = "traced_model_for_djl.pt";
+
+    @Test
+    void testKeyIgnoresCaseAndWhitespace() {
+        ClassificationResultCache cache = cache(10);
+
+        String key = cache.key(MODEL, "Is  spotting in the\nfirst trimester NORMAL? ");
+
+        assertEquals(key, cache.key(MODEL, "is spotting in the first trimester normal?"));
+        assertEquals(key, cache.key(MODEL, "\tIs spotting in the first trimester normal?"));
+        assertNotEquals(key, cache.key(MODEL, "is spotting in the second trimester normal?"));
+        assertEquals(64, key.length());
+        assertEquals(cache.key(MODEL, ""), cache.key(MODEL, null));
+    }
+
+    @Test
+    void testKeyDependsOnTheModel() {
+        ClassificationResultCache cache = cache(10);
+        String text = "Which vaccines are safe during pregnancy?";
+
+        assertNotEquals(cache.key(MODEL, text), cache.key("traced_model_int8.pt", text));
+        // The model and the text are kept apart, so moving characters between them gives another key
+        assertNotEquals(cache.key("ab", "c"), cache.key("a", "bc"));
+
+        cache.put(cache.key(MODEL, text), new ClassificationResultCache.Result("MEDICAL", 0.97));
+        assertNull(cache.get(cache.key("traced_model_int8.pt", text)));
+        assertEquals("MEDICAL", cache.get(cache.key(MODEL, text)).getLabel());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() {
+        ClassificationResultCache cache = cache(2);
+        cache.put("a", new ClassificationResultCache.Result("MEDICAL", 0.9));
+        cache.put("b", new ClassificationResultCache.Result("NON_MEDICAL", 0.8));
+
+        // Reading a makes b the least recently used
+        assertNotNull(cache.get("a"));
+        cache.put("c", new ClassificationResultCache.Result("MEDICAL", 0.7));
+
+        assertNull(cache.get("b"));
+        assertEquals(0.9, cache.get("a").getProbability(), 1e-9);
+        assertEquals("MEDICAL", cache.get("c").getLabel());
+        assertEquals(2, cache.metrics().get("size"));
+    }
+
+    @Test
+    void testMetricsCountHitsAndMisses() {
+        ClassificationResultCache cache = cache(10);
+        cache.put("a", new ClassificationResultCache.Result("MEDICAL", 0.9));
+
+        cache.get("a");
+        cache.get("a");
+        cache.get("a");
+        cache.get("missing");
+
+        assertEquals(3L, cache.metrics().get("hits"));
+        assertEquals(1L, cache.metrics().get("misses"));
+        assertEquals(0.75, (double) cache.metrics().get("hitRate"), 1e-9);
+    }
+
+    @Test
+    void testZeroMaxEntriesDisablesTheCache() {
+        ClassificationResultCache cache = cache(0);
+
+        assertFalse(cache.isEnabled());
+        cache.put("a", new ClassificationResultCache.Result("MEDICAL", 0.9));
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.metrics().get("size"));
+        assertEquals(0L, cache.metrics().get("misses"));
+    }
+
+    private static ClassificationResultCache cache(int maxEntries) {
+        ClassificationResultCache cache = new ClassificationResultCache();
+        ReflectionTestUtils.setField(cache, "maxEntries", maxEntries);
+        return cache;
+    }
+}
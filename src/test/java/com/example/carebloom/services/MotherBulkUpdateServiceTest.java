@@ -0,0 +1,165 @@
+package com.example.carebloom.services;
+
+import com.example.carebloom.models.Mother;
+import com.example.carebloom.services.MotherBulkUpdateService.BulkUpdateResult;
+import com.example.carebloom.services.MotherBulkUpdateService.MotherUpdate;
+import com.example.carebloom.services.MotherBulkUpdateService.Outcome;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MotherBulkUpdateServiceTest {
+
+    private MongoTemplate mongoTemplate;
+    private BulkOperations operations;
+    private MotherBulkUpdateService service;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        operations = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Mother.class)).thenReturn(operations);
+
+        service = new MotherBulkUpdateService();
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+    }
+
+    @Test
+    void testAllMatchedAreAppliedWithoutALookup() {
+        when(operations.execute()).thenReturn(result(3, 2));
+
+        BulkUpdateResult result = service.apply(updates("m1", "m2", "m3"));
+
+        assertEquals(Map.of("m1", Outcome.APPLIED, "m2", Outcome.APPLIED, "m3", Outcome.APPLIED), result.getOutcomes());
+        assertEquals(3, result.getMatchedCount());
+        assertEquals(2, result.getModifiedCount());
+        assertEquals(0, result.getFailedCount());
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Mother.class));
+
+        // Only the given subfields and updatedAt are $set
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(operations, times(3)).updateOne(any(Query.class), update.capture());
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        assertEquals(Set.of("healthDetails.nextVisit", "updatedAt"), set.keySet());
+    }
+
+    @Test
+    void testUnmatchedUpdatesAreFoundByLookup() {
+        when(operations.execute()).thenReturn(result(1, 1));
+        when(mongoTemplate.find(any(Query.class), eq(Mother.class))).thenReturn(List.of(mother("m2")));
+
+        List<MotherUpdate> updates = List.of(
+            MotherUpdate.of("m1").set("status", "visited").onlyIfVisit("visit-1"),
+            MotherUpdate.of("m2").set("status", "visited").onlyIfVisit("visit-1"),
+            MotherUpdate.of("m3").set("status", "visited"));
+        BulkUpdateResult result = service.apply(updates);
+
+        assertEquals(Outcome.NOT_MATCHED, result.getOutcomes().get("m1"));
+        assertEquals(Outcome.APPLIED, result.getOutcomes().get("m2"));
+        assertEquals(Outcome.NOT_MATCHED, result.getOutcomes().get("m3"));
+        assertEquals(2, result.count(Outcome.NOT_MATCHED));
+
+        // The lookup repeats each update's own criteria, guard included
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Mother.class));
+        List<?> or = (List<?>) query.getValue().getQueryObject().get("$or");
+        assertEquals(3, or.size());
+        assertEquals("visit-1", ((Document) or.get(0)).get("fieldVisitAppointment.visitId"));
+        assertFalse(((Document) or.get(2)).containsKey("fieldVisitAppointment.visitId"));
+    }
+
+    @Test
+    void testWriteErrorsAreMappedBackByIndex() {
+        BulkWriteError error = new BulkWriteError(121, "Document failed validation", new BsonDocument(), 1);
+        MongoBulkWriteException source = new MongoBulkWriteException(
+            result(2, 2), List.of(error), null, new ServerAddress(), Set.of());
+        when(operations.execute()).thenThrow(new BulkOperationException("Bulk write failed", source));
+
+        BulkUpdateResult result = service.apply(updates("m1", "m2", "m3"));
+
+        assertEquals(Outcome.APPLIED, result.getOutcomes().get("m1"));
+        assertEquals(Outcome.FAILED, result.getOutcomes().get("m2"));
+        assertEquals(Outcome.APPLIED, result.getOutcomes().get("m3"));
+        assertEquals(1, result.getFailedCount());
+        assertEquals(2, result.getMatchedCount());
+        // Both writes that went through matched, so there is nothing to look up
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Mother.class));
+    }
+
+    @Test
+    void testWriteErrorAndUnmatchedUpdateTogether() {
+        BulkWriteError error = new BulkWriteError(121, "Document failed validation", new BsonDocument(), 0);
+        MongoBulkWriteException source = new MongoBulkWriteException(
+            result(1, 1), List.of(error), null, new ServerAddress(), Set.of());
+        when(operations.execute()).thenThrow(new BulkOperationException("Bulk write failed", source));
+        when(mongoTemplate.find(any(Query.class), eq(Mother.class))).thenReturn(List.of(mother("m3")));
+
+        BulkUpdateResult result = service.apply(updates("m1", "m2", "m3"));
+
+        assertEquals(Map.of("m1", Outcome.FAILED, "m2", Outcome.NOT_MATCHED, "m3", Outcome.APPLIED), result.getOutcomes());
+        // The failed update is not looked up again
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Mother.class));
+        assertEquals(2, ((List<?>) query.getValue().getQueryObject().get("$or")).size());
+    }
+
+    @Test
+    void testOtherFailuresFailEveryUpdate() {
+        when(operations.execute()).thenThrow(new IllegalStateException("connection reset"));
+
+        BulkUpdateResult result = service.apply(updates("m1", "m2"));
+
+        assertEquals(Map.of("m1", Outcome.FAILED, "m2", Outcome.FAILED), result.getOutcomes());
+        assertEquals(2, result.getFailedCount());
+    }
+
+    @Test
+    void testNoUpdatesNoWrite() {
+        BulkUpdateResult result = service.apply(List.of());
+
+        assertTrue(result.getOutcomes().isEmpty());
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(Mother.class));
+    }
+
+    private static List<MotherUpdate> updates(String... motherIds) {
+        return Arrays.stream(motherIds)
+            .map(id -> MotherUpdate.of(id).set("healthDetails.nextVisit", "2026-11-02"))
+            .toList();
+    }
+
+    private static BulkWriteResult result(int matched, int modified) {
+        return BulkWriteResult.acknowledged(0, matched, 0, modified, List.of(), List.of());
+    }
+
+    private static Mother mother(String id) {
+        Mother mother = new Mother();
+        mother.setId(id);
+        return mother;
+    }
+}
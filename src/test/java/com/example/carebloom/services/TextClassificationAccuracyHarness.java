@@ -0,0 +1,160 @@
+package com.example.carebloom.services;
+
+import com.example.carebloom.services.forum.ForumClassificationWorker;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Accuracy against latency of the classifier's inference modes on a labelled sample set.
+ *
+ * Runs every sample through the FP32 model and, where biobert-model holds it, the INT8 model made by
+ * quantize_dynamic.py, each once as is and once with length buckets. Prints per mode the forum's medical
+ * decision accuracy, agreement with plain FP32 and single-request latency percentiles.
+ *
+ * Not picked up by the normal test run. Needs the real model files in biobert-model:
+ *   mvn test -Dtest=TextClassificationAccuracyHarness -Dsurefire.failIfNoSpecifiedTests=false
+ * Options: -Dclassifier.eval.samples=path/to/samples.tsv (label TAB text, label MEDICAL or NON_MEDICAL)
+ *          -Dclassifier.eval.buckets=64,128,256 -Dclassifier.eval.head-tokens=64 -Dclassifier.eval.rounds=5
+ */
+public class TextClassificationAccuracyHarness {
+
+    private static final Path MODEL_DIR = Paths.get("biobert-model");
+
+    private final String bucketSpec = System.getProperty("classifier.eval.buckets", "64,128,256");
+    private final int headTokens = Integer.getInteger("classifier.eval.head-tokens", 64);
+    private final int rounds = Integer.getInteger("classifier.eval.rounds", 5);
+
+    @Test
+    void accuracyVersusLatency() throws Exception {
+        List<Sample> samples = loadSamples();
+        assertFalse(samples.isEmpty(), "No labelled samples");
+
+        List<String> baseline = null;
+        System.out.printf("%n%d samples, %d timed rounds each%n", samples.size(), rounds);
+        System.out.printf("%-16s %9s %9s %8s %8s %8s %8s%n",
+            "mode", "accuracy", "agrees", "mean ms", "p50 ms", "p90 ms", "p99 ms");
+        for (String modelFile : new String[] {"traced_model_for_djl.pt", "traced_model_int8.pt"}) {
+            if (!Files.exists(MODEL_DIR.resolve(modelFile))) {
+                System.out.printf("%-16s skipped, %s not found%n", modelFile, modelFile);
+                continue;
+            }
+            for (String buckets : new String[] {"", bucketSpec}) {
+                TextClassificationService service = load(modelFile, buckets);
+                try {
+                    String mode = (modelFile.contains("int8") ? "int8" : "fp32") + (buckets.isEmpty() ? "" : " bucketed");
+                    List<Long> latencies = new ArrayList<>();
+                    List<String> labels = run(service, samples, latencies);
+                    if (baseline == null) {
+                        baseline = labels;
+                    }
+                    report(mode, samples, labels, baseline, latencies);
+                } finally {
+                    service.close();
+                }
+            }
+        }
+    }
+
+    private TextClassificationService load(String modelFile, String buckets) {
+        TextClassificationService service = new TextClassificationService();
+        ReflectionTestUtils.setField(service, "modelFile", modelFile);
+        ReflectionTestUtils.setField(service, "lengthBuckets", buckets);
+        ReflectionTestUtils.setField(service, "headTokens", headTokens);
+        ReflectionTestUtils.setField(service, "poolSize", 1);
+        ReflectionTestUtils.setField(service, "borrowTimeoutMs", 60_000L);
+        // Zero max entries: no result cache, so every timed round reaches the model
+        ReflectionTestUtils.setField(service, "resultCache", new ClassificationResultCache());
+        ReflectionTestUtils.invokeMethod(service, "loadModel");
+        // A missing model leaves the pool empty and every answer the MEDICAL fallback, which measures nothing
+        assumeTrue(((Number) service.poolMetrics().get("size")).intValue() > 0, modelFile + " could not be loaded");
+        return service;
+    }
+
+    private List<String> run(TextClassificationService service, List<Sample> samples, List<Long> latencies) {
+        // The untimed first pass also warms up the shapes the timed rounds will use
+        List<String> labels = new ArrayList<>();
+        for (Sample sample : samples) {
+            labels.add(service.predict(sample.text));
+        }
+        for (int round = 0; round < rounds; round++) {
+            for (Sample sample : samples) {
+                long started = System.nanoTime();
+                service.predict(sample.text);
+                latencies.add(System.nanoTime() - started);
+            }
+        }
+        return labels;
+    }
+
+    private void report(String mode, List<Sample> samples, List<String> labels, List<String> baseline,
+                        List<Long> latencies) {
+        int correct = 0;
+        int agrees = 0;
+        for (int i = 0; i < samples.size(); i++) {
+            boolean medical = ForumClassificationWorker.isMedicalLabel(labels.get(i));
+            if (medical == samples.get(i).medical) {
+                correct++;
+            }
+            if (labels.get(i).equals(baseline.get(i))) {
+                agrees++;
+            }
+        }
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        double mean = Arrays.stream(sorted).average().orElse(0) / 1e6;
+        System.out.printf("%-16s %8.1f%% %8.1f%% %8.2f %8.2f %8.2f %8.2f%n",
+            mode, 100.0 * correct / samples.size(), 100.0 * agrees / samples.size(), mean,
+            percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99));
+    }
+
+    private static List<Sample> loadSamples() throws IOException {
+        String path = System.getProperty("classifier.eval.samples");
+        List<String> lines;
+        if (path != null) {
+            lines = Files.readAllLines(Paths.get(path), StandardCharsets.UTF_8);
+        } else {
+            try (InputStream in = TextClassificationAccuracyHarness.class.getResourceAsStream("/classifier/eval-sample.tsv")) {
+                lines = new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+            }
+        }
+        List<Sample> samples = new ArrayList<>();
+        for (String line : lines) {
+            int tab = line.indexOf('\t');
+            if (line.startsWith("#") || tab < 0) {
+                continue;
+            }
+            samples.add(new Sample("MEDICAL".equalsIgnoreCase(line.substring(0, tab).trim()), line.substring(tab + 1)));
+        }
+        return samples;
+    }
+
+    private static double percentile(long[] sortedNanos, double q) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(q * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, Math.min(index, sortedNanos.length - 1))] / 1e6;
+    }
+
+    private static class Sample {
+        final boolean medical;
+        final String text;
+
+        Sample(boolean medical, String text) {
+            this.medical = medical;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.carebloom.services.midwife;
+
+import com.example.carebloom.models.Mother;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MotherBatchLoaderTest {
+
+    @Test
+    void testPrefetchedIdsAreResolvedInOneCall() {
+        CountingFetcher fetcher = new CountingFetcher("m1", "m2", "m3");
+        MotherBatchLoader loader = new MotherBatchLoader(fetcher).prefetch(List.of("m1", "m2", "m3"));
+        assertEquals(0, fetcher.calls.size());
+
+        assertEquals("m2", loader.get("m2").getId());
+        assertEquals("m1", loader.get("m1").getId());
+        assertEquals("m3", loader.get("m3").getId());
+
+        assertEquals(1, fetcher.calls.size());
+        assertEquals(List.of("m1", "m2", "m3"), fetcher.calls.get(0));
+    }
+
+    @Test
+    void testGetAllKeepsOrderAndSkipsMissingMothers() {
+        CountingFetcher fetcher = new CountingFetcher("m1", "m2", "m3");
+        MotherBatchLoader loader = new MotherBatchLoader(fetcher);
+
+        List<Mother> mothers = loader.getAll(List.of("m3", "gone", "m1"));
+
+        assertEquals(List.of("m3", "m1"), mothers.stream().map(Mother::getId).toList());
+        assertEquals(1, fetcher.calls.size());
+    }
+
+    @Test
+    void testMissingIdsAreNotFetchedAgain() {
+        CountingFetcher fetcher = new CountingFetcher("m1");
+        MotherBatchLoader loader = new MotherBatchLoader(fetcher);
+
+        assertNull(loader.get("gone"));
+        assertNull(loader.get("gone"));
+        loader.prefetch(List.of("gone", "m1"));
+        assertEquals(1, loader.getAll(List.of("gone", "m1")).size());
+
+        assertEquals(2, fetcher.calls.size());
+        assertEquals(List.of("m1"), fetcher.calls.get(1));
+    }
+
+    @Test
+    void testRememberedMothersAreNeverFetched() {
+        CountingFetcher fetcher = new CountingFetcher("m1", "m2", "m3");
+        Mother known = mother("m2");
+        MotherBatchLoader loader = new MotherBatchLoader(fetcher)
+            .prefetch(List.of("m1", "m2"))
+            .remember(List.of(known));
+
+        // Any lookup resolves everything still pending, which no longer includes the remembered mother
+        assertSame(known, loader.get("m2"));
+        assertEquals(List.of(List.of("m1")), fetcher.calls);
+
+        assertEquals(3, loader.getAll(List.of("m1", "m2", "m3")).size());
+        assertEquals(List.of(List.of("m1"), List.of("m3")), fetcher.calls);
+    }
+
+    @Test
+    void testRequestCostIsConstantInTheNumberOfMothers() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            ids.add("m" + i);
+        }
+        CountingFetcher fetcher = new CountingFetcher(ids.toArray(new String[0]));
+        MotherBatchLoader loader = new MotherBatchLoader(fetcher).prefetch(ids);
+
+        for (String id : ids) {
+            assertNotNull(loader.get(id));
+        }
+        assertEquals(200, loader.getAll(ids).size());
+        assertNull(loader.get(null));
+
+        assertEquals(1, fetcher.calls.size());
+    }
+
+    private static Mother mother(String id) {
+        Mother mother = new Mother();
+        mother.setId(id);
+        return mother;
+    }
+
+    /**
+     * Stand-in for motherRepository::findAllById that records every call
+     */
+    private static class CountingFetcher implements Function<Collection<String>, Iterable<Mother>> {
+        final List<List<String>> calls = new ArrayList<>();
+        private final Map<String, Mother> stored = new HashMap<>();
+
+        CountingFetcher(String... ids) {
+            for (String id : ids) {
+                stored.put(id, mother(id));
+            }
+        }
+
+        @Override
+        public Iterable<Mother> apply(Collection<String> ids) {
+            calls.add(new ArrayList<>(ids));
+            return ids.stream().map(stored::get).filter(Objects::nonNull).toList();
+        }
+    }
+}
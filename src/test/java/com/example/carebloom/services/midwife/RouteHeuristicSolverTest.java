@@ -0,0 +1,102 @@
+package com.example.carebloom.services.midwife;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RouteHeuristicSolverTest {
+
+    private static final long DAY_START = 8 * 3600;
+    private static final long DAY_END = 17 * 3600;
+
+    @Test
+    void testVisitsPointsAlongALineInOrder() {
+        // Depot at 0, customers at positions 3, 1, 4, 2 on a line, 60s per unit distance
+        int[] positions = {0, 3, 1, 4, 2};
+        RouteHeuristicSolver solver = new RouteHeuristicSolver(
+            lineMatrix(positions), positions.length, openWindows(positions.length), 0);
+
+        RouteHeuristicSolver.Solution solution = solver.solve(100);
+
+        assertTrue(solution.isFeasible());
+        assertArrayEquals(new int[] {2, 4, 1, 3}, solution.getRoute());
+        assertEquals(8 * 60, solution.getTravelSeconds());
+    }
+
+    @Test
+    void testRespectsTimeWindows() {
+        // Node 3 is closest but only available late in the day
+        int[] positions = {0, 2, 3, 1};
+        long[][] windows = openWindows(positions.length);
+        windows[3][0] = 15 * 3600;
+
+        RouteHeuristicSolver solver = new RouteHeuristicSolver(
+            lineMatrix(positions), positions.length, windows, 1800);
+
+        RouteHeuristicSolver.Solution solution = solver.solve(100);
+
+        assertTrue(solution.isFeasible());
+        assertEquals(3, solution.getRoute()[solution.getRoute().length - 1]);
+    }
+
+    @Test
+    void testImproveNeverMakesRouteWorse() {
+        int[] positions = {0, 5, 9, 2, 7, 1, 8, 3, 6, 4};
+        RouteHeuristicSolver solver = new RouteHeuristicSolver(
+            lineMatrix(positions), positions.length, openWindows(positions.length), 1800);
+
+        int[] initial = {1, 2, 3, 4, 5, 6, 7, 8, 9};
+        RouteHeuristicSolver.Solution before = solver.evaluate(initial);
+        RouteHeuristicSolver.Solution after = solver.improve(initial, 100);
+
+        assertTrue(after.getTravelSeconds() <= before.getTravelSeconds());
+        int[] visited = after.getRoute().clone();
+        Arrays.sort(visited);
+        assertArrayEquals(initial, visited);
+    }
+
+    @Test
+    void testStartLegCarriesNoServiceTime() {
+        // Node 1 is 60s away and must be reached within 60s; service time is only spent from the first visit on
+        int[] positions = {0, 1, 2};
+        long[][] windows = openWindows(positions.length);
+        windows[1][1] = DAY_START + 60;
+        windows[2][1] = DAY_START + 60 + 1800 + 60;
+
+        RouteHeuristicSolver solver = new RouteHeuristicSolver(
+            lineMatrix(positions), positions.length, windows, 1800);
+
+        RouteHeuristicSolver.Solution solution = solver.evaluate(new int[] {1, 2});
+
+        assertTrue(solution.isFeasible());
+        assertEquals(4 * 60, solution.getTravelSeconds());
+    }
+
+    @Test
+    void testRejectsMismatchedMatrix() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new RouteHeuristicSolver(new long[3], 2, openWindows(2), 0));
+    }
+
+    private static long[] lineMatrix(int[] positions) {
+        int size = positions.length;
+        long[] matrix = new long[size * size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                matrix[i * size + j] = Math.abs(positions[i] - positions[j]) * 60L;
+            }
+        }
+        return matrix;
+    }
+
+    private static long[][] openWindows(int size) {
+        long[][] windows = new long[size][2];
+        for (long[] window : windows) {
+            window[0] = DAY_START;
+            window[1] = DAY_END;
+        }
+        return windows;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.carebloom.services.midwife;
+
+import com.example.carebloom.dto.navigation.NavigationLocation;
+import com.example.carebloom.dto.navigation.TravelTimeResult;
+import com.example.carebloom.models.Mother;
+import com.example.carebloom.services.navigation.GoogleMapsDistanceService;
+import com.google.ortools.Loader;
+import com.google.ortools.constraintsolver.RoutingIndexManager;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * JMH benchmarks for RouteOptimizationService: data model (matrix + time windows) construction,
+ * the OR-Tools transit callbacks, and full solves, across visit sizes and time window tightness.
+ *
+ * Run with: mvn -Pbenchmark test
+ * Or a subset: mvn -Pbenchmark test -Djmh.args="RouteOptimizationBenchmark.solve -p mothers=50 -p solver=OR_TOOLS"
+ *
+ * Travel times come from an offline Haversine stub so no Google Maps calls are made.
+ * Application logging is lowered to WARN so console output does not dominate the measurement.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+public class RouteOptimizationBenchmark {
+
+    @Param({"5", "10", "25", "50", "100", "200"})
+    public int mothers;
+
+    @Param({"OPEN", "MIXED", "TIGHT"})
+    public SyntheticMotherGenerator.WindowTightness tightness;
+
+    // TIERED uses the service defaults (heuristic alone for small visits); OR_TOOLS always runs OR-Tools
+    @Param({"TIERED", "OR_TOOLS"})
+    public String solver;
+
+    // OR-Tools guided local search runs until the time limit, so this bounds every OR-Tools solve
+    @Param({"2"})
+    public long solveSeconds;
+
+    private RouteOptimizationService service;
+    private List<Mother> visitMothers;
+    private RouteOptimizationService.DataModel data;
+    private RoutingIndexManager manager;
+    private LongBinaryOperator arcCost;
+    private LongBinaryOperator timeTransit;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("com.example.carebloom")).setLevel(ch.qos.logback.classic.Level.WARN);
+        Loader.loadNativeLibraries();
+
+        service = new RouteOptimizationService();
+        ReflectionTestUtils.setField(service, "googleMapsDistanceService", new OfflineDistanceService());
+        ReflectionTestUtils.setField(service, "solverTimeLimitSeconds", solveSeconds);
+        ReflectionTestUtils.setField(service, "heuristicMaxNodes", "OR_TOOLS".equals(solver) ? 0 : 10);
+        ReflectionTestUtils.setField(service, "heuristicTimeBudgetMs", 50L);
+
+        visitMothers = new SyntheticMotherGenerator(42).generate(mothers, tightness, "benchmark-visit", "2025-01-01");
+        data = service.createDataModel(visitMothers, SyntheticMotherGenerator.SHIFT_START, SyntheticMotherGenerator.SHIFT_END);
+        manager = new RoutingIndexManager(data.distanceMatrix.length, data.vehicleNumber, data.depot);
+        arcCost = service.arcCostCallback(manager, data);
+        timeTransit = service.timeTransitCallback(manager, data);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public RouteOptimizationService.DataModel buildDataModel() {
+        return service.createDataModel(visitMothers, SyntheticMotherGenerator.SHIFT_START, SyntheticMotherGenerator.SHIFT_END);
+    }
+
+    /**
+     * One full sweep of both callbacks over every index pair, as the solver does when scanning neighbourhoods
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long transitCallbacks() {
+        long indices = manager.getNumberOfIndices();
+        long sum = 0;
+        for (long from = 0; from < indices; from++) {
+            for (long to = 0; to < indices; to++) {
+                sum += arcCost.applyAsLong(from, to);
+                sum += timeTransit.applyAsLong(from, to);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public List<Mother> solve() {
+        return service.optimizeVisitOrder(visitMothers, SyntheticMotherGenerator.SHIFT_START, SyntheticMotherGenerator.SHIFT_END);
+    }
+
+    /**
+     * Distance service that answers every matrix request from straight-line distance at 25 km/h
+     */
+    static class OfflineDistanceService extends GoogleMapsDistanceService {
+
+        private static final double EARTH_RADIUS = 6371000;
+        private static final double SPEED_MPS = 25.0 * 1000 / 3600;
+
+        @Override
+        public TravelTimeResult[][] getTravelTimeMatrix(List<NavigationLocation> locations) {
+            return getTravelTimeMatrix(locations, locations);
+        }
+
+        // The route solver asks for origin x destination matrices
+        @Override
+        public TravelTimeResult[][] getTravelTimeMatrix(List<NavigationLocation> origins,
+                                                        List<NavigationLocation> destinations) {
+            TravelTimeResult[][] matrix = new TravelTimeResult[origins.size()][destinations.size()];
+            LocalDateTime now = LocalDateTime.now();
+            for (int i = 0; i < origins.size(); i++) {
+                for (int j = 0; j < destinations.size(); j++) {
+                    double meters = haversine(origins.get(i), destinations.get(j));
+                    Duration duration = Duration.ofSeconds(Math.round(meters / SPEED_MPS));
+                    matrix[i][j] = TravelTimeResult.builder()
+                        .duration(duration)
+                        .durationInTraffic(duration)
+                        .distanceMeters(meters)
+                        .status("OK")
+                        .calculatedAt(now)
+                        .build();
+                }
+            }
+            return matrix;
+        }
+
+        private static double haversine(NavigationLocation a, NavigationLocation b) {
+            double dLat = Math.toRadians(b.getLatitude() - a.getLatitude());
+            double dLon = Math.toRadians(b.getLongitude() - a.getLongitude());
+            double h = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(a.getLatitude())) * Math.cos(Math.toRadians(b.getLatitude()))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+            return EARTH_RADIUS * 2 * Math.atan2(Math.sqrt(h), Math.sqrt(1 - h));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.carebloom.services.midwife;
+
+import com.example.carebloom.models.Mother;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates reproducible sets of mothers for route optimization benchmarks.
+ * Households are spread uniformly over a disc around an MOH area centre, and each
+ * mother gets a confirmed field visit appointment whose window width depends on the tightness.
+ */
+public class SyntheticMotherGenerator {
+
+    // Colombo, roughly the centre of a dense urban MOH area
+    public static final double DEFAULT_CENTER_LAT = 6.9271;
+    public static final double DEFAULT_CENTER_LON = 79.8612;
+    public static final double DEFAULT_RADIUS_METERS = 8000;
+
+    public static final LocalTime SHIFT_START = LocalTime.of(8, 0);
+    public static final LocalTime SHIFT_END = LocalTime.of(17, 0);
+
+    private static final double METERS_PER_DEGREE_LAT = 111_320.0;
+
+    public enum WindowTightness {
+        OPEN,  // whole shift
+        MIXED, // 2 to 4 hour windows
+        TIGHT  // 1 hour windows
+    }
+
+    private final Random random;
+    private final double centerLat;
+    private final double centerLon;
+    private final double radiusMeters;
+
+    public SyntheticMotherGenerator(long seed) {
+        this(seed, DEFAULT_CENTER_LAT, DEFAULT_CENTER_LON, DEFAULT_RADIUS_METERS);
+    }
+
+    public SyntheticMotherGenerator(long seed, double centerLat, double centerLon, double radiusMeters) {
+        this.random = new Random(seed);
+        this.centerLat = centerLat;
+        this.centerLon = centerLon;
+        this.radiusMeters = radiusMeters;
+    }
+
+    /**
+     * Generate mothers with confirmed appointments for the given field visit
+     */
+    public List<Mother> generate(int count, WindowTightness tightness, String visitId, String date) {
+        List<Mother> mothers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Mother mother = new Mother();
+            mother.setId(String.format("synthetic-%04d", i));
+            mother.setName("Mother " + (i + 1));
+            mother.setAddress("Synthetic address " + (i + 1));
+
+            double[] point = randomPoint();
+            mother.setLatitude(point[0]);
+            mother.setLongitude(point[1]);
+
+            Mother.FieldVisitAppointment appointment = new Mother.FieldVisitAppointment();
+            appointment.setVisitId(visitId);
+            appointment.setDate(date);
+            LocalTime[] window = randomWindow(tightness);
+            appointment.setStartTime(window[0].toString());
+            appointment.setEndTime(window[1].toString());
+            appointment.setStatus("confirmed");
+            mother.setFieldVisitAppointment(appointment);
+
+            mothers.add(mother);
+        }
+        return mothers;
+    }
+
+    /**
+     * Uniform point in a disc (sqrt radius so density does not bunch at the centre)
+     */
+    private double[] randomPoint() {
+        double distance = radiusMeters * Math.sqrt(random.nextDouble());
+        double bearing = 2 * Math.PI * random.nextDouble();
+        double dLat = distance * Math.cos(bearing) / METERS_PER_DEGREE_LAT;
+        double dLon = distance * Math.sin(bearing) / (METERS_PER_DEGREE_LAT * Math.cos(Math.toRadians(centerLat)));
+        return new double[] {centerLat + dLat, centerLon + dLon};
+    }
+
+    private LocalTime[] randomWindow(WindowTightness tightness) {
+        int shiftMinutes = (int) java.time.Duration.between(SHIFT_START, SHIFT_END).toMinutes();
+        int widthMinutes = switch (tightness) {
+            case OPEN -> shiftMinutes;
+            case MIXED -> 120 + 30 * random.nextInt(5);
+            case TIGHT -> 60;
+        };
+        // Windows start on the half hour, like appointments entered in the app
+        int slots = (shiftMinutes - widthMinutes) / 30;
+        int startOffset = slots > 0 ? 30 * random.nextInt(slots + 1) : 0;
+        LocalTime start = SHIFT_START.plusMinutes(startOffset);
+        return new LocalTime[] {start, start.plusMinutes(widthMinutes)};
+    }
+}
@@ -0,0 +1,473 @@
+package com.example.carebloom.services.queue;
+
+import com.example.carebloom.config.CustomAuthenticationToken;
+import com.example.carebloom.controllers.BaseControllerTest;
+import com.example.carebloom.models.AddedMother;
+import com.example.carebloom.models.Clinic;
+import com.example.carebloom.models.Mother;
+import com.example.carebloom.models.QueueSettings;
+import com.example.carebloom.models.QueueUser;
+import com.example.carebloom.services.TextClassificationService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.cloud.storage.Storage;
+import com.google.firebase.FirebaseApp;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * Load harness for a busy clinic day: many clinics run their queues at once while mothers poll their place.
+ *
+ * Seeds clinics and registered mothers into a throwaway database of a local Mongo, then has MoH staff threads
+ * add, call next, remove and reorder patients through the REST endpoints while mother threads poll the queue
+ * endpoint. Prints throughput and latency percentiles per operation and fails on any invariant violation:
+ * duplicate queue numbers, two patients in progress, a mother queued twice, or Mongo disagreeing with the
+ * in-memory queue once the journal is flushed.
+ *
+ * Not picked up by the normal test run. Needs mongod on localhost:27017:
+ *   mvn test -Dtest=ClinicQueueLoadHarness -Dsurefire.failIfNoSpecifiedTests=false
+ * Sizes: -Dqueue.load.clinics=20 -Dqueue.load.patients=120 -Dqueue.load.staff=2 -Dqueue.load.pollers=40
+ *        -Dqueue.load.poll-interval-ms=20
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+    "spring.data.mongodb.database=carebloom_queue_load",
+    "logging.level.com.example.carebloom=WARN",
+    "logging.level.org.springframework.test=WARN",
+    "app.clinic-queue.flush-interval-ms=200"
+})
+public class ClinicQueueLoadHarness extends BaseControllerTest {
+
+    private static final String MOH_OFFICE_ID = "queue-load-harness";
+    private static final String QUEUE_PATH = "/api/v1/moh/clinics/{clinicId}/queue";
+
+    private final int clinicCount = Integer.getInteger("queue.load.clinics", 20);
+    private final int patientsPerClinic = Integer.getInteger("queue.load.patients", 120);
+    private final int staffPerClinic = Integer.getInteger("queue.load.staff", 2);
+    private final int pollerCount = Integer.getInteger("queue.load.pollers", 40);
+    private final long pollIntervalMs = Long.getLong("queue.load.poll-interval-ms", 20L);
+
+    // Firebase, Cloud Storage and the text model are not needed here and have no credentials in a test run
+    @MockitoBean
+    private FirebaseApp firebaseApp;
+
+    @MockitoBean
+    private Storage storage;
+
+    @MockitoBean
+    private TextClassificationService textClassificationService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private QueueWriteBehindJournal queueJournal;
+
+    @Autowired
+    private ClinicQueueEngine clinicQueueEngine;
+
+    private final Map<String, OperationStats> stats = new ConcurrentHashMap<>();
+    private final List<String> violations = Collections.synchronizedList(new ArrayList<>());
+    // Body of the calling thread's last rejected request
+    private final ThreadLocal<String> lastRejection = ThreadLocal.withInitial(() -> "");
+
+    @Test
+    void clinicDay() throws Exception {
+        List<SimulatedClinic> clinics = seed();
+        for (SimulatedClinic clinic : clinics) {
+            assertTrue(start(clinic), "Queue of " + clinic.id + " did not start");
+        }
+
+        ExecutorService staff = Executors.newFixedThreadPool(clinicCount * staffPerClinic);
+        ExecutorService pollers = Executors.newFixedThreadPool(pollerCount);
+        AtomicBoolean running = new AtomicBoolean(true);
+        long startNanos = System.nanoTime();
+
+        List<Future<?>> staffRuns = new ArrayList<>();
+        for (SimulatedClinic clinic : clinics) {
+            for (int i = 0; i < staffPerClinic; i++) {
+                staffRuns.add(staff.submit(() -> runStaff(clinic)));
+            }
+        }
+        for (int i = 0; i < pollerCount; i++) {
+            pollers.submit(() -> runMotherPolls(clinics, running));
+        }
+        for (Future<?> run : staffRuns) {
+            run.get(30, TimeUnit.MINUTES);
+        }
+        running.set(false);
+        pollers.shutdown();
+        pollers.awaitTermination(1, TimeUnit.MINUTES);
+        staff.shutdown();
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+        queueJournal.flush();
+        for (SimulatedClinic clinic : clinics) {
+            checkStoreMatchesMemory(clinic);
+        }
+        report(elapsedSeconds);
+
+        long serverErrors = stats.values().stream().mapToLong(s -> s.errors.get()).sum();
+        assertEquals(0, serverErrors, "Server errors during the run, see the report above");
+        assertTrue(violations.isEmpty(), "Queue invariants violated:\n" + String.join("\n", violations));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        clinicQueueEngine.evictAll();
+        queueJournal.flush();
+        List<String> clinicIds = mongoTemplate.find(
+            new Query(Criteria.where("mohOfficeId").is(MOH_OFFICE_ID)), Clinic.class).stream().map(Clinic::getId).toList();
+        mongoTemplate.remove(new Query(Criteria.where("clinicId").in(clinicIds)), QueueUser.class);
+        mongoTemplate.remove(new Query(Criteria.where("_id").in(clinicIds)), "queue_counters");
+        mongoTemplate.remove(new Query(Criteria.where("_id").in(clinicIds)), "clinic_service_stats");
+        mongoTemplate.remove(new Query(Criteria.where("mohOfficeId").is(MOH_OFFICE_ID)), Clinic.class);
+        mongoTemplate.remove(new Query(Criteria.where("mohOfficeId").is(MOH_OFFICE_ID)), Mother.class);
+    }
+
+    private List<SimulatedClinic> seed() {
+        cleanUp();
+        List<SimulatedClinic> clinics = new ArrayList<>();
+        List<Mother> mothers = new ArrayList<>();
+        for (int c = 0; c < clinicCount; c++) {
+            Clinic clinic = new Clinic();
+            clinic.setTitle("Load clinic " + c);
+            clinic.setMohOfficeId(MOH_OFFICE_ID);
+            clinic.setDate(LocalDate.now().toString());
+            clinic.setStartTime("08:00");
+            clinic.setQueueStatus("closed");
+            clinic.setCreatedAt(LocalDateTime.now());
+            QueueSettings settings = new QueueSettings();
+            settings.setAvgAppointmentTime(10);
+            clinic.setQueueSettings(settings);
+
+            List<Mother> clinicMothers = new ArrayList<>();
+            for (int m = 0; m < patientsPerClinic; m++) {
+                Mother mother = new Mother();
+                mother.setFirebaseUid("load-" + c + "-" + m);
+                mother.setName("Mother " + c + "-" + m);
+                mother.setEmail("load-" + c + "-" + m + "@example.test");
+                mother.setMohOfficeId(MOH_OFFICE_ID);
+                mother.setRegistrationStatus("complete");
+                clinicMothers.add(mother);
+            }
+            clinicMothers = new ArrayList<>(mongoTemplate.insertAll(clinicMothers));
+            for (Mother mother : clinicMothers) {
+                AddedMother added = new AddedMother();
+                added.setId(mother.getId());
+                added.setName(mother.getName());
+                added.setEmail(mother.getEmail());
+                clinic.getAddedMothers().add(added);
+            }
+            clinic = mongoTemplate.insert(clinic);
+            clinics.add(new SimulatedClinic(clinic.getId(), clinicMothers));
+            mothers.addAll(clinicMothers);
+        }
+        System.out.printf("Seeded %d clinics and %d mothers%n", clinics.size(), mothers.size());
+        return clinics;
+    }
+
+    /**
+     * One MoH staff member working a clinic until every registered mother has been seen
+     */
+    private void runStaff(SimulatedClinic clinic) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (true) {
+            JsonNode status = call("status", get(QUEUE_PATH + "/status", clinic.id));
+            if (status == null) {
+                violations.add("Status of clinic " + clinic.id + " failed: " + lastRejection.get());
+                return;
+            }
+            checkStatus(clinic, status);
+            List<String> waitingIds = new ArrayList<>();
+            status.path("waitingQueue").forEach(p -> waitingIds.add(p.path("id").asText()));
+            JsonNode current = status.path("currentPatient");
+            boolean hasCurrent = current.isObject();
+            if (clinic.notYetQueued.isEmpty() && !hasCurrent && waitingIds.isEmpty()) {
+                return;
+            }
+
+            double roll = random.nextDouble();
+            if (roll < 0.45 && !clinic.notYetQueued.isEmpty()) {
+                add(clinic, status);
+            } else if (roll < 0.80 && (hasCurrent || !waitingIds.isEmpty())) {
+                // Never call next on the last waiting patient while mothers are still to come, it closes the queue
+                if (waitingIds.isEmpty() && !clinic.notYetQueued.isEmpty()) {
+                    add(clinic, status);
+                } else {
+                    call("next", post(QUEUE_PATH + "/next", clinic.id));
+                }
+            } else if (roll < 0.88 && !waitingIds.isEmpty()) {
+                String patientId = waitingIds.get(random.nextInt(waitingIds.size()));
+                call("remove", delete(QUEUE_PATH + "/patients/{patientId}", clinic.id, patientId));
+            } else if (hasCurrent && waitingIds.size() > 1) {
+                Collections.shuffle(waitingIds, random);
+                List<String> order = new ArrayList<>();
+                order.add(current.path("id").asText());
+                order.addAll(waitingIds);
+                call("reorder", put(QUEUE_PATH + "/reorder", clinic.id)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(asJsonString(Map.of("patientIds", order))));
+            } else if (!clinic.notYetQueued.isEmpty()) {
+                add(clinic, status);
+            }
+        }
+    }
+
+    private void add(SimulatedClinic clinic, JsonNode status) {
+        Mother mother = clinic.notYetQueued.poll();
+        if (mother == null) {
+            return;
+        }
+        Map<String, Object> patient = Map.of(
+            "name", mother.getName(), "email", mother.getEmail(), "motherId", mother.getId());
+        int session = clinic.session.get();
+        JsonNode added = call("add", post(QUEUE_PATH + "/add", clinic.id)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(asJsonString(patient)));
+        if (added == null) {
+            // The other staff member's next may have closed the queue meanwhile: reopen and try again later
+            if (!status.path("isActive").asBoolean() || lastRejection.get().contains("not currently open")) {
+                start(clinic);
+            }
+            clinic.notYetQueued.add(mother);
+            return;
+        }
+        int position = added.path("patient").path("position").asInt();
+        synchronized (clinic) {
+            // Numbers restart with each queue session; adds that straddle a restart are not checked
+            if (clinic.session.get() == session && !clinic.issuedPositions.add(position)) {
+                violations.add("Clinic " + clinic.id + " issued queue number " + position + " twice");
+            }
+        }
+    }
+
+    private boolean start(SimulatedClinic clinic) {
+        JsonNode started = call("start", post(QUEUE_PATH + "/start", clinic.id));
+        if (started == null) {
+            return false;
+        }
+        synchronized (clinic) {
+            clinic.session.incrementAndGet();
+            clinic.issuedPositions.clear();
+        }
+        return true;
+    }
+
+    /**
+     * Mothers checking their place, like the app's status screen did before SSE
+     */
+    private void runMotherPolls(List<SimulatedClinic> clinics, AtomicBoolean running) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (running.get()) {
+            SimulatedClinic clinic = clinics.get(random.nextInt(clinics.size()));
+            Mother mother = clinic.mothers.get(random.nextInt(clinic.mothers.size()));
+            JsonNode view = call("mother-poll",
+                get("/api/v1/mothers/clinics/{clinicId}/queue", clinic.id).with(asMother(mother)));
+            if (view != null && view.path("inQueue").asBoolean() && view.path("position").asInt() <= 0) {
+                violations.add("Mother " + mother.getId() + " got queue number " + view.path("position") + " in " + clinic.id);
+            }
+            if (pollIntervalMs > 0) {
+                try {
+                    Thread.sleep(pollIntervalMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Invariants of one status response: one patient in progress, unique queue numbers, no mother twice
+     */
+    private void checkStatus(SimulatedClinic clinic, JsonNode status) {
+        JsonNode current = status.path("currentPatient");
+        JsonNode waiting = status.path("waitingQueue");
+        int active = waiting.size() + (current.isObject() ? 1 : 0);
+        // totalPatients counts every record held, so anything beyond the current and waiting ones is a second
+        // in-progress patient hidden from the waiting list
+        if (status.path("totalPatients").asInt() != active) {
+            violations.add("Clinic " + clinic.id + " holds " + status.path("totalPatients") + " records but shows "
+                + active + " active patients");
+        }
+        Set<Integer> positions = new HashSet<>();
+        Set<String> motherIds = new HashSet<>();
+        List<JsonNode> patients = new ArrayList<>();
+        if (current.isObject()) {
+            patients.add(current);
+            if (!"in-progress".equals(current.path("status").asText())) {
+                violations.add("Clinic " + clinic.id + " current patient has status " + current.path("status"));
+            }
+        }
+        waiting.forEach(patients::add);
+        for (JsonNode patient : patients) {
+            if (!positions.add(patient.path("position").asInt())) {
+                violations.add("Clinic " + clinic.id + " has queue number " + patient.path("position") + " twice");
+            }
+            if (!motherIds.add(patient.path("motherId").asText())) {
+                violations.add("Clinic " + clinic.id + " has mother " + patient.path("motherId") + " queued twice");
+            }
+        }
+    }
+
+    /**
+     * After the journal is flushed, Mongo must hold exactly what the in-memory queue holds
+     */
+    private void checkStoreMatchesMemory(SimulatedClinic clinic) {
+        List<QueueUser> stored = mongoTemplate.find(new Query(Criteria.where("clinicId").is(clinic.id)), QueueUser.class);
+        long inProgress = stored.stream().filter(u -> "in-progress".equals(u.getStatus())).count();
+        if (inProgress > 1) {
+            violations.add("Clinic " + clinic.id + " has " + inProgress + " in-progress records in Mongo");
+        }
+        Set<Integer> positions = new HashSet<>();
+        for (QueueUser user : stored) {
+            if (!positions.add(user.getPosition())) {
+                violations.add("Clinic " + clinic.id + " has queue number " + user.getPosition() + " twice in Mongo");
+            }
+        }
+        int inMemory = clinicQueueEngine.withQueue(clinic.id, ClinicQueue::size);
+        if (inMemory != stored.size()) {
+            violations.add("Clinic " + clinic.id + " holds " + inMemory + " records in memory but " + stored.size() + " in Mongo");
+        }
+    }
+
+    /**
+     * Perform the request and time it. Returns the body of a 2xx response, or null.
+     */
+    private JsonNode call(String operation, RequestBuilder request) {
+        OperationStats operationStats = stats.computeIfAbsent(operation, k -> new OperationStats());
+        long started = System.nanoTime();
+        try {
+            MockHttpServletResponse response = mockMvc.perform(request).andReturn().getResponse();
+            operationStats.record(System.nanoTime() - started, response.getStatus());
+            if (response.getStatus() >= 400) {
+                lastRejection.set(response.getContentAsString());
+                return null;
+            }
+            return objectMapper.readTree(response.getContentAsString());
+        } catch (Exception e) {
+            operationStats.record(System.nanoTime() - started, 500);
+            violations.add(operation + " threw " + e);
+            return null;
+        }
+    }
+
+    private RequestPostProcessor asMother(Mother mother) {
+        return request -> {
+            SecurityContext context = SecurityContextHolder.createEmptyContext();
+            context.setAuthentication(new CustomAuthenticationToken(mother.getFirebaseUid(), null,
+                List.of(new SimpleGrantedAuthority("ROLE_MOTHER")), mother.getId(), "MOTHER", mother));
+            request.setAttribute(RequestAttributeSecurityContextRepository.DEFAULT_REQUEST_ATTR_NAME, context);
+            return request;
+        };
+    }
+
+    private void report(double elapsedSeconds) {
+        System.out.printf("%nClinic day: %d clinics x %d patients, %d staff per clinic, %d pollers, %.1f s%n",
+            clinicCount, patientsPerClinic, staffPerClinic, pollerCount, elapsedSeconds);
+        System.out.printf("%-12s %8s %8s %8s %8s %9s %8s %8s %8s %8s%n",
+            "operation", "count", "ok", "4xx", "5xx", "ops/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        new TreeMap<>(stats).forEach((operation, s) -> {
+            long[] latencies = s.sorted();
+            System.out.printf("%-12s %8d %8d %8d %8d %9.1f %8.2f %8.2f %8.2f %8.2f%n",
+                operation, latencies.length, s.ok.get(), s.rejected.get(), s.errors.get(), latencies.length / elapsedSeconds,
+                percentile(latencies, 0.50), percentile(latencies, 0.95), percentile(latencies, 0.99),
+                percentile(latencies, 1.0));
+        });
+        System.out.printf("Invariant violations: %d%n", violations.size());
+        violations.stream().limit(20).forEach(v -> System.out.println("  " + v));
+    }
+
+    private static double percentile(long[] sortedNanos, double q) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(q * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, Math.min(index, sortedNanos.length - 1))] / 1e6;
+    }
+
+    private static class SimulatedClinic {
+        final String id;
+        final List<Mother> mothers;
+        final ConcurrentLinkedQueue<Mother> notYetQueued;
+        // Queue numbers handed out in the current session, guarded by the clinic
+        final Set<Integer> issuedPositions = new HashSet<>();
+        final AtomicInteger session = new AtomicInteger();
+
+        SimulatedClinic(String id, List<Mother> mothers) {
+            this.id = id;
+            this.mothers = mothers;
+            this.notYetQueued = new ConcurrentLinkedQueue<>(mothers);
+        }
+    }
+
+    private static class OperationStats {
+        final AtomicInteger ok = new AtomicInteger();
+        final AtomicInteger rejected = new AtomicInteger();
+        final AtomicInteger errors = new AtomicInteger();
+        private long[] latencies = new long[1024];
+        private int size;
+
+        synchronized void record(long nanos, int status) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = nanos;
+            if (status >= 500) {
+                errors.incrementAndGet();
+            } else if (status >= 400) {
+                rejected.incrementAndGet();
+            } else {
+                ok.incrementAndGet();
+            }
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(latencies, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.carebloom.services.queue;
+
+import com.example.carebloom.models.QueueUser;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClinicQueueTest {
+
+    private static final long GAP = ClinicQueue.ORDER_KEY_GAP;
+
+    @Test
+    void testOnlyPatientsOffTheLongestIncreasingRunMove() {
+        ClinicQueue queue = queueOf(waiting("a", GAP), waiting("b", 2 * GAP), waiting("c", 3 * GAP),
+                                    waiting("d", 4 * GAP), waiting("e", 5 * GAP));
+
+        List<QueueUser> changed = queue.reorderWaiting(users(queue, "a", "c", "d", "b", "e"));
+
+        assertEquals(List.of("b"), ids(changed));
+        // Midpoint of its new neighbours d and e
+        assertEquals(4 * GAP + GAP / 2, queue.findById("b").getOrderKey());
+        assertEquals(List.of("a", "c", "d", "b", "e"), ids(queue.getWaiting()));
+        assertEquals(GAP, queue.findById("a").getOrderKey());
+        assertEquals(5 * GAP, queue.findById("e").getOrderKey());
+    }
+
+    @Test
+    void testMoveToHeadTakesMidpointAboveCurrentPatient() {
+        QueueUser current = waiting("now", GAP);
+        current.setStatus("in-progress");
+        ClinicQueue queue = queueOf(current, waiting("a", 2 * GAP), waiting("b", 3 * GAP), waiting("c", 4 * GAP));
+
+        List<QueueUser> changed = queue.reorderWaiting(users(queue, "c", "a", "b"));
+
+        assertEquals(List.of("c"), ids(changed));
+        assertEquals(GAP + GAP / 2, queue.findById("c").getOrderKey());
+        assertEquals("c", queue.peekWaiting().getId());
+    }
+
+    @Test
+    void testMoveToTailGoesOneGapAfterTheLast() {
+        ClinicQueue queue = queueOf(waiting("a", GAP), waiting("b", 2 * GAP), waiting("c", 3 * GAP));
+
+        List<QueueUser> changed = queue.reorderWaiting(users(queue, "b", "c", "a"));
+
+        assertEquals(List.of("a"), ids(changed));
+        assertEquals(4 * GAP, queue.findById("a").getOrderKey());
+
+        // A patient joining afterwards still goes behind the moved one
+        QueueUser late = waiting("late", 0);
+        queue.add(late);
+        assertEquals(5 * GAP, late.getOrderKey());
+    }
+
+    @Test
+    void testUnchangedOrderRewritesNothing() {
+        ClinicQueue queue = queueOf(waiting("a", GAP), waiting("b", 2 * GAP), waiting("c", 3 * GAP));
+
+        List<QueueUser> changed = queue.reorderWaiting(users(queue, "a", "b", "c"));
+
+        assertTrue(changed.isEmpty());
+        assertEquals(List.of("a", "b", "c"), ids(queue.getWaiting()));
+        assertEquals(2 * GAP, queue.findById("b").getOrderKey());
+    }
+
+    @Test
+    void testUnlistedPatientsKeepTheirOrderBehindTheListedOnes() {
+        ClinicQueue queue = queueOf(waiting("a", GAP), waiting("b", 2 * GAP), waiting("c", 3 * GAP));
+
+        queue.reorderWaiting(users(queue, "c"));
+
+        assertEquals(List.of("c", "a", "b"), ids(queue.getWaiting()));
+    }
+
+    @Test
+    void testExhaustedGapRespacesEveryKey() {
+        ClinicQueue queue = queueOf(waiting("a", 100), waiting("b", 101), waiting("c", 200));
+
+        // c has to go between a and b, which are only one apart
+        List<QueueUser> changed = queue.reorderWaiting(users(queue, "a", "c", "b"));
+
+        assertEquals(3, changed.size());
+        assertEquals(List.of("a", "c", "b"), ids(queue.getWaiting()));
+        assertEquals(GAP, queue.findById("a").getOrderKey());
+        assertEquals(2 * GAP, queue.findById("c").getOrderKey());
+        assertEquals(3 * GAP, queue.findById("b").getOrderKey());
+    }
+
+    private static ClinicQueue queueOf(QueueUser... users) {
+        return new ClinicQueue("clinic-1", "open", 0, List.of(users), ServiceTimeStats.withPrior(900));
+    }
+
+    private static QueueUser waiting(String id, long orderKey) {
+        QueueUser user = new QueueUser();
+        user.setId(id);
+        user.setClinicId("clinic-1");
+        user.setStatus("waiting");
+        user.setOrderKey(orderKey);
+        user.setPosition((int) (orderKey / GAP));
+        return user;
+    }
+
+    private static List<QueueUser> users(ClinicQueue queue, String... ids) {
+        List<QueueUser> users = new ArrayList<>();
+        for (String id : ids) {
+            users.add(queue.findById(id));
+        }
+        return users;
+    }
+
+    private static List<String> ids(Iterable<QueueUser> users) {
+        List<String> ids = new ArrayList<>();
+        users.forEach(user -> ids.add(user.getId()));
+        return ids;
+    }
+}
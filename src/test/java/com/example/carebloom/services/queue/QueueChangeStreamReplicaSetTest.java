@@ -0,0 +1,93 @@
+package com.example.carebloom.services.queue;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks that the local mongod can serve the queue change streams: it must be a replica set member, and a
+ * stream resumed from a saved token must deliver exactly the events written after it, as a restarted
+ * QueueChangeStreamListener relies on. Skips itself when no replica set is reachable on localhost:27017
+ * (or -Dqueue.change-stream.mongo-uri); start one with mongod --replSet rs0 and rs.initiate().
+ */
+public class QueueChangeStreamReplicaSetTest {
+
+    private final String uri = System.getProperty("queue.change-stream.mongo-uri", "mongodb://localhost:27017");
+
+    private MongoClient client;
+    private MongoCollection<Document> collection;
+
+    @BeforeEach
+    void connect() {
+        client = MongoClients.create(MongoClientSettings.builder()
+            .applyConnectionString(new ConnectionString(uri))
+            .applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(2, TimeUnit.SECONDS))
+            .build());
+        Document hello;
+        try {
+            hello = client.getDatabase("admin").runCommand(new Document("hello", 1));
+        } catch (RuntimeException e) {
+            assumeTrue(false, "No mongod reachable at " + uri);
+            return;
+        }
+        assumeTrue(hello.getString("setName") != null, "mongod at " + uri + " is not a replica set member");
+        MongoDatabase database = client.getDatabase("carebloom_change_stream_check");
+        collection = database.getCollection("queue_users");
+        collection.drop();
+    }
+
+    @AfterEach
+    void close() {
+        if (collection != null) {
+            collection.drop();
+        }
+        client.close();
+    }
+
+    @Test
+    void resumesAfterSavedTokenWithoutLosingEvents() {
+        BsonDocument savedToken;
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> stream = collection.watch().cursor()) {
+            collection.insertOne(new Document("_id", "first").append("clinicId", "c1"));
+            ChangeStreamDocument<Document> first = next(stream);
+            assertEquals("first", first.getDocumentKey().getString("_id").getValue());
+            savedToken = first.getResumeToken();
+        }
+
+        // Written while no listener is running, as during a restart
+        collection.insertOne(new Document("_id", "second").append("clinicId", "c1"));
+
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> stream =
+                 collection.watch().resumeAfter(savedToken).cursor()) {
+            ChangeStreamDocument<Document> second = next(stream);
+            assertEquals("second", second.getDocumentKey().getString("_id").getValue());
+        }
+    }
+
+    private static ChangeStreamDocument<Document> next(MongoChangeStreamCursor<ChangeStreamDocument<Document>> stream) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            ChangeStreamDocument<Document> event = stream.tryNext();
+            if (event != null) {
+                return event;
+            }
+        }
+        return fail("No change event within 10 s");
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.carebloom.services.queue;
+
+import com.example.carebloom.models.QueueUser;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class QueueWriteBehindJournalTest {
+
+    private QueueWriteBehindJournal journal;
+    // Operations of every executed bulk write, in order
+    private final List<String> written = new ArrayList<>();
+    private final List<String> batch = new ArrayList<>();
+    private int failingExecutes;
+    private int batchesBeforeFailure;
+    private int executes;
+
+    @BeforeEach
+    void setUp() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), any(Class.class)))
+            .thenAnswer(invocation -> recordingBulkOperations());
+
+        journal = new QueueWriteBehindJournal();
+        ReflectionTestUtils.setField(journal, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(journal, "flushBatchSize", 500);
+        ReflectionTestUtils.setField(journal, "instanceId", "instance-1");
+    }
+
+    @Test
+    void testChangesToOneUserCoalesceIntoOneWrite() {
+        journal.upsert(user("u1", "waiting"));
+        journal.upsert(user("u2", "waiting"));
+        journal.upsert(user("u1", "in-progress"));
+        journal.upsert(user("u3", "waiting"));
+        journal.delete(user("u3", "waiting"));
+        assertEquals(3, journal.pendingCount());
+
+        journal.flush();
+
+        assertEquals(List.of("replace u1 in-progress", "replace u2 waiting", "remove u3"), written);
+        assertEquals(1, executes);
+        assertEquals(0, journal.pendingCount());
+    }
+
+    @Test
+    void testClinicDeleteIsNotReorderedAroundLaterWrites() {
+        journal.upsert(user("u1", "waiting"));
+        journal.deleteClinic("clinic-1");
+        // Must land after the delete, not be folded into the write before it
+        journal.upsert(user("u1", "in-progress"));
+
+        journal.flush();
+
+        assertEquals(List.of("replace u1 waiting", "remove clinic clinic-1", "replace u1 in-progress"), written);
+    }
+
+    @Test
+    void testFailedBatchIsRetriedAheadOfLaterChanges() {
+        journal.upsert(user("u1", "waiting"));
+        journal.upsert(user("u2", "waiting"));
+        failingExecutes = 1;
+
+        journal.flush();
+
+        assertTrue(written.isEmpty());
+        assertEquals(2, journal.pendingCount());
+
+        journal.upsert(user("u1", "in-progress"));
+        journal.upsert(user("u3", "waiting"));
+        journal.flush();
+
+        assertEquals(List.of("replace u1 waiting", "replace u2 waiting", "replace u1 in-progress", "replace u3 waiting"),
+                     written);
+        assertEquals(0, journal.pendingCount());
+    }
+
+    @Test
+    void testFlushStopsAtTheFailedBatch() {
+        ReflectionTestUtils.setField(journal, "flushBatchSize", 2);
+        journal.upsert(user("u1", "waiting"));
+        journal.upsert(user("u2", "waiting"));
+        journal.upsert(user("u3", "waiting"));
+        journal.upsert(user("u4", "waiting"));
+        journal.upsert(user("u5", "waiting"));
+
+        // The first batch goes through, the second fails and the third is not attempted
+        failingExecutes = 1;
+        batchesBeforeFailure = 1;
+        journal.flush();
+
+        assertEquals(List.of("replace u1 waiting", "replace u2 waiting"), written);
+        assertEquals(3, journal.pendingCount());
+
+        journal.flush();
+
+        assertEquals(List.of("replace u1 waiting", "replace u2 waiting", "replace u3 waiting", "replace u4 waiting",
+                             "replace u5 waiting"), written);
+    }
+
+    private BulkOperations recordingBulkOperations() {
+        batch.clear();
+        return mock(BulkOperations.class, invocation -> {
+            Object[] args = invocation.getArguments();
+            switch (invocation.getMethod().getName()) {
+                case "replaceOne" -> {
+                    QueueUser user = (QueueUser) args[1];
+                    assertEquals("instance-1", user.getWrittenBy());
+                    batch.add("replace " + user.getId() + " " + user.getStatus());
+                }
+                case "remove" -> {
+                    Document query = ((Query) args[0]).getQueryObject();
+                    batch.add(query.containsKey("_id") ? "remove " + query.get("_id")
+                                                       : "remove clinic " + query.get("clinicId"));
+                }
+                case "execute" -> {
+                    executes++;
+                    if (failingExecutes > 0 && batchesBeforeFailure-- <= 0) {
+                        failingExecutes--;
+                        throw new IllegalStateException("write failed");
+                    }
+                    written.addAll(batch);
+                }
+                default -> { }
+            }
+            return null;
+        });
+    }
+
+    private static QueueUser user(String id, String status) {
+        QueueUser user = new QueueUser();
+        user.setId(id);
+        user.setClinicId("clinic-1");
+        user.setStatus(status);
+        return user;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.carebloom.services.queue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ServiceTimeStatsTest {
+
+    private static final double Z_90 = 1.2816;
+    // One logarithmic bucket is 15% wide, so interpolated quantiles are that close to the true value
+    private static final double BUCKET_TOLERANCE = 0.15;
+
+    @Test
+    void testEwmaStartsAtPriorAndMovesByAlpha() {
+        ServiceTimeStats stats = ServiceTimeStats.withPrior(600);
+        assertEquals(600, stats.meanSeconds(), 1e-9);
+
+        stats.record(900, 0.5);
+        assertEquals(750, stats.meanSeconds(), 1e-9);
+        stats.record(750, 0.2);
+        assertEquals(750, stats.meanSeconds(), 1e-9);
+        stats.record(1750, 0.1);
+        assertEquals(850, stats.meanSeconds(), 1e-9);
+        assertEquals(3, stats.getSampleCount());
+    }
+
+    @Test
+    void testLogarithmicBuckets() {
+        assertEquals(40, ServiceTimeStats.BUCKETS);
+        assertEquals(0, ServiceTimeStats.bucketOf(0));
+        assertEquals(0, ServiceTimeStats.bucketOf(29.9));
+        assertEquals(1, ServiceTimeStats.bucketOf(30));
+        assertEquals(1, ServiceTimeStats.bucketOf(34));
+        assertEquals(2, ServiceTimeStats.bucketOf(35));
+        assertEquals(ServiceTimeStats.BUCKETS - 1, ServiceTimeStats.bucketOf(24 * 3600));
+
+        // Each bucket is 15% wider than the one before
+        for (int bucket = 2; bucket < ServiceTimeStats.BUCKETS - 1; bucket++) {
+            double lower = 30 * Math.pow(1.15, bucket - 1);
+            assertEquals(bucket, ServiceTimeStats.bucketOf(lower * 1.01));
+            assertEquals(bucket - 1, ServiceTimeStats.bucketOf(lower * 0.99));
+        }
+    }
+
+    @Test
+    void testHistogramIsHalvedOnceItHoldsAThousandSamples() {
+        ServiceTimeStats stats = ServiceTimeStats.withPrior(600);
+        for (int i = 0; i < 1000; i++) {
+            stats.record(300, 0.1);
+        }
+        assertEquals(1000, histogramWeight(stats));
+
+        stats.record(300, 0.1);
+        assertEquals(501, histogramWeight(stats));
+        assertEquals(1001, stats.getSampleCount());
+    }
+
+    @Test
+    void testQuantilesOfAKnownDistribution() {
+        ServiceTimeStats stats = ServiceTimeStats.withPrior(600);
+        assertTrue(Double.isNaN(stats.quantileSeconds(0.5)));
+
+        // 60% of visits take 5 minutes, 40% take 20
+        for (int i = 0; i < 60; i++) {
+            stats.record(300, 0.1);
+        }
+        for (int i = 0; i < 40; i++) {
+            stats.record(1200, 0.1);
+        }
+
+        assertEquals(300, stats.quantileSeconds(0.5), 300 * BUCKET_TOLERANCE);
+        assertEquals(1200, stats.quantileSeconds(0.9), 1200 * BUCKET_TOLERANCE);
+        assertTrue(stats.quantileSeconds(0.5) <= stats.quantileSeconds(0.9));
+    }
+
+    @Test
+    void testWaitUsesPriorSpreadUntilFiveSamples() {
+        ServiceTimeStats stats = ServiceTimeStats.withPrior(600);
+
+        double[] wait = stats.waitSeconds(120, true, 3);
+
+        assertEquals(120 + 3 * 600, wait[0], 1e-9);
+        // Four visits (current plus three) with a spread of half the mean each
+        assertEquals(wait[0] + Z_90 * Math.sqrt(4) * 300, wait[1], 1e-6);
+    }
+
+    @Test
+    void testWaitQuantilesOfAKnownDistribution() {
+        ServiceTimeStats stats = ServiceTimeStats.withPrior(600);
+        for (int i = 0; i < 60; i++) {
+            stats.record(300, 0.1);
+        }
+        for (int i = 0; i < 40; i++) {
+            stats.record(1200, 0.1);
+        }
+
+        double spread = stats.quantileSeconds(0.9) - stats.quantileSeconds(0.5);
+        double[] wait = stats.waitSeconds(0, false, 4);
+
+        assertEquals(4 * stats.meanSeconds(), wait[0], 1e-9);
+        assertEquals(wait[0] + Math.sqrt(4) * spread, wait[1], 1e-6);
+
+        // Nobody ahead and nobody in progress: no wait at all
+        double[] none = stats.waitSeconds(0, false, 0);
+        assertEquals(0, none[0], 1e-9);
+        assertEquals(0, none[1], 1e-9);
+    }
+
+    @Test
+    void testHalvingLetsRecentVisitsDominateTheQuantiles() {
+        ServiceTimeStats stats = ServiceTimeStats.withPrior(600);
+        for (int i = 0; i < 1000; i++) {
+            stats.record(300, 0.1);
+        }
+        double before = stats.quantileSeconds(0.5);
+        for (int i = 0; i < 1000; i++) {
+            stats.record(1200, 0.1);
+        }
+
+        // Without halving both durations would weigh the same; the older ones now count for a quarter at most
+        long[] histogram = stats.toDocument("clinic-1").getHistogram();
+        long old = histogram[ServiceTimeStats.bucketOf(300)];
+        long recent = histogram[ServiceTimeStats.bucketOf(1200)];
+        assertTrue(old * 3 <= recent, "old " + old + ", recent " + recent);
+        assertEquals(300, before, 300 * BUCKET_TOLERANCE);
+        assertEquals(1200, stats.quantileSeconds(0.5), 1200 * BUCKET_TOLERANCE);
+
+        // The wait spread follows the halved histogram, which is now mostly 20 minute visits
+        double spread = stats.quantileSeconds(0.9) - stats.quantileSeconds(0.5);
+        double[] wait = stats.waitSeconds(0, true, 0);
+        assertEquals(Math.max(0, spread), wait[1], 1e-6);
+        assertTrue(spread < 1200 * BUCKET_TOLERANCE);
+    }
+
+    private static long histogramWeight(ServiceTimeStats stats) {
+        return Arrays.stream(stats.toDocument("clinic-1").getHistogram()).sum();
+    }
+}